@@ -268,6 +268,12 @@ public abstract class OpenAccount extends InternalAction implements CoreMethod<N
     
     /* -------------------------------------------------- Sending -------------------------------------------------- */
     
+    @Pure
+    @Override
+    public boolean requiresClientSignature() {
+        return true;
+    }
+    
     @Pure
     @Override
     public @Nonnull Signature<Compression<Pack>> getSignature(@Nonnull Compression<Pack> compression) throws ExternalException {
@@ -29,11 +29,15 @@ import net.digitalid.core.attribute.AttributeTypes;
 import net.digitalid.core.authorization.CredentialInternalQueryConverter;
 import net.digitalid.core.cache.attributes.AttributesQueryConverter;
 import net.digitalid.core.cache.attributes.AttributesReplyConverter;
+import net.digitalid.core.client.session.SessionInternalQueryConverter;
+import net.digitalid.core.client.session.SessionReplyConverter;
 import net.digitalid.core.handler.method.MethodIndex;
 import net.digitalid.core.handler.reply.instances.EmptyReplyConverter;
 import net.digitalid.core.identification.identity.SemanticType;
 import net.digitalid.core.identification.identity.SemanticTypeAttributesBuilder;
 import net.digitalid.core.identification.identity.SyntacticType;
+import net.digitalid.core.resolution.handlers.IdentitiesQueryConverter;
+import net.digitalid.core.resolution.handlers.IdentitiesReplyConverter;
 import net.digitalid.core.resolution.handlers.IdentityQueryConverter;
 import net.digitalid.core.resolution.handlers.IdentityReplyConverter;
 
@@ -50,12 +54,16 @@ public abstract class CoreInitializer {
     @Initialize(target = MethodIndex.class)
     public static void initializeMethodIndex() {
         MethodIndex.add(IdentityQueryConverter.INSTANCE);
+        MethodIndex.add(IdentitiesQueryConverter.INSTANCE);
         MethodIndex.add(OpenAccountConverter.INSTANCE);
         MethodIndex.add(AttributesQueryConverter.INSTANCE);
         MethodIndex.add(CredentialInternalQueryConverter.INSTANCE);
+        MethodIndex.add(SessionInternalQueryConverter.INSTANCE);
         
         SemanticType.map(AttributesReplyConverter.INSTANCE).load(SemanticTypeAttributesBuilder.withSyntacticBase(SyntacticType.BOOLEAN).build()); // TODO: Load the right attributes.
         SemanticType.map(IdentityReplyConverter.INSTANCE).load(SemanticTypeAttributesBuilder.withSyntacticBase(SyntacticType.BOOLEAN).build()); // TODO: Load the right attributes.
+        SemanticType.map(IdentitiesReplyConverter.INSTANCE).load(SemanticTypeAttributesBuilder.withSyntacticBase(SyntacticType.BOOLEAN).build()); // TODO: Load the right attributes.
+        SemanticType.map(SessionReplyConverter.INSTANCE).load(SemanticTypeAttributesBuilder.withSyntacticBase(SyntacticType.BOOLEAN).build()); // TODO: Load the right attributes.
         SemanticType.map(EmptyReplyConverter.INSTANCE).load(SemanticTypeAttributesBuilder.withSyntacticBase(SyntacticType.BOOLEAN).build()); // TODO: Load the right attributes.
         AttributeTypes.NAME.isLoaded(); // Maps the type in the main thread.
         OpenAccount.TYPE.isLoaded(); // Maps the type in the main thread.
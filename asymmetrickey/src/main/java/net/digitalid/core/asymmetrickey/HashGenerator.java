@@ -27,7 +27,7 @@ import net.digitalid.utility.validation.annotations.elements.NonNullableElements
 import net.digitalid.utility.validation.annotations.type.Utility;
 
 import net.digitalid.core.group.Element;
-import net.digitalid.core.parameters.Parameters;
+import net.digitalid.core.parameters.Digests;
 
 /**
  * Generates cryptographic hashes.
@@ -40,13 +40,17 @@ public abstract class HashGenerator {
      */
     @Pure
     public static @Nonnull BigInteger generateHash(@NonCaptured @Unmodified @Nonnull @NonNullableElements Element... elements) {
-        final @Nonnull MessageDigest instance = Parameters.HASH_FUNCTION.get().produce();
-        for (@Nonnull Element element : elements) {
-            final @Nonnull byte[] bytes = element.getValue().toByteArray();
-            instance.update(bytes); // TODO: Verify that this works!
-            instance.update((byte) 0);
+        final @Nonnull MessageDigest instance = Digests.acquire();
+        try {
+            for (@Nonnull Element element : elements) {
+                final @Nonnull byte[] bytes = element.getValue().toByteArray();
+                instance.update(bytes); // TODO: Verify that this works!
+                instance.update((byte) 0);
+            }
+            return new BigInteger(1, instance.digest());
+        } finally {
+            Digests.release(instance);
         }
-        return new BigInteger(1, instance.digest());
     }
     
 }
@@ -16,7 +16,6 @@
 package net.digitalid.core.asymmetrickey;
 
 import java.math.BigInteger;
-import java.security.SecureRandom;
 import java.util.Random;
 
 import javax.annotation.Nonnull;
@@ -38,6 +37,7 @@ import net.digitalid.core.group.ExponentBuilder;
 import net.digitalid.core.group.GroupWithKnownOrder;
 import net.digitalid.core.group.GroupWithKnownOrderBuilder;
 import net.digitalid.core.parameters.Parameters;
+import net.digitalid.core.parameters.Randomness;
 
 /**
  * This class generates new key pairs.
@@ -94,7 +94,7 @@ public class KeyPair extends RootClass {
      * Creates a new key pair with random values.
      */
     protected KeyPair() {
-        final @Nonnull Random random = new SecureRandom();
+        final @Nonnull Random random = Randomness.get();
         
         Log.debugging("Generating a new key pair of length " + (Parameters.FACTOR.get() + Parameters.FACTOR.get()));
         
@@ -183,6 +183,26 @@ public class KeyPair extends RootClass {
         return new KeyPair();
     }
     
+    /**
+     * Creates a new key pair with the given private and public key.
+     */
+    protected KeyPair(@Nonnull PrivateKey privateKey, @Nonnull PublicKey publicKey) {
+        this.privateKey = privateKey;
+        this.publicKey = publicKey;
+    }
+    
+    /**
+     * Returns a new key pair with the given private and public key, which have been generated previously.
+     * 
+     * @require privateKey.getCompositeGroup().getModulus().equals(publicKey.getCompositeGroup().getModulus()) : "The private and the public key belong together.";
+     */
+    @Pure
+    public static @Nonnull KeyPair with(@Nonnull PrivateKey privateKey, @Nonnull PublicKey publicKey) {
+        Require.that(privateKey.getCompositeGroup().getModulus().equals(publicKey.getCompositeGroup().getModulus())).orThrow("The private and the public key have to belong together.");
+        
+        return new KeyPair(privateKey, publicKey);
+    }
+    
     /* -------------------------------------------------- Object -------------------------------------------------- */
     
     @Pure
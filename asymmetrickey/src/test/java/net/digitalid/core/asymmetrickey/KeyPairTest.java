@@ -24,6 +24,9 @@ import net.digitalid.utility.time.Time;
 import net.digitalid.utility.time.TimeBuilder;
 
 import net.digitalid.core.group.Element;
+import net.digitalid.core.group.Exponent;
+import net.digitalid.core.group.GroupWithKnownOrder;
+import net.digitalid.core.group.GroupWithUnknownOrder;
 import net.digitalid.core.parameters.Parameters;
 
 import org.junit.BeforeClass;
@@ -72,4 +75,25 @@ public class KeyPairTest extends UtilityTest {
         }
     }
     
+    @Test
+    public void testChineseRemainderTheorem() {
+        final @Nonnull KeyPair keyPair = KeyPair.withRandomValues();
+        final @Nonnull GroupWithKnownOrder privateGroup = keyPair.getPrivateKey().getCompositeGroup();
+        final @Nonnull GroupWithUnknownOrder publicGroup = keyPair.getPublicKey().getCompositeGroup();
+        
+        for (int i = 0; i < 10; i++) {
+            final @Nonnull Element element = privateGroup.getRandomElement();
+            final @Nonnull Exponent exponent = privateGroup.getRandomExponent();
+            final @Nonnull Element expected = publicGroup.getElement(element.getValue()).pow(exponent);
+            assertThat(element.pow(exponent).getValue()).isEqualTo(expected.getValue());
+            assertThat(element.pow(exponent.getValue().negate()).getValue()).isEqualTo(expected.inverse().getValue());
+        }
+        
+        // The square group has a modulus that is not the product of two distinct primes and thus falls back to the regular exponentiation.
+        final @Nonnull GroupWithKnownOrder squareGroup = keyPair.getPrivateKey().getSquareGroup();
+        final @Nonnull Element element = squareGroup.getRandomElement();
+        final @Nonnull Exponent exponent = squareGroup.getRandomExponent();
+        assertThat(element.pow(exponent).getValue()).isEqualTo(element.getValue().modPow(exponent.getValue(), squareGroup.getModulus()));
+    }
+    
 }
@@ -0,0 +1,194 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.core.authorization;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.configuration.Configuration;
+import net.digitalid.utility.logging.Log;
+import net.digitalid.utility.threading.NamedThreadFactory;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
+import net.digitalid.utility.validation.annotations.math.Positive;
+import net.digitalid.utility.validation.annotations.type.Utility;
+
+import net.digitalid.core.parameters.Parameters;
+import net.digitalid.core.parameters.Randomness;
+
+/**
+ * The credential exponent pool pre-computes the prime exponents of credentials in background threads.
+ * As soon as the number of available primes drops below the {@link #watermark}, the pool is refilled up to its {@link #capacity}.
+ * 
+ * @see CredentialInternalQuery
+ */
+@Utility
+public abstract class CredentialExponentPool {
+    
+    /* -------------------------------------------------- Configuration -------------------------------------------------- */
+    
+    /**
+     * Stores whether the credential exponents are pre-computed in the background.
+     */
+    public static final @Nonnull Configuration<Boolean> activation = Configuration.with(true);
+    
+    /**
+     * Stores the number of primes that the pool is refilled to.
+     */
+    public static final @Nonnull Configuration<@Positive Integer> capacity = Configuration.with(64);
+    
+    /**
+     * Stores the number of primes below which the pool is refilled.
+     */
+    public static final @Nonnull Configuration<@NonNegative Integer> watermark = Configuration.with(16);
+    
+    /**
+     * Stores the number of threads that compute the primes in the background.
+     */
+    public static final @Nonnull Configuration<@Positive Integer> threads = Configuration.with(2);
+    
+    /* -------------------------------------------------- Generation -------------------------------------------------- */
+    
+    /**
+     * Returns a new probable prime with the configured bit-length of credential exponents.
+     */
+    @Pure
+    public static @Nonnull BigInteger generatePrime() {
+        return BigInteger.probablePrime(Parameters.CREDENTIAL_EXPONENT.get(), Randomness.get());
+    }
+    
+    /* -------------------------------------------------- Primes -------------------------------------------------- */
+    
+    /**
+     * Stores the primes that are ready to be handed out.
+     */
+    private static final @Nonnull BlockingQueue<@Nonnull BigInteger> primes = new LinkedBlockingQueue<>();
+    
+    /**
+     * Stores the primes that are currently in the queue in order to prevent the same prime from being added twice.
+     */
+    private static final @Nonnull Set<@Nonnull BigInteger> pooled = ConcurrentHashMap.newKeySet();
+    
+    /**
+     * Returns the number of primes that are ready to be handed out.
+     */
+    @Pure
+    public static @NonNegative int getSize() {
+        return primes.size();
+    }
+    
+    /* -------------------------------------------------- Refill -------------------------------------------------- */
+    
+    /**
+     * Stores the number of primes that are currently being computed.
+     */
+    private static final @Nonnull AtomicInteger pending = new AtomicInteger();
+    
+    private static @Nullable ThreadPoolExecutor executor;
+    
+    /**
+     * Returns the executor that computes the primes, whose threads terminate when they are idle.
+     */
+    @Impure
+    private static synchronized @Nonnull ThreadPoolExecutor getExecutor() {
+        if (executor == null) {
+            executor = new ThreadPoolExecutor(threads.get(), threads.get(), 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), NamedThreadFactory.with("CredentialExponentPool"));
+            executor.allowCoreThreadTimeOut(true);
+        }
+        return executor;
+    }
+    
+    /**
+     * Schedules the computation of as many primes as are missing to reach the capacity of the pool.
+     */
+    @Impure
+    public static synchronized void refill() {
+        if (!activation.get()) { return; }
+        final @Nonnull ThreadPoolExecutor executor = getExecutor();
+        for (int missing = capacity.get() - primes.size() - pending.get(); missing > 0; missing--) {
+            pending.incrementAndGet();
+            executor.execute(() -> {
+                try {
+                    final @Nonnull BigInteger prime = generatePrime();
+                    if (pooled.add(prime)) { primes.add(prime); }
+                } finally {
+                    pending.decrementAndGet();
+                }
+            });
+        }
+    }
+    
+    /**
+     * Fills the pool in the background if it is activated.
+     */
+    @Impure
+    public static void start() {
+        if (activation.get()) {
+            Log.information("Pre-computing $ credential exponents in the background.", capacity.get());
+            refill();
+        }
+    }
+    
+    /**
+     * Stops the computation of primes in the background.
+     * The primes that are still being computed are added to the pool once they are done.
+     */
+    @Impure
+    public static synchronized void shutDown() {
+        if (executor != null) {
+            // The tasks that never started are subtracted here, whereas the running tasks decrement the counter themselves when they finish.
+            final @Nonnull List<@Nonnull Runnable> dropped = executor.shutdownNow();
+            pending.addAndGet(-dropped.size());
+            executor = null;
+        }
+    }
+    
+    /* -------------------------------------------------- Retrieval -------------------------------------------------- */
+    
+    /**
+     * Returns a pre-computed prime or a newly computed prime if the pool is empty or not activated.
+     * Each pre-computed prime is removed from the pool atomically so that it is never handed out twice.
+     */
+    @Impure
+    public static @Nonnull BigInteger take() {
+        if (activation.get()) {
+            @Nullable BigInteger prime;
+            while ((prime = primes.poll()) != null) {
+                pooled.remove(prime);
+                // Primes that were computed with a previous configuration of the parameters are discarded.
+                if (prime.bitLength() == Parameters.CREDENTIAL_EXPONENT.get()) {
+                    if (primes.size() < watermark.get()) { refill(); }
+                    return prime;
+                }
+            }
+            Log.debugging("The credential exponent pool is empty.");
+            refill();
+        }
+        return generatePrime();
+    }
+    
+}
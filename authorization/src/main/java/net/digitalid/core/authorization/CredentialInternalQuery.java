@@ -16,7 +16,6 @@
 package net.digitalid.core.authorization;
 
 import java.math.BigInteger;
-import java.security.SecureRandom;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -61,6 +60,7 @@ import net.digitalid.core.identification.annotations.RoleType;
 import net.digitalid.core.identification.identifier.HostIdentifier;
 import net.digitalid.core.identification.identity.SemanticType;
 import net.digitalid.core.parameters.Parameters;
+import net.digitalid.core.parameters.Randomness;
 import net.digitalid.core.permissions.ReadOnlyAgentPermissions;
 import net.digitalid.core.restrictions.Restrictions;
 import net.digitalid.core.restrictions.RestrictionsConverter;
@@ -182,6 +182,17 @@ abstract class CredentialInternalQuery extends InternalQuery implements CoreMeth
 //        else { throw RequestException.get(RequestErrorCode.SIGNATURE, "A credential request must be signed by a client or with credentials."); }
 //    }
     
+    /* -------------------------------------------------- Client Signature -------------------------------------------------- */
+    
+    /**
+     * The credential is issued for the commitment of the client, which is only contained in a client signature.
+     */
+    @Pure
+    @Override
+    public boolean requiresClientSignature() {
+        return true;
+    }
+    
     /* -------------------------------------------------- Lodged -------------------------------------------------- */
     
     @Pure
@@ -250,16 +261,20 @@ abstract class CredentialInternalQuery extends InternalQuery implements CoreMeth
         
 //                Require.that(value != null).orThrow("See the constructor.");
                 final @Nonnull Element f = group.getElement(getValue());
-                final @Nonnull Exponent i = ExponentBuilder.withValue(new BigInteger(Parameters.HASH_SIZE.get(), new SecureRandom())).build();
+                final @Nonnull Exponent i = ExponentBuilder.withValue(new BigInteger(Parameters.HASH_SIZE.get(), Randomness.get())).build();
                 final @Nonnull byte[] restrictionsHash = XDF.hash(RestrictionsConverter.INSTANCE, restrictions);
                 final @Nonnull Exponent v = ExponentBuilder.withValue(new BigInteger(restrictionsHash)).build();
                 final @Nonnull ExposedExponent exposedExponent = ExposedExponentBuilder.withIssuer(getEntity().getIdentity()).withIssuance(issuance).withHashedOrSaltedPermissions(HashedOrSaltedAgentPermissions.with(getPermissions(), true)).withRole(getRelation()).withAttributeContent(null).build();
     
                 final @Nonnull HostCredential hostCredential = HostCredentialBuilder.withExposedExponent(exposedExponent).withI(i).build();
 //                final @Nonnull Exponent o = Exponent.withValue(ClientCredentialBuilder.getExposed(account.getIdentity(), issuance, permissions, relation, null).getHash());
-                final @Nonnull Exponent e = ExponentBuilder.withValue(BigInteger.probablePrime(Parameters.CREDENTIAL_EXPONENT.get(), new SecureRandom())).build();
+                final @Nonnull Exponent e = ExponentBuilder.withValue(CredentialExponentPool.take()).build();
         
-                final @Nonnull Element c = f.multiply(publicKey.getAi().pow(i)).multiply(publicKey.getAv().pow(v)).multiply(publicKey.getAo().pow(hostCredential.getO()).inverse()).pow(e.inverse(group)).inverse();
+                // The bases are moved into the group with known order so that all exponentiations use the Chinese Remainder Theorem.
+                final @Nonnull Element ai = group.getElement(publicKey.getAi().getValue());
+                final @Nonnull Element av = group.getElement(publicKey.getAv().getValue());
+                final @Nonnull Element ao = group.getElement(publicKey.getAo().getValue());
+                final @Nonnull Element c = f.multiply(ai.pow(i)).multiply(av.pow(v)).multiply(ao.pow(hostCredential.getO()).inverse()).pow(e.inverse(group)).inverse();
     
                 SQL.insert(HostCredentialConverter.INSTANCE, hostCredential, Unit.DEFAULT, null);
         
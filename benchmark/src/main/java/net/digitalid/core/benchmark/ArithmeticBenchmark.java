@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.core.benchmark;
+
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.method.Impure;
+
+import net.digitalid.core.asymmetrickey.KeyPair;
+import net.digitalid.core.asymmetrickey.PrivateKey;
+import net.digitalid.core.asymmetrickey.PublicKey;
+import net.digitalid.core.group.Element;
+import net.digitalid.core.group.Exponent;
+import net.digitalid.core.group.MontgomeryAccumulator;
+import net.digitalid.core.parameters.Randomness;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the arithmetic of immutable elements with the Montgomery accumulators. Run it with {@code -prof gc} to see the allocation rates as well.
+ */
+@Fork(1)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+public class ArithmeticBenchmark {
+    
+    /**
+     * The number of factors in the chains of multiplications.
+     */
+    private static final int FACTORS = 16;
+    
+    private Element publicElement;
+    
+    private Element privateElement;
+    
+    private Exponent exponent;
+    
+    private Element[] factors;
+    
+    private MontgomeryAccumulator[] accumulators;
+    
+    @Impure
+    @Setup
+    public void setUp() {
+        final @Nonnull KeyPair keyPair = BenchmarkEnvironment.getKeyPair();
+        final @Nonnull PublicKey publicKey = keyPair.getPublicKey();
+        final @Nonnull PrivateKey privateKey = keyPair.getPrivateKey();
+        
+        Randomness.useDeterministicSeed(BenchmarkEnvironment.SEED);
+        try {
+            this.publicElement = publicKey.getCompositeGroup().getRandomElement();
+            this.exponent = publicKey.getCompositeGroup().getRandomExponent();
+            this.factors = new Element[FACTORS];
+            this.accumulators = new MontgomeryAccumulator[FACTORS];
+            for (int i = 0; i < FACTORS; i++) {
+                factors[i] = publicKey.getCompositeGroup().getRandomElement();
+                accumulators[i] = factors[i].accumulate();
+            }
+        } finally {
+            Randomness.useEntropySeeds();
+        }
+        this.privateElement = privateKey.getCompositeGroup().getElement(publicElement.getValue());
+    }
+    
+    /**
+     * Raises an element of the public group with {@link BigInteger#modPow(BigInteger, BigInteger)}.
+     */
+    @Benchmark
+    public Element powWithUnknownOrder() {
+        return publicElement.pow(exponent);
+    }
+    
+    /**
+     * Raises an element of the private group modulo both factors.
+     */
+    @Benchmark
+    public Element powWithKnownOrder() {
+        return privateElement.pow(exponent);
+    }
+    
+    /**
+     * Raises an element of the public group with a Montgomery accumulator.
+     */
+    @Benchmark
+    public BigInteger powWithAccumulator() {
+        return publicElement.accumulate().pow(exponent.getValue()).getValue();
+    }
+    
+    /**
+     * Multiplies a chain of immutable elements.
+     */
+    @Benchmark
+    public BigInteger multiplyChainWithElements() {
+        @Nonnull Element product = factors[0];
+        for (int i = 1; i < FACTORS; i++) { product = product.multiply(factors[i]); }
+        return product.getValue();
+    }
+    
+    /**
+     * Multiplies a chain of elements with a mutable accumulator.
+     */
+    @Benchmark
+    public BigInteger multiplyChainWithAccumulator() {
+        final @Nonnull MontgomeryAccumulator accumulator = factors[0].accumulate();
+        for (int i = 1; i < FACTORS; i++) { accumulator.multiply(accumulators[i]); }
+        return accumulator.getValue();
+    }
+    
+}
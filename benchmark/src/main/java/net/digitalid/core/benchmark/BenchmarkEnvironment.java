@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.core.benchmark;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.validation.annotations.type.Utility;
+
+import net.digitalid.core.asymmetrickey.KeyPair;
+import net.digitalid.core.asymmetrickey.PrivateKeyRetriever;
+import net.digitalid.core.asymmetrickey.PublicKeyRetriever;
+import net.digitalid.core.identification.identifier.HostIdentifier;
+import net.digitalid.core.identification.identifier.InternalIdentifier;
+import net.digitalid.core.identification.identity.IdentifierResolver;
+import net.digitalid.core.parameters.Randomness;
+import net.digitalid.core.symmetrickey.SymmetricKey;
+
+/**
+ * The benchmark environment provides a key pair that is derived from a fixed seed and the retrievers that return it.
+ * Benchmarks thus run offline and operate on the same keys in every run as long as the {@link net.digitalid.core.parameters.Parameters parameters} stay the same.
+ */
+@Utility
+public abstract class BenchmarkEnvironment {
+    
+    /* -------------------------------------------------- Constants -------------------------------------------------- */
+    
+    /**
+     * The seed from which all keys and inputs of the benchmarks are derived.
+     */
+    public static final long SEED = 20_170_202L;
+    
+    /**
+     * The host whose key pair is used in the benchmarks.
+     */
+    public static final @Nonnull HostIdentifier HOST = HostIdentifier.with("digitalid.net");
+    
+    /**
+     * The subject about which the benchmarked signatures are issued.
+     */
+    public static final @Nonnull InternalIdentifier SUBJECT = InternalIdentifier.with("bob@digitalid.net");
+    
+    /**
+     * The message that is signed in the benchmarks.
+     */
+    public static final @Nonnull String MESSAGE = "This is an authentic message.";
+    
+    /* -------------------------------------------------- Key Pair -------------------------------------------------- */
+    
+    private static @Nullable KeyPair keyPair;
+    
+    /**
+     * Initializes the environment if this has not yet been done and returns the key pair of the {@link #HOST}.
+     */
+    @Impure
+    public static synchronized @Nonnull KeyPair getKeyPair() {
+        if (keyPair == null) {
+            SymmetricKey.initializeKeyLength();
+            IdentifierResolver.configuration.set(new BenchmarkIdentifierResolver());
+            
+            Randomness.useDeterministicSeed(SEED);
+            final @Nonnull KeyPair generatedKeyPair;
+            try {
+                generatedKeyPair = KeyPair.withRandomValues();
+            } finally {
+                Randomness.useEntropySeeds();
+            }
+            
+            PublicKeyRetriever.configuration.set((host, time) -> generatedKeyPair.getPublicKey());
+            PrivateKeyRetriever.configuration.set((host, time) -> generatedKeyPair.getPrivateKey());
+            keyPair = generatedKeyPair;
+        }
+        return keyPair;
+    }
+    
+}
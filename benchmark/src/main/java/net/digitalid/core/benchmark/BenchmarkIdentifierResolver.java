@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.core.benchmark;
+
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.method.PureWithSideEffects;
+import net.digitalid.utility.validation.annotations.type.Immutable;
+
+import net.digitalid.database.annotations.transaction.NonCommitting;
+import net.digitalid.database.exceptions.DatabaseException;
+import net.digitalid.database.exceptions.DatabaseExceptionBuilder;
+
+import net.digitalid.core.identification.identifier.HostIdentifier;
+import net.digitalid.core.identification.identifier.Identifier;
+import net.digitalid.core.identification.identifier.InternalNonHostIdentifier;
+import net.digitalid.core.identification.identity.Category;
+import net.digitalid.core.identification.identity.IdentifierResolver;
+import net.digitalid.core.identification.identity.Identity;
+
+/**
+ * This class implements the {@link IdentifierResolver} for benchmarks, which run without a database.
+ * The keys are assigned sequentially so that repeated runs resolve the same identifiers to the same keys.
+ */
+@Immutable
+public class BenchmarkIdentifierResolver extends IdentifierResolver {
+    
+    /* -------------------------------------------------- Key Loading -------------------------------------------------- */
+    
+    private final @Nonnull Map<@Nonnull Long, @Nonnull Identity> keys = new ConcurrentHashMap<>();
+    
+    @Pure
+    @Override
+    public @Nonnull Identity load(long key) throws DatabaseException {
+        final @Nullable Identity identity = keys.get(key);
+        if (identity == null) { throw DatabaseExceptionBuilder.withCause(new SQLException("There exists no identity with the key " + key + ".")).build(); }
+        return identity;
+    }
+    
+    /* -------------------------------------------------- Identifier Loading -------------------------------------------------- */
+    
+    private final @Nonnull Map<@Nonnull Identifier, @Nonnull Identity> identifiers = new ConcurrentHashMap<>();
+    
+    @Override
+    @NonCommitting
+    @PureWithSideEffects
+    public @Nullable Identity load(@Nonnull Identifier identifier) throws DatabaseException {
+        return identifiers.get(identifier);
+    }
+    
+    /* -------------------------------------------------- Identifier Mapping -------------------------------------------------- */
+    
+    private final @Nonnull AtomicLong nextKey = new AtomicLong(1);
+    
+    @Override
+    @NonCommitting
+    @PureWithSideEffects
+    public synchronized @Nonnull Identity map(@Nonnull Category category, @Nonnull Identifier address) throws DatabaseException {
+        final @Nullable Identity existing = identifiers.get(address);
+        if (existing != null) { return existing; }
+        final @Nonnull Identity identity = createIdentity(category, nextKey.getAndIncrement(), address);
+        identifiers.put(address, identity);
+        keys.put(identity.getKey(), identity);
+        return identity;
+    }
+    
+    /* -------------------------------------------------- Identifier Resolution -------------------------------------------------- */
+    
+    @Pure
+    @Override
+    public @Nonnull Identity resolve(@Nonnull Identifier identifier) throws DatabaseException {
+        final @Nullable Identity identity = load(identifier);
+        if (identity != null) { return identity; }
+        if (identifier instanceof HostIdentifier) {
+            return map(Category.HOST, identifier);
+        } else if (identifier instanceof InternalNonHostIdentifier) {
+            return map(Category.SEMANTIC_TYPE, identifier);
+        } else {
+            throw new UnsupportedOperationException("The benchmark identifier resolver does not support '" + identifier.getClass() + "'.");
+        }
+    }
+    
+}
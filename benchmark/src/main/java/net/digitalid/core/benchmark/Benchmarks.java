@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.core.benchmark;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Properties;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.console.Console;
+import net.digitalid.utility.validation.annotations.type.Utility;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks and optionally records their scores as a baseline or compares them against a recorded baseline.
+ * All benchmarks report the time per operation, which is why a higher score than in the baseline indicates a regression.
+ * 
+ * Usage: {@code Benchmarks [--record <file>] [--compare <file>] [--tolerance <percent>] [<regex>...]}
+ */
+@Utility
+public abstract class Benchmarks {
+    
+    /* -------------------------------------------------- Labels -------------------------------------------------- */
+    
+    /**
+     * Returns the label of the given result, which consists of the benchmark name and its parameters.
+     */
+    @Pure
+    static @Nonnull String getLabel(@Nonnull RunResult result) {
+        final @Nonnull StringBuilder label = new StringBuilder(result.getParams().getBenchmark());
+        for (@Nonnull String key : result.getParams().getParamsKeys()) {
+            label.append('[').append(key).append('=').append(result.getParams().getParam(key)).append(']');
+        }
+        return label.toString();
+    }
+    
+    /* -------------------------------------------------- Baseline -------------------------------------------------- */
+    
+    /**
+     * Records the scores of the given results in the given file.
+     */
+    @Impure
+    static void record(@Nonnull Collection<@Nonnull RunResult> results, @Nonnull File file) throws IOException {
+        final @Nonnull Properties baseline = new Properties();
+        for (@Nonnull RunResult result : results) {
+            baseline.setProperty(getLabel(result), Double.toString(result.getPrimaryResult().getScore()));
+        }
+        try (@Nonnull OutputStream outputStream = new FileOutputStream(file)) {
+            baseline.store(outputStream, "Benchmark baseline in " + results.iterator().next().getPrimaryResult().getScoreUnit());
+        }
+        Console.writeLine("The baseline has been recorded in '" + file.getPath() + "'.");
+    }
+    
+    /**
+     * Compares the scores of the given results with the baseline in the given file and returns the number of regressions.
+     */
+    @Impure
+    static int compare(@Nonnull Collection<@Nonnull RunResult> results, @Nonnull File file, double tolerance) throws IOException {
+        final @Nonnull Properties baseline = new Properties();
+        try (@Nonnull InputStream inputStream = new FileInputStream(file)) {
+            baseline.load(inputStream);
+        }
+        
+        int regressions = 0;
+        Console.writeLine();
+        Console.writeLine("Comparison with the baseline in '" + file.getPath() + "':");
+        for (@Nonnull RunResult result : results) {
+            final @Nonnull String label = getLabel(result);
+            final @Nullable String value = baseline.getProperty(label);
+            if (value == null) {
+                Console.writeLine("- " + label + ": not in the baseline");
+                continue;
+            }
+            final double expected = Double.parseDouble(value);
+            final double actual = result.getPrimaryResult().getScore();
+            final double change = (actual - expected) / expected * 100;
+            final boolean regression = change > tolerance;
+            if (regression) { regressions++; }
+            Console.writeLine(String.format("- %s: %.3f -> %.3f (%+.1f%%)%s", label, expected, actual, change, regression ? " REGRESSION" : ""));
+        }
+        return regressions;
+    }
+    
+    /* -------------------------------------------------- Main -------------------------------------------------- */
+    
+    /**
+     * Runs the benchmarks that match the given regular expressions or all benchmarks if no expression is given.
+     * The process exits with a non-zero status if a benchmark is slower than the baseline by more than the tolerance.
+     */
+    @Impure
+    public static void main(@Nonnull String[] arguments) throws IOException, RunnerException {
+        @Nullable File recordFile = null;
+        @Nullable File compareFile = null;
+        double tolerance = 10;
+        
+        final @Nonnull ChainedOptionsBuilder options = new OptionsBuilder();
+        boolean included = false;
+        for (int i = 0; i < arguments.length; i++) {
+            switch (arguments[i]) {
+                case "--record": recordFile = new File(arguments[++i]); break;
+                case "--compare": compareFile = new File(arguments[++i]); break;
+                case "--tolerance": tolerance = Double.parseDouble(arguments[++i]); break;
+                default: options.include(arguments[i]); included = true;
+            }
+        }
+        if (!included) { options.include(Benchmarks.class.getPackage().getName() + ".*Benchmark"); }
+        
+        final @Nonnull Collection<@Nonnull RunResult> results = new Runner(options.build()).run();
+        if (results.isEmpty()) { return; }
+        
+        if (recordFile != null) { record(results, recordFile); }
+        if (compareFile != null && compare(results, compareFile, tolerance) > 0) {
+            Console.writeLine("At least one benchmark is more than " + tolerance + "% slower than the baseline.");
+            System.exit(1);
+        }
+    }
+    
+}
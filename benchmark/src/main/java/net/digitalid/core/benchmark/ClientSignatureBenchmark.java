@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.core.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.conversion.converters.StringConverter;
+import net.digitalid.utility.exceptions.ExternalException;
+import net.digitalid.utility.time.TimeBuilder;
+
+import net.digitalid.core.asymmetrickey.PublicKey;
+import net.digitalid.core.commitment.SecretCommitment;
+import net.digitalid.core.commitment.SecretCommitmentBuilder;
+import net.digitalid.core.group.Exponent;
+import net.digitalid.core.group.PowerPool;
+import net.digitalid.core.parameters.Randomness;
+import net.digitalid.core.signature.client.ClientSignature;
+import net.digitalid.core.signature.client.ClientSignatureCreator;
+import net.digitalid.core.signature.exceptions.SignatureException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the creation and verification of client signatures with and without pre-computed powers.
+ * 
+ * @see PowerPool
+ */
+@Fork(1)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+public class ClientSignatureBenchmark {
+    
+    @Param({"false", "true"})
+    public boolean precomputation;
+    
+    private SecretCommitment commitment;
+    
+    private ClientSignature<String> signature;
+    
+    @Impure
+    @Setup
+    public void setUp() throws ExternalException {
+        final @Nonnull PublicKey publicKey = BenchmarkEnvironment.getKeyPair().getPublicKey();
+        PowerPool.activation.set(precomputation);
+        
+        Randomness.useDeterministicSeed(BenchmarkEnvironment.SEED);
+        final @Nonnull Exponent secret;
+        try {
+            secret = publicKey.getCompositeGroup().getRandomExponent();
+        } finally {
+            Randomness.useEntropySeeds();
+        }
+        
+        this.commitment = SecretCommitmentBuilder.withHost(BenchmarkEnvironment.HOST.resolve()).withTime(TimeBuilder.build()).withPublicKey(publicKey).withSecret(secret).build();
+        this.signature = sign();
+    }
+    
+    @Impure
+    @TearDown
+    public void tearDown() {
+        PowerPool.shutDown();
+    }
+    
+    /**
+     * Signs the message with the secret of the commitment.
+     */
+    @Benchmark
+    public ClientSignature<String> sign() {
+        return ClientSignatureCreator.sign(BenchmarkEnvironment.MESSAGE, StringConverter.INSTANCE).about(BenchmarkEnvironment.SUBJECT).with(commitment);
+    }
+    
+    /**
+     * Verifies a client signature with the commitment.
+     */
+    @Benchmark
+    public void verify() throws SignatureException {
+        signature.verifySignature();
+    }
+    
+}
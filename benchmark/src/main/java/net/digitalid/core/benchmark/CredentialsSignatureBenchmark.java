@@ -0,0 +1,183 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.core.benchmark;
+
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.conversion.converters.StringConverter;
+import net.digitalid.utility.conversion.exceptions.RecoveryException;
+import net.digitalid.utility.exceptions.ExternalException;
+import net.digitalid.utility.time.Time;
+import net.digitalid.utility.time.TimeBuilder;
+
+import net.digitalid.core.asymmetrickey.KeyPair;
+import net.digitalid.core.asymmetrickey.PublicKey;
+import net.digitalid.core.conversion.XDF;
+import net.digitalid.core.credential.ClientCredential;
+import net.digitalid.core.credential.ClientCredentialBuilder;
+import net.digitalid.core.credential.HostCredential;
+import net.digitalid.core.credential.HostCredentialBuilder;
+import net.digitalid.core.credential.utility.ExposedExponent;
+import net.digitalid.core.credential.utility.ExposedExponentBuilder;
+import net.digitalid.core.credential.utility.HashedOrSaltedAgentPermissions;
+import net.digitalid.core.group.Element;
+import net.digitalid.core.group.Exponent;
+import net.digitalid.core.group.ExponentBuilder;
+import net.digitalid.core.group.GroupWithKnownOrder;
+import net.digitalid.core.group.PowerPool;
+import net.digitalid.core.identification.identity.InternalNonHostIdentity;
+import net.digitalid.core.parameters.Parameters;
+import net.digitalid.core.parameters.Randomness;
+import net.digitalid.core.permissions.ReadOnlyAgentPermissions;
+import net.digitalid.core.restrictions.Restrictions;
+import net.digitalid.core.restrictions.RestrictionsBuilder;
+import net.digitalid.core.restrictions.RestrictionsConverter;
+import net.digitalid.core.signature.credentials.CredentialsSignature;
+import net.digitalid.core.signature.credentials.CredentialsSignatureCreator;
+import net.digitalid.core.signature.credentials.CredentialsVerification;
+import net.digitalid.core.signature.exceptions.ExpiredSignatureException;
+import net.digitalid.core.signature.exceptions.InvalidSignatureException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the creation and verification of credentials signatures with and without pre-computed powers.
+ * The credential is issued locally with the private key of the benchmark environment in the same way as
+ * the host issues it in the credential internal query so that no round trip to a host is required.
+ */
+@Fork(1)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+public class CredentialsSignatureBenchmark {
+    
+    @Param({"false", "true"})
+    public boolean precomputation;
+    
+    private ClientCredential credential;
+    
+    private CredentialsSignature<String> signature;
+    
+    /* -------------------------------------------------- Restrictions -------------------------------------------------- */
+    
+    /**
+     * Returns restrictions whose hash is interpreted as the same exponent by the issuance and the verification of credentials,
+     * which interpret the hash as a signed and an unsigned number respectively.
+     */
+    @Pure
+    private static @Nonnull Restrictions getRestrictions() {
+        for (int i = 0; i < 8; i++) {
+            final @Nonnull Restrictions restrictions = RestrictionsBuilder.withOnlyForClients((i & 1) != 0).withAssumeRoles((i & 2) != 0).withWriteToNode((i & 4) != 0).build();
+            if (XDF.hash(RestrictionsConverter.INSTANCE, restrictions)[0] >= 0) { return restrictions; }
+        }
+        throw new IllegalStateException("The hashes of all candidate restrictions are negative.");
+    }
+    
+    /* -------------------------------------------------- Issuance -------------------------------------------------- */
+    
+    /**
+     * Issues a credential for the subject of the benchmark environment with the given client secret.
+     * The credential is about the subject itself so that the signature shows the restrictions instead of proving their hash.
+     */
+    @Impure
+    private static @Nonnull ClientCredential issue(@Nonnull Exponent u) throws ExternalException {
+        final @Nonnull KeyPair keyPair = BenchmarkEnvironment.getKeyPair();
+        final @Nonnull PublicKey publicKey = keyPair.getPublicKey();
+        final @Nonnull GroupWithKnownOrder group = keyPair.getPrivateKey().getCompositeGroup();
+        
+        final @Nonnull InternalNonHostIdentity issuer = BenchmarkEnvironment.SUBJECT.resolve().castTo(InternalNonHostIdentity.class);
+        final @Nonnull Time issuance = TimeBuilder.build().roundDown(Time.HALF_HOUR);
+        final @Nonnull ExposedExponent exposedExponent = ExposedExponentBuilder.withIssuer(issuer).withIssuance(issuance).withHashedOrSaltedPermissions(HashedOrSaltedAgentPermissions.with(ReadOnlyAgentPermissions.NONE, true)).withRole(null).withAttributeContent(null).build();
+        
+        final @Nonnull Restrictions restrictions = getRestrictions();
+        final @Nonnull Exponent v = ExponentBuilder.withValue(new BigInteger(1, XDF.hash(RestrictionsConverter.INSTANCE, restrictions))).build();
+        final @Nonnull Exponent i = ExponentBuilder.withValue(new BigInteger(Parameters.HASH_SIZE.get(), Randomness.get())).build();
+        final @Nonnull Exponent e = ExponentBuilder.withValue(BigInteger.probablePrime(Parameters.CREDENTIAL_EXPONENT.get(), Randomness.get())).build();
+        final @Nonnull Exponent b = ExponentBuilder.withValue(BigInteger.ZERO).build();
+        final @Nonnull HostCredential hostCredential = HostCredentialBuilder.withExposedExponent(exposedExponent).withI(i).build();
+        
+        // The commitment of the client is au^u, from which the host computes c such that ao^o = c^e * au^u * ai^i * av^v.
+        final @Nonnull Element f = group.getElement(publicKey.getAu().pow(u).getValue());
+        final @Nonnull Element ai = group.getElement(publicKey.getAi().getValue());
+        final @Nonnull Element av = group.getElement(publicKey.getAv().getValue());
+        final @Nonnull Element ao = group.getElement(publicKey.getAo().getValue());
+        final @Nonnull Element c = f.multiply(ai.pow(i)).multiply(av.pow(v)).multiply(ao.pow(hostCredential.getO()).inverse()).pow(e.inverse(group)).inverse();
+        
+        return ClientCredentialBuilder.withExposedExponent(exposedExponent).withC(publicKey.getCompositeGroup().getElement(c.getValue())).withE(e).withB(b).withU(u).withV(v).withI(i).withRestrictions(restrictions).build();
+    }
+    
+    /* -------------------------------------------------- Setup -------------------------------------------------- */
+    
+    @Impure
+    @Setup
+    public void setUp() throws ExternalException {
+        final @Nonnull PublicKey publicKey = BenchmarkEnvironment.getKeyPair().getPublicKey();
+        PowerPool.activation.set(precomputation);
+        
+        Randomness.useDeterministicSeed(BenchmarkEnvironment.SEED);
+        try {
+            this.credential = issue(publicKey.getCompositeGroup().getRandomExponent());
+        } finally {
+            Randomness.useEntropySeeds();
+        }
+        
+        this.signature = sign();
+    }
+    
+    @Impure
+    @TearDown
+    public void tearDown() {
+        PowerPool.shutDown();
+        CredentialsVerification.shutDown();
+    }
+    
+    /* -------------------------------------------------- Benchmarks -------------------------------------------------- */
+    
+    /**
+     * Signs the message with the credential, which is randomized for every signature.
+     */
+    @Benchmark
+    public CredentialsSignature<String> sign() {
+        return CredentialsSignatureCreator.sign(BenchmarkEnvironment.MESSAGE, StringConverter.INSTANCE).to(BenchmarkEnvironment.SUBJECT).lodged(false).with(credential);
+    }
+    
+    /**
+     * Verifies a credentials signature with the public key of the issuing host.
+     */
+    @Benchmark
+    public void verify() throws InvalidSignatureException, ExpiredSignatureException, RecoveryException {
+        signature.verifySignature();
+    }
+    
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.core.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.method.Impure;
+
+import net.digitalid.core.asymmetrickey.KeyPair;
+import net.digitalid.core.asymmetrickey.PrivateKey;
+import net.digitalid.core.asymmetrickey.PublicKey;
+import net.digitalid.core.group.Element;
+import net.digitalid.core.group.Exponent;
+import net.digitalid.core.parameters.Randomness;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the exponentiations in the groups of a key pair.
+ */
+@Fork(1)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+public class GroupBenchmark {
+    
+    private PublicKey publicKey;
+    
+    private PrivateKey privateKey;
+    
+    private Element publicElement;
+    
+    private Element privateElement;
+    
+    private Exponent exponent;
+    
+    private Element ciphertext;
+    
+    @Impure
+    @Setup
+    public void setUp() {
+        final @Nonnull KeyPair keyPair = BenchmarkEnvironment.getKeyPair();
+        this.publicKey = keyPair.getPublicKey();
+        this.privateKey = keyPair.getPrivateKey();
+        
+        Randomness.useDeterministicSeed(BenchmarkEnvironment.SEED);
+        try {
+            this.publicElement = publicKey.getCompositeGroup().getRandomElement();
+            this.exponent = publicKey.getCompositeGroup().getRandomExponent();
+        } finally {
+            Randomness.useEntropySeeds();
+        }
+        this.privateElement = privateKey.getCompositeGroup().getElement(publicElement.getValue());
+        this.ciphertext = publicElement.pow(publicKey.getE());
+    }
+    
+    /**
+     * Raises an element of the public group, in which the order is unknown.
+     */
+    @Benchmark
+    public Element powWithUnknownOrder() {
+        return publicElement.pow(exponent);
+    }
+    
+    /**
+     * Raises an element of the private group, in which the order and thus the factors are known.
+     */
+    @Benchmark
+    public Element powWithKnownOrder() {
+        return privateElement.pow(exponent);
+    }
+    
+    /**
+     * Encrypts an element with the public exponent e.
+     */
+    @Benchmark
+    public Element powE() {
+        return publicElement.pow(publicKey.getE());
+    }
+    
+    /**
+     * Decrypts an element with the private exponent d.
+     */
+    @Benchmark
+    public Element powD() {
+        return privateKey.powD(ciphertext);
+    }
+    
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.core.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.conversion.converters.StringConverter;
+
+import net.digitalid.core.asymmetrickey.PublicKey;
+import net.digitalid.core.identification.identifier.InternalIdentifier;
+import net.digitalid.core.signature.exceptions.SignatureException;
+import net.digitalid.core.signature.host.HostSignature;
+import net.digitalid.core.signature.host.HostSignatureCreator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the creation and verification of host signatures.
+ */
+@Fork(1)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+public class HostSignatureBenchmark {
+    
+    private static final InternalIdentifier SIGNER = InternalIdentifier.with("alice@digitalid.net");
+    
+    private PublicKey publicKey;
+    
+    private HostSignature<String> signature;
+    
+    @Impure
+    @Setup
+    public void setUp() {
+        this.publicKey = BenchmarkEnvironment.getKeyPair().getPublicKey();
+        this.signature = sign();
+    }
+    
+    /**
+     * Signs the message with the private key of the host.
+     */
+    @Benchmark
+    public HostSignature<String> sign() {
+        return HostSignatureCreator.sign(BenchmarkEnvironment.MESSAGE, StringConverter.INSTANCE).about(BenchmarkEnvironment.SUBJECT).as(SIGNER);
+    }
+    
+    /**
+     * Verifies a host signature with the public key of the host.
+     */
+    @Benchmark
+    public void verify() throws SignatureException {
+        signature.verifySignature(publicKey);
+    }
+    
+}
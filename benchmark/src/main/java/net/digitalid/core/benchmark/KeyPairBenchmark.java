@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.core.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import net.digitalid.utility.annotations.method.Impure;
+
+import net.digitalid.core.asymmetrickey.KeyPair;
+import net.digitalid.core.parameters.Randomness;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the generation of key pairs.
+ * Since the duration depends heavily on how many candidates are tested until the safe primes are found,
+ * every iteration generates its key pair from the same sequence of seeds.
+ */
+@Fork(1)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+public class KeyPairBenchmark {
+    
+    private long iteration = 0;
+    
+    @Impure
+    @Setup(Level.Iteration)
+    public void setUp() {
+        Randomness.useDeterministicSeed(BenchmarkEnvironment.SEED + iteration++);
+    }
+    
+    @Impure
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        Randomness.useEntropySeeds();
+    }
+    
+    /**
+     * Generates a new key pair with the configured parameters.
+     */
+    @Benchmark
+    public KeyPair generate() {
+        return KeyPair.withRandomValues();
+    }
+    
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.core.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import net.digitalid.utility.annotations.method.Impure;
+
+import net.digitalid.core.parameters.Randomness;
+import net.digitalid.core.symmetrickey.InitializationVector;
+import net.digitalid.core.symmetrickey.InitializationVectorBuilder;
+import net.digitalid.core.symmetrickey.SymmetricKey;
+import net.digitalid.core.symmetrickey.SymmetricKeyBuilder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the encryption and decryption of byte arrays with symmetric keys.
+ */
+@Fork(1)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+public class SymmetricKeyBenchmark {
+    
+    @Param({"1024", "65536"})
+    public int size;
+    
+    private SymmetricKey symmetricKey;
+    
+    private InitializationVector initializationVector;
+    
+    private byte[] plaintext;
+    
+    private byte[] ciphertext;
+    
+    @Impure
+    @Setup
+    public void setUp() {
+        BenchmarkEnvironment.getKeyPair();
+        
+        Randomness.useDeterministicSeed(BenchmarkEnvironment.SEED);
+        try {
+            this.symmetricKey = SymmetricKeyBuilder.build();
+            this.initializationVector = InitializationVectorBuilder.build();
+            this.plaintext = new byte[size];
+            Randomness.get().nextBytes(plaintext);
+        } finally {
+            Randomness.useEntropySeeds();
+        }
+        this.ciphertext = symmetricKey.encrypt(initializationVector, plaintext, 0, plaintext.length);
+    }
+    
+    /**
+     * Encrypts the plaintext with the symmetric key.
+     */
+    @Benchmark
+    public byte[] encrypt() {
+        return symmetricKey.encrypt(initializationVector, plaintext, 0, plaintext.length);
+    }
+    
+    /**
+     * Decrypts the ciphertext with the symmetric key.
+     */
+    @Benchmark
+    public byte[] decrypt() {
+        return symmetricKey.decrypt(initializationVector, ciphertext, 0, ciphertext.length);
+    }
+    
+}
@@ -0,0 +1,281 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.core.cache;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.configuration.Configuration;
+import net.digitalid.utility.time.Time;
+import net.digitalid.utility.tuples.Pair;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
+import net.digitalid.utility.validation.annotations.math.Positive;
+import net.digitalid.utility.validation.annotations.type.Immutable;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+import net.digitalid.utility.validation.annotations.type.Utility;
+
+import net.digitalid.core.client.role.Role;
+import net.digitalid.core.identification.identity.InternalIdentity;
+import net.digitalid.core.identification.identity.SemanticType;
+import net.digitalid.core.signature.attribute.AttributeValue;
+
+/**
+ * This class keeps the decoded and verified attribute values of the {@link CacheModule cache module} in memory
+ * so that repeated lookups neither query the database nor unpack and decode the attribute values again.
+ * The entries are stored under the requester, the requestee and the attribute type together with their expiration time.
+ * They are populated and invalidated by the cache module after committing the transaction in which the database was read or written,
+ * and the least recently used entry is evicted beyond the {@link #capacity}.
+ * 
+ * @see CacheModule
+ */
+@Utility
+public abstract class AttributeValueCache {
+    
+    /* -------------------------------------------------- Configuration -------------------------------------------------- */
+    
+    /**
+     * Stores whether the attribute values are cached in memory.
+     */
+    public static final @Nonnull Configuration<Boolean> activation = Configuration.with(true);
+    
+    /**
+     * Stores the maximal number of attribute values that are cached in memory.
+     */
+    public static final @Nonnull Configuration<@Positive Integer> capacity = Configuration.with(4_096);
+    
+    /* -------------------------------------------------- Keys -------------------------------------------------- */
+    
+    /**
+     * A key identifies the attribute value of a requestee with a given type as seen by a given requester.
+     */
+    @Immutable
+    private static final class Key {
+        
+        private final long requester;
+        
+        private final long requestee;
+        
+        private final long type;
+        
+        private Key(@Nullable Role requester, @Nonnull InternalIdentity requestee, @Nonnull SemanticType type) {
+            this.requester = requester != null ? requester.getKey() : 0;
+            this.requestee = requestee.getKey();
+            this.type = type.getKey();
+        }
+        
+        @Pure
+        @Override
+        public boolean equals(@Nullable Object object) {
+            if (object == this) { return true; }
+            if (!(object instanceof Key)) { return false; }
+            final @Nonnull Key that = (Key) object;
+            return this.requester == that.requester && this.requestee == that.requestee && this.type == that.type;
+        }
+        
+        @Pure
+        @Override
+        public int hashCode() {
+            return Objects.hash(requester, requestee, type);
+        }
+        
+    }
+    
+    /* -------------------------------------------------- Entries -------------------------------------------------- */
+    
+    /**
+     * An entry stores an attribute value, which is null if the attribute is not available, together with its expiration time.
+     * The number of reads determines whether the attribute value is refreshed ahead of its expiration.
+     */
+    @Mutable
+    private static final class Entry {
+        
+        private final @Nullable AttributeValue value;
+        
+        private final @Nonnull Time expiration;
+        
+        private final @Nonnull AtomicInteger reads = new AtomicInteger();
+        
+        private Entry(@Nullable AttributeValue value, @Nonnull Time expiration) {
+            this.value = value;
+            this.expiration = expiration;
+        }
+        
+    }
+    
+    /**
+     * Maps the keys to the entries in the order in which they were accessed.
+     */
+    private static final @Nonnull Map<@Nonnull Key, @Nonnull Entry> entries = Collections.synchronizedMap(new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+        
+        @Pure
+        @Override
+        protected boolean removeEldestEntry(@Nonnull Map.Entry<Key, Entry> eldest) {
+            return size() > capacity.get();
+        }
+        
+    });
+    
+    /**
+     * Returns the number of attribute values that are cached in memory.
+     */
+    @Pure
+    public static @NonNegative int getSize() {
+        return entries.size();
+    }
+    
+    /* -------------------------------------------------- Metrics -------------------------------------------------- */
+    
+    private static final @Nonnull AtomicLong hits = new AtomicLong();
+    
+    /**
+     * Returns the number of lookups that were answered from memory.
+     */
+    @Pure
+    public static @NonNegative long getHits() {
+        return hits.get();
+    }
+    
+    private static final @Nonnull AtomicLong misses = new AtomicLong();
+    
+    /**
+     * Returns the number of lookups that had to be answered by the database.
+     */
+    @Pure
+    public static @NonNegative long getMisses() {
+        return misses.get();
+    }
+    
+    /**
+     * Resets the numbers of hits and misses.
+     */
+    @Impure
+    public static void resetMetrics() {
+        hits.set(0);
+        misses.set(0);
+    }
+    
+    /* -------------------------------------------------- Retrieval -------------------------------------------------- */
+    
+    /**
+     * Returns the cached attribute value with the given type of the given requestee as queried by the given requester
+     * or null if no attribute value is cached in memory that is still fresh at the given time.
+     * 
+     * @return a pair of true and the cached attribute value or null if it is not available, or null if nothing is cached.
+     */
+    @Impure
+    static @Nullable Pair<@Nonnull Boolean, @Nullable AttributeValue> get(@Nullable Role requester, @Nonnull InternalIdentity requestee, @Nonnull @NonNegative Time expiration, @Nonnull SemanticType type) {
+        if (!activation.get()) { return null; }
+        
+        final @Nullable Entry entry = entries.get(new Key(requester, requestee, type));
+        if (entry != null && entry.expiration.isGreaterThanOrEqualTo(expiration)) {
+            hits.incrementAndGet();
+            entry.reads.incrementAndGet();
+            return Pair.of(true, entry.value);
+        } else {
+            misses.incrementAndGet();
+            return null;
+        }
+    }
+    
+    /**
+     * Returns whether the cached attribute value with the given type of the given requestee as queried by the given requester
+     * expires before the given time and has been read at least the given number of times, in which case it should be refreshed.
+     */
+    @Pure
+    static boolean isExpiringSoon(@Nullable Role requester, @Nonnull InternalIdentity requestee, @Nonnull SemanticType type, @Nonnull Time time, @Positive int reads) {
+        final @Nullable Entry entry = entries.get(new Key(requester, requestee, type));
+        return entry != null && entry.expiration.isLessThan(time) && entry.reads.get() >= reads;
+    }
+    
+    /* -------------------------------------------------- Population -------------------------------------------------- */
+    
+    /**
+     * Stores the number of invalidations so that an attribute value which was read before an invalidation is not cached afterwards.
+     */
+    private static long generation = 0;
+    
+    /**
+     * Returns the current generation, which has to be determined before the attribute value to be cached is read from the database.
+     */
+    @Pure
+    static long getGeneration() {
+        synchronized (entries) {
+            return generation;
+        }
+    }
+    
+    /**
+     * Caches the given attribute value, which is null if the attribute is not available, until the given expiration time
+     * unless an invalidation happened since the given generation.
+     */
+    @Impure
+    static void put(@Nullable Role requester, @Nonnull InternalIdentity requestee, @Nonnull Time expiration, @Nonnull SemanticType type, @Nullable AttributeValue value, long generation) {
+        if (!activation.get()) { return; }
+        
+        synchronized (entries) {
+            if (generation == AttributeValueCache.generation) { entries.put(new Key(requester, requestee, type), new Entry(value, expiration)); }
+        }
+    }
+    
+    /* -------------------------------------------------- Invalidation -------------------------------------------------- */
+    
+    /**
+     * Removes the cached attribute values with the given type of the given requestee for all requesters.
+     * 
+     * @return the generation after this invalidation.
+     */
+    @Impure
+    static long invalidate(@Nonnull InternalIdentity requestee, @Nonnull SemanticType type) {
+        synchronized (entries) {
+            entries.keySet().removeIf(key -> key.requestee == requestee.getKey() && key.type == type.getKey());
+            return ++generation;
+        }
+    }
+    
+    /**
+     * Removes all the cached attribute values of the given requestee.
+     * 
+     * @return the generation after this invalidation.
+     */
+    @Impure
+    static long invalidate(@Nonnull InternalIdentity requestee) {
+        synchronized (entries) {
+            entries.keySet().removeIf(key -> key.requestee == requestee.getKey());
+            return ++generation;
+        }
+    }
+    
+    /**
+     * Removes all cached attribute values from memory.
+     */
+    @Impure
+    public static void clear() {
+        synchronized (entries) {
+            entries.clear();
+            generation++;
+        }
+    }
+    
+}
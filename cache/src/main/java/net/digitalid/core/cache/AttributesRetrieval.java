@@ -0,0 +1,341 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.core.cache;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.concurrency.map.ConcurrentHashMapBuilder;
+import net.digitalid.utility.concurrency.map.ConcurrentMap;
+import net.digitalid.utility.configuration.Configuration;
+import net.digitalid.utility.exceptions.ExternalException;
+import net.digitalid.utility.functional.failable.FailableBinaryFunction;
+import net.digitalid.utility.functional.failable.FailableUnaryFunction;
+import net.digitalid.utility.logging.Log;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
+import net.digitalid.utility.validation.annotations.math.Positive;
+import net.digitalid.utility.validation.annotations.type.Immutable;
+import net.digitalid.utility.validation.annotations.type.Utility;
+
+import net.digitalid.database.annotations.transaction.NonCommitting;
+
+import net.digitalid.core.client.role.Role;
+import net.digitalid.core.exceptions.request.RequestErrorCode;
+import net.digitalid.core.exceptions.request.RequestException;
+import net.digitalid.core.exceptions.request.RequestExceptionBuilder;
+import net.digitalid.core.identification.identifier.HostIdentifier;
+import net.digitalid.core.identification.identity.InternalIdentity;
+import net.digitalid.core.identification.identity.SemanticType;
+import net.digitalid.core.parameters.BoundedExecutor;
+import net.digitalid.core.signature.attribute.AttributeValue;
+import net.digitalid.core.typeset.FreezableAttributeTypeSet;
+
+/**
+ * This class coalesces the concurrent retrievals of the same attribute types of the same requestee by the same requester.
+ * The first caller retrieves the attribute values from the requestee's host and stores them in the {@link CacheModule cache},
+ * while concurrent callers with the same request wait for and share its result instead of sending the same query again.
+ * In addition, this class provides the executor on which the attribute values of different hosts are retrieved in parallel
+ * and on which stale or soon expiring attribute values are refreshed in the background.
+ * 
+ * @see Cache
+ */
+@Utility
+public abstract class AttributesRetrieval {
+    
+    /* -------------------------------------------------- Configuration -------------------------------------------------- */
+    
+    /**
+     * Stores whether concurrent retrievals of the same attribute values are coalesced.
+     */
+    public static final @Nonnull Configuration<Boolean> activation = Configuration.with(true);
+    
+    /**
+     * Stores the number of threads that retrieve the attribute values of different hosts in parallel.
+     */
+    public static final @Nonnull Configuration<@Positive Integer> threads = Configuration.with(8);
+    
+    /**
+     * Stores the number of milliseconds after which a caller stops waiting for the retrieval of another caller and fails.
+     */
+    public static final @Nonnull Configuration<@Positive Integer> timeout = Configuration.with(10_000);
+    
+    /* -------------------------------------------------- Executor -------------------------------------------------- */
+    
+    private static final @Nonnull BoundedExecutor executor = BoundedExecutor.with("AttributesRetrieval", threads);
+    
+    /**
+     * Stops the threads that retrieve attribute values.
+     */
+    @Impure
+    public static void shutDown() {
+        executor.shutDown();
+    }
+    
+    /**
+     * Computes the given callable on the executor and commits the transaction of the executing thread afterwards.
+     */
+    @Impure
+    static <RESULT> @Nonnull CompletableFuture<RESULT> compute(@Nonnull Callable<RESULT> callable) {
+        return executor.compute(callable);
+    }
+    
+    /**
+     * Waits for the given future and rethrows the exception with which its computation failed.
+     */
+    @Impure
+    static <RESULT> RESULT join(@Nonnull CompletableFuture<RESULT> future) throws ExternalException {
+        return BoundedExecutor.join(future);
+    }
+    
+    /* -------------------------------------------------- Keys -------------------------------------------------- */
+    
+    /**
+     * A key identifies the retrieval of a set of attribute types of a requestee by a requester.
+     */
+    @Immutable
+    private static final class Key {
+        
+        private final long requester;
+        
+        private final long requestee;
+        
+        private final @Nonnull Set<@Nonnull Long> types = new HashSet<>();
+        
+        private Key(@Nullable Role requester, @Nonnull InternalIdentity requestee, @Nonnull FreezableAttributeTypeSet types) {
+            this.requester = requester != null ? requester.getKey() : 0;
+            this.requestee = requestee.getKey();
+            for (@Nonnull SemanticType type : types) { this.types.add(type.getKey()); }
+        }
+        
+        @Pure
+        @Override
+        public boolean equals(@Nullable Object object) {
+            if (object == this) { return true; }
+            if (!(object instanceof Key)) { return false; }
+            final @Nonnull Key that = (Key) object;
+            return this.requester == that.requester && this.requestee == that.requestee && this.types.equals(that.types);
+        }
+        
+        @Pure
+        @Override
+        public int hashCode() {
+            return Objects.hash(requester, requestee, types);
+        }
+        
+    }
+    
+    /* -------------------------------------------------- Flights -------------------------------------------------- */
+    
+    /**
+     * A flight is a retrieval in progress, whose result is shared with all the callers that wait for it.
+     */
+    @Immutable
+    private static final class Flight {
+        
+        private final @Nonnull Thread thread = Thread.currentThread();
+        
+        private final @Nonnull CompletableFuture<@Nonnull Map<@Nonnull SemanticType, @Nullable AttributeValue>> result = new CompletableFuture<>();
+        
+    }
+    
+    /**
+     * Waits for the given flight of another caller that retrieves the given types of the given requestee at most for the configured {@link #timeout}.
+     * The wait is bounded because the other caller might wait for a lock that is held by the transaction of the current caller.
+     * 
+     * @throws RequestException with the code {@link RequestErrorCode#EXTERNAL} if the flight did not complete in time.
+     */
+    @Impure
+    private static @Nonnull Map<@Nonnull SemanticType, @Nullable AttributeValue> await(@Nonnull InternalIdentity requestee, @Nonnull FreezableAttributeTypeSet types, @Nonnull Flight flight) throws ExternalException {
+        Log.debugging("Waiting for the ongoing retrieval of $ from $.", types, requestee.getAddress());
+        try {
+            return flight.result.get(timeout.get(), TimeUnit.MILLISECONDS);
+        } catch (@Nonnull ExecutionException exception) {
+            final @Nullable Throwable cause = exception.getCause();
+            if (cause instanceof ExternalException) { throw (ExternalException) cause; }
+            if (cause instanceof RuntimeException) { throw (RuntimeException) cause; }
+            if (cause instanceof Error) { throw (Error) cause; }
+            throw new CompletionException(cause);
+        } catch (@Nonnull TimeoutException exception) {
+            throw RequestExceptionBuilder.withCode(RequestErrorCode.EXTERNAL).withMessage("The retrieval of " + types + " from " + requestee.getAddress() + " did not complete within " + timeout.get() + " ms.").build();
+        } catch (@Nonnull InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(exception);
+        }
+    }
+    
+    /**
+     * Stores the retrievals that are currently in progress.
+     */
+    private static final @Nonnull ConcurrentMap<@Nonnull Key, @Nonnull Flight> flights = ConcurrentHashMapBuilder.build();
+    
+    /**
+     * Returns the number of retrievals that are currently in progress.
+     */
+    @Pure
+    public static @NonNegative int getSize() {
+        return flights.size();
+    }
+    
+    /* -------------------------------------------------- Refresh -------------------------------------------------- */
+    
+    /**
+     * Stores the refreshes that have been scheduled but not yet completed.
+     */
+    private static final @Nonnull Set<@Nonnull Key> refreshes = ConcurrentHashMap.newKeySet();
+    
+    /**
+     * Retrieves the attribute values with the given types of the given requestee with the given retriever in the background
+     * unless the same refresh is already scheduled. Failed refreshes are only logged as the stale values remain in the cache.
+     */
+    @Impure
+    static void refresh(@Nullable Role requester, @Nonnull InternalIdentity requestee, @Nonnull FreezableAttributeTypeSet types, @Nonnull FailableUnaryFunction<@Nonnull FreezableAttributeTypeSet, @Nonnull Map<@Nonnull SemanticType, @Nullable AttributeValue>, ExternalException> retriever) {
+        final @Nonnull Key key = new Key(requester, requestee, types);
+        if (!refreshes.add(key)) { return; }
+        
+        Log.debugging("Refreshing $ of $ in the background.", types, requestee.getAddress());
+        compute(() -> retrieve(requester, requestee, types, retriever)).whenComplete((values, throwable) -> {
+            refreshes.remove(key);
+            if (throwable != null) { Log.warning("Could not refresh $ of $.", throwable, types, requestee.getAddress()); }
+        });
+    }
+    
+    /* -------------------------------------------------- Retrieval -------------------------------------------------- */
+    
+    /**
+     * Retrieves the attribute values with the given types of the given requestee with the given retriever
+     * unless the same retrieval is already in progress, in which case its result is awaited and returned.
+     * A retrieval that is in progress on the current thread is never awaited but performed again.
+     * 
+     * @param retriever the function that retrieves and caches the attribute values with the given types.
+     * 
+     * @return the retrieved attribute values mapped by their types, which are null if the attribute is not available.
+     */
+    @Impure
+    @NonCommitting
+    static @Nonnull Map<@Nonnull SemanticType, @Nullable AttributeValue> retrieve(@Nullable Role requester, @Nonnull InternalIdentity requestee, @Nonnull FreezableAttributeTypeSet types, @Nonnull FailableUnaryFunction<@Nonnull FreezableAttributeTypeSet, @Nonnull Map<@Nonnull SemanticType, @Nullable AttributeValue>, ExternalException> retriever) throws ExternalException {
+        if (!activation.get()) { return retriever.evaluate(types); }
+        
+        final @Nonnull Key key = new Key(requester, requestee, types);
+        final @Nonnull Flight flight = new Flight();
+        final @Nullable Flight ongoingFlight = flights.putIfAbsent(key, flight);
+        if (ongoingFlight != null && ongoingFlight.thread != flight.thread) { return await(requestee, types, ongoingFlight); }
+        
+        try {
+            final @Nonnull Map<@Nonnull SemanticType, @Nullable AttributeValue> values = retriever.evaluate(types);
+            flight.result.complete(values);
+            return values;
+        } catch (@Nonnull ExternalException | RuntimeException | Error exception) {
+            flight.result.completeExceptionally(exception);
+            throw exception;
+        } finally {
+            flights.remove(key, flight);
+        }
+    }
+    
+    /**
+     * Retrieves the attribute values with the given types of each given requestee like {@link #retrieve(Role, InternalIdentity, FreezableAttributeTypeSet, FailableUnaryFunction)}.
+     * The requestees whose retrieval is not yet in progress are queried with one task per host, which run in parallel and query
+     * the requestees of their host one after the other, whereas the replies are stored on the current thread and thus in the current transaction.
+     * The retrievals of other threads are only awaited after the own retrievals have completed so that two bulk retrievals never wait for each other.
+     * 
+     * @param querier the function that queries the attribute values with the given types of the given requestee from its host.
+     * @param storer the function that caches the attribute values of the given reply of the given requestee.
+     * 
+     * @return the retrieved attribute values of each requestee mapped by their types, which are null if the attribute is not available.
+     */
+    @Impure
+    @NonCommitting
+    static <REPLY> @Nonnull Map<@Nonnull InternalIdentity, @Nonnull Map<@Nonnull SemanticType, @Nullable AttributeValue>> retrieve(@Nullable Role requester, @Nonnull Map<@Nonnull InternalIdentity, @Nonnull FreezableAttributeTypeSet> typesToRetrieve, @Nonnull FailableBinaryFunction<@Nonnull InternalIdentity, @Nonnull FreezableAttributeTypeSet, @Nonnull REPLY, ExternalException> querier, @Nonnull FailableBinaryFunction<@Nonnull InternalIdentity, @Nonnull REPLY, @Nonnull Map<@Nonnull SemanticType, @Nullable AttributeValue>, ExternalException> storer) throws ExternalException {
+        final @Nonnull Map<@Nonnull InternalIdentity, @Nonnull Flight> ownFlights = new HashMap<>();
+        final @Nonnull Map<@Nonnull InternalIdentity, @Nonnull Flight> otherFlights = new LinkedHashMap<>();
+        final @Nonnull Map<@Nonnull HostIdentifier, @Nonnull List<@Nonnull InternalIdentity>> requesteesByHost = new LinkedHashMap<>();
+        for (@Nonnull Map.Entry<@Nonnull InternalIdentity, @Nonnull FreezableAttributeTypeSet> entry : typesToRetrieve.entrySet()) {
+            final @Nonnull InternalIdentity requestee = entry.getKey();
+            final @Nonnull Flight flight = new Flight();
+            final @Nullable Flight ongoingFlight = activation.get() ? flights.putIfAbsent(new Key(requester, requestee, entry.getValue()), flight) : null;
+            if (ongoingFlight != null && ongoingFlight.thread != flight.thread) {
+                otherFlights.put(requestee, ongoingFlight);
+            } else {
+                ownFlights.put(requestee, flight);
+                requesteesByHost.computeIfAbsent(requestee.getAddress().getHostIdentifier(), host -> new LinkedList<>()).add(requestee);
+            }
+        }
+        
+        final @Nonnull Map<@Nonnull InternalIdentity, @Nonnull Map<@Nonnull SemanticType, @Nullable AttributeValue>> result = new HashMap<>();
+        final @Nonnull List<@Nonnull CompletableFuture<@Nonnull Map<@Nonnull InternalIdentity, @Nonnull REPLY>>> futures = new LinkedList<>();
+        final @Nonnull AtomicBoolean cancelled = new AtomicBoolean(false);
+        try {
+            if (!requesteesByHost.isEmpty()) {
+                Log.debugging("Retrieving the attributes of $ requestees from $ hosts.", ownFlights.size(), requesteesByHost.size());
+                
+                for (@Nonnull List<@Nonnull InternalIdentity> hostRequestees : requesteesByHost.values()) {
+                    futures.add(compute(() -> {
+                        final @Nonnull Map<@Nonnull InternalIdentity, @Nonnull REPLY> replies = new HashMap<>();
+                        for (@Nonnull InternalIdentity requestee : hostRequestees) {
+                            if (cancelled.get()) { break; }
+                            replies.put(requestee, querier.evaluate(requestee, typesToRetrieve.get(requestee)));
+                        }
+                        return replies;
+                    }));
+                }
+                
+                for (@Nonnull CompletableFuture<@Nonnull Map<@Nonnull InternalIdentity, @Nonnull REPLY>> future : futures) {
+                    for (@Nonnull Map.Entry<@Nonnull InternalIdentity, @Nonnull REPLY> entry : join(future).entrySet()) {
+                        final @Nonnull Map<@Nonnull SemanticType, @Nullable AttributeValue> values = storer.evaluate(entry.getKey(), entry.getValue());
+                        ownFlights.get(entry.getKey()).result.complete(values);
+                        result.put(entry.getKey(), values);
+                    }
+                }
+            }
+        } catch (@Nonnull ExternalException | RuntimeException | Error exception) {
+            // The queries to the other hosts are no longer needed, which is why the tasks that have not yet started are cancelled and the running ones stop after their current query.
+            cancelled.set(true);
+            for (@Nonnull CompletableFuture<?> future : futures) { future.cancel(false); }
+            // Completing a flight that has already completed has no effect.
+            for (@Nonnull Flight flight : ownFlights.values()) { flight.result.completeExceptionally(exception); }
+            throw exception;
+        } finally {
+            for (@Nonnull Map.Entry<@Nonnull InternalIdentity, @Nonnull Flight> entry : ownFlights.entrySet()) {
+                flights.remove(new Key(requester, entry.getKey(), typesToRetrieve.get(entry.getKey())), entry.getValue());
+            }
+        }
+        
+        for (@Nonnull Map.Entry<@Nonnull InternalIdentity, @Nonnull Flight> entry : otherFlights.entrySet()) {
+            result.put(entry.getKey(), await(entry.getKey(), typesToRetrieve.get(entry.getKey()), entry.getValue()));
+        }
+        return result;
+    }
+    
+}
@@ -16,8 +16,12 @@
 package net.digitalid.core.cache;
 
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -27,6 +31,7 @@ import net.digitalid.utility.annotations.method.Pure;
 import net.digitalid.utility.annotations.method.PureWithSideEffects;
 import net.digitalid.utility.annotations.ownership.Capturable;
 import net.digitalid.utility.collections.list.ReadOnlyList;
+import net.digitalid.utility.configuration.Configuration;
 import net.digitalid.utility.contracts.Require;
 import net.digitalid.utility.exceptions.ExternalException;
 import net.digitalid.utility.functional.iterables.FiniteIterable;
@@ -38,10 +43,12 @@ import net.digitalid.utility.tuples.Pair;
 import net.digitalid.utility.validation.annotations.elements.NonNullableElements;
 import net.digitalid.utility.validation.annotations.elements.NullableElements;
 import net.digitalid.utility.validation.annotations.math.NonNegative;
+import net.digitalid.utility.validation.annotations.math.Positive;
 import net.digitalid.utility.validation.annotations.size.NonEmpty;
 import net.digitalid.utility.validation.annotations.type.Utility;
 
 import net.digitalid.database.annotations.transaction.NonCommitting;
+import net.digitalid.database.exceptions.DatabaseException;
 
 import net.digitalid.core.asymmetrickey.PublicKeyRetriever;
 import net.digitalid.core.cache.attributes.AttributesQuery;
@@ -60,7 +67,6 @@ import net.digitalid.core.identification.identity.Identity;
 import net.digitalid.core.identification.identity.InternalIdentity;
 import net.digitalid.core.identification.identity.SemanticType;
 import net.digitalid.core.keychain.PublicKeyChain;
-import net.digitalid.core.keychain.PublicKeyChainConverter;
 import net.digitalid.core.signature.attribute.AttributeValue;
 import net.digitalid.core.signature.attribute.CertifiedAttributeValue;
 import net.digitalid.core.typeset.FreezableAttributeTypeSet;
@@ -73,6 +79,37 @@ import net.digitalid.core.typeset.FreezableAttributeTypeSet;
 @Utility
 public abstract class Cache {
     
+    /* -------------------------------------------------- Configuration -------------------------------------------------- */
+    
+    /**
+     * Stores whether expired attribute values are served during the grace period and popular ones are refreshed ahead of their expiration.
+     */
+    public static final @Nonnull Configuration<Boolean> revalidation = Configuration.with(true);
+    
+    /**
+     * Stores the duration for which an expired attribute value is still served while it is refreshed in the background.
+     */
+    public static final @Nonnull Configuration<Time> gracePeriod = Configuration.with(Time.MINUTE);
+    
+    /**
+     * Stores the duration before its expiration in which a popular attribute value is refreshed in the background.
+     */
+    public static final @Nonnull Configuration<Time> refreshAhead = Configuration.with(Time.MINUTE);
+    
+    /**
+     * Stores the number of reads from memory after which an attribute value is considered popular.
+     */
+    public static final @Nonnull Configuration<@Positive Integer> refreshThreshold = Configuration.with(8);
+    
+    /**
+     * Returns the expiration time at which stale attribute values are still accepted or null if no stale attribute values are to be served.
+     */
+    @Pure
+    private static @Nullable Time getStaleExpiration(@Nonnull @NonNegative Time expiration) {
+        if (!revalidation.get() || expiration.equals(Time.MAX) || expiration.equals(Time.MIN)) { return null; }
+        return expiration.isGreaterThan(gracePeriod.get()) ? expiration.subtract(gracePeriod.get()) : Time.MIN;
+    }
+    
     /* -------------------------------------------------- Attribute Value -------------------------------------------------- */
     
     /**
@@ -89,12 +126,68 @@ public abstract class Cache {
         return signatureTime.add(cachingPeriod);
     }
     
+    /**
+     * Queries the attribute values with the given types from the host of the given requestee and checks that they match the given types.
+     */
+    @NonCommitting
+    @PureWithSideEffects
+    private static @Nonnull AttributesReply queryAttributeValues(@Nullable Role requester, @Nonnull InternalIdentity requestee, @Nonnull FreezableAttributeTypeSet typesToRetrieve) throws ExternalException {
+        Log.debugging("Retrieving $ from $ as $.", typesToRetrieve, requestee.getAddress(), requester != null ? requester.getIdentity().getAddress() : null);
+        
+        final @Nonnull AttributesQuery query = AttributesQueryBuilder.withAttributeTypes(typesToRetrieve/* TODO: .freeze() */).withProvidedEntity(requester).withProvidedSubject(requestee.getAddress()).build();
+        final @Nonnull AttributesReply reply = query.send(AttributesReplyConverter.INSTANCE);  // TODO: Pass a flag here (once added/supported) to deactive the verification of the response signature if it is a public key chain query.
+        final @Nonnull ReadOnlyList<AttributeValue> values = reply.getAttributeValues();
+        if (values.size() != typesToRetrieve.size()) { throw DeclarationExceptionBuilder.withMessage(Strings.format("number of attributes", typesToRetrieve.size(), values.size())).withIdentity(requestee).build(); }
+        for (int i = 0; i < values.size(); i++) {
+            final @Nullable AttributeValue value = values.get(i);
+            final @Nonnull SemanticType type = typesToRetrieve.get(i);
+            if (value != null && !value.getContent().getType().equals(type)) { throw DeclarationExceptionBuilder.withMessage(Strings.format("The queried type $ and the replied type $ should be the same.", type.getAddress(), value.getContent().getType().getAddress())).withIdentity(requestee).build(); }
+        }
+        return reply;
+    }
+    
+    /**
+     * Stores the attribute values of the given reply with the given types of the given requestee in the cache.
+     * 
+     * @return the stored attribute values mapped by their types, which are null if the attribute is not available.
+     */
+    @Impure
+    @NonCommitting
+    private static @Nonnull Map<@Nonnull SemanticType, @Nullable AttributeValue> storeAttributeValues(@Nullable Role requester, @Nonnull InternalIdentity requestee, @Nonnull FreezableAttributeTypeSet typesToRetrieve, @Nonnull AttributesReply reply) throws DatabaseException {
+        final @Nonnull ReadOnlyList<AttributeValue> values = reply.getAttributeValues();
+        final @Nonnull Map<@Nonnull SemanticType, @Nullable AttributeValue> result = new HashMap<>();
+        for (int i = 0; i < values.size(); i++) {
+            final @Nullable AttributeValue value = values.get(i);
+            final @Nonnull SemanticType type = typesToRetrieve.get(i);
+            CacheModule.setCachedAttributeValue(requester, requestee, getExpiration(type, value, reply), type, value, reply);
+            result.put(type, value);
+        }
+        return result;
+    }
+    
+    /**
+     * Retrieves the attribute values with the given types from the host of the given requestee and stores them in the cache.
+     * 
+     * @return the retrieved attribute values mapped by their types, which are null if the attribute is not available.
+     */
+    @NonCommitting
+    @PureWithSideEffects
+    private static @Nonnull Map<@Nonnull SemanticType, @Nullable AttributeValue> retrieveAttributeValues(@Nullable Role requester, @Nonnull InternalIdentity requestee, @Nonnull FreezableAttributeTypeSet typesToRetrieve) throws ExternalException {
+        final @Nonnull AttributesReply reply = queryAttributeValues(requester, requestee, typesToRetrieve);
+        final @Nonnull Map<@Nonnull SemanticType, @Nullable AttributeValue> result = storeAttributeValues(requester, requestee, typesToRetrieve, reply);
+        if (typesToRetrieve.contains(PublicKeyChain.TYPE)) { reply.getSignature().verifySignature(); }
+        return result;
+    }
+    
     /**
      * Returns the attribute values of the given requestee with the given types.
      * The attribute values are returned in the same order as given by the types.
      * If an attribute value is not available, the value null is returned instead.
      * If an attribute value is certified, the certificate is verified and stripped
      * from the attribute values in case the signature or the delegation is invalid.
+     * Attribute values that expired less than the {@link #gracePeriod} before the given
+     * expiration are returned immediately while they are refreshed in the background,
+     * except for public key chains, which are always retrieved once they are expired.
      * 
      * @param requester the role that queries the attribute values or null for hosts.
      * @param requestee the identity whose attribute values are to be returned.
@@ -123,33 +216,36 @@ public abstract class Cache {
         final @Nonnull AttributeValue[] result = new AttributeValue[types.length];
         
         final @Nonnull FreezableAttributeTypeSet typesToRetrieve = FreezableAttributeTypeSet.withNoTypes();
+        final @Nonnull FreezableAttributeTypeSet typesToRefresh = FreezableAttributeTypeSet.withNoTypes();
         final @Nonnull List<Integer> indexesToStore = new LinkedList<>();
+        // Public key chains are never served stale, since an expired chain might no longer contain the current key of the host.
+        final @Nullable Time staleExpiration = types[0].equals(PublicKeyChain.TYPE) ? null : getStaleExpiration(expiration);
         for (int i = 0; i < types.length; i++) {
             final @Nonnull Pair<Boolean, AttributeValue> cache = CacheModule.getCachedAttributeValue(requester, requestee, expiration, types[i]);
             if (cache.get0()) {
                 result[i] = cache.get1();
+                if (revalidation.get() && AttributeValueCache.isExpiringSoon(requester, requestee, types[i], refreshAhead.get().ahead(), refreshThreshold.get())) { typesToRefresh.add(types[i]); }
             } else {
-                typesToRetrieve.add(types[i]);
-                indexesToStore.add(i);
+                final @Nullable Pair<Boolean, AttributeValue> staleCache = staleExpiration != null ? CacheModule.getCachedAttributeValue(requester, requestee, staleExpiration, types[i]) : null;
+                if (staleCache != null && staleCache.get0()) {
+                    result[i] = staleCache.get1();
+                    typesToRefresh.add(types[i]);
+                } else {
+                    typesToRetrieve.add(types[i]);
+                    indexesToStore.add(i);
+                }
             }
         }
         
+        if (typesToRefresh.size() > 0) {
+            AttributesRetrieval.refresh(requester, requestee, typesToRefresh, refreshedTypes -> retrieveAttributeValues(requester, requestee, refreshedTypes));
+        }
+        
         if (typesToRetrieve.size() > 0) {
-            Log.debugging("Retrieving $ from $ as $.", typesToRetrieve, requesteeAddress, requesterAddress);
-            
-            final boolean publicKeyChainQuery = typesToRetrieve.contains(PublicKeyChain.TYPE);
-            final @Nonnull AttributesQuery query = AttributesQueryBuilder.withAttributeTypes(typesToRetrieve/* TODO: .freeze() */).withProvidedEntity(requester).withProvidedSubject(requestee.getAddress()).build();
-            final @Nonnull AttributesReply reply = query.send(AttributesReplyConverter.INSTANCE);  // TODO: Pass a flag here (once added/supported) to deactive the verification of the response signature if it is a public key chain query.
-            final @Nonnull ReadOnlyList<AttributeValue> values = reply.getAttributeValues();
-            if (values.size() != typesToRetrieve.size()) { throw DeclarationExceptionBuilder.withMessage(Strings.format("number of attributes", typesToRetrieve.size(), values.size())).withIdentity(requestee).build(); }
-            for (int i = 0; i < values.size(); i++) {
-                final @Nullable AttributeValue value = values.get(i);
-                final @Nonnull SemanticType type = typesToRetrieve.get(i);
-                if (value != null && !value.getContent().getType().equals(type)) { throw DeclarationExceptionBuilder.withMessage(Strings.format("The queried type $ and the replied type $ should be the same.", type.getAddress(), value.getContent().getType().getAddress())).withIdentity(requestee).build(); }
-                CacheModule.setCachedAttributeValue(requester, requestee, getExpiration(type, value, reply), type, value, reply);
-                result[indexesToStore.get(i)] = value;
+            final @Nonnull Map<@Nonnull SemanticType, @Nullable AttributeValue> values = AttributesRetrieval.retrieve(requester, requestee, typesToRetrieve, retrievedTypes -> retrieveAttributeValues(requester, requestee, retrievedTypes));
+            for (int i = 0; i < typesToRetrieve.size(); i++) {
+                result[indexesToStore.get(i)] = values.get(typesToRetrieve.get(i));
             }
-            if (publicKeyChainQuery) { reply.getSignature().verifySignature(); }
         } else {
             Log.debugging("Nothing to retrieve from $, loaded $ from the cache.", requesteeAddress, typesToLoad);
         }
@@ -181,6 +277,60 @@ public abstract class Cache {
         else { return attributeValues[0]; }
     }
     
+    /**
+     * Returns the attribute values of the given requestees with the given types.
+     * The attribute values that are not cached are retrieved with one task per host, which run in parallel
+     * and query the requestees of their host one after the other. All the retrieved attribute values are then
+     * stored in the cache on the current thread and thus in the current transaction. Requestees whose attribute
+     * values are already being retrieved by another thread are not queried again but awaited instead.
+     * 
+     * @param requester the role that queries the attribute values or null for hosts.
+     * @param requestees the identities whose attribute values are to be returned.
+     * @param expiration the time at which the cached attribute values have to be fresh.
+     * @param types the types of the attribute values which are to be returned.
+     * 
+     * @return the attribute values of each requestee in the same order as given by the types, where unavailable attribute values are null.
+     * 
+     * @require !Arrays.asList(types).contains(PublicKeyChain.TYPE) : "The public key chains of hosts cannot be queried in bulk.";
+     * @require for (InternalIdentity requestee : requestees) for (SemanticType type : types) type != null && type.isAttributeFor(requestee.getCategory()) : "Each type is not null and can be used as an attribute for the category of each requestee.";
+     */
+    @NonCommitting
+    @PureWithSideEffects
+    public static @Capturable @Nonnull Map<@Nonnull InternalIdentity, @Nonnull @NullableElements @NonEmpty AttributeValue[]> getAttributeValues(@Nullable Role requester, @Nonnull @NonNullableElements Collection<? extends InternalIdentity> requestees, @Nonnull @NonNegative Time expiration, @Nonnull @NonNullableElements @NonEmpty SemanticType... types) throws ExternalException {
+        Require.that(expiration.isNonNegative()).orThrow("The given time has to be non-negative but was $.", expiration);
+        Require.that(types.length > 0).orThrow("At least one type has to be given.");
+        Require.that(!Arrays.asList(types).contains(PublicKeyChain.TYPE)).orThrow("The public key chains of hosts cannot be queried in bulk.");
+        
+        final @Nonnull Map<@Nonnull InternalIdentity, @Nonnull AttributeValue[]> result = new LinkedHashMap<>();
+        final @Nonnull Map<@Nonnull InternalIdentity, @Nonnull FreezableAttributeTypeSet> typesToRetrieve = new HashMap<>();
+        for (@Nonnull InternalIdentity requestee : requestees) {
+            if (result.containsKey(requestee)) { continue; }
+            final @Nonnull AttributeValue[] values = new AttributeValue[types.length];
+            result.put(requestee, values);
+            final @Nonnull FreezableAttributeTypeSet missingTypes = FreezableAttributeTypeSet.withNoTypes();
+            for (int i = 0; i < types.length; i++) {
+                Require.that(types[i] != null && types[i].isAttributeFor(requestee.getCategory())).orThrow("Each type has to be non-null and can be used as an attribute for the category of each requestee.");
+                final @Nonnull Pair<Boolean, AttributeValue> cache = CacheModule.getCachedAttributeValue(requester, requestee, expiration, types[i]);
+                if (cache.get0()) { values[i] = cache.get1(); }
+                else { missingTypes.add(types[i]); }
+            }
+            if (missingTypes.size() > 0) { typesToRetrieve.put(requestee, missingTypes); }
+        }
+        
+        if (!typesToRetrieve.isEmpty()) {
+            final @Nonnull Map<@Nonnull InternalIdentity, @Nonnull Map<@Nonnull SemanticType, @Nullable AttributeValue>> retrievedValues = AttributesRetrieval.retrieve(requester, typesToRetrieve, (requestee, retrievedTypes) -> queryAttributeValues(requester, requestee, retrievedTypes), (requestee, reply) -> storeAttributeValues(requester, requestee, typesToRetrieve.get(requestee), reply));
+            for (@Nonnull Map.Entry<@Nonnull InternalIdentity, @Nonnull Map<@Nonnull SemanticType, @Nullable AttributeValue>> entry : retrievedValues.entrySet()) {
+                final @Nonnull Map<@Nonnull SemanticType, @Nullable AttributeValue> values = entry.getValue();
+                final @Nonnull AttributeValue[] requesteeResult = result.get(entry.getKey());
+                for (int i = 0; i < types.length; i++) {
+                    if (values.containsKey(types[i])) { requesteeResult[i] = values.get(types[i]); }
+                }
+            }
+        }
+        
+        return result;
+    }
+    
     /* -------------------------------------------------- Host Lookup -------------------------------------------------- */
     
     /**
@@ -221,12 +371,12 @@ public abstract class Cache {
     /* -------------------------------------------------- Injection -------------------------------------------------- */
     
     /**
-     * Initializes the public key retriever.
+     * Initializes the public key retriever, which looks up the public key chains of hosts in the {@link PublicKeyChainCache}.
      */
     @Impure
     @Initialize(target = PublicKeyRetriever.class)
     public static void initializePublicKeyRetriever() {
-        PublicKeyRetriever.configuration.set((identity, time) -> CacheQueryBuilder.withConverter(PublicKeyChainConverter.INSTANCE).withRequestee(identity).withCertified(true).build().execute().getKey(time));
+        PublicKeyRetriever.configuration.set(PublicKeyChainCache::getPublicKey);
     }
     
 }
@@ -16,6 +16,8 @@
 package net.digitalid.core.cache;
 
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -37,8 +39,10 @@ import net.digitalid.utility.logging.Log;
 import net.digitalid.utility.string.Strings;
 import net.digitalid.utility.time.Time;
 import net.digitalid.utility.time.TimeBuilder;
+import net.digitalid.utility.time.TimeConverter;
 import net.digitalid.utility.tuples.Pair;
 import net.digitalid.utility.validation.annotations.math.NonNegative;
+import net.digitalid.utility.validation.annotations.math.Positive;
 import net.digitalid.utility.validation.annotations.type.Utility;
 
 import net.digitalid.database.annotations.transaction.Committing;
@@ -54,6 +58,8 @@ import net.digitalid.database.dialect.identifier.table.SQLExplicitlyQualifiedTab
 import net.digitalid.database.dialect.identifier.table.SQLQualifiedTable;
 import net.digitalid.database.dialect.identifier.table.SQLTableName;
 import net.digitalid.database.dialect.identifier.table.SQLTableNameBuilder;
+import net.digitalid.database.dialect.statement.delete.SQLDeleteStatement;
+import net.digitalid.database.dialect.statement.delete.SQLDeleteStatementBuilder;
 import net.digitalid.database.dialect.statement.select.unordered.simple.SQLSimpleSelectStatement;
 import net.digitalid.database.dialect.statement.select.unordered.simple.SQLSimpleSelectStatementBuilder;
 import net.digitalid.database.dialect.statement.select.unordered.simple.columns.SQLResultColumn;
@@ -183,6 +189,48 @@ public abstract class CacheModule {
         final @Nonnull SQLUpdateStatement updateStatement = SQLUpdateStatementBuilder.withTable(qualifiedTable).withAssignments(ImmutableList.withElements(assignment)).withWhereClause(whereClause).build();
         final @Nonnull SQLActionEncoder actionEncoder = Database.instance.get().getEncoder(updateStatement, GeneralUnit.INSTANCE);
         actionEncoder.execute();
+        Database.instance.get().runAfterCommit(() -> AttributeValueCache.invalidate(identity));
+    }
+    
+    /* -------------------------------------------------- Cache Purging -------------------------------------------------- */
+    
+    /**
+     * Deletes at most the given number of cached attribute values that expired before the given time.
+     * Attribute values that expire at {@link Time#MIN}, such as the public key chain of the root host, are never deleted.
+     * 
+     * @return the number of rows that were found to be expired, which can be smaller than the number of deleted rows
+     *         only if another transaction deleted or replaced some of them concurrently.
+     */
+    @NonCommitting
+    @PureWithSideEffects
+    static @NonNegative int purgeExpiredAttributeValues(@Nonnull Time threshold, @Positive int batchSize) throws DatabaseException {
+        final @Nonnull SQLColumnName expirationColumnName = SQLColumnNameBuilder.withString("expirationtime_value").build();
+        final @Nonnull SQLBooleanExpression expiredClause = SQLLongLiteralBuilder.withValue(threshold.getValue()).build().greater(expirationColumnName).and(expirationColumnName.greater(SQLLongLiteralBuilder.withValue(Time.MIN.getValue()).build())); // TODO: Implement it in such a way that the representation of the time can change?
+        
+        final @Nonnull SQLResultColumn requesterColumn = SQLResultColumnBuilder.withExpression(SQLColumnNameBuilder.withString("requester").build()).build();
+        final @Nonnull SQLResultColumn requesteeColumn = SQLResultColumnBuilder.withExpression(SQLColumnNameBuilder.withString("requestee_key").build()).build();
+        final @Nonnull SQLResultColumn typeColumn = SQLResultColumnBuilder.withExpression(SQLColumnNameBuilder.withString("attributetype_key").build()).build();
+        final @Nonnull ImmutableList<@Nonnull SQLTableSource> sources = ImmutableList.withElements(SQLTableSourceBuilder.withSource(qualifiedTable).build());
+        final @Nonnull SQLSimpleSelectStatement selectStatement = SQLSimpleSelectStatementBuilder.withColumns(ImmutableList.withElements(requesterColumn, requesteeColumn, typeColumn)).withSources(sources).withWhereClause(expiredClause).build();
+        
+        // The keys of the expired rows are collected first so that the rows are deleted in bounded batches without holding the result set open.
+        final @Nonnull List<@Nonnull long[]> keys = new ArrayList<>();
+        final @Nonnull SQLDecoder decoder = Database.instance.get().getEncoder(selectStatement, GeneralUnit.INSTANCE).execute();
+        while (keys.size() < batchSize && decoder.moveToNextRow()) {
+            keys.add(new long[] { decoder.decodeInteger64(), decoder.decodeInteger64(), decoder.decodeInteger64() });
+        }
+        
+        for (@Nonnull long[] key : keys) {
+            @Nonnull SQLBooleanExpression whereClause = SQLColumnNameBuilder.withString("requester").build().equal(SQLLongLiteralBuilder.withValue(key[0]).build());
+            whereClause = whereClause.and(SQLColumnNameBuilder.withString("requestee_key").build().equal(SQLLongLiteralBuilder.withValue(key[1]).build()));
+            whereClause = whereClause.and(SQLColumnNameBuilder.withString("attributetype_key").build().equal(SQLLongLiteralBuilder.withValue(key[2]).build()));
+            // The expiration is checked again in case the row has been refreshed in the meantime.
+            whereClause = whereClause.and(expiredClause);
+            
+            final @Nonnull SQLDeleteStatement deleteStatement = SQLDeleteStatementBuilder.withTable(qualifiedTable).withWhereClause(whereClause).build();
+            Database.instance.get().getEncoder(deleteStatement, GeneralUnit.INSTANCE).execute();
+        }
+        return keys.size();
     }
     
     /* -------------------------------------------------- Cache Reading -------------------------------------------------- */
@@ -209,10 +257,17 @@ public abstract class CacheModule {
         
         if (expiration.equals(Time.MAX)) { return Pair.of(false, null); }
         
+        final @Nullable Pair<@Nonnull Boolean, @Nullable AttributeValue> cachedValue = AttributeValueCache.get(requester, requestee, expiration, type);
+        if (cachedValue != null) { return cachedValue; }
+        
+        // The generation is determined before the database is read so that an invalidation in the meantime prevents the caching of a stale value.
+        final long generation = AttributeValueCache.getGeneration();
+        
         final @Nonnull SQLResultColumn foundColumn = SQLResultColumnBuilder.withExpression(SQLColumnNameBuilder.withString("found").build()).build();
+        final @Nonnull SQLResultColumn expirationColumn = SQLResultColumnBuilder.withExpression(SQLColumnNameBuilder.withString("expirationtime_value").build()).build();
         final @Nonnull SQLResultColumn attributeValueColumn1 = SQLResultColumnBuilder.withExpression(SQLColumnNameBuilder.withString("attributevalue_type_key").build()).build();
         final @Nonnull SQLResultColumn attributeValueColumn2 = SQLResultColumnBuilder.withExpression(SQLColumnNameBuilder.withString("attributevalue_bytes").build()).build();
-        final @Nonnull ImmutableList<@Nonnull SQLResultColumn> resultColumns = ImmutableList.withElements(foundColumn, attributeValueColumn1, attributeValueColumn2);
+        final @Nonnull ImmutableList<@Nonnull SQLResultColumn> resultColumns = ImmutableList.withElements(foundColumn, expirationColumn, attributeValueColumn1, attributeValueColumn2);
         
         final @Nonnull ImmutableList<@Nonnull SQLTableSource> sources = ImmutableList.withElements(SQLTableSourceBuilder.withSource(qualifiedTable).build());
         
@@ -231,10 +286,15 @@ public abstract class CacheModule {
         
         boolean found = false;
         @Nullable AttributeValue value = null;
+        @Nullable Time valueExpiration = null;
         if (decoder.moveToNextRow()) {
             found = true;
             do {
-                if (decoder.decodeBoolean()) {
+                final boolean available = decoder.decodeBoolean();
+                // The value is kept in memory only as long as all the rows that have been considered for it are fresh.
+                final @Nonnull Time rowExpiration = TimeConverter.INSTANCE.recover(decoder, null);
+                if (valueExpiration == null || rowExpiration.isLessThan(valueExpiration)) { valueExpiration = rowExpiration; }
+                if (available) {
                     final @Nonnull Pack pack = PackConverter.INSTANCE.recover(decoder, null);
                     value = pack.unpack(AttributeValueConverter.INSTANCE, null);
                     final @Nonnull SemanticType recoveredType = value.getContent().getType();
@@ -243,6 +303,12 @@ public abstract class CacheModule {
                 }
             } while (decoder.moveToNextRow());
         }
+        if (found && valueExpiration != null) {
+            // The value is only kept in memory once it is known that it was not read from an uncommitted transaction.
+            final @Nonnull Time expirationToCache = valueExpiration;
+            final @Nullable AttributeValue valueToCache = value;
+            Database.instance.get().runAfterCommit(() -> AttributeValueCache.put(requester, requestee, expirationToCache, type, valueToCache, generation));
+        }
         return Pair.of(found, value);
     }
     
@@ -272,6 +338,12 @@ public abstract class CacheModule {
         
         final @Nonnull CacheEntry entry = CacheEntryBuilder.withRequester(requester != null ? requester.getKey() : 0).withRequestee(requestee).withAttributeType(type).withFound(value != null).withExpirationTime(expiration).withAttributeValue(value != null ? Pack.pack(AttributeValueConverter.INSTANCE, value) : null).build();
         SQL.insertOrReplace(CacheEntryConverter.INSTANCE, entry, GeneralUnit.INSTANCE);
+        Database.instance.get().runAfterCommit(() -> {
+            final long generation = AttributeValueCache.invalidate(requestee, type);
+            // A missing value of a specific requester must not hide a public value, which is why it is only kept in memory for public entries.
+            if (requester == null || value != null) { AttributeValueCache.put(requester, requestee, expiration, type, value, generation); }
+        });
+        if (type.equals(PublicKeyChain.TYPE) && requestee instanceof HostIdentity) { PublicKeyChainCache.invalidateAfterCommit(((HostIdentity) requestee).getAddress()); }
     }
     
 }
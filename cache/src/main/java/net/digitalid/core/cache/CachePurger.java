@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.core.cache;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.configuration.Configuration;
+import net.digitalid.utility.logging.Log;
+import net.digitalid.utility.threading.NamedThreadFactory;
+import net.digitalid.utility.time.Time;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
+import net.digitalid.utility.validation.annotations.math.Positive;
+import net.digitalid.utility.validation.annotations.type.Utility;
+
+import net.digitalid.database.annotations.transaction.Committing;
+import net.digitalid.database.exceptions.DatabaseException;
+import net.digitalid.database.interfaces.Database;
+
+/**
+ * The cache purger periodically deletes the expired attribute values from the {@link CacheModule cache} in the background.
+ * The rows are deleted in batches of limited size, each in its own transaction, so that concurrent requests are not blocked for long.
+ * Attribute values that expired within the {@link Cache#gracePeriod grace period} are kept, since they can still be served while being revalidated.
+ * 
+ * @see Cache
+ */
+@Utility
+public abstract class CachePurger {
+    
+    /* -------------------------------------------------- Configuration -------------------------------------------------- */
+    
+    /**
+     * Stores whether the expired attribute values are purged in the background.
+     */
+    public static final @Nonnull Configuration<Boolean> activation = Configuration.with(true);
+    
+    /**
+     * Stores the time between the end of one purge and the start of the next one.
+     */
+    public static final @Nonnull Configuration<Time> interval = Configuration.with(Time.HALF_HOUR);
+    
+    /**
+     * Stores the maximal number of rows that are deleted in a single transaction.
+     */
+    public static final @Nonnull Configuration<@Positive Integer> batchSize = Configuration.with(1_000);
+    
+    /**
+     * Stores the maximal number of batches that are deleted in a single purge.
+     */
+    public static final @Nonnull Configuration<@Positive Integer> maximalBatches = Configuration.with(100);
+    
+    /* -------------------------------------------------- Metrics -------------------------------------------------- */
+    
+    private static final @Nonnull AtomicLong purgedRows = new AtomicLong();
+    
+    /**
+     * Returns the number of rows that have been purged since the metrics were last reset.
+     */
+    @Pure
+    public static @NonNegative long getPurgedRows() {
+        return purgedRows.get();
+    }
+    
+    /**
+     * Resets the number of purged rows.
+     */
+    @Impure
+    public static void resetMetrics() {
+        purgedRows.set(0);
+    }
+    
+    /* -------------------------------------------------- Purging -------------------------------------------------- */
+    
+    /**
+     * Deletes the attribute values that expired before the grace period in batches and returns the number of deleted rows.
+     */
+    @Impure
+    @Committing
+    public static @NonNegative long purge() {
+        final @Nonnull Time threshold = Cache.gracePeriod.get().ago();
+        long purged = 0;
+        try {
+            for (int batch = 0; batch < maximalBatches.get(); batch++) {
+                final int size = CacheModule.purgeExpiredAttributeValues(threshold, batchSize.get());
+                Database.commit();
+                purged += size;
+                purgedRows.addAndGet(size);
+                if (size < batchSize.get()) { break; }
+            }
+            Log.debugging("Purged $ expired attribute values from the cache.", purged);
+        } catch (@Nonnull DatabaseException | RuntimeException exception) {
+            Database.rollback();
+            Log.warning("Could not purge the expired attribute values from the cache.", exception);
+        }
+        return purged;
+    }
+    
+    /* -------------------------------------------------- Scheduler -------------------------------------------------- */
+    
+    private static @Nullable ScheduledExecutorService scheduler;
+    
+    /**
+     * Purges the expired attribute values periodically in the background if the purger is activated.
+     */
+    @Impure
+    public static synchronized void start() {
+        if (activation.get() && scheduler == null) {
+            final long delay = interval.get().getValue();
+            Log.information("Purging the expired attribute values from the cache every $ ms.", delay);
+            scheduler = Executors.newSingleThreadScheduledExecutor(NamedThreadFactory.with("CachePurger"));
+            // An exception that escapes the task would cancel all subsequent purges without any trace.
+            scheduler.scheduleWithFixedDelay(() -> {
+                try {
+                    purge();
+                } catch (@Nonnull Throwable throwable) {
+                    Log.error("The purging of the expired attribute values failed unexpectedly.", throwable);
+                }
+            }, delay, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+    
+    /**
+     * Stops the purging of expired attribute values in the background.
+     */
+    @Impure
+    public static synchronized void shutDown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+    
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.core.cache;
+
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.concurrency.map.ConcurrentHashMapBuilder;
+import net.digitalid.utility.concurrency.map.ConcurrentMap;
+import net.digitalid.utility.configuration.Configuration;
+import net.digitalid.utility.contracts.Require;
+import net.digitalid.utility.exceptions.ExternalException;
+import net.digitalid.utility.logging.Log;
+import net.digitalid.utility.time.Time;
+import net.digitalid.utility.time.TimeBuilder;
+import net.digitalid.utility.validation.annotations.type.Immutable;
+import net.digitalid.utility.validation.annotations.type.Utility;
+
+import net.digitalid.database.annotations.transaction.NonCommitting;
+import net.digitalid.database.interfaces.Database;
+
+import net.digitalid.core.asymmetrickey.PublicKey;
+import net.digitalid.core.asymmetrickey.PublicKeyRetriever;
+import net.digitalid.core.cache.exceptions.CertificateNotFoundExceptionBuilder;
+import net.digitalid.core.encryption.SymmetricKeyCache;
+import net.digitalid.core.identification.identifier.HostIdentifier;
+import net.digitalid.core.identification.identity.HostIdentity;
+import net.digitalid.core.keychain.PublicKeyChain;
+import net.digitalid.core.keychain.PublicKeyChainConverter;
+import net.digitalid.core.keychain.PublicKeyChainItem;
+import net.digitalid.core.signature.attribute.AttributeValue;
+import net.digitalid.core.signature.attribute.CertifiedAttributeValue;
+
+/**
+ * This class keeps the public key chains of hosts in memory so that the {@link PublicKeyRetriever public key retriever}
+ * neither queries the database nor unpacks the key chain for every signature that it verifies.
+ * The keys of each chain are indexed by the time from which they are valid so that the key at a given time is found in logarithmic time.
+ * A chain is loaded again only if a key after its newest key is requested and the cached attribute value of the chain has expired.
+ * 
+ * @see Cache#initializePublicKeyRetriever()
+ */
+@Utility
+public abstract class PublicKeyChainCache {
+    
+    /* -------------------------------------------------- Configuration -------------------------------------------------- */
+    
+    /**
+     * Stores whether the public key chains are cached in memory.
+     */
+    public static final @Nonnull Configuration<Boolean> activation = Configuration.with(true);
+    
+    /* -------------------------------------------------- Entries -------------------------------------------------- */
+    
+    /**
+     * An entry indexes the keys of a public key chain by the start of their validity.
+     */
+    @Immutable
+    private static final class Entry {
+        
+        private final @Nonnull PublicKeyChain publicKeyChain;
+        
+        private final @Nonnull NavigableMap<@Nonnull Long, @Nonnull PublicKey> keys = new TreeMap<>();
+        
+        private final @Nonnull Time expiration;
+        
+        private Entry(@Nonnull PublicKeyChain publicKeyChain, @Nonnull Time expiration) {
+            this.publicKeyChain = publicKeyChain;
+            for (@Nonnull PublicKeyChainItem item : publicKeyChain.getItems()) { keys.put(item.getTime().getValue(), item.getKey()); }
+            this.expiration = expiration;
+        }
+        
+        /**
+         * Returns whether the public key chain has to be loaded again in order to determine the key at the given time.
+         * Keys before the newest key never change, whereas a key rotation is only learned from a fresh public key chain.
+         */
+        @Pure
+        private boolean isOutdatedFor(@Nonnull Time time) {
+            return time.getValue() > keys.lastKey() && expiration.isInPast();
+        }
+        
+        /**
+         * Returns the key that is valid at the given time, which is the key with the latest start at or before the given time.
+         * 
+         * @require time.isGreaterThanOrEqualTo(publicKeyChain.getOldestTime()) : "There is no key for the given time in this key chain.";
+         */
+        @Pure
+        private @Nonnull PublicKey getKey(@Nonnull Time time) {
+            final @Nullable Map.Entry<@Nonnull Long, @Nonnull PublicKey> entry = keys.floorEntry(time.getValue());
+            Require.that(entry != null).orThrow("There is no key for the time $ in the key chain $.", time, publicKeyChain);
+            
+            return entry.getValue();
+        }
+        
+    }
+    
+    /**
+     * Stores the entries of the hosts whose public key chains have been loaded.
+     */
+    private static final @Nonnull ConcurrentMap<@Nonnull HostIdentifier, @Nonnull Entry> entries = ConcurrentHashMapBuilder.build();
+    
+    /**
+     * Stores the number of invalidations so that a chain which was loaded before an invalidation is not stored afterwards.
+     */
+    private static long generation = 0;
+    
+    /**
+     * Returns the current generation, which has to be passed to {@link #store(HostIdentifier, long, PublicKeyChain, Time)}.
+     */
+    @Pure
+    static synchronized long getGeneration() {
+        return generation;
+    }
+    
+    /**
+     * Stores the given public key chain of the given host with the given expiration unless an invalidation happened since the given generation.
+     * 
+     * @return whether the public key chain was stored.
+     */
+    @Impure
+    static synchronized boolean store(@Nonnull HostIdentifier host, long generation, @Nonnull PublicKeyChain publicKeyChain, @Nonnull Time expiration) {
+        if (generation != PublicKeyChainCache.generation) { return false; }
+        entries.put(host, new Entry(publicKeyChain, expiration));
+        return true;
+    }
+    
+    /**
+     * Returns the cached public key of the given host at the given time or null if the public key chain has to be loaded first.
+     */
+    @Pure
+    static @Nullable PublicKey lookUp(@Nonnull HostIdentifier host, @Nonnull Time time) {
+        final @Nullable Entry entry = entries.get(host);
+        return entry == null || entry.isOutdatedFor(time) ? null : entry.getKey(time);
+    }
+    
+    /* -------------------------------------------------- Retrieval -------------------------------------------------- */
+    
+    /**
+     * Loads the certified attribute value of the public key chain of the given host from the attribute cache, which retrieves it from the host if necessary.
+     */
+    @Pure
+    @NonCommitting
+    private static @Nonnull CertifiedAttributeValue load(@Nonnull HostIdentity host) throws ExternalException {
+        final @Nonnull AttributeValue value = Cache.getAttributeValue(null, host, TimeBuilder.build(), PublicKeyChain.TYPE);
+        if (!value.isCertified()) { throw CertificateNotFoundExceptionBuilder.withIdentity(host).withType(PublicKeyChain.TYPE).build(); }
+        return (CertifiedAttributeValue) value;
+    }
+    
+    /**
+     * Returns the public key of the given host at the given time.
+     */
+    @Pure
+    @NonCommitting
+    public static @Nonnull PublicKey getPublicKey(@Nonnull HostIdentity host, @Nonnull Time time) throws ExternalException {
+        if (!activation.get()) { return load(host).getContent().unpack(PublicKeyChainConverter.INSTANCE, null).getKey(time); }
+        
+        final @Nullable PublicKey publicKey = lookUp(host.getAddress(), time);
+        if (publicKey != null) { return publicKey; }
+        
+        Log.debugging("Loading the public key chain of $ into memory.", host.getAddress());
+        final long generation = getGeneration();
+        final @Nonnull CertifiedAttributeValue value = load(host);
+        final @Nonnull PublicKeyChain publicKeyChain = value.getContent().unpack(PublicKeyChainConverter.INSTANCE, null);
+        // The expiration is determined in the same way as the expiration of the cached attribute value.
+        store(host.getAddress(), generation, publicKeyChain, value.getSignature().getTime().add(PublicKeyChain.TYPE.getCachingPeriod()));
+        return publicKeyChain.getKey(time);
+    }
+    
+    /* -------------------------------------------------- Invalidation -------------------------------------------------- */
+    
+    /**
+     * Removes the public key chain of the given host from memory so that it is loaded again from the attribute cache.
+     * This method has to be called whenever a new public key chain of the given host is fetched.
+     * The cached symmetric key for the host is discarded as well so that no key encrypted for the old public key is reused.
+     */
+    @Impure
+    public static void invalidate(@Nonnull HostIdentifier host) {
+        synchronized (PublicKeyChainCache.class) {
+            generation++;
+            entries.remove(host);
+        }
+        SymmetricKeyCache.invalidate(host);
+    }
+    
+    /**
+     * Removes the public key chain of the given host from memory after committing the current transaction successfully.
+     * Otherwise, a concurrent retrieval could load the previous public key chain from the database again before the new one is visible.
+     */
+    @Impure
+    public static void invalidateAfterCommit(@Nonnull HostIdentifier host) {
+        Database.instance.get().runAfterCommit(() -> invalidate(host));
+    }
+    
+    /**
+     * Removes all public key chains from memory.
+     */
+    @Impure
+    public static void clear() {
+        synchronized (PublicKeyChainCache.class) {
+            generation++;
+            entries.clear();
+        }
+    }
+    
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.core.cache;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.time.Time;
+import net.digitalid.utility.time.TimeBuilder;
+
+import net.digitalid.core.attribute.AttributeTypes;
+import net.digitalid.core.identification.identity.SemanticType;
+import net.digitalid.core.testing.CoreTest;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AttributeValueCacheTest extends CoreTest {
+    
+    private static final @Nonnull SemanticType TYPE = AttributeTypes.NAME;
+    
+    @Before
+    @After
+    public void clearCache() {
+        AttributeValueCache.clear();
+        AttributeValueCache.resetMetrics();
+    }
+    
+    @Test
+    public void shouldCountHitsAndMisses() {
+        assertThat(AttributeValueCache.get(null, TYPE, TimeBuilder.build(), TYPE)).isNull();
+        assertThat(AttributeValueCache.getMisses()).isEqualTo(1);
+        
+        AttributeValueCache.put(null, TYPE, Time.HOUR.ahead(), TYPE, null, AttributeValueCache.getGeneration());
+        assertThat(AttributeValueCache.get(null, TYPE, TimeBuilder.build(), TYPE)).isNotNull();
+        assertThat(AttributeValueCache.getHits()).isEqualTo(1);
+        
+        assertThat(AttributeValueCache.get(null, TYPE, Time.MONTH.ahead(), TYPE)).isNull();
+        assertThat(AttributeValueCache.getMisses()).isEqualTo(2);
+    }
+    
+    @Test
+    public void shouldRemoveInvalidatedValues() {
+        AttributeValueCache.put(null, TYPE, Time.HOUR.ahead(), TYPE, null, AttributeValueCache.getGeneration());
+        AttributeValueCache.invalidate(TYPE, TYPE);
+        assertThat(AttributeValueCache.get(null, TYPE, TimeBuilder.build(), TYPE)).isNull();
+        
+        AttributeValueCache.put(null, TYPE, Time.HOUR.ahead(), TYPE, null, AttributeValueCache.getGeneration());
+        AttributeValueCache.invalidate(TYPE);
+        assertThat(AttributeValueCache.get(null, TYPE, TimeBuilder.build(), TYPE)).isNull();
+    }
+    
+    @Test
+    public void shouldNotCacheValuesReadBeforeAnInvalidation() {
+        final long generation = AttributeValueCache.getGeneration();
+        final long invalidation = AttributeValueCache.invalidate(TYPE, TYPE);
+        
+        AttributeValueCache.put(null, TYPE, Time.HOUR.ahead(), TYPE, null, generation);
+        assertThat(AttributeValueCache.get(null, TYPE, TimeBuilder.build(), TYPE)).isNull();
+        
+        AttributeValueCache.put(null, TYPE, Time.HOUR.ahead(), TYPE, null, invalidation);
+        assertThat(AttributeValueCache.get(null, TYPE, TimeBuilder.build(), TYPE)).isNotNull();
+    }
+    
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.core.cache;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.time.Time;
+
+import net.digitalid.database.exceptions.DatabaseException;
+import net.digitalid.database.interfaces.Database;
+
+import net.digitalid.core.asymmetrickey.KeyPair;
+import net.digitalid.core.asymmetrickey.PublicKey;
+import net.digitalid.core.identification.identifier.HostIdentifier;
+import net.digitalid.core.keychain.PublicKeyChain;
+import net.digitalid.core.testing.CoreTest;
+
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class PublicKeyChainCacheTest extends CoreTest {
+    
+    private static final @Nonnull HostIdentifier HOST = HostIdentifier.with("chain.digitalid.net");
+    
+    private static @Nonnull PublicKey publicKey;
+    
+    private static @Nonnull Time start;
+    
+    @BeforeClass
+    public static void createPublicKey() {
+        publicKey = KeyPair.withRandomValues().getPublicKey();
+        start = Time.HOUR.ago();
+    }
+    
+    @After
+    public void clearCache() {
+        PublicKeyChainCache.clear();
+    }
+    
+    @Test
+    public void shouldReturnTheCachedKey() {
+        PublicKeyChainCache.store(HOST, PublicKeyChainCache.getGeneration(), PublicKeyChain.with(start, publicKey), Time.HOUR.ahead());
+        assertThat(PublicKeyChainCache.lookUp(HOST, start)).isEqualTo(publicKey);
+        assertThat(PublicKeyChainCache.lookUp(HOST, Time.MINUTE.ago())).isEqualTo(publicKey);
+    }
+    
+    @Test
+    public void shouldReloadOnlyAfterTheNewestKeyOnceExpired() {
+        PublicKeyChainCache.store(HOST, PublicKeyChainCache.getGeneration(), PublicKeyChain.with(start, publicKey), Time.MINUTE.ago());
+        assertThat(PublicKeyChainCache.lookUp(HOST, start)).isEqualTo(publicKey);
+        assertThat(PublicKeyChainCache.lookUp(HOST, Time.MINUTE.ago())).isNull();
+    }
+    
+    @Test
+    public void shouldNotStoreChainsLoadedBeforeAnInvalidation() {
+        final long generation = PublicKeyChainCache.getGeneration();
+        PublicKeyChainCache.invalidate(HOST);
+        assertThat(PublicKeyChainCache.store(HOST, generation, PublicKeyChain.with(start, publicKey), Time.HOUR.ahead())).isFalse();
+        assertThat(PublicKeyChainCache.lookUp(HOST, start)).isNull();
+    }
+    
+    @Test
+    public void shouldInvalidateAfterCommit() throws DatabaseException {
+        PublicKeyChainCache.store(HOST, PublicKeyChainCache.getGeneration(), PublicKeyChain.with(start, publicKey), Time.HOUR.ahead());
+        PublicKeyChainCache.invalidateAfterCommit(HOST);
+        assertThat(PublicKeyChainCache.lookUp(HOST, start)).isEqualTo(publicKey);
+        Database.commit();
+        assertThat(PublicKeyChainCache.lookUp(HOST, start)).isNull();
+    }
+    
+}
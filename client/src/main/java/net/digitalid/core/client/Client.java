@@ -16,7 +16,6 @@
 package net.digitalid.core.client;
 
 import java.math.BigInteger;
-import java.security.SecureRandom;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -67,6 +66,7 @@ import net.digitalid.core.group.ExponentBuilder;
 import net.digitalid.core.identification.identifier.InternalNonHostIdentifier;
 import net.digitalid.core.identification.identity.HostIdentity;
 import net.digitalid.core.parameters.Parameters;
+import net.digitalid.core.parameters.Randomness;
 import net.digitalid.core.permissions.ReadOnlyAgentPermissions;
 import net.digitalid.core.unit.CoreUnit;
 
@@ -208,7 +208,7 @@ public abstract class Client extends CoreUnit {
     @Committing
     @PureWithSideEffects
     public void rotateSecret() throws InterruptedException, ExternalException {
-        final @Nonnull Exponent newSecret = ExponentBuilder.withValue(new BigInteger(Parameters.EXPONENT.get(), new SecureRandom())).build();
+        final @Nonnull Exponent newSecret = ExponentBuilder.withValue(new BigInteger(Parameters.EXPONENT.get(), Randomness.get())).build();
         final @Nonnull ReadOnlySet<NativeRole> roles = roles().get();
         Database.commit();
         
@@ -17,7 +17,6 @@ package net.digitalid.core.client;
 
 import java.io.File;
 import java.math.BigInteger;
-import java.security.SecureRandom;
 
 import javax.annotation.Nonnull;
 
@@ -46,6 +45,7 @@ import net.digitalid.core.identification.identity.SemanticTypeAttributesBuilder;
 import net.digitalid.core.identification.identity.SyntacticType;
 import net.digitalid.core.pack.Pack;
 import net.digitalid.core.parameters.Parameters;
+import net.digitalid.core.parameters.Randomness;
 
 /**
  * The client secret loader loads and stores the secret of a client.
@@ -75,7 +75,7 @@ public class ClientSecretLoader {
             // TODO: Check the type of the loaded pack?
             return Pack.loadFrom(file).unpack(ExponentConverter.INSTANCE, null);
         } else {
-            final @Nonnull Exponent secret = ExponentBuilder.withValue(new BigInteger(Parameters.EXPONENT.get(), new SecureRandom())).build();
+            final @Nonnull Exponent secret = ExponentBuilder.withValue(new BigInteger(Parameters.EXPONENT.get(), Randomness.get())).build();
             setClientSecret(identifier, secret);
             return secret;
         }
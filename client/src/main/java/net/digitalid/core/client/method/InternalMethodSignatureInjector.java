@@ -16,6 +16,7 @@
 package net.digitalid.core.client.method;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import net.digitalid.utility.annotations.method.Pure;
 import net.digitalid.utility.annotations.method.PureWithSideEffects;
@@ -26,6 +27,8 @@ import net.digitalid.utility.validation.annotations.type.Utility;
 
 import net.digitalid.core.client.role.NativeRole;
 import net.digitalid.core.client.role.Role;
+import net.digitalid.core.client.session.SessionIndex;
+import net.digitalid.core.commitment.Commitment;
 import net.digitalid.core.compression.Compression;
 import net.digitalid.core.compression.CompressionConverterBuilder;
 import net.digitalid.core.exceptions.request.RequestErrorCode;
@@ -37,6 +40,8 @@ import net.digitalid.core.restrictions.Restrictions;
 import net.digitalid.core.service.CoreService;
 import net.digitalid.core.signature.Signature;
 import net.digitalid.core.signature.client.ClientSignatureCreator;
+import net.digitalid.core.signature.session.Session;
+import net.digitalid.core.signature.session.SessionSignatureCreator;
 
 /**
  * Injects the internal method signature function into the internal method configuration.
@@ -47,7 +52,8 @@ import net.digitalid.core.signature.client.ClientSignatureCreator;
 public abstract class InternalMethodSignatureInjector {
     
     /**
-     * Creates a client signature based on the commitment and secret of the role agent.
+     * Creates a client signature based on the commitment and secret of the role agent
+     * or a session signature if a session has been established for the role agent and the method does not require a client signature.
      * Only native roles are supported for now.
      * An external exception can be thrown if accessing the commitment of the client fails.
      */
@@ -63,7 +69,12 @@ public abstract class InternalMethodSignatureInjector {
         if (internalMethod.getService().equals(CoreService.INSTANCE)) {
             if (role instanceof NativeRole) {
                 final @Nonnull NativeRole nativeRole = (NativeRole) role;
-                return ClientSignatureCreator.sign(compression, CompressionConverterBuilder.withObjectConverter(PackConverter.INSTANCE).build()).about(internalMethod.getSubject()).with(nativeRole.getAgent().commitment().get().addSecret(role.getUnit().secret.get()));
+                final @Nonnull Commitment commitment = nativeRole.getAgent().commitment().get();
+                if (!internalMethod.requiresClientSignature()) {
+                    final @Nullable Session session = SessionIndex.getSession(nativeRole, internalMethod.getSubject(), commitment);
+                    if (session != null) { return SessionSignatureCreator.sign(compression, CompressionConverterBuilder.withObjectConverter(PackConverter.INSTANCE).build()).about(internalMethod.getSubject()).with(session); }
+                }
+                return ClientSignatureCreator.sign(compression, CompressionConverterBuilder.withObjectConverter(PackConverter.INSTANCE).build()).about(internalMethod.getSubject()).with(commitment.addSecret(role.getUnit().secret.get()));
             } else {
                 // see Method for implementation hints
                 throw new UnsupportedOperationException("Non-native roles are not yet implemented");
@@ -15,8 +15,6 @@
  */
 package net.digitalid.core.client.role;
 
-import java.util.concurrent.ThreadLocalRandom;
-
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
@@ -48,6 +46,7 @@ import net.digitalid.core.exceptions.request.RequestExceptionBuilder;
 import net.digitalid.core.identification.identity.IdentifierResolver;
 import net.digitalid.core.identification.identity.InternalPerson;
 import net.digitalid.core.unit.GeneralUnit;
+import net.digitalid.core.unit.key.KeyAllocator;
 
 /**
  * This class provides database access to the {@link Role roles} of the core service.
@@ -69,13 +68,18 @@ public abstract class RoleModule {
      */
     @Committing
     @PureWithSideEffects
-    @Initialize(target = RoleModule.class, dependencies = {IdentifierResolver.class, GeneralUnit.class})
+    @Initialize(target = RoleModule.class, dependencies = {IdentifierResolver.class, GeneralUnit.class, KeyAllocator.class})
     public static void createTable() throws DatabaseException {
         SQL.createTable(RoleEntryConverter.INSTANCE, GeneralUnit.INSTANCE);
     }
     
     /* -------------------------------------------------- Mapping -------------------------------------------------- */
     
+    /**
+     * The name of the sequence from which the keys of roles are allocated.
+     */
+    public static final @Nonnull String SEQUENCE = "role";
+    
     /**
      * Checks whether the role with the given arguments is already mapped and returns the existing or newly mapped role.
      */
@@ -85,8 +89,7 @@ public abstract class RoleModule {
         final @Nonnull WhereCondition<RoleArguments> roleArgumentsWhereCondition = WhereConditionBuilder.withConverter(RoleArgumentsConverter.INSTANCE).withObject(roleArguments).withPrefix("arguments").build();
         @Nullable RoleEntry roleEntry = SQL.selectFirst(RoleEntryConverter.INSTANCE, null, GeneralUnit.INSTANCE, roleArgumentsWhereCondition);
         if (roleEntry == null) {
-            long key = 0; // The cache uses zero to encode a null requester.
-            while (key == 0) { key = Math.abs(ThreadLocalRandom.current().nextLong()); }
+            final long key = KeyAllocator.allocate(SEQUENCE); // The allocated keys are never zero, which the cache uses to encode a null requester.
             roleEntry = RoleEntryBuilder.withKey(key).withArguments(roleArguments).build();
             SQL.insertOrAbort(RoleEntryConverter.INSTANCE, roleEntry, GeneralUnit.INSTANCE);
         }
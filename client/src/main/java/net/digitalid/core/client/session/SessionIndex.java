@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.core.client.session;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.concurrency.map.ConcurrentHashMapBuilder;
+import net.digitalid.utility.concurrency.map.ConcurrentMap;
+import net.digitalid.utility.configuration.Configuration;
+import net.digitalid.utility.exceptions.ExternalException;
+import net.digitalid.utility.logging.Log;
+import net.digitalid.utility.time.Time;
+import net.digitalid.utility.tuples.Pair;
+import net.digitalid.utility.validation.annotations.type.Utility;
+
+import net.digitalid.core.client.role.NativeRole;
+import net.digitalid.core.commitment.Commitment;
+import net.digitalid.core.identification.identifier.InternalIdentifier;
+import net.digitalid.core.signature.session.Session;
+import net.digitalid.core.signature.session.SessionCache;
+import net.digitalid.core.signature.session.SessionToken;
+
+/**
+ * The session index requests the sessions of the native roles of this client and stores them in the {@link SessionCache}.
+ * Sessions are requested lazily with a client signature and then used until they are about to expire.
+ */
+@Utility
+public abstract class SessionIndex {
+    
+    /* -------------------------------------------------- Configuration -------------------------------------------------- */
+    
+    /**
+     * Stores whether internal methods are authenticated with sessions instead of client signatures.
+     */
+    public static final @Nonnull Configuration<Boolean> activation = Configuration.with(false);
+    
+    /**
+     * Stores the duration for which a session has to remain valid in order to be used.
+     */
+    public static final @Nonnull Configuration<Time> margin = Configuration.with(Time.MINUTE);
+    
+    /**
+     * Stores the duration for which no session is requested again after a host refused to issue one.
+     */
+    public static final @Nonnull Configuration<Time> backoff = Configuration.with(Time.HOUR);
+    
+    /* -------------------------------------------------- Sessions -------------------------------------------------- */
+    
+    /**
+     * Stores the time until which no session is requested for the given subject and commitment.
+     */
+    private static final @Nonnull ConcurrentMap<@Nonnull Pair<@Nonnull InternalIdentifier, @Nonnull Commitment>, @Nonnull Time> refusals = ConcurrentHashMapBuilder.build();
+    
+    /**
+     * Returns a session for the given subject and commitment, which is requested from the host with the given role if necessary.
+     * Returns null if the sessions are not activated or the host refused to issue a session.
+     */
+    @Impure
+    public static @Nullable Session getSession(@Nonnull NativeRole role, @Nonnull InternalIdentifier subject, @Nonnull Commitment commitment) {
+        if (!activation.get()) { return null; }
+        
+        final @Nullable Session cachedSession = SessionCache.get(subject, commitment, margin.get());
+        if (cachedSession != null) { return cachedSession; }
+        
+        final @Nonnull Pair<@Nonnull InternalIdentifier, @Nonnull Commitment> key = Pair.of(subject, commitment);
+        final @Nullable Time refusal = refusals.get(key);
+        if (refusal != null && !refusal.isInPast()) { return null; }
+        
+        try {
+            Log.debugging("Requesting a session for $.", subject);
+            final @Nonnull SessionReply reply = SessionInternalQueryBuilder.withProvidedSubject(subject).withProvidedEntity(role).build().send(SessionReplyConverter.INSTANCE);
+            final @Nonnull Session session = reply.getSession();
+            final @Nonnull SessionToken token = session.getToken();
+            if (!token.getSubject().equals(subject) || !token.getCommitment().equals(commitment)) {
+                Log.warning("The host issued a session for $ that does not match the request.", subject);
+                refusals.put(key, backoff.get().ahead());
+                return null;
+            }
+            SessionCache.store(session);
+            refusals.remove(key);
+            return session;
+        } catch (@Nonnull ExternalException exception) {
+            Log.information("Could not obtain a session for " + subject + ", using client signatures instead.", exception);
+            refusals.put(key, backoff.get().ahead());
+            return null;
+        }
+    }
+    
+    /**
+     * Removes all sessions and refusals.
+     */
+    @Impure
+    public static void clear() {
+        SessionCache.clear();
+        refusals.clear();
+    }
+    
+}
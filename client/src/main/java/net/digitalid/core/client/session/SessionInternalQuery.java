@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.core.client.session;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.method.PureWithSideEffects;
+import net.digitalid.utility.contracts.Require;
+import net.digitalid.utility.conversion.exceptions.RecoveryException;
+import net.digitalid.utility.generator.annotations.generators.GenerateBuilder;
+import net.digitalid.utility.generator.annotations.generators.GenerateConverter;
+import net.digitalid.utility.generator.annotations.generators.GenerateSubclass;
+import net.digitalid.utility.validation.annotations.type.Immutable;
+
+import net.digitalid.database.annotations.transaction.NonCommitting;
+import net.digitalid.database.exceptions.DatabaseException;
+
+import net.digitalid.core.agent.AgentRetriever;
+import net.digitalid.core.entity.NonHostEntity;
+import net.digitalid.core.exceptions.request.RequestErrorCode;
+import net.digitalid.core.exceptions.request.RequestException;
+import net.digitalid.core.exceptions.request.RequestExceptionBuilder;
+import net.digitalid.core.handler.annotations.Matching;
+import net.digitalid.core.handler.annotations.MethodHasBeenReceived;
+import net.digitalid.core.handler.method.CoreMethod;
+import net.digitalid.core.handler.method.query.InternalQuery;
+import net.digitalid.core.signature.Signature;
+import net.digitalid.core.signature.client.ClientSignature;
+import net.digitalid.core.signature.exceptions.SignatureException;
+import net.digitalid.core.signature.session.SessionAuthority;
+import net.digitalid.core.unit.annotations.OnHostRecipient;
+
+/**
+ * Requests a session with which the subsequent requests of the client can be authenticated.
+ * A session is only issued after the client signature of this query has been verified.
+ * 
+ * @see SessionReply
+ */
+@Immutable
+@GenerateBuilder
+@GenerateSubclass
+@GenerateConverter
+public abstract class SessionInternalQuery extends InternalQuery implements CoreMethod<NonHostEntity> {
+    
+    /* -------------------------------------------------- Client Signature -------------------------------------------------- */
+    
+    /**
+     * Returns the client signature of this query.
+     * 
+     * @throws RequestException if this query is not signed by a client.
+     */
+    @Pure
+    protected @Nonnull ClientSignature<?> getClientSignature() throws RequestException {
+        final @Nullable Signature<?> signature = getSignature();
+        if (!(signature instanceof ClientSignature<?>)) { throw RequestExceptionBuilder.withCode(RequestErrorCode.SIGNATURE).withMessage("A session can only be requested with a client signature.").build(); }
+        return (ClientSignature<?>) signature;
+    }
+    
+    /**
+     * A session is issued for the commitment of the client, which is only contained in a client signature.
+     */
+    @Pure
+    @Override
+    public boolean requiresClientSignature() {
+        return true;
+    }
+    
+    /* -------------------------------------------------- Execution -------------------------------------------------- */
+    
+    @Pure
+    @Override
+    @NonCommitting
+    protected @Nonnull SessionReply execute() throws RequestException, DatabaseException {
+        final @Nonnull ClientSignature<?> clientSignature = getClientSignature();
+        return SessionReplyBuilder.withEntity(getEntity()).withSession(SessionAuthority.issue(getRecipient(), getSubject(), clientSignature.getCommitment())).build();
+    }
+    
+    @Override
+    @NonCommitting
+    @OnHostRecipient
+    @PureWithSideEffects
+    @MethodHasBeenReceived
+    public @Nonnull @Matching SessionReply executeOnHost() throws RequestException, DatabaseException, RecoveryException {
+        Require.that(hasBeenReceived()).orThrow("This internal query can only be executed if it has been received.");
+        
+        if (!SessionAuthority.activation.get()) { throw RequestExceptionBuilder.withCode(RequestErrorCode.METHOD).withMessage("This host does not issue sessions.").build(); }
+        
+        final @Nonnull ClientSignature<?> clientSignature = getClientSignature();
+        try {
+            clientSignature.verifySignature();
+        } catch (@Nonnull SignatureException exception) {
+            throw RequestExceptionBuilder.withCode(RequestErrorCode.SIGNATURE).withMessage("The client signature of the session request is invalid.").withCause(exception).build();
+        }
+        AgentRetriever.retrieve(getEntity(), clientSignature.getCommitment()).checkNotRemoved();
+        
+        return execute();
+    }
+    
+}
@@ -21,8 +21,6 @@ import java.io.File;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.Socket;
-import java.security.DigestOutputStream;
-import java.security.MessageDigest;
 
 import javax.annotation.Nonnull;
 
@@ -50,7 +48,8 @@ import net.digitalid.core.conversion.encoders.NetworkEncoder;
 import net.digitalid.core.conversion.exceptions.FileException;
 import net.digitalid.core.conversion.exceptions.MemoryException;
 import net.digitalid.core.conversion.exceptions.NetworkException;
-import net.digitalid.core.parameters.Parameters;
+import net.digitalid.core.conversion.streams.output.HashingOutputStream;
+import net.digitalid.core.parameters.Digests;
 
 /**
  * This utility class helps converting and recovering objects to and from XDF.
@@ -143,17 +142,17 @@ public abstract class XDF {
     
     /**
      * Returns the hash of the given object converted with the given converter.
+     * The object is encoded in memory and hashed at once with a digest from the {@link Digests}.
      */
     @Pure
     public static <@Unspecifiable TYPE> @Nonnull @Size(32) byte[] hash(@Nonnull Converter<TYPE, ?> converter, @NonCaptured @Unmodified @Nonnull TYPE object) {
-        final @Nonnull MessageDigest messageDigest = Parameters.HASH_FUNCTION.get().produce();
-        final @Nonnull DigestOutputStream outputStream = new DigestOutputStream(NULL_OUTPUT_STREAM, messageDigest);
+        final @Nonnull HashingOutputStream outputStream = new HashingOutputStream();
         try (@Nonnull MemoryEncoder encoder = MemoryEncoder.of(outputStream)) {
             encoder.encodeObject(converter, object);
         } catch (@Nonnull MemoryException exception) {
             throw UncheckedExceptionBuilder.withCause(exception).build();
         }
-        return messageDigest.digest();
+        return outputStream.digest();
     }
     
 }
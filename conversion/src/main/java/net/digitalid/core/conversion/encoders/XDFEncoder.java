@@ -102,16 +102,17 @@ public abstract class XDFEncoder<@Unspecifiable EXCEPTION extends StreamExceptio
     public <@Unspecifiable TYPE> void encodeObject(@Nonnull Converter<TYPE, ?> converter, @NonCaptured @Unmodified @Nonnull TYPE object) throws EXCEPTION {
         final @Nullable @NonNullableElements @NonEmpty ImmutableList<? extends Converter<? extends TYPE, ?>> subtypeConverters = converter.getSubtypeConverters();
         if (subtypeConverters != null) {
-            int i = 0;
-            for (@Nonnull Converter<? extends TYPE, ?> subtypeConverter : subtypeConverters) {
-                if (subtypeConverter.getType().isInstance(object)) {
-                    encodeInteger32(i);
-                    encodeObjectWithCasting(subtypeConverter, object);
-                    return;
-                }
-                i++;
+            // If the types of several subtype converters match, the object is encoded with the converter of the most specific type.
+            int index = -1;
+            for (int i = 0; i < subtypeConverters.size(); i++) {
+                final @Nonnull Class<?> type = subtypeConverters.get(i).getType();
+                if (type.isInstance(object) && (index < 0 || subtypeConverters.get(index).getType().isAssignableFrom(type))) { index = i; }
+            }
+            encodeInteger32(index);
+            if (index >= 0) {
+                encodeObjectWithCasting(subtypeConverters.get(index), object);
+                return;
             }
-            encodeInteger32(-1);
         }
         converter.convert(object, this);
     }
@@ -25,6 +25,7 @@ import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 
+import javax.crypto.AEADBadTagException;
 import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
 import javax.crypto.IllegalBlockSizeException;
@@ -118,6 +119,8 @@ public class CustomCipherInputStream extends FilterInputStream {
             try {
                 obuffer = cipher.doFinal();
             }
+            // CHANGED by adding the following line so that a wrong authentication tag is not mistaken for the end of the stream
+            catch (AEADBadTagException e) {throw new IOException("The authentication tag of the encrypted data is invalid.", e);}
             catch (IllegalBlockSizeException e) {obuffer = null;}
             catch (BadPaddingException e) {obuffer = null;}
             if (obuffer == null)
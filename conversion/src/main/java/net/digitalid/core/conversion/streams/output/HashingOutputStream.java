@@ -0,0 +1,42 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.core.conversion.streams.output;
+
+import java.io.ByteArrayOutputStream;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.ownership.Capturable;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+
+import net.digitalid.core.parameters.Digests;
+
+/**
+ * This class collects the written bytes in memory and hashes them at once directly from its internal buffer.
+ */
+@Mutable
+public final class HashingOutputStream extends ByteArrayOutputStream {
+    
+    /**
+     * Returns the hash of all the bytes that have been written to this stream.
+     */
+    @Pure
+    public synchronized @Capturable @Nonnull byte[] digest() {
+        return Digests.digest(buf, 0, count);
+    }
+    
+}
@@ -17,7 +17,6 @@ package net.digitalid.core.credential;
 
 
 import java.math.BigInteger;
-import java.security.SecureRandom;
 
 import javax.annotation.Nonnull;
 
@@ -33,7 +32,7 @@ import net.digitalid.core.asymmetrickey.PublicKey;
 import net.digitalid.core.conversion.XDF;
 import net.digitalid.core.group.Element;
 import net.digitalid.core.group.Exponent;
-import net.digitalid.core.group.ExponentBuilder;
+import net.digitalid.core.group.PowerPool;
 import net.digitalid.core.parameters.Parameters;
 import net.digitalid.core.restrictions.RestrictionsConverter;
 
@@ -98,8 +97,9 @@ public abstract class ClientCredential extends Credential {
      */
     @Pure
     public @Nonnull ClientCredential getRandomizedCredential() {
-        final @Nonnull Exponent r = ExponentBuilder.withValue(new BigInteger(Parameters.BLINDING_EXPONENT.get() - Parameters.CREDENTIAL_EXPONENT.get(), new SecureRandom())).build();
-        return ClientCredentialBuilder.withExposedExponent(getExposedExponent()).withC(getC().multiply(getExposedExponent().getPublicKey().getAb().pow(r))).withE(getE()).withB(getB().subtract(getE().multiply(r))).withU(getU()).withV(getV()).withI(getI()).withRestrictions(getRestrictions()).withOneTime(isOneTime()).build();
+        final @Nonnull PowerPool.Powers powers = PowerPool.take(Parameters.BLINDING_EXPONENT.get() - Parameters.CREDENTIAL_EXPONENT.get(), getExposedExponent().getPublicKey().getAb());
+        final @Nonnull Exponent r = powers.getExponent();
+        return ClientCredentialBuilder.withExposedExponent(getExposedExponent()).withC(getC().multiply(powers.getPower(0))).withE(getE()).withB(getB().subtract(getE().multiply(r))).withU(getU()).withV(getV()).withI(getI()).withRestrictions(getRestrictions()).withOneTime(isOneTime()).build();
     }
     
     /* -------------------------------------------------- Validation -------------------------------------------------- */
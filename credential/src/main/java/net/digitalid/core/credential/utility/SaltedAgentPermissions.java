@@ -16,7 +16,6 @@
 package net.digitalid.core.credential.utility;
 
 import java.math.BigInteger;
-import java.security.SecureRandom;
 
 import javax.annotation.Nonnull;
 
@@ -28,6 +27,7 @@ import net.digitalid.utility.rootclass.RootClass;
 import net.digitalid.utility.validation.annotations.type.Immutable;
 
 import net.digitalid.core.parameters.Parameters;
+import net.digitalid.core.parameters.Randomness;
 import net.digitalid.core.permissions.ReadOnlyAgentPermissions;
 
 /**
@@ -61,7 +61,7 @@ public abstract class SaltedAgentPermissions extends RootClass {
      */
     @Pure
     public static @Nonnull SaltedAgentPermissions with(@Nonnull @Frozen ReadOnlyAgentPermissions permissions) {
-        return new SaltedAgentPermissionsSubclass(new BigInteger(Parameters.EXPONENT.get(), new SecureRandom()), permissions);
+        return new SaltedAgentPermissionsSubclass(new BigInteger(Parameters.EXPONENT.get(), Randomness.get()), permissions);
     }
     
 }
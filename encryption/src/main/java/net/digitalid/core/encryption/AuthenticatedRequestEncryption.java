@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.core.encryption;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.generics.Unspecifiable;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.collaboration.annotations.TODO;
+import net.digitalid.utility.collaboration.enumerations.Author;
+import net.digitalid.utility.exceptions.ExternalException;
+import net.digitalid.utility.generator.annotations.generators.GenerateBuilder;
+import net.digitalid.utility.generator.annotations.generators.GenerateSubclass;
+import net.digitalid.utility.validation.annotations.type.Immutable;
+
+import net.digitalid.core.symmetrickey.EncryptionMode;
+
+/**
+ * This class encrypts the wrapped object as a request in the authenticated {@link EncryptionMode#GCM Galois/counter mode}.
+ * Authenticated request encryptions have their own converter so that the encoding of request encryptions in the
+ * {@link EncryptionMode#CBC cipher block chaining mode} remains compatible with older peers.
+ * 
+ * @see AuthenticatedRequestEncryptionConverter
+ */
+@Immutable
+@GenerateBuilder
+@GenerateSubclass
+public abstract class AuthenticatedRequestEncryption<@Unspecifiable OBJECT> extends RequestEncryption<OBJECT> {
+    
+    /* -------------------------------------------------- Encryption Mode -------------------------------------------------- */
+    
+    @Pure
+    @Override
+    public @Nonnull EncryptionMode getEncryptionMode() {
+        return EncryptionMode.GCM;
+    }
+    
+    /* -------------------------------------------------- Constructor -------------------------------------------------- */
+    
+    @TODO(task = "Remove this constructor as soon as we can declare exceptions in derive expressions.", date = "2017-01-28", author = Author.KASPAR_ETTER)
+    protected AuthenticatedRequestEncryption() throws ExternalException {}
+    
+}
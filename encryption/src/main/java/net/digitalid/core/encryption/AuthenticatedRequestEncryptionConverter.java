@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.core.encryption;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.crypto.Cipher;
+
+import net.digitalid.utility.annotations.generics.Unspecifiable;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.ownership.NonCaptured;
+import net.digitalid.utility.annotations.parameter.Modified;
+import net.digitalid.utility.annotations.parameter.Unmodified;
+import net.digitalid.utility.conversion.enumerations.Representation;
+import net.digitalid.utility.conversion.exceptions.ConnectionException;
+import net.digitalid.utility.conversion.exceptions.RecoveryException;
+import net.digitalid.utility.conversion.exceptions.RecoveryExceptionBuilder;
+import net.digitalid.utility.conversion.interfaces.Converter;
+import net.digitalid.utility.conversion.interfaces.Decoder;
+import net.digitalid.utility.conversion.interfaces.Encoder;
+import net.digitalid.utility.conversion.interfaces.GenericTypeConverter;
+import net.digitalid.utility.conversion.model.CustomAnnotation;
+import net.digitalid.utility.conversion.model.CustomField;
+import net.digitalid.utility.conversion.model.CustomType;
+import net.digitalid.utility.exceptions.ExternalException;
+import net.digitalid.utility.functional.iterables.FiniteIterable;
+import net.digitalid.utility.generator.annotations.generators.GenerateBuilder;
+import net.digitalid.utility.generator.annotations.generators.GenerateSubclass;
+import net.digitalid.utility.immutable.ImmutableList;
+import net.digitalid.utility.string.Strings;
+import net.digitalid.utility.time.Time;
+import net.digitalid.utility.time.TimeConverter;
+import net.digitalid.utility.validation.annotations.elements.NonNullableElements;
+import net.digitalid.utility.validation.annotations.size.MaxSize;
+import net.digitalid.utility.validation.annotations.string.CodeIdentifier;
+import net.digitalid.utility.validation.annotations.string.DomainName;
+import net.digitalid.utility.validation.annotations.type.Immutable;
+
+import net.digitalid.core.asymmetrickey.PrivateKey;
+import net.digitalid.core.asymmetrickey.PrivateKeyRetriever;
+import net.digitalid.core.exceptions.request.RequestException;
+import net.digitalid.core.group.Element;
+import net.digitalid.core.group.ElementConverter;
+import net.digitalid.core.identification.identifier.HostIdentifier;
+import net.digitalid.core.identification.identifier.HostIdentifierConverter;
+import net.digitalid.core.symmetrickey.EncryptionMode;
+import net.digitalid.core.symmetrickey.InitializationVector;
+import net.digitalid.core.symmetrickey.InitializationVectorConverter;
+import net.digitalid.core.symmetrickey.SymmetricKey;
+import net.digitalid.core.symmetrickey.SymmetricKeyConverter;
+
+import static net.digitalid.utility.conversion.model.CustomType.TUPLE;
+
+/**
+ * This class converts and recovers an {@link AuthenticatedRequestEncryption authenticated request encryption}.
+ */
+@Immutable
+@GenerateBuilder
+@GenerateSubclass
+public abstract class AuthenticatedRequestEncryptionConverter<@Unspecifiable OBJECT> implements GenericTypeConverter<OBJECT, AuthenticatedRequestEncryption<OBJECT>, @Nullable SymmetricKey> {
+    
+    /* -------------------------------------------------- Type -------------------------------------------------- */
+    
+    @Pure
+    @Override
+    public @Nonnull Class<? super AuthenticatedRequestEncryption<OBJECT>> getType() {
+        return AuthenticatedRequestEncryption.class;
+    }
+    
+    /* -------------------------------------------------- Name -------------------------------------------------- */
+    
+    @Pure
+    @Override
+    public @Nonnull @CodeIdentifier @MaxSize(63) String getTypeName() {
+        return "AuthenticatedRequestEncryption";
+    }
+    
+    /* -------------------------------------------------- Package -------------------------------------------------- */
+    
+    @Pure
+    @Override
+    public @Nonnull @DomainName String getTypePackage() {
+        return "net.digitalid.core.encryption";
+    }
+    
+    /* -------------------------------------------------- Fields -------------------------------------------------- */
+    
+    private static final @Nonnull @NonNullableElements ImmutableList<CustomField> fields;
+    
+    static {
+        fields = ImmutableList.withElements(
+                CustomField.with(TUPLE.of(TimeConverter.INSTANCE), "time", ImmutableList.withElements(CustomAnnotation.with(Nonnull.class))),
+                CustomField.with(TUPLE.of(HostIdentifierConverter.INSTANCE), "recipient", ImmutableList.withElements(CustomAnnotation.with(Nonnull.class))),
+                CustomField.with(TUPLE.of(SymmetricKeyConverter.INSTANCE), "symmetricKey", ImmutableList.withElements(CustomAnnotation.with(Nonnull.class))),
+                CustomField.with(TUPLE.of(InitializationVectorConverter.INSTANCE), "initializationVector", ImmutableList.withElements(CustomAnnotation.with(Nonnull.class)))
+        );
+    }
+    
+    @Pure
+    @Override
+    public @Nonnull @NonNullableElements ImmutableList<CustomField> getFields(@Nonnull Representation representation) {
+        final @Nonnull FiniteIterable<@Nonnull CustomField> customFieldForObject = FiniteIterable.of(CustomField.with(CustomType.TUPLE.of(getObjectConverter()), "object", ImmutableList.withElements(CustomAnnotation.with(Nonnull.class))));
+        return ImmutableList.withElementsOf(fields.combine(customFieldForObject));
+    }
+    
+    /* -------------------------------------------------- Inheritance -------------------------------------------------- */
+    
+    @Pure
+    @Override
+    public @Nonnull Converter<? super AuthenticatedRequestEncryption<OBJECT>, @Nullable SymmetricKey> getSupertypeConverter() {
+        return RequestEncryptionConverterBuilder.withObjectConverter(getObjectConverter()).build();
+    }
+    
+    /* -------------------------------------------------- Convert -------------------------------------------------- */
+    
+    @Pure
+    @Override
+    public <@Unspecifiable EXCEPTION extends ConnectionException> void convert(@NonCaptured @Unmodified @Nonnull AuthenticatedRequestEncryption<OBJECT> encryption, @NonCaptured @Modified @Nonnull Encoder<EXCEPTION> encoder) throws EXCEPTION {
+        encoder.encodeObject(TimeConverter.INSTANCE, encryption.getTime());
+        encoder.encodeObject(HostIdentifierConverter.INSTANCE, encryption.getRecipient());
+        final @Nonnull Element encryptedSymmetricKey = encryption.getPublicKey().getCompositeGroup().getElement(encryption.getSymmetricKey().getValue()).pow(encryption.getPublicKey().getE());
+        encoder.encodeObject(ElementConverter.INSTANCE, encryptedSymmetricKey);
+        encoder.encodeObject(InitializationVectorConverter.INSTANCE, encryption.getInitializationVector());
+        
+        encoder.startEncrypting(encryption.getSymmetricKey().getCipher(encryption.getInitializationVector(), Cipher.ENCRYPT_MODE, EncryptionMode.GCM));
+        encoder.encodeObject(getObjectConverter(), encryption.getObject());
+        encoder.stopEncrypting();
+    }
+    
+    /* -------------------------------------------------- Recover -------------------------------------------------- */
+    
+    @Pure
+    @Override 
+    public <@Unspecifiable EXCEPTION extends ConnectionException> @Nonnull AuthenticatedRequestEncryption<OBJECT> recover(@NonCaptured @Modified @Nonnull Decoder<EXCEPTION> decoder, @Nullable SymmetricKey symmetricKey) throws EXCEPTION, RecoveryException {
+        final @Nonnull Time time = decoder.decodeObject(TimeConverter.INSTANCE, null);
+        final @Nonnull HostIdentifier recipient = decoder.decodeObject(HostIdentifierConverter.INSTANCE, null);
+        final @Nonnull PrivateKey privateKey;
+        try {
+            privateKey = PrivateKeyRetriever.retrieve(recipient, time);
+        } catch (@Nonnull RequestException exception) {
+            throw RecoveryExceptionBuilder.withMessage(Strings.format("Could not retrieve the private key of $.", recipient)).withCause(exception).build();
+        }
+        final @Nonnull Element encryptedSymmetricKeyValue = decoder.decodeObject(ElementConverter.INSTANCE, privateKey.getCompositeGroup());
+        final @Nonnull SymmetricKey decryptedSymmetricKey = DecryptedSymmetricKeyCache.getSymmetricKey(privateKey, encryptedSymmetricKeyValue);
+        final @Nonnull InitializationVector initializationVector = decoder.decodeObject(InitializationVectorConverter.INSTANCE, null);
+        
+        decoder.startDecrypting(decryptedSymmetricKey.getCipher(initializationVector, Cipher.DECRYPT_MODE, EncryptionMode.GCM));
+        final OBJECT object = decoder.decodeObject(getObjectConverter(), null);
+        decoder.stopDecrypting();
+        
+        try {
+            return AuthenticatedRequestEncryptionBuilder.withObject(object).withRecipient(recipient).withTime(time).withSymmetricKey(decryptedSymmetricKey).withInitializationVector(initializationVector).build();
+        } catch (@Nonnull ExternalException exception) {
+            throw RecoveryExceptionBuilder.withMessage(Strings.format("Could not retrieve the public key of $.", recipient)).withCause(exception).build();
+        }
+    }
+    
+}
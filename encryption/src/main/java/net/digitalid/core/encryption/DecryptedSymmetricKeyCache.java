@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.core.encryption;
+
+import java.math.BigInteger;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.configuration.Configuration;
+import net.digitalid.utility.tuples.Pair;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
+import net.digitalid.utility.validation.annotations.math.Positive;
+import net.digitalid.utility.validation.annotations.type.Utility;
+
+import net.digitalid.core.asymmetrickey.PrivateKey;
+import net.digitalid.core.group.Element;
+import net.digitalid.core.symmetrickey.SymmetricKey;
+import net.digitalid.core.symmetrickey.SymmetricKeyBuilder;
+
+/**
+ * This class caches the symmetric keys that were decrypted by a host so that requests which reuse a symmetric key skip the private-key operation.
+ * The cache is bounded and evicts the least recently used symmetric keys first.
+ * 
+ * @see SymmetricKeyCache
+ */
+@Utility
+public abstract class DecryptedSymmetricKeyCache {
+    
+    /* -------------------------------------------------- Configuration -------------------------------------------------- */
+    
+    /**
+     * Stores whether the caching of decrypted symmetric keys is activated.
+     */
+    public static final @Nonnull Configuration<Boolean> activation = Configuration.with(true);
+    
+    /**
+     * Stores the maximal number of cached symmetric keys.
+     */
+    public static final @Nonnull Configuration<@Positive Integer> capacity = Configuration.with(4_096);
+    
+    /* -------------------------------------------------- Cache -------------------------------------------------- */
+    
+    /**
+     * Maps the modulus of the private key and the encrypted symmetric key to the decrypted symmetric key.
+     */
+    private static final @Nonnull Map<@Nonnull Pair<@Nonnull BigInteger, @Nonnull BigInteger>, @Nonnull SymmetricKey> symmetricKeys = Collections.synchronizedMap(new LinkedHashMap<Pair<BigInteger, BigInteger>, SymmetricKey>(16, 0.75f, true) {
+        
+        @Pure
+        @Override
+        protected boolean removeEldestEntry(@Nonnull Map.Entry<Pair<BigInteger, BigInteger>, SymmetricKey> eldest) {
+            return size() > capacity.get();
+        }
+        
+    });
+    
+    /**
+     * Returns the number of cached symmetric keys.
+     */
+    @Pure
+    public static @NonNegative int getSize() {
+        return symmetricKeys.size();
+    }
+    
+    /**
+     * Removes all cached symmetric keys.
+     */
+    @Impure
+    public static void clear() {
+        symmetricKeys.clear();
+    }
+    
+    /* -------------------------------------------------- Retrieval -------------------------------------------------- */
+    
+    /**
+     * Returns the symmetric key that results from decrypting the given encrypted symmetric key with the given private key.
+     */
+    @Impure
+    public static @Nonnull SymmetricKey getSymmetricKey(@Nonnull PrivateKey privateKey, @Nonnull Element encryptedSymmetricKey) {
+        if (!activation.get()) { return SymmetricKeyBuilder.buildWithValue(privateKey.powD(encryptedSymmetricKey).getValue()); }
+        
+        final @Nonnull Pair<@Nonnull BigInteger, @Nonnull BigInteger> key = Pair.of(privateKey.getCompositeGroup().getModulus(), encryptedSymmetricKey.getValue());
+        final @Nullable SymmetricKey cachedSymmetricKey = symmetricKeys.get(key);
+        if (cachedSymmetricKey != null) { return cachedSymmetricKey; }
+        
+        final @Nonnull SymmetricKey decryptedSymmetricKey = SymmetricKeyBuilder.buildWithValue(privateKey.powD(encryptedSymmetricKey).getValue());
+        symmetricKeys.put(key, decryptedSymmetricKey);
+        return decryptedSymmetricKey;
+    }
+    
+}
@@ -104,7 +104,8 @@ public abstract class EncryptionConverter<@Unspecifiable OBJECT> implements Gene
     @Pure
     @Override
     public @Nonnull @NonNullableElements @NonEmpty ImmutableList<@Nonnull Converter<? extends Encryption<OBJECT>, @Nullable SymmetricKey>> getSubtypeConverters() {
-        return ImmutableList.withElements(RequestEncryptionConverterBuilder.withObjectConverter(getObjectConverter()).build(), ResponseEncryptionConverterBuilder.withObjectConverter(getObjectConverter()).build());
+        // New subtype converters have to be appended so that the indexes of the existing subtypes remain the same.
+        return ImmutableList.withElements(RequestEncryptionConverterBuilder.withObjectConverter(getObjectConverter()).build(), ResponseEncryptionConverterBuilder.withObjectConverter(getObjectConverter()).build(), AuthenticatedRequestEncryptionConverterBuilder.withObjectConverter(getObjectConverter()).build(), AuthenticatedResponseEncryptionConverterBuilder.withObjectConverter(getObjectConverter()).build());
     }
     
     /* -------------------------------------------------- Convert -------------------------------------------------- */
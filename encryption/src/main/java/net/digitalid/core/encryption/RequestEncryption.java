@@ -21,6 +21,7 @@ import net.digitalid.utility.annotations.generics.Unspecifiable;
 import net.digitalid.utility.annotations.method.Pure;
 import net.digitalid.utility.collaboration.annotations.TODO;
 import net.digitalid.utility.collaboration.enumerations.Author;
+import net.digitalid.utility.configuration.Configuration;
 import net.digitalid.utility.exceptions.ExternalException;
 import net.digitalid.utility.generator.annotations.generators.GenerateBuilder;
 import net.digitalid.utility.generator.annotations.generators.GenerateSubclass;
@@ -33,6 +34,7 @@ import net.digitalid.utility.validation.annotations.type.Immutable;
 import net.digitalid.core.asymmetrickey.PrivateKey;
 import net.digitalid.core.asymmetrickey.PublicKey;
 import net.digitalid.core.identification.identifier.HostIdentifier;
+import net.digitalid.core.symmetrickey.EncryptionMode;
 import net.digitalid.core.symmetrickey.InitializationVector;
 import net.digitalid.core.symmetrickey.SymmetricKey;
 
@@ -80,6 +82,38 @@ public abstract class RequestEncryption<@Unspecifiable OBJECT> extends Encryptio
     @Default("net.digitalid.core.symmetrickey.InitializationVectorBuilder.build()")
     public abstract @Nonnull InitializationVector getInitializationVector();
     
+    /* -------------------------------------------------- Encryption Mode -------------------------------------------------- */
+    
+    /**
+     * Stores the mode in which requests are encrypted by default.
+     * The authenticated {@link EncryptionMode#GCM Galois/counter mode} should only be
+     * configured once all the hosts that are contacted support it, which is why the
+     * {@link EncryptionMode#CBC cipher block chaining mode} is kept for older peers.
+     * 
+     * @see #with(Object, HostIdentifier, SymmetricKey)
+     */
+    public static final @Nonnull Configuration<EncryptionMode> mode = Configuration.with(EncryptionMode.CBC);
+    
+    /**
+     * Returns the mode in which the object has been or will be encrypted.
+     * The response to this request is encrypted in the same mode.
+     * 
+     * @see AuthenticatedRequestEncryption
+     */
+    @Pure
+    public @Nonnull EncryptionMode getEncryptionMode() {
+        return EncryptionMode.CBC;
+    }
+    
+    /**
+     * Returns a request encryption of the given object for the given recipient with the given symmetric key in the configured {@link #mode}.
+     */
+    @Pure
+    public static <@Unspecifiable OBJECT> @Nonnull RequestEncryption<OBJECT> with(@Nonnull OBJECT object, @Nonnull HostIdentifier recipient, @Nonnull SymmetricKey symmetricKey) throws ExternalException {
+        if (mode.get() == EncryptionMode.GCM) { return AuthenticatedRequestEncryptionBuilder.withObject(object).withRecipient(recipient).withSymmetricKey(symmetricKey).build(); }
+        return RequestEncryptionBuilder.withObject(object).withRecipient(recipient).withSymmetricKey(symmetricKey).build();
+    }
+    
     /* -------------------------------------------------- Public Key -------------------------------------------------- */
     
     /**
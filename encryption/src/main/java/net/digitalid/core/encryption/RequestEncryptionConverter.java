@@ -59,7 +59,6 @@ import net.digitalid.core.identification.identifier.HostIdentifierConverter;
 import net.digitalid.core.symmetrickey.InitializationVector;
 import net.digitalid.core.symmetrickey.InitializationVectorConverter;
 import net.digitalid.core.symmetrickey.SymmetricKey;
-import net.digitalid.core.symmetrickey.SymmetricKeyBuilder;
 import net.digitalid.core.symmetrickey.SymmetricKeyConverter;
 
 import static net.digitalid.utility.conversion.model.CustomType.TUPLE;
@@ -154,7 +153,7 @@ public abstract class RequestEncryptionConverter<@Unspecifiable OBJECT> implemen
             throw RecoveryExceptionBuilder.withMessage(Strings.format("Could not retrieve the private key of $.", recipient)).withCause(exception).build();
         }
         final @Nonnull Element encryptedSymmetricKeyValue = decoder.decodeObject(ElementConverter.INSTANCE, privateKey.getCompositeGroup());
-        final @Nonnull SymmetricKey decryptedSymmetricKey = SymmetricKeyBuilder.buildWithValue(privateKey.powD(encryptedSymmetricKeyValue).getValue());
+        final @Nonnull SymmetricKey decryptedSymmetricKey = DecryptedSymmetricKeyCache.getSymmetricKey(privateKey, encryptedSymmetricKeyValue);
         final @Nonnull InitializationVector initializationVector = decoder.decodeObject(InitializationVectorConverter.INSTANCE, null);
         
         decoder.startDecrypting(decryptedSymmetricKey.getCipher(initializationVector, Cipher.DECRYPT_MODE));
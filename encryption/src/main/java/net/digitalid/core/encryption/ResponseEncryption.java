@@ -27,6 +27,7 @@ import net.digitalid.utility.validation.annotations.generation.Provided;
 import net.digitalid.utility.validation.annotations.type.Immutable;
 
 import net.digitalid.core.identification.identifier.HostIdentifier;
+import net.digitalid.core.symmetrickey.EncryptionMode;
 import net.digitalid.core.symmetrickey.InitializationVector;
 import net.digitalid.core.symmetrickey.SymmetricKey;
 
@@ -64,4 +65,25 @@ public abstract class ResponseEncryption<@Unspecifiable OBJECT> extends Encrypti
     @Default("net.digitalid.core.symmetrickey.InitializationVectorBuilder.build()")
     public abstract @Nonnull InitializationVector getInitializationVector();
     
+    /* -------------------------------------------------- Encryption Mode -------------------------------------------------- */
+    
+    /**
+     * Returns the mode in which the object has been or will be encrypted, which is the mode of the corresponding request.
+     * 
+     * @see AuthenticatedResponseEncryption
+     */
+    @Pure
+    public @Nonnull EncryptionMode getEncryptionMode() {
+        return EncryptionMode.CBC;
+    }
+    
+    /**
+     * Returns a response encryption of the given object with the given symmetric key in the mode of the given request encryption.
+     */
+    @Pure
+    public static <@Unspecifiable OBJECT> @Nonnull ResponseEncryption<OBJECT> with(@Nonnull OBJECT object, @Nonnull RequestEncryption<?> requestEncryption) {
+        if (requestEncryption.getEncryptionMode() == EncryptionMode.GCM) { return AuthenticatedResponseEncryptionBuilder.withObject(object).withSymmetricKey(requestEncryption.getSymmetricKey()).build(); }
+        return ResponseEncryptionBuilder.withObject(object).withSymmetricKey(requestEncryption.getSymmetricKey()).build();
+    }
+    
 }
@@ -15,18 +15,18 @@
  */
 package net.digitalid.core.encryption;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import javax.annotation.Nonnull;
-import javax.annotation.Nullable;
 
+import net.digitalid.utility.annotations.method.Impure;
 import net.digitalid.utility.annotations.method.Pure;
-import net.digitalid.utility.collaboration.annotations.TODO;
-import net.digitalid.utility.collaboration.enumerations.Author;
 import net.digitalid.utility.concurrency.map.ConcurrentHashMapBuilder;
 import net.digitalid.utility.concurrency.map.ConcurrentMap;
 import net.digitalid.utility.configuration.Configuration;
 import net.digitalid.utility.time.Time;
 import net.digitalid.utility.time.TimeBuilder;
-import net.digitalid.utility.tuples.Pair;
+import net.digitalid.utility.validation.annotations.math.Positive;
 import net.digitalid.utility.validation.annotations.type.Utility;
 
 import net.digitalid.core.identification.identifier.HostIdentifier;
@@ -34,41 +34,90 @@ import net.digitalid.core.symmetrickey.SymmetricKey;
 import net.digitalid.core.symmetrickey.SymmetricKeyBuilder;
 
 /**
- * This class caches symmetric keys to reuse them for a given period for the corresponding host.
+ * This class caches symmetric keys to reuse them for a given period and a given number of requests for the corresponding host.
+ * Since the recipient caches the decrypted symmetric keys as well, reusing a symmetric key saves the recipient the private-key operation.
+ * 
+ * @see DecryptedSymmetricKeyCache
  */
 @Utility
-@TODO(task = "Use this class to cache the symmetric keys for a particular host.", date = "2017-02-02", author = Author.KASPAR_ETTER)
 public abstract class SymmetricKeyCache {
     
-    /**
-     * Stores a cached symmetric key for every recipient.
-     */
-    private static final @Nonnull ConcurrentMap<HostIdentifier, Pair<Time, SymmetricKey>> symmetricKeys = ConcurrentHashMapBuilder.build();
+    /* -------------------------------------------------- Configuration -------------------------------------------------- */
     
     /**
      * Stores whether the caching of symmetric keys is activated.
      */
     public static final @Nonnull Configuration<Boolean> activation = Configuration.with(true);
     
+    /**
+     * Stores how often the cached symmetric keys are rotated.
+     */
+    public static final @Nonnull Configuration<@Positive Time> rotation = Configuration.with(Time.HOUR);
+    
+    /**
+     * Stores for how many requests a cached symmetric key is used at most.
+     */
+    public static final @Nonnull Configuration<@Positive Integer> uses = Configuration.with(1_000);
+    
+    /* -------------------------------------------------- Entry -------------------------------------------------- */
+    
+    /**
+     * An entry stores a symmetric key together with its creation time and the number of its uses.
+     */
+    private static final class Entry {
+        
+        private final @Nonnull Time time = TimeBuilder.build();
+        
+        private final @Nonnull SymmetricKey symmetricKey = SymmetricKeyBuilder.build();
+        
+        private final @Nonnull AtomicInteger uses = new AtomicInteger();
+        
+    }
+    
+    /**
+     * Stores a cached symmetric key for every recipient.
+     */
+    private static final @Nonnull ConcurrentMap<HostIdentifier, Entry> symmetricKeys = ConcurrentHashMapBuilder.build();
+    
+    /* -------------------------------------------------- Retrieval -------------------------------------------------- */
+    
     /**
      * Returns a new or cached symmetric key for the given recipient.
      * 
      * @param recipient the recipient for which a symmetric key is to be returned.
      * @param rotation determines how often the cached symmetric keys are rotated.
      */
-    @Pure
-    protected static @Nonnull SymmetricKey getSymmetricKey(@Nonnull HostIdentifier recipient, @Nonnull Time rotation) {
+    @Impure
+    public static @Nonnull SymmetricKey getSymmetricKey(@Nonnull HostIdentifier recipient, @Nonnull Time rotation) {
         if (activation.get()) {
-            final @Nonnull Time time = TimeBuilder.build();
-            @Nullable Pair<Time, SymmetricKey> value = symmetricKeys.get(recipient);
-            if (value == null || value.get0().isLessThan(time.subtract(rotation))) {
-                value = Pair.of(time, SymmetricKeyBuilder.build());
-                symmetricKeys.put(recipient, value);
+            final @Nonnull Time expiration = TimeBuilder.build().subtract(rotation);
+            while (true) {
+                final @Nonnull Entry entry = symmetricKeys.computeIfAbsent(recipient, identifier -> new Entry());
+                if (entry.time.isLessThan(expiration) || entry.uses.incrementAndGet() > uses.get()) {
+                    symmetricKeys.remove(recipient, entry);
+                } else {
+                    return entry.symmetricKey;
+                }
             }
-            return value.get1();
         } else {
             return SymmetricKeyBuilder.build();
         }
     }
     
+    /**
+     * Returns a new or cached symmetric key for the given recipient, which is rotated according to the configured {@link #rotation}.
+     */
+    @Impure
+    public static @Nonnull SymmetricKey getSymmetricKey(@Nonnull HostIdentifier recipient) {
+        return getSymmetricKey(recipient, rotation.get());
+    }
+    
+    /**
+     * Removes the cached symmetric key of the given recipient, which is necessary if the recipient rejected the key.
+     */
+    @Impure
+    public static void invalidate(@Nonnull HostIdentifier recipient) {
+        symmetricKeys.remove(recipient);
+    }
+    
 }
@@ -15,7 +15,10 @@
  */
 package net.digitalid.core.encryption;
 
+import java.io.ByteArrayOutputStream;
+
 import javax.annotation.Nonnull;
+import javax.crypto.Cipher;
 
 import net.digitalid.utility.annotations.generics.Unspecifiable;
 import net.digitalid.utility.annotations.method.Pure;
@@ -24,12 +27,20 @@ import net.digitalid.utility.annotations.parameter.Unmodified;
 import net.digitalid.utility.conversion.converters.StringConverter;
 import net.digitalid.utility.conversion.interfaces.Converter;
 import net.digitalid.utility.exceptions.ExternalException;
+import net.digitalid.utility.exceptions.UncheckedException;
 import net.digitalid.utility.string.Strings;
 import net.digitalid.utility.time.Time;
 import net.digitalid.utility.time.TimeBuilder;
+import net.digitalid.utility.time.TimeConverter;
 
+import net.digitalid.core.asymmetrickey.PublicKey;
+import net.digitalid.core.asymmetrickey.PublicKeyRetriever;
 import net.digitalid.core.conversion.XDF;
+import net.digitalid.core.conversion.encoders.MemoryEncoder;
+import net.digitalid.core.group.ElementConverter;
 import net.digitalid.core.identification.identifier.HostIdentifier;
+import net.digitalid.core.identification.identifier.HostIdentifierConverter;
+import net.digitalid.core.symmetrickey.EncryptionMode;
 import net.digitalid.core.symmetrickey.InitializationVector;
 import net.digitalid.core.symmetrickey.InitializationVectorBuilder;
 import net.digitalid.core.symmetrickey.InitializationVectorConverter;
@@ -42,33 +53,110 @@ import org.junit.Test;
 public class EncryptionConverterTest extends CoreTest {
     
     @Pure
-    public <@Unspecifiable TYPE> void assertEncryption(@Nonnull Converter<TYPE, Void> converter, @NonCaptured @Unmodified @Nonnull TYPE object) throws ExternalException {
+    public <@Unspecifiable TYPE> void assertEncryption(@Nonnull Converter<TYPE, Void> converter, @NonCaptured @Unmodified @Nonnull TYPE object, @Nonnull EncryptionMode encryptionMode) throws ExternalException {
         final @Nonnull HostIdentifier recipient = HostIdentifier.with("digitalid.net");
         final @Nonnull Time time = TimeBuilder.build();
         final @Nonnull SymmetricKey symmetricKey = SymmetricKeyBuilder.build();
         final @Nonnull InitializationVector initializationVector = InitializationVectorBuilder.build();
         
-        final @Nonnull RequestEncryption<TYPE> encryption = RequestEncryptionBuilder.withObject(object).withRecipient(recipient).withTime(time).withSymmetricKey(symmetricKey).withInitializationVector(initializationVector).build();
-        final @Nonnull RequestEncryptionConverter<TYPE> encryptionConverter = RequestEncryptionConverterBuilder.withObjectConverter(converter).build();
+        final @Nonnull RequestEncryption<TYPE> encryption;
+        if (encryptionMode == EncryptionMode.GCM) { encryption = AuthenticatedRequestEncryptionBuilder.withObject(object).withRecipient(recipient).withTime(time).withSymmetricKey(symmetricKey).withInitializationVector(initializationVector).build(); }
+        else { encryption = RequestEncryptionBuilder.withObject(object).withRecipient(recipient).withTime(time).withSymmetricKey(symmetricKey).withInitializationVector(initializationVector).build(); }
+        final @Nonnull EncryptionConverter<TYPE> encryptionConverter = EncryptionConverterBuilder.withObjectConverter(converter).build();
         final @Nonnull byte[] bytes = XDF.convert(encryptionConverter, encryption);
-        final @Nonnull RequestEncryption<TYPE> recoveredEncryption = XDF.recover(encryptionConverter, null, bytes);
+        final @Nonnull Encryption<TYPE> recoveredEncryption = XDF.recover(encryptionConverter, null, bytes);
         
-        assertThat(recoveredEncryption.getRecipient()).isEqualTo(recipient);
-        assertThat(recoveredEncryption.getSymmetricKey()).isEqualTo(symmetricKey);
-        assertThat(recoveredEncryption.getInitializationVector()).isEqualTo(initializationVector);
-        assertThat(recoveredEncryption.getObject()).isEqualTo(object);
+        assertThat(recoveredEncryption).isInstanceOf(RequestEncryption.class);
+        final @Nonnull RequestEncryption<TYPE> recoveredRequestEncryption = (RequestEncryption<TYPE>) recoveredEncryption;
+        assertThat(recoveredRequestEncryption.getRecipient()).isEqualTo(recipient);
+        assertThat(recoveredRequestEncryption.getSymmetricKey()).isEqualTo(symmetricKey);
+        assertThat(recoveredRequestEncryption.getInitializationVector()).isEqualTo(initializationVector);
+        assertThat(recoveredRequestEncryption.getEncryptionMode()).isEqualTo(encryptionMode);
+        assertThat(recoveredRequestEncryption.getObject()).isEqualTo(object);
     }
     
     @Test
     public void testEncryptionConverterWithStrings() throws ExternalException {
-        assertEncryption(StringConverter.INSTANCE, "Hello World!");
-        assertEncryption(StringConverter.INSTANCE, "Let's look whether it also works with longer messages.");
-        assertEncryption(StringConverter.INSTANCE, Strings.repeat("A short sentence. ", 100));
+        for (@Nonnull EncryptionMode encryptionMode : EncryptionMode.values()) {
+            assertEncryption(StringConverter.INSTANCE, "Hello World!", encryptionMode);
+            assertEncryption(StringConverter.INSTANCE, "Let's look whether it also works with longer messages.", encryptionMode);
+            assertEncryption(StringConverter.INSTANCE, Strings.repeat("A short sentence. ", 100), encryptionMode);
+        }
     }
     
     @Test
     public void testEncryptionConverterWithInitializationVector() throws ExternalException {
-        assertEncryption(InitializationVectorConverter.INSTANCE, InitializationVectorBuilder.build());
+        for (@Nonnull EncryptionMode encryptionMode : EncryptionMode.values()) {
+            assertEncryption(InitializationVectorConverter.INSTANCE, InitializationVectorBuilder.build(), encryptionMode);
+        }
+    }
+    
+    @Test
+    public void testRecoveryOfRequestEncryptionInPreviousFormat() throws ExternalException {
+        final @Nonnull HostIdentifier recipient = HostIdentifier.with("digitalid.net");
+        final @Nonnull Time time = TimeBuilder.build();
+        final @Nonnull SymmetricKey symmetricKey = SymmetricKeyBuilder.build();
+        final @Nonnull InitializationVector initializationVector = InitializationVectorBuilder.build();
+        final @Nonnull PublicKey publicKey = PublicKeyRetriever.retrieve(recipient, time);
+        
+        // The request encryption is encoded as before the introduction of the authenticated encryption mode.
+        final @Nonnull ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (@Nonnull MemoryEncoder encoder = MemoryEncoder.of(outputStream)) {
+            encoder.encodeObject(TimeConverter.INSTANCE, time);
+            encoder.encodeObject(HostIdentifierConverter.INSTANCE, recipient);
+            encoder.encodeObject(ElementConverter.INSTANCE, publicKey.getCompositeGroup().getElement(symmetricKey.getValue()).pow(publicKey.getE()));
+            encoder.encodeObject(InitializationVectorConverter.INSTANCE, initializationVector);
+            encoder.startEncrypting(symmetricKey.getCipher(initializationVector, Cipher.ENCRYPT_MODE));
+            encoder.encodeObject(StringConverter.INSTANCE, "Hello World!");
+            encoder.stopEncrypting();
+        }
+        
+        final @Nonnull RequestEncryption<String> recoveredEncryption = XDF.recover(RequestEncryptionConverterBuilder.withObjectConverter(StringConverter.INSTANCE).build(), null, outputStream.toByteArray());
+        assertThat(recoveredEncryption.getEncryptionMode()).isEqualTo(EncryptionMode.CBC);
+        assertThat(recoveredEncryption.getSymmetricKey()).isEqualTo(symmetricKey);
+        assertThat(recoveredEncryption.getObject()).isEqualTo("Hello World!");
+        
+        final @Nonnull RequestEncryption<String> encryption = RequestEncryptionBuilder.withObject("Hello World!").withRecipient(recipient).withTime(time).withSymmetricKey(symmetricKey).withInitializationVector(initializationVector).build();
+        assertThat(XDF.convert(RequestEncryptionConverterBuilder.withObjectConverter(StringConverter.INSTANCE).build(), encryption)).isEqualTo(outputStream.toByteArray());
+    }
+    
+    @Test
+    public void testResponseEncryptionConverterWithAuthentication() throws ExternalException {
+        final @Nonnull SymmetricKey symmetricKey = SymmetricKeyBuilder.build();
+        final @Nonnull ResponseEncryption<String> encryption = AuthenticatedResponseEncryptionBuilder.withObject("Hello World!").withSymmetricKey(symmetricKey).build();
+        final @Nonnull EncryptionConverter<String> encryptionConverter = EncryptionConverterBuilder.withObjectConverter(StringConverter.INSTANCE).build();
+        final @Nonnull byte[] bytes = XDF.convert(encryptionConverter, encryption);
+        
+        final @Nonnull Encryption<String> recoveredEncryption = XDF.recover(encryptionConverter, symmetricKey, bytes);
+        assertThat(recoveredEncryption).isInstanceOf(AuthenticatedResponseEncryption.class);
+        assertThat(recoveredEncryption.getObject()).isEqualTo("Hello World!");
+        
+        bytes[bytes.length - 1] ^= 1;
+        assertThatThrownBy(() -> XDF.recover(encryptionConverter, symmetricKey, bytes)).isInstanceOf(UncheckedException.class);
+    }
+    
+    @Pure
+    private void assertSubtype(@Nonnull Encryption<String> encryption, int index, @Nonnull Class<?> type) throws ExternalException {
+        final @Nonnull EncryptionConverter<String> encryptionConverter = EncryptionConverterBuilder.withObjectConverter(StringConverter.INSTANCE).build();
+        final @Nonnull byte[] bytes = XDF.convert(encryptionConverter, encryption);
+        assertThat(bytes[3]).isEqualTo((byte) index);
+        
+        final @Nonnull Encryption<String> recoveredEncryption = XDF.recover(encryptionConverter, encryption instanceof ResponseEncryption ? ((ResponseEncryption<String>) encryption).getSymmetricKey() : null, bytes);
+        assertThat(recoveredEncryption.getClass().getSuperclass()).isEqualTo(type);
+        assertThat(recoveredEncryption.getObject()).isEqualTo("Hello World!");
+    }
+    
+    @Test
+    public void testEncryptionSubtypesAreEncodedWithTheMostSpecificConverter() throws ExternalException {
+        final @Nonnull HostIdentifier recipient = HostIdentifier.with("digitalid.net");
+        final @Nonnull Time time = TimeBuilder.build();
+        final @Nonnull SymmetricKey symmetricKey = SymmetricKeyBuilder.build();
+        final @Nonnull InitializationVector initializationVector = InitializationVectorBuilder.build();
+        
+        assertSubtype(RequestEncryptionBuilder.withObject("Hello World!").withRecipient(recipient).withTime(time).withSymmetricKey(symmetricKey).withInitializationVector(initializationVector).build(), 0, RequestEncryption.class);
+        assertSubtype(ResponseEncryptionBuilder.withObject("Hello World!").withSymmetricKey(symmetricKey).build(), 1, ResponseEncryption.class);
+        assertSubtype(AuthenticatedRequestEncryptionBuilder.withObject("Hello World!").withRecipient(recipient).withTime(time).withSymmetricKey(symmetricKey).withInitializationVector(initializationVector).build(), 2, AuthenticatedRequestEncryption.class);
+        assertSubtype(AuthenticatedResponseEncryptionBuilder.withObject("Hello World!").withSymmetricKey(symmetricKey).build(), 3, AuthenticatedResponseEncryption.class);
     }
     
 }
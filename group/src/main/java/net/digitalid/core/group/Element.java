@@ -131,7 +131,7 @@ public abstract class Element extends RootClass implements BigIntegerNumerical<E
      */
     @Pure
     public @Nonnull @InSameGroup Element pow(@Nonnull BigInteger exponent) {
-        return new ElementSubclass(getGroup(), getValue().modPow(exponent, getGroup().getModulus()));
+        return new ElementSubclass(getGroup(), getGroup().pow(getValue(), exponent));
     }
     
     /**
@@ -142,4 +142,20 @@ public abstract class Element extends RootClass implements BigIntegerNumerical<E
         return pow(exponent.getValue());
     }
     
+    /* -------------------------------------------------- Accumulation -------------------------------------------------- */
+    
+    /**
+     * Returns a new accumulator with the value of this element for a chain of multiplications and squarings in Montgomery form.
+     * The result of the chain can be turned back into an element with {@code getGroup().getElement(accumulator.getValue())}.
+     * The Montgomery constants of the modulus are computed for each chain, which is why further factors should be multiplied into the returned accumulator.
+     * 
+     * @require MontgomeryModulus.isSupported(getGroup().getModulus()) : "The modulus of the group has to be odd.";
+     */
+    @Pure
+    public @Nonnull MontgomeryAccumulator accumulate() {
+        Require.that(MontgomeryModulus.isSupported(getGroup().getModulus())).orThrow("The modulus of the group has to be odd.");
+        
+        return MontgomeryModulus.with(getGroup().getModulus()).accumulate(getValue());
+    }
+    
 }
@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.core.group;
+
+import java.math.BigInteger;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.validation.annotations.math.Positive;
+import net.digitalid.utility.validation.annotations.type.Immutable;
+
+/**
+ * A factorized modulus stores the two distinct prime factors of a modulus together with the coefficients
+ * of the Chinese Remainder Theorem (CRT) so that exponentiations can be performed modulo the much smaller factors.
+ * 
+ * @see GroupWithKnownOrder
+ */
+@Immutable
+public final class FactorizedModulus {
+    
+    /* -------------------------------------------------- Factors -------------------------------------------------- */
+    
+    private final @Nonnull BigInteger modulus;
+    
+    private final @Nonnull BigInteger p;
+    
+    private final @Nonnull BigInteger q;
+    
+    private final @Nonnull BigInteger pMinus1;
+    
+    private final @Nonnull BigInteger qMinus1;
+    
+    /**
+     * Stores the identity of p's subgroup in the Chinese Remainder Theorem.
+     */
+    private final @Nonnull BigInteger pIdentity;
+    
+    /**
+     * Stores the identity of q's subgroup in the Chinese Remainder Theorem.
+     */
+    private final @Nonnull BigInteger qIdentity;
+    
+    private FactorizedModulus(@Nonnull BigInteger modulus, @Nonnull BigInteger p, @Nonnull BigInteger q) {
+        this.modulus = modulus;
+        this.p = p;
+        this.q = q;
+        this.pMinus1 = p.subtract(BigInteger.ONE);
+        this.qMinus1 = q.subtract(BigInteger.ONE);
+        this.pIdentity = q.modInverse(p).multiply(q).mod(modulus);
+        this.qIdentity = p.modInverse(q).multiply(p).mod(modulus);
+    }
+    
+    /**
+     * Returns the integer square root of the given non-negative value.
+     */
+    @Pure
+    private static @Nonnull BigInteger sqrt(@Nonnull BigInteger value) {
+        if (value.signum() == 0) { return BigInteger.ZERO; }
+        @Nonnull BigInteger root = BigInteger.ONE.shiftLeft(value.bitLength() / 2 + 1);
+        while (true) {
+            final @Nonnull BigInteger next = root.add(value.divide(root)).shiftRight(1);
+            if (next.compareTo(root) >= 0) { return root; }
+            root = next;
+        }
+    }
+    
+    /**
+     * Returns the factorization of the given modulus if it is the product of two distinct primes p and q and the given order is (p - 1) * (q - 1) or null otherwise.
+     * The factors are the roots of x^2 - (modulus - order + 1) * x + modulus.
+     */
+    @Pure
+    public static @Nullable FactorizedModulus of(@Nonnull @Positive BigInteger modulus, @Nonnull @Positive BigInteger order) {
+        final @Nonnull BigInteger sum = modulus.subtract(order).add(BigInteger.ONE);
+        final @Nonnull BigInteger discriminant = sum.multiply(sum).subtract(modulus.shiftLeft(2));
+        if (discriminant.signum() <= 0) { return null; }
+        
+        final @Nonnull BigInteger root = sqrt(discriminant);
+        if (!root.multiply(root).equals(discriminant) || sum.testBit(0) != root.testBit(0)) { return null; }
+        
+        final @Nonnull BigInteger p = sum.add(root).shiftRight(1);
+        final @Nonnull BigInteger q = sum.subtract(root).shiftRight(1);
+        if (q.compareTo(BigInteger.ONE) <= 0 || !p.multiply(q).equals(modulus)) { return null; }
+        
+        return new FactorizedModulus(modulus, p, q);
+    }
+    
+    /* -------------------------------------------------- Exponentiation -------------------------------------------------- */
+    
+    /**
+     * Returns the given base raised to the given exponent modulo the modulus by using the Chinese Remainder Theorem.
+     */
+    @Pure
+    public @Nonnull BigInteger pow(@Nonnull BigInteger base, @Nonnull BigInteger exponent) {
+        final @Nonnull BigInteger baseModP = base.mod(p);
+        final @Nonnull BigInteger baseModQ = base.mod(q);
+        // Fermat's little theorem only allows to reduce the exponent if the base is relatively prime to the factors.
+        if (baseModP.signum() == 0 || baseModQ.signum() == 0) { return base.modPow(exponent, modulus); }
+        
+        final @Nonnull BigInteger resultModP = baseModP.modPow(exponent.mod(pMinus1), p);
+        final @Nonnull BigInteger resultModQ = baseModQ.modPow(exponent.mod(qMinus1), q);
+        return resultModP.multiply(pIdentity).add(resultModQ.multiply(qIdentity)).mod(modulus);
+    }
+    
+}
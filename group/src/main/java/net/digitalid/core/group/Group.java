@@ -16,7 +16,6 @@
 package net.digitalid.core.group;
 
 import java.math.BigInteger;
-import java.security.SecureRandom;
 import java.util.Random;
 
 import javax.annotation.Nonnull;
@@ -27,6 +26,7 @@ import net.digitalid.utility.validation.annotations.math.NonNegative;
 import net.digitalid.utility.validation.annotations.type.Immutable;
 
 import net.digitalid.core.annotations.group.GroupInterface;
+import net.digitalid.core.parameters.Randomness;
 
 /**
  * This class models a multiplicative group.
@@ -52,7 +52,7 @@ public abstract class Group implements GroupInterface {
      */
     @Pure
     public @Nonnull Element getRandomElement() {
-        final @Nonnull Random random = new SecureRandom();
+        final @Nonnull Random random = Randomness.get();
         @Nullable BigInteger value = null;
         
         while (true) {
@@ -66,12 +66,20 @@ public abstract class Group implements GroupInterface {
     
     /* -------------------------------------------------- Exponent -------------------------------------------------- */
     
+    /**
+     * Returns a random exponent in this group of the given bit length that is drawn from the given source of randomness.
+     */
+    @Pure
+    public final @Nonnull Exponent getRandomExponent(@NonNegative int bitLength, @Nonnull Random random) {
+        return new ExponentSubclass(new BigInteger(bitLength, random));
+    }
+    
     /**
      * Returns a random exponent in this group of the given bit length.
      */
     @Pure
     public final @Nonnull Exponent getRandomExponent(@NonNegative int bitLength) {
-        return new ExponentSubclass(new BigInteger(bitLength, new SecureRandom()));
+        return getRandomExponent(bitLength, Randomness.get());
     }
     
     /**
@@ -82,6 +90,16 @@ public abstract class Group implements GroupInterface {
         return getRandomExponent(getModulus().bitLength() + 4);
     }
     
+    /* -------------------------------------------------- Exponentiation -------------------------------------------------- */
+    
+    /**
+     * Returns the given base raised to the given exponent modulo the modulus of this group.
+     */
+    @Pure
+    public @Nonnull BigInteger pow(@Nonnull BigInteger base, @Nonnull BigInteger exponent) {
+        return base.modPow(exponent, getModulus());
+    }
+    
     /* -------------------------------------------------- Object -------------------------------------------------- */
     
     // The following methods are implemented here instead of having them generated in order to ignore the order.
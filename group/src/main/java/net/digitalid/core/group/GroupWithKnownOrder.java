@@ -18,11 +18,13 @@ package net.digitalid.core.group;
 import java.math.BigInteger;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import net.digitalid.utility.annotations.method.Pure;
 import net.digitalid.utility.generator.annotations.generators.GenerateBuilder;
 import net.digitalid.utility.generator.annotations.generators.GenerateConverter;
 import net.digitalid.utility.generator.annotations.generators.GenerateSubclass;
+import net.digitalid.utility.validation.annotations.generation.Derive;
 import net.digitalid.utility.validation.annotations.math.Positive;
 import net.digitalid.utility.validation.annotations.type.Immutable;
 
@@ -51,4 +53,26 @@ public abstract class GroupWithKnownOrder extends Group {
         return new GroupWithUnknownOrderSubclass(getModulus());
     }
     
+    /* -------------------------------------------------- Factorization -------------------------------------------------- */
+    
+    /**
+     * Returns the factorization of the modulus if it is the product of two distinct primes or null otherwise.
+     * The factors can be derived from the modulus and the order, which is why they do not need to be stored.
+     */
+    @Pure
+    @Derive("FactorizedModulus.of(modulus, order)")
+    protected abstract @Nullable FactorizedModulus getFactorizedModulus();
+    
+    /* -------------------------------------------------- Exponentiation -------------------------------------------------- */
+    
+    /**
+     * Returns the given base raised to the given exponent by using the Chinese Remainder Theorem if the modulus could be factorized.
+     */
+    @Pure
+    @Override
+    public @Nonnull BigInteger pow(@Nonnull BigInteger base, @Nonnull BigInteger exponent) {
+        final @Nullable FactorizedModulus factorizedModulus = getFactorizedModulus();
+        return factorizedModulus != null ? factorizedModulus.pow(base, exponent) : super.pow(base, exponent);
+    }
+    
 }
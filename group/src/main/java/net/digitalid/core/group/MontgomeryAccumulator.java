@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.core.group;
+
+import java.math.BigInteger;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.contracts.Require;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+
+/**
+ * A Montgomery accumulator keeps a value in Montgomery form in reusable limb arrays so that chains of multiplications
+ * and squarings do not allocate intermediate big integers. The value is only converted back when it is retrieved.
+ * An accumulator must not be shared between threads.
+ * 
+ * @see MontgomeryModulus#accumulate(BigInteger)
+ * @see Element#accumulate()
+ */
+@Mutable
+public final class MontgomeryAccumulator {
+    
+    /* -------------------------------------------------- Fields -------------------------------------------------- */
+    
+    /**
+     * The number of bits of the exponent that are processed at once.
+     */
+    private static final int WINDOW = 4;
+    
+    private final @Nonnull MontgomeryModulus modulus;
+    
+    /**
+     * Stores the current value in Montgomery form.
+     */
+    private final @Nonnull int[] value;
+    
+    /**
+     * Stores a factor in Montgomery form before it is multiplied with the current value.
+     */
+    private final @Nonnull int[] factor;
+    
+    private final @Nonnull int[] scratch;
+    
+    MontgomeryAccumulator(@Nonnull MontgomeryModulus modulus, @Nonnull BigInteger value) {
+        this.modulus = modulus;
+        this.value = new int[modulus.length];
+        this.factor = new int[modulus.length];
+        this.scratch = modulus.newScratch();
+        modulus.toMontgomery(value, this.value, scratch);
+    }
+    
+    /**
+     * Returns the modulus of this accumulator.
+     */
+    @Pure
+    public @Nonnull MontgomeryModulus getModulus() {
+        return modulus;
+    }
+    
+    /* -------------------------------------------------- Operations -------------------------------------------------- */
+    
+    /**
+     * Multiplies the current value with the given factor.
+     */
+    @Impure
+    public @Nonnull MontgomeryAccumulator multiply(@Nonnull BigInteger factor) {
+        modulus.toMontgomery(factor, this.factor, scratch);
+        modulus.multiply(value, this.factor, value, scratch);
+        return this;
+    }
+    
+    /**
+     * Multiplies the current value with the value of the given accumulator, which has to use the same modulus.
+     */
+    @Impure
+    public @Nonnull MontgomeryAccumulator multiply(@Nonnull MontgomeryAccumulator accumulator) {
+        Require.that(accumulator.modulus.getModulus().equals(modulus.getModulus())).orThrow("The accumulators have to use the same modulus.");
+        
+        modulus.multiply(value, accumulator.value, value, scratch);
+        return this;
+    }
+    
+    /**
+     * Squares the current value.
+     */
+    @Impure
+    public @Nonnull MontgomeryAccumulator square() {
+        modulus.multiply(value, value, value, scratch);
+        return this;
+    }
+    
+    /**
+     * Raises the current value to the given exponent with a fixed window of {@link #WINDOW} bits.
+     */
+    @Impure
+    public @Nonnull MontgomeryAccumulator pow(@Nonnull @NonNegative BigInteger exponent) {
+        Require.that(exponent.signum() >= 0).orThrow("The exponent $ has to be non-negative.", exponent);
+        
+        final int size = 1 << WINDOW;
+        final @Nonnull int[][] powers = new int[size][];
+        powers[0] = modulus.one;
+        powers[1] = value.clone();
+        for (int i = 2; i < size; i++) {
+            powers[i] = new int[modulus.length];
+            modulus.multiply(powers[i - 1], powers[1], powers[i], scratch);
+        }
+        
+        System.arraycopy(modulus.one, 0, value, 0, modulus.length);
+        for (int position = (exponent.bitLength() + WINDOW - 1) / WINDOW * WINDOW - WINDOW; position >= 0; position -= WINDOW) {
+            for (int i = 0; i < WINDOW; i++) { square(); }
+            int window = 0;
+            for (int i = WINDOW - 1; i >= 0; i--) { window = (window << 1) | (exponent.testBit(position + i) ? 1 : 0); }
+            if (window != 0) { modulus.multiply(value, powers[window], value, scratch); }
+        }
+        return this;
+    }
+    
+    /* -------------------------------------------------- Retrieval -------------------------------------------------- */
+    
+    /**
+     * Returns the current value as a big integer that is non-negative and smaller than the modulus.
+     */
+    @Pure
+    public @Nonnull BigInteger getValue() {
+        return modulus.fromMontgomery(value, scratch);
+    }
+    
+}
@@ -0,0 +1,252 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.core.group;
+
+import java.math.BigInteger;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.contracts.Require;
+import net.digitalid.utility.validation.annotations.math.Positive;
+import net.digitalid.utility.validation.annotations.type.Immutable;
+
+/**
+ * A Montgomery modulus stores an odd modulus as an array of 32-bit limbs together with the constants that are needed
+ * to multiply numbers in Montgomery form, where a number x is represented as x * R mod n with R = 2^(32 * k).
+ * The limbs are stored with the least significant limb first and the products of two limbs are computed in longs.
+ * 
+ * @see MontgomeryAccumulator
+ */
+@Immutable
+public final class MontgomeryModulus {
+    
+    /* -------------------------------------------------- Constants -------------------------------------------------- */
+    
+    /**
+     * Masks the lower 32 bits of a long in order to interpret a limb as an unsigned number.
+     */
+    static final long MASK = 0xFFFFFFFFL;
+    
+    private final @Nonnull BigInteger modulus;
+    
+    /**
+     * Stores the limbs of the modulus.
+     */
+    final @Nonnull int[] limbs;
+    
+    /**
+     * Stores the number of limbs of the modulus.
+     */
+    final int length;
+    
+    /**
+     * Stores -n^(-1) mod 2^32.
+     */
+    private final int inverse;
+    
+    /**
+     * Stores R^2 mod n, which converts a number into Montgomery form with a single multiplication.
+     */
+    private final @Nonnull int[] squaredRadix;
+    
+    /**
+     * Stores the neutral element in Montgomery form, which is R mod n.
+     */
+    final @Nonnull int[] one;
+    
+    private MontgomeryModulus(@Nonnull BigInteger modulus) {
+        this.modulus = modulus;
+        this.length = (modulus.bitLength() + 31) / 32;
+        this.limbs = toLimbs(modulus, length);
+        
+        // Newton's iteration doubles the number of correct bits in each step, starting from 3 correct bits for odd numbers.
+        int inverse = limbs[0];
+        for (int i = 0; i < 4; i++) { inverse *= 2 - limbs[0] * inverse; }
+        this.inverse = -inverse;
+        
+        this.squaredRadix = toLimbs(BigInteger.ONE.shiftLeft(64 * length).mod(modulus), length);
+        this.one = toLimbs(BigInteger.ONE.shiftLeft(32 * length).mod(modulus), length);
+    }
+    
+    /**
+     * Returns whether the given modulus can be represented as a Montgomery modulus, which requires it to be odd and greater than one.
+     */
+    @Pure
+    public static boolean isSupported(@Nonnull BigInteger modulus) {
+        return modulus.testBit(0) && modulus.compareTo(BigInteger.ONE) > 0;
+    }
+    
+    /**
+     * Returns a new Montgomery modulus with the given modulus.
+     * 
+     * @require isSupported(modulus) : "The modulus has to be odd and greater than one.";
+     */
+    @Pure
+    public static @Nonnull MontgomeryModulus with(@Nonnull @Positive BigInteger modulus) {
+        Require.that(isSupported(modulus)).orThrow("The modulus $ has to be odd and greater than one.", modulus);
+        
+        return new MontgomeryModulus(modulus);
+    }
+    
+    /**
+     * Returns the modulus as a big integer.
+     */
+    @Pure
+    public @Nonnull BigInteger getModulus() {
+        return modulus;
+    }
+    
+    /* -------------------------------------------------- Conversion -------------------------------------------------- */
+    
+    /**
+     * Returns the given non-negative value as an array with the given number of limbs.
+     */
+    @Pure
+    static @Nonnull int[] toLimbs(@Nonnull BigInteger value, int length) {
+        final @Nonnull byte[] bytes = value.toByteArray();
+        final @Nonnull int[] result = new int[length];
+        for (int i = 0; i < bytes.length && i < 4 * length; i++) {
+            result[i / 4] |= (bytes[bytes.length - 1 - i] & 0xFF) << (8 * (i % 4));
+        }
+        return result;
+    }
+    
+    /**
+     * Returns the given limbs as a non-negative big integer.
+     */
+    @Pure
+    static @Nonnull BigInteger fromLimbs(@Nonnull int[] limbs) {
+        final @Nonnull byte[] bytes = new byte[4 * limbs.length];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[bytes.length - 1 - i] = (byte) (limbs[i / 4] >>> (8 * (i % 4)));
+        }
+        return new BigInteger(1, bytes);
+    }
+    
+    /**
+     * Stores the given value in Montgomery form in the given result.
+     */
+    @Impure
+    void toMontgomery(@Nonnull BigInteger value, @Nonnull int[] result, @Nonnull int[] scratch) {
+        multiply(toLimbs(value.mod(modulus), length), squaredRadix, result, scratch);
+    }
+    
+    /**
+     * Returns the given value in Montgomery form as a big integer.
+     */
+    @Pure
+    @Nonnull BigInteger fromMontgomery(@Nonnull int[] value, @Nonnull int[] scratch) {
+        final @Nonnull int[] unit = new int[length];
+        unit[0] = 1;
+        final @Nonnull int[] result = new int[length];
+        multiply(value, unit, result, scratch);
+        return fromLimbs(result);
+    }
+    
+    /* -------------------------------------------------- Multiplication -------------------------------------------------- */
+    
+    /**
+     * Returns a new scratch array for the multiplications with this modulus.
+     */
+    @Pure
+    @Nonnull int[] newScratch() {
+        return new int[length + 2];
+    }
+    
+    /**
+     * Stores a * b * R^(-1) mod n in the given result by interleaving the multiplication with the reduction (CIOS).
+     * The result may be the same array as one of the factors, and the scratch array needs to have at least length + 2 limbs.
+     */
+    @Impure
+    void multiply(@Nonnull int[] a, @Nonnull int[] b, @Nonnull int[] result, @Nonnull int[] scratch) {
+        final int k = length;
+        final @Nonnull int[] n = limbs;
+        final @Nonnull int[] t = scratch;
+        for (int j = 0; j < k + 2; j++) { t[j] = 0; }
+        
+        for (int i = 0; i < k; i++) {
+            // t += a * b[i]
+            final long bi = b[i] & MASK;
+            long carry = 0;
+            for (int j = 0; j < k; j++) {
+                final long sum = (t[j] & MASK) + (a[j] & MASK) * bi + carry;
+                t[j] = (int) sum;
+                carry = sum >>> 32;
+            }
+            long sum = (t[k] & MASK) + carry;
+            t[k] = (int) sum;
+            t[k + 1] = (int) (sum >>> 32);
+            
+            // t = (t + m * n) / 2^32 with m chosen such that the lowest limb becomes zero
+            final long m = (t[0] * inverse) & MASK;
+            carry = ((t[0] & MASK) + m * (n[0] & MASK)) >>> 32;
+            for (int j = 1; j < k; j++) {
+                sum = (t[j] & MASK) + m * (n[j] & MASK) + carry;
+                t[j - 1] = (int) sum;
+                carry = sum >>> 32;
+            }
+            sum = (t[k] & MASK) + carry;
+            t[k - 1] = (int) sum;
+            t[k] = t[k + 1] + (int) (sum >>> 32);
+            t[k + 1] = 0;
+        }
+        
+        // The intermediate result is smaller than 2n, which is why a single subtraction suffices.
+        if (t[k] != 0 || compare(t, n, k) >= 0) {
+            long borrow = 0;
+            for (int j = 0; j < k; j++) {
+                final long difference = (t[j] & MASK) - (n[j] & MASK) - borrow;
+                result[j] = (int) difference;
+                borrow = (difference >>> 63);
+            }
+        } else {
+            System.arraycopy(t, 0, result, 0, k);
+        }
+    }
+    
+    /**
+     * Compares the first k limbs of the given arrays as unsigned numbers.
+     */
+    @Pure
+    private static int compare(@Nonnull int[] a, @Nonnull int[] b, int k) {
+        for (int j = k - 1; j >= 0; j--) {
+            if (a[j] != b[j]) { return (a[j] & MASK) < (b[j] & MASK) ? -1 : 1; }
+        }
+        return 0;
+    }
+    
+    /* -------------------------------------------------- Exponentiation -------------------------------------------------- */
+    
+    /**
+     * Returns a new accumulator with the given value.
+     */
+    @Pure
+    public @Nonnull MontgomeryAccumulator accumulate(@Nonnull BigInteger value) {
+        return new MontgomeryAccumulator(this, value);
+    }
+    
+    /**
+     * Returns the given base raised to the given exponent modulo this modulus, which equals {@code base.modPow(exponent, modulus)}.
+     */
+    @Pure
+    public @Nonnull BigInteger pow(@Nonnull BigInteger base, @Nonnull BigInteger exponent) {
+        if (exponent.signum() < 0) { return pow(base.modInverse(modulus), exponent.negate()); }
+        return accumulate(base).pow(exponent).getValue();
+    }
+    
+}
@@ -0,0 +1,298 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.core.group;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.configuration.Configuration;
+import net.digitalid.utility.logging.Log;
+import net.digitalid.utility.threading.NamedThreadFactory;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
+import net.digitalid.utility.validation.annotations.math.Positive;
+import net.digitalid.utility.validation.annotations.type.Immutable;
+import net.digitalid.utility.validation.annotations.type.Utility;
+
+import net.digitalid.core.parameters.Randomness;
+
+/**
+ * The power pool pre-computes random exponents together with the powers of fixed bases in a background thread.
+ * Since these powers depend only on randomness and the bases (which are typically elements of public keys),
+ * they can be computed offline so that only the cheap exponent arithmetic remains when an object is signed.
+ * The pool tracks a bounded number of base combinations, each of which is refilled up to its {@link #capacity},
+ * and evicts the least recently used combination when a new one would exceed the configured number of {@link #combinations}.
+ */
+@Utility
+public abstract class PowerPool {
+    
+    /* -------------------------------------------------- Configuration -------------------------------------------------- */
+    
+    /**
+     * Stores whether the powers are pre-computed in the background.
+     */
+    public static final @Nonnull Configuration<Boolean> activation = Configuration.with(true);
+    
+    /**
+     * Stores the number of pre-computed powers per combination of bases.
+     */
+    public static final @Nonnull Configuration<@Positive Integer> capacity = Configuration.with(8);
+    
+    /**
+     * Stores the maximal number of combinations of bases for which powers are pre-computed.
+     */
+    public static final @Nonnull Configuration<@Positive Integer> combinations = Configuration.with(16);
+    
+    /* -------------------------------------------------- Powers -------------------------------------------------- */
+    
+    /**
+     * Stores a random exponent together with the powers of the requested bases.
+     */
+    @Immutable
+    public static final class Powers {
+        
+        private final @Nonnull Exponent exponent;
+        
+        private final @Nonnull Element[] powers;
+        
+        private Powers(@Nonnull Exponent exponent, @Nonnull Element[] powers) {
+            this.exponent = exponent;
+            this.powers = powers;
+        }
+        
+        /**
+         * Returns the random exponent.
+         */
+        @Pure
+        public @Nonnull Exponent getExponent() {
+            return exponent;
+        }
+        
+        /**
+         * Returns the base at the given index raised to the random exponent.
+         */
+        @Pure
+        public @Nonnull Element getPower(@NonNegative int index) {
+            return powers[index];
+        }
+        
+    }
+    
+    /**
+     * Computes a random exponent of the given bit length with the given source of randomness and raises the given bases to it.
+     */
+    @Pure
+    private static @Nonnull Powers compute(@Nonnull Random random, @NonNegative int bitLength, @Nonnull Element... bases) {
+        final @Nonnull Exponent exponent = bases[0].getGroup().getRandomExponent(bitLength, random);
+        final @Nonnull Element[] powers = new Element[bases.length];
+        for (int i = 0; i < bases.length; i++) {
+            powers[i] = bases[i].pow(exponent);
+        }
+        return new Powers(exponent, powers);
+    }
+    
+    /**
+     * Computes a random exponent of the given bit length and raises the given bases to it.
+     */
+    @Pure
+    public static @Nonnull Powers compute(@NonNegative int bitLength, @Nonnull Element... bases) {
+        return compute(Randomness.get(), bitLength, bases);
+    }
+    
+    /* -------------------------------------------------- Stock -------------------------------------------------- */
+    
+    /**
+     * Identifies a combination of bases together with the bit length of the exponent.
+     */
+    @Immutable
+    private static final class Key {
+        
+        private final @Nonnull BigInteger[] values;
+        
+        private Key(@NonNegative int bitLength, @Nonnull Element... bases) {
+            this.values = new BigInteger[2 * bases.length + 1];
+            values[0] = BigInteger.valueOf(bitLength);
+            for (int i = 0; i < bases.length; i++) {
+                values[2 * i + 1] = bases[i].getGroup().getModulus();
+                values[2 * i + 2] = bases[i].getValue();
+            }
+        }
+        
+        @Pure
+        @Override
+        public boolean equals(@Nullable Object object) {
+            return object instanceof Key && Arrays.equals(values, ((Key) object).values);
+        }
+        
+        @Pure
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(values);
+        }
+        
+    }
+    
+    /**
+     * Stores the pre-computed powers of a combination of bases.
+     */
+    private static final class Stock {
+        
+        private final @NonNegative int bitLength;
+        
+        private final @Nonnull Element[] bases;
+        
+        private final @Nonnull BlockingQueue<@Nonnull Powers> powers = new LinkedBlockingQueue<>();
+        
+        private final @Nonnull AtomicBoolean refilling = new AtomicBoolean(false);
+        
+        /**
+         * Stores whether this stock has been evicted from the pool, after which it is no longer refilled.
+         */
+        private volatile boolean evicted = false;
+        
+        private Stock(@NonNegative int bitLength, @Nonnull Element[] bases) {
+            this.bitLength = bitLength;
+            this.bases = bases.clone();
+        }
+        
+        /**
+         * Computes powers until the capacity is reached, unless another thread is already doing so.
+         * The exponents are drawn from an independent source of randomness so that the background computation does not consume the values of a deterministic seed.
+         */
+        @Impure
+        private void refill() {
+            if (refilling.compareAndSet(false, true)) {
+                try {
+                    while (powers.size() < capacity.get() && !evicted && !Thread.currentThread().isInterrupted()) {
+                        powers.add(compute(Randomness.getIndependent(), bitLength, bases));
+                    }
+                } finally {
+                    refilling.set(false);
+                }
+            }
+        }
+        
+    }
+    
+    /**
+     * Stores the stocks of the tracked combinations of bases in the order of their last access.
+     * If more than the configured number of combinations are requested, the least recently used stock is evicted.
+     */
+    private static final @Nonnull Map<@Nonnull Key, @Nonnull Stock> stocks = Collections.synchronizedMap(new LinkedHashMap<Key, Stock>(16, 0.75f, true) {
+        
+        @Impure
+        @Override
+        protected boolean removeEldestEntry(@Nonnull Map.Entry<Key, Stock> eldest) {
+            if (size() > combinations.get()) {
+                eldest.getValue().evicted = true;
+                return true;
+            } else {
+                return false;
+            }
+        }
+        
+    });
+    
+    /**
+     * Returns the number of tracked combinations of bases.
+     */
+    @Pure
+    public static @NonNegative int getNumberOfCombinations() {
+        return stocks.size();
+    }
+    
+    /**
+     * Removes all pre-computed powers, which is necessary after the bases have been replaced.
+     */
+    @Impure
+    public static void clear() {
+        synchronized (stocks) {
+            for (@Nonnull Stock stock : stocks.values()) { stock.evicted = true; }
+            stocks.clear();
+        }
+    }
+    
+    /* -------------------------------------------------- Executor -------------------------------------------------- */
+    
+    private static @Nullable ThreadPoolExecutor executor;
+    
+    /**
+     * Returns the executor that computes the powers with the lowest priority so that the computation happens when the client is idle.
+     */
+    @Impure
+    private static synchronized @Nonnull ThreadPoolExecutor getExecutor() {
+        if (executor == null) {
+            final @Nonnull NamedThreadFactory threadFactory = NamedThreadFactory.with("PowerPool");
+            executor = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+                final @Nonnull Thread thread = threadFactory.newThread(runnable);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            });
+            executor.allowCoreThreadTimeOut(true);
+        }
+        return executor;
+    }
+    
+    /**
+     * Stops the computation of powers in the background.
+     */
+    @Impure
+    public static synchronized void shutDown() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+    
+    /* -------------------------------------------------- Retrieval -------------------------------------------------- */
+    
+    /**
+     * Returns a random exponent of the given bit length together with the powers of the given bases.
+     * If the pool is activated, the powers are taken from the stock of the given bases, which is refilled in the background.
+     * Each entry is removed from the stock atomically so that a random exponent is never handed out twice.
+     * If the stock is empty, the powers are computed online.
+     */
+    @Impure
+    public static @Nonnull Powers take(@NonNegative int bitLength, @Nonnull Element... bases) {
+        if (!activation.get()) { return compute(bitLength, bases); }
+        
+        final @Nonnull Key key = new Key(bitLength, bases);
+        final @Nonnull Stock stock = stocks.computeIfAbsent(key, k -> new Stock(bitLength, bases));
+        
+        final @Nullable Powers powers = stock.powers.poll();
+        if (powers == null || stock.powers.size() < capacity.get() / 2) {
+            getExecutor().execute(stock::refill);
+        }
+        if (powers != null) { return powers; }
+        
+        Log.debugging("The power pool has no pre-computed powers for the requested bases.");
+        return compute(bitLength, bases);
+    }
+    
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.core.group;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.testing.UtilityTest;
+
+import org.junit.Test;
+
+public class MontgomeryModulusTest extends UtilityTest {
+    
+    private final @Nonnull Random random = new Random(42);
+    
+    private @Nonnull BigInteger getOddModulus(int bitLength) {
+        return new BigInteger(bitLength, random).setBit(0).setBit(1);
+    }
+    
+    @Test
+    public void testExponentiation() {
+        for (int bitLength = 2; bitLength <= 1100; bitLength += 37) {
+            final @Nonnull BigInteger modulus = getOddModulus(bitLength);
+            final @Nonnull MontgomeryModulus montgomeryModulus = MontgomeryModulus.with(modulus);
+            final @Nonnull BigInteger base = new BigInteger(bitLength + 16, random);
+            final @Nonnull BigInteger exponent = new BigInteger(256, random);
+            assertThat(montgomeryModulus.pow(base, exponent)).isEqualTo(base.modPow(exponent, modulus));
+            assertThat(montgomeryModulus.pow(base, BigInteger.ZERO)).isEqualTo(BigInteger.ONE);
+        }
+    }
+    
+    @Test
+    public void testNegativeValues() {
+        final @Nonnull BigInteger modulus = BigInteger.probablePrime(512, random);
+        final @Nonnull MontgomeryModulus montgomeryModulus = MontgomeryModulus.with(modulus);
+        final @Nonnull BigInteger base = new BigInteger(500, random).negate();
+        final @Nonnull BigInteger exponent = new BigInteger(100, random).negate();
+        assertThat(montgomeryModulus.pow(base, exponent)).isEqualTo(base.modPow(exponent, modulus));
+    }
+    
+    @Test
+    public void testAccumulator() {
+        final @Nonnull BigInteger modulus = getOddModulus(2048);
+        final @Nonnull MontgomeryModulus montgomeryModulus = MontgomeryModulus.with(modulus);
+        @Nonnull BigInteger expected = new BigInteger(2048, random);
+        final @Nonnull MontgomeryAccumulator accumulator = montgomeryModulus.accumulate(expected);
+        for (int i = 0; i < 20; i++) {
+            final @Nonnull BigInteger factor = new BigInteger(2048, random);
+            accumulator.multiply(factor).square();
+            expected = expected.multiply(factor).pow(2).mod(modulus);
+        }
+        assertThat(accumulator.getValue()).isEqualTo(expected);
+        accumulator.multiply(montgomeryModulus.accumulate(BigInteger.TEN));
+        assertThat(accumulator.getValue()).isEqualTo(expected.multiply(BigInteger.TEN).mod(modulus));
+    }
+    
+    @Test
+    public void testUnsupportedModulus() {
+        assertThat(MontgomeryModulus.isSupported(BigInteger.valueOf(10))).isFalse();
+        assertThat(MontgomeryModulus.isSupported(BigInteger.ONE)).isFalse();
+    }
+    
+    @Test
+    public void testElementAccumulation() {
+        final @Nonnull Group group = GroupWithUnknownOrderBuilder.withModulus(getOddModulus(1024)).build();
+        final @Nonnull Element element = group.getElement(new BigInteger(1000, random));
+        final @Nonnull Element factor = group.getElement(new BigInteger(1000, random));
+        final @Nonnull BigInteger exponent = new BigInteger(256, random);
+        assertThat(group.getElement(element.accumulate().multiply(factor.getValue()).pow(exponent).getValue())).isEqualTo(element.multiply(factor).pow(exponent));
+    }
+    
+}
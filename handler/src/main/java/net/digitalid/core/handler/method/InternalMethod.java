@@ -97,4 +97,13 @@ public interface InternalMethod extends Method<NonHostEntity> {
         return Restrictions.MIN;
     }
     
+    /**
+     * Returns whether this internal method has to be signed by the client because the host needs the commitment of the client.
+     * Such methods are never authenticated with a session, even if a session has been established for the role.
+     */
+    @Pure
+    public default boolean requiresClientSignature() {
+        return false;
+    }
+    
 }
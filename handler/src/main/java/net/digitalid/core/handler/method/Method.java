@@ -46,8 +46,10 @@ import net.digitalid.core.compression.Compression;
 import net.digitalid.core.compression.CompressionBuilder;
 import net.digitalid.core.compression.CompressionConverterBuilder;
 import net.digitalid.core.encryption.Encryption;
-import net.digitalid.core.encryption.RequestEncryptionBuilder;
+import net.digitalid.core.encryption.RequestEncryption;
+import net.digitalid.core.encryption.SymmetricKeyCache;
 import net.digitalid.core.entity.Entity;
+import net.digitalid.core.exceptions.request.RequestErrorCode;
 import net.digitalid.core.exceptions.request.RequestException;
 import net.digitalid.core.exceptions.response.DeclarationExceptionBuilder;
 import net.digitalid.core.handler.Handler;
@@ -69,6 +71,8 @@ import net.digitalid.core.permissions.ReadOnlyAgentPermissions;
 import net.digitalid.core.signature.Signature;
 import net.digitalid.core.signature.SignatureBuilder;
 import net.digitalid.core.signature.host.HostSignature;
+import net.digitalid.core.signature.session.SessionCache;
+import net.digitalid.core.signature.session.SessionSignature;
 import net.digitalid.core.unit.annotations.OnHostRecipient;
 
 /**
@@ -175,7 +179,7 @@ public interface Method<@Unspecifiable ENTITY extends Entity> extends Handler<EN
      */
     @Pure
     public default @Nonnull Encryption<Signature<Compression<Pack>>> getEncryption(@Nonnull Compression<Pack> compression) throws ExternalException {
-        return RequestEncryptionBuilder.withObject(getSignature(compression)).withRecipient(getRecipient()).build();
+        return RequestEncryption.with(getSignature(compression), getRecipient(), SymmetricKeyCache.getSymmetricKey(getRecipient()));
     }
     
     /**
@@ -189,7 +193,14 @@ public interface Method<@Unspecifiable ENTITY extends Entity> extends Handler<EN
         
         final @Nonnull Encryption<Signature<Compression<Pack>>> encryption = getEncryption(compression);
         final @Nonnull Request request = RequestBuilder.withEncryption(encryption).build();
-        final @Nonnull Response response = request.send();
+        final @Nonnull Response response;
+        try {
+            response = request.send();
+        } catch (@Nonnull ExternalException exception) {
+            // The recipient might not have received the symmetric key, which is why it is not reused.
+            SymmetricKeyCache.invalidate(getRecipient());
+            throw exception;
+        }
         
         // TODO: All checks still have to be performed somewhere!
         
@@ -197,7 +208,12 @@ public interface Method<@Unspecifiable ENTITY extends Entity> extends Handler<EN
         if (pack.getType().equals(RequestExceptionReply.TYPE)) {
             final @Nonnull Pair<@Nullable Entity, @Nonnull HostSignature<Compression<Pack>>> provided = Pair.of(getEntity(), (HostSignature<Compression<Pack>>) response.getEncryption().getObject());
             final @Nonnull RequestExceptionReply requestExceptionReply = pack.unpack(RequestExceptionReplyConverter.INSTANCE, provided);
-            throw requestExceptionReply.getRequestException();
+            final @Nonnull RequestException requestException = requestExceptionReply.getRequestException();
+            // A rejected session is discarded so that the next request is signed by the client again.
+            if (requestException.getCode() == RequestErrorCode.SIGNATURE && encryption.getObject() instanceof SessionSignature<?>) { SessionCache.invalidate(((SessionSignature<?>) encryption.getObject()).getToken()); }
+            // A rejected symmetric key is discarded so that the next request is encrypted with a new one.
+            if (requestException.getCode() == RequestErrorCode.ENCRYPTION || requestException.getCode() == RequestErrorCode.KEYROTATION) { SymmetricKeyCache.invalidate(getRecipient()); }
+            throw requestException;
         }
         
         return response;
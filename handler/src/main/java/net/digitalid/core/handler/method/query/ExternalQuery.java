@@ -37,6 +37,7 @@ import net.digitalid.core.handler.method.Method;
 import net.digitalid.core.identification.identity.Identity;
 import net.digitalid.core.pack.Pack;
 import net.digitalid.core.pack.PackConverter;
+import net.digitalid.core.parameters.Randomness;
 import net.digitalid.core.permissions.ReadOnlyAgentPermissions;
 import net.digitalid.core.signature.Signature;
 import net.digitalid.core.signature.SignatureBuilder;
@@ -78,7 +79,7 @@ public abstract class ExternalQuery<ENTITY extends Entity> extends Query<ENTITY>
                 final @Nonnull FreezableList<@Nonnull ClientCredential> credentials = clientCredentialsInjection.get().evaluate(this, permissions);
                 final @Nullable FreezableList<@Nonnull CertifiedAttributeValue> certificates = certificatesInjection.get().evaluate(this);
 
-                final @Nonnull SecureRandom random = new SecureRandom();
+                final @Nonnull SecureRandom random = Randomness.get();
                 for (@Nonnull ClientCredential clientCredential : credentials) {
                     
 //                    clientCredential.getC().pow(res)
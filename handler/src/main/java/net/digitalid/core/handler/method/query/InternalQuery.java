@@ -72,7 +72,7 @@ public abstract class InternalQuery extends Query<NonHostEntity> implements Inte
     @PureWithSideEffects
     @MethodHasBeenReceived
     @TODO(task = "Also pass the present agent as an argument so that it does not have to be recreated again?", date = "2016-11-09", author = Author.KASPAR_ETTER)
-    protected abstract @Nonnull @Matching QueryReply<NonHostEntity> execute() throws DatabaseException;
+    protected abstract @Nonnull @Matching QueryReply<NonHostEntity> execute() throws RequestException, DatabaseException;
     
     @Override
     @NonCommitting
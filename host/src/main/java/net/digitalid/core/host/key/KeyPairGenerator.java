@@ -38,11 +38,12 @@ public abstract class KeyPairGenerator {
     
     /**
      * Generates a key pair for the host with the given identifier.
+     * If the {@link KeyPairPool key pair pool} is activated, a pre-generated key pair is used if available.
      */
     @PureWithSideEffects
     public static void generateKeyPairFor(@Nonnull HostIdentifier identifier) throws FileException, RecoveryException {
         Log.information("Generating a key pair for the host $.", identifier);
-        final @Nonnull KeyPair keyPair = KeyPair.withRandomValues();
+        final @Nonnull KeyPair keyPair = KeyPairPool.getKeyPair();
         final @Nonnull Time time = TimeBuilder.build();
         final @Nonnull PrivateKeyChain privateKeyChain = PrivateKeyChain.with(time, keyPair.getPrivateKey());
         final @Nonnull PublicKeyChain publicKeyChain = PublicKeyChain.with(time, keyPair.getPublicKey());
@@ -0,0 +1,382 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.core.host.key;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.crypto.Cipher;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.method.PureWithSideEffects;
+import net.digitalid.utility.configuration.Configuration;
+import net.digitalid.utility.conversion.exceptions.RecoveryException;
+import net.digitalid.utility.file.Files;
+import net.digitalid.utility.logging.Log;
+import net.digitalid.utility.threading.NamedThreadFactory;
+import net.digitalid.utility.time.Time;
+import net.digitalid.utility.time.TimeBuilder;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
+import net.digitalid.utility.validation.annotations.math.Positive;
+import net.digitalid.utility.validation.annotations.type.Utility;
+
+import net.digitalid.core.asymmetrickey.KeyPair;
+import net.digitalid.core.asymmetrickey.PrivateKey;
+import net.digitalid.core.asymmetrickey.PrivateKeyConverter;
+import net.digitalid.core.asymmetrickey.PublicKey;
+import net.digitalid.core.asymmetrickey.PublicKeyConverter;
+import net.digitalid.core.conversion.XDF;
+import net.digitalid.core.conversion.decoders.FileDecoder;
+import net.digitalid.core.conversion.encoders.FileEncoder;
+import net.digitalid.core.conversion.exceptions.FileException;
+import net.digitalid.core.conversion.exceptions.FileExceptionBuilder;
+import net.digitalid.core.parameters.Parameters;
+import net.digitalid.core.symmetrickey.InitializationVector;
+import net.digitalid.core.symmetrickey.InitializationVectorBuilder;
+import net.digitalid.core.symmetrickey.InitializationVectorConverter;
+import net.digitalid.core.symmetrickey.SymmetricKey;
+import net.digitalid.core.symmetrickey.SymmetricKeyBuilder;
+import net.digitalid.core.symmetrickey.SymmetricKeyConverter;
+
+/**
+ * The key pair pool generates key pairs in the background so that new hosts can be created without delay.
+ * The pre-generated key pairs are stored encrypted in the pool directory of the configuration directory.
+ * 
+ * @see KeyPairGenerator
+ */
+@Utility
+public abstract class KeyPairPool {
+    
+    /* -------------------------------------------------- Configuration -------------------------------------------------- */
+    
+    /**
+     * Stores whether key pairs are pre-generated in the background.
+     */
+    public static final @Nonnull Configuration<Boolean> activation = Configuration.with(false);
+    
+    /**
+     * Stores the number of key pairs that the pool tries to keep in stock.
+     */
+    public static final @Nonnull Configuration<@Positive Integer> target = Configuration.with(2);
+    
+    /* -------------------------------------------------- Files -------------------------------------------------- */
+    
+    /**
+     * Returns the directory in which the pre-generated key pairs are stored.
+     */
+    @PureWithSideEffects
+    public static @Nonnull File getDirectory() {
+        final @Nonnull File directory = Files.relativeToConfigurationDirectory("pool");
+        if (!directory.exists() && !directory.mkdirs()) { Log.warning("Could not create the directory $.", directory); }
+        return directory;
+    }
+    
+    /**
+     * Returns the file in which the key to encrypt the pre-generated key pairs is stored.
+     */
+    @PureWithSideEffects
+    public static @Nonnull File getKeyFile() {
+        return Files.relativeToConfigurationDirectory("pool.key.xdf");
+    }
+    
+    /**
+     * The POSIX permissions of the files that contain secrets, which only the owner may read and write.
+     */
+    private static final @Nonnull Set<@Nonnull PosixFilePermission> OWNER_ONLY = PosixFilePermissions.fromString("rw-------");
+    
+    /**
+     * Returns whether the file system supports POSIX file permissions.
+     */
+    @Pure
+    private static boolean isPosix() {
+        return FileSystems.getDefault().supportedFileAttributeViews().contains("posix");
+    }
+    
+    /**
+     * Creates the given file with permissions that allow only the owner of the process to access it.
+     * On POSIX file systems, the permissions are set atomically with the creation so that the file is never accessible by others.
+     */
+    @Impure
+    private static void createPrivateFile(@Nonnull File file) throws FileException {
+        try {
+            if (isPosix()) {
+                java.nio.file.Files.createFile(file.toPath(), PosixFilePermissions.asFileAttribute(OWNER_ONLY));
+            } else {
+                java.nio.file.Files.createFile(file.toPath());
+                restrictPermissions(file);
+            }
+        } catch (@Nonnull IOException exception) {
+            throw FileExceptionBuilder.withCause(exception).build();
+        }
+    }
+    
+    /**
+     * Restricts the permissions of the given existing file to its owner in case they have been widened since its creation.
+     */
+    @Impure
+    private static void restrictPermissions(@Nonnull File file) throws FileException {
+        try {
+            if (isPosix()) {
+                if (!java.nio.file.Files.getPosixFilePermissions(file.toPath()).equals(OWNER_ONLY)) {
+                    Log.warning("The file $ was accessible by others and is now restricted to its owner.", file);
+                    java.nio.file.Files.setPosixFilePermissions(file.toPath(), OWNER_ONLY);
+                }
+            } else if (!file.setReadable(false, false) || !file.setReadable(true, true) || !file.setWritable(false, false) || !file.setWritable(true, true)) {
+                throw new IOException("Could not restrict the permissions of the file " + file + ".");
+            }
+        } catch (@Nonnull IOException exception) {
+            throw FileExceptionBuilder.withCause(exception).build();
+        }
+    }
+    
+    /* -------------------------------------------------- Storage Key -------------------------------------------------- */
+    
+    private static @Nullable SymmetricKey storageKey;
+    
+    /**
+     * Returns the symmetric key with which the pre-generated key pairs are encrypted on disk.
+     * The key is generated on first use and stored in a file that is created with permissions for the owner of the process only.
+     */
+    @Impure
+    private static synchronized @Nonnull SymmetricKey getStorageKey() throws FileException, RecoveryException {
+        if (storageKey == null) {
+            final @Nonnull File file = getKeyFile();
+            if (file.exists()) {
+                restrictPermissions(file);
+                storageKey = XDF.recover(SymmetricKeyConverter.INSTANCE, null, file);
+            } else {
+                storageKey = SymmetricKeyBuilder.build();
+                createPrivateFile(file);
+                XDF.convert(SymmetricKeyConverter.INSTANCE, storageKey, file);
+            }
+        }
+        return storageKey;
+    }
+    
+    /* -------------------------------------------------- Stock -------------------------------------------------- */
+    
+    /**
+     * Stores the files of the key pairs that are ready to be handed out.
+     */
+    private static final @Nonnull Deque<@Nonnull File> stock = new ConcurrentLinkedDeque<>();
+    
+    /**
+     * Stores the given key pair encrypted in a new file of the pool directory.
+     */
+    @Impure
+    private static void store(@Nonnull KeyPair keyPair) throws FileException, RecoveryException {
+        final @Nonnull SymmetricKey symmetricKey = getStorageKey();
+        final @Nonnull InitializationVector initializationVector = InitializationVectorBuilder.build();
+        final @Nonnull File file = new File(getDirectory(), TimeBuilder.build().getValue() + "-" + generated.get() + ".xdf");
+        createPrivateFile(file);
+        try (@Nonnull FileEncoder encoder = FileEncoder.of(file)) {
+            encoder.encodeInteger32(Parameters.FACTOR.get());
+            encoder.encodeInteger32(Parameters.VERIFIABLE_ENCRYPTION.get());
+            encoder.encodeObject(InitializationVectorConverter.INSTANCE, initializationVector);
+            encoder.startEncrypting(symmetricKey.getCipher(initializationVector, Cipher.ENCRYPT_MODE));
+            encoder.encodeObject(PrivateKeyConverter.INSTANCE, keyPair.getPrivateKey());
+            encoder.encodeObject(PublicKeyConverter.INSTANCE, keyPair.getPublicKey());
+            encoder.stopEncrypting();
+        }
+        stock.add(file);
+    }
+    
+    /**
+     * Loads the key pair from the given file or returns null if it was generated with other parameters.
+     */
+    @PureWithSideEffects
+    private static @Nullable KeyPair load(@Nonnull File file) throws FileException, RecoveryException {
+        final @Nonnull SymmetricKey symmetricKey = getStorageKey();
+        try (@Nonnull FileDecoder decoder = FileDecoder.of(file)) {
+            if (decoder.decodeInteger32() != Parameters.FACTOR.get() || decoder.decodeInteger32() != Parameters.VERIFIABLE_ENCRYPTION.get()) { return null; }
+            final @Nonnull InitializationVector initializationVector = decoder.decodeObject(InitializationVectorConverter.INSTANCE, null);
+            decoder.startDecrypting(symmetricKey.getCipher(initializationVector, Cipher.DECRYPT_MODE));
+            final @Nonnull PrivateKey privateKey = decoder.decodeObject(PrivateKeyConverter.INSTANCE, null);
+            final @Nonnull PublicKey publicKey = decoder.decodeObject(PublicKeyConverter.INSTANCE, null);
+            decoder.stopDecrypting();
+            return KeyPair.with(privateKey, publicKey);
+        }
+    }
+    
+    /**
+     * Returns the number of key pairs that are ready to be handed out.
+     */
+    @Pure
+    public static @NonNegative int getDepth() {
+        return stock.size();
+    }
+    
+    /* -------------------------------------------------- Metrics -------------------------------------------------- */
+    
+    private static final @Nonnull AtomicLong generated = new AtomicLong();
+    
+    /**
+     * Returns the number of key pairs that were generated in the background since the server started.
+     */
+    @Pure
+    public static @NonNegative long getNumberOfGeneratedKeyPairs() {
+        return generated.get();
+    }
+    
+    private static final @Nonnull AtomicLong generationTime = new AtomicLong();
+    
+    /**
+     * Returns the number of key pairs that are generated per hour while the pool is being refilled.
+     */
+    @Pure
+    public static double getRefillRate() {
+        final long time = generationTime.get();
+        return time == 0 ? 0 : generated.get() * (double) Time.HOUR.getValue() / time;
+    }
+    
+    private static final @Nonnull AtomicLong handedOut = new AtomicLong();
+    
+    /**
+     * Returns the number of key pairs that were handed out from the pool.
+     */
+    @Pure
+    public static @NonNegative long getNumberOfHandedOutKeyPairs() {
+        return handedOut.get();
+    }
+    
+    private static final @Nonnull AtomicLong missed = new AtomicLong();
+    
+    /**
+     * Returns the number of key pairs that had to be generated synchronously because the pool was empty.
+     */
+    @Pure
+    public static @NonNegative long getNumberOfMissedKeyPairs() {
+        return missed.get();
+    }
+    
+    /* -------------------------------------------------- Refill -------------------------------------------------- */
+    
+    /**
+     * Generates the key pairs in the background.
+     */
+    private static final @Nonnull ExecutorService executor = Executors.newSingleThreadExecutor(NamedThreadFactory.with("KeyPairPool"));
+    
+    /**
+     * Stores whether a refill task is scheduled or running.
+     */
+    private static final @Nonnull AtomicBoolean refilling = new AtomicBoolean(false);
+    
+    /**
+     * Schedules the generation of key pairs until the pool contains the target number of key pairs.
+     */
+    @Impure
+    public static void refill() {
+        if (activation.get() && getDepth() < target.get() && refilling.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                try {
+                    while (getDepth() < target.get()) {
+                        final @Nonnull Time start = TimeBuilder.build();
+                        final @Nonnull KeyPair keyPair = KeyPair.withRandomValues();
+                        store(keyPair);
+                        generationTime.addAndGet(start.ago().getValue());
+                        generated.incrementAndGet();
+                        Log.debugging("The key pair pool contains now $ key pairs.", getDepth());
+                    }
+                } catch (@Nonnull FileException | RecoveryException exception) {
+                    Log.warning("Could not store a pre-generated key pair.", exception);
+                } finally {
+                    refilling.set(false);
+                }
+            });
+        }
+    }
+    
+    /* -------------------------------------------------- Lifecycle -------------------------------------------------- */
+    
+    /**
+     * Adds the key pairs in the pool directory to the stock and starts refilling the pool if it is activated.
+     */
+    @Impure
+    public static void start() {
+        if (activation.get()) {
+            final @Nullable File[] files = getDirectory().listFiles((directory, name) -> name.endsWith(".xdf"));
+            if (files != null) {
+                Arrays.sort(files);
+                for (@Nonnull File file : files) {
+                    if (!stock.contains(file)) { stock.add(file); }
+                }
+            }
+            Log.information("The key pair pool was started with $ key pairs in stock.", getDepth());
+            refill();
+        }
+    }
+    
+    /**
+     * Stops the generation of key pairs in the background.
+     */
+    @Impure
+    public static void shutDown() {
+        try {
+            executor.shutdownNow();
+            executor.awaitTermination(5L, TimeUnit.SECONDS);
+        } catch (@Nonnull InterruptedException exception) {
+            Log.warning("Could not shut down the key pair pool.", exception);
+        }
+    }
+    
+    /* -------------------------------------------------- Retrieval -------------------------------------------------- */
+    
+    /**
+     * Returns a pre-generated key pair or a newly generated key pair if the pool is empty or not activated.
+     * Each pre-generated key pair is deleted from the disk before it is returned so that it is never handed out twice.
+     */
+    @Impure
+    public static @Nonnull KeyPair getKeyPair() {
+        if (activation.get()) {
+            @Nullable File file;
+            while ((file = stock.poll()) != null) {
+                try {
+                    final @Nullable KeyPair keyPair = load(file);
+                    if (keyPair != null) {
+                        if (!file.delete()) { Log.warning("Could not delete the pre-generated key pair in $.", file); }
+                        handedOut.incrementAndGet();
+                        refill();
+                        return keyPair;
+                    } else {
+                        Log.information("Discarding the key pair in $ as it was generated with other parameters.", file);
+                        if (!file.delete()) { Log.warning("Could not delete the pre-generated key pair in $.", file); }
+                    }
+                } catch (@Nonnull FileException | RecoveryException exception) {
+                    Log.warning("Could not load the pre-generated key pair in $.", exception, file);
+                }
+            }
+            missed.incrementAndGet();
+            refill();
+        }
+        return KeyPair.withRandomValues();
+    }
+    
+}
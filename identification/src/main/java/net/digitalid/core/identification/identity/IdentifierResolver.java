@@ -15,6 +15,10 @@
  */
 package net.digitalid.core.identification.identity;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
@@ -83,6 +87,20 @@ public abstract class IdentifierResolver {
     @NonCommitting
     public abstract @Nonnull Identity resolve(@Nonnull Identifier identifier) throws ExternalException;
     
+    /**
+     * Resolves the given identifiers into identities, which are returned in the order of the given identifiers.
+     * Implementations can override this method in order to resolve identifiers on the same host with a single request.
+     */
+    @Pure
+    @NonCommitting
+    public @Nonnull Map<@Nonnull Identifier, @Nonnull Identity> resolve(@Nonnull Collection<? extends @Nonnull Identifier> identifiers) throws ExternalException {
+        final @Nonnull Map<@Nonnull Identifier, @Nonnull Identity> identities = new LinkedHashMap<>();
+        for (@Nonnull Identifier identifier : identifiers) {
+            if (!identities.containsKey(identifier)) { identities.put(identifier, resolve(identifier)); }
+        }
+        return identities;
+    }
+    
     /* -------------------------------------------------- Configuration -------------------------------------------------- */
     
     /**
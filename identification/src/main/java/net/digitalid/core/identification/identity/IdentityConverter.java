@@ -133,12 +133,7 @@ public abstract class IdentityConverter<@Unspecifiable IDENTITY extends Identity
                 throw RecoveryExceptionBuilder.withMessage("A problem occurred while resolving the identity with the key " + key + ".").withCause(exception).build();
             }
         } else if (representation == Representation.EXTERNAL) {
-            final @Nonnull Identifier address = decoder.decodeObject(IdentifierConverter.INSTANCE, null);
-            try {
-                identity = IdentifierResolver.configuration.get().resolve(address);
-            } catch (@Nonnull ExternalException exception) {
-                throw RecoveryExceptionBuilder.withMessage("A problem occurred while resolving the identity with the address '" + address.getString() + "'.").withCause(exception).build();
-            }
+            return recover(decoder.decodeObject(IdentifierConverter.INSTANCE, null));
         } else {
             throw CaseExceptionBuilder.withVariable("representation").withValue(representation).build();
         }
@@ -146,4 +141,19 @@ public abstract class IdentityConverter<@Unspecifiable IDENTITY extends Identity
         return getType().cast(identity);
     }
     
+    /**
+     * Recovers the identity with the given address, which is resolved if it is not yet mapped.
+     */
+    @Pure
+    public @Capturable @Nonnull IDENTITY recover(@Nonnull Identifier address) throws RecoveryException {
+        final @Nonnull Identity identity;
+        try {
+            identity = IdentifierResolver.configuration.get().resolve(address);
+        } catch (@Nonnull ExternalException exception) {
+            throw RecoveryExceptionBuilder.withMessage("A problem occurred while resolving the identity with the address '" + address.getString() + "'.").withCause(exception).build();
+        }
+        Check.that(getType().isInstance(identity)).orThrow("The recovered identity $ has to be an instance of $.", identity, getType());
+        return getType().cast(identity);
+    }
+    
 }
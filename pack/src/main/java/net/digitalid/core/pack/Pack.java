@@ -15,6 +15,7 @@
  */
 package net.digitalid.core.pack;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.InputStream;
 import java.net.Socket;
@@ -33,6 +34,7 @@ import net.digitalid.utility.circumfixes.Quotes;
 import net.digitalid.utility.conversion.converters.StringConverter;
 import net.digitalid.utility.conversion.exceptions.RecoveryException;
 import net.digitalid.utility.conversion.interfaces.Converter;
+import net.digitalid.utility.exceptions.UncheckedExceptionBuilder;
 import net.digitalid.utility.generator.annotations.generators.GenerateConverter;
 import net.digitalid.utility.generator.annotations.generators.GenerateSubclass;
 import net.digitalid.utility.logging.Log;
@@ -73,10 +75,15 @@ public abstract class Pack extends RootClass {
     
     /**
      * Unpacks this pack with the given converter and the provided object.
+     * The addresses of a collection of identities are resolved together by the {@link PackDecoder}.
      */
     @Pure
     public <@Unspecifiable TYPE, @Specifiable PROVIDED> @Nonnull TYPE unpack(@Nonnull Converter<TYPE, PROVIDED> converter, @Shared PROVIDED provided) throws RecoveryException {
-        return XDF.recover(converter, provided, getBytes());
+        try (@Nonnull PackDecoder decoder = PackDecoder.of(new ByteArrayInputStream(getBytes()))) {
+            return decoder.decodeObject(converter, provided);
+        } catch (@Nonnull MemoryException exception) {
+            throw UncheckedExceptionBuilder.withCause(exception).build();
+        }
     }
     
     /**
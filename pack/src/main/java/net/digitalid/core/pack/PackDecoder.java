@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.core.pack;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.generics.Specifiable;
+import net.digitalid.utility.annotations.generics.Unspecifiable;
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.ownership.Shared;
+import net.digitalid.utility.conversion.exceptions.RecoveryException;
+import net.digitalid.utility.conversion.interfaces.Converter;
+import net.digitalid.utility.exceptions.ExternalException;
+import net.digitalid.utility.functional.failable.FailableCollector;
+import net.digitalid.utility.functional.interfaces.UnaryFunction;
+import net.digitalid.utility.generator.annotations.generators.GenerateSubclass;
+import net.digitalid.utility.logging.Log;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+
+import net.digitalid.core.conversion.decoders.MemoryDecoder;
+import net.digitalid.core.conversion.exceptions.MemoryException;
+import net.digitalid.core.identification.identifier.Identifier;
+import net.digitalid.core.identification.identifier.IdentifierConverter;
+import net.digitalid.core.identification.identity.IdentifierResolver;
+import net.digitalid.core.identification.identity.IdentityConverter;
+
+/**
+ * A pack decoder decodes the content of a pack and resolves the addresses of a collection of identities together
+ * so that the identifiers which are not yet mapped are queried in batches per host instead of one after the other.
+ */
+@Mutable
+@GenerateSubclass
+abstract class PackDecoder extends MemoryDecoder {
+    
+    /* -------------------------------------------------- Constructor -------------------------------------------------- */
+    
+    protected PackDecoder(@Nonnull InputStream inputStream) {
+        super(inputStream);
+    }
+    
+    /**
+     * Returns a pack decoder for the given input stream.
+     */
+    static @Nonnull PackDecoder of(@Nonnull InputStream inputStream) {
+        return new PackDecoderSubclass(inputStream);
+    }
+    
+    /* -------------------------------------------------- Collections -------------------------------------------------- */
+    
+    @Impure
+    @Override
+    public <@Unspecifiable TYPE, @Specifiable PROVIDED, @Unspecifiable ITERABLE, @Unspecifiable COLLECTOR extends FailableCollector<@Nonnull TYPE, @Nonnull ITERABLE, RecoveryException, RecoveryException>> @Nonnull ITERABLE decodeOrderedIterable(@Nonnull Converter<TYPE, PROVIDED> converter, @Shared PROVIDED provided, @Nonnull UnaryFunction<@Nonnull Integer, @Nonnull COLLECTOR> constructor) throws MemoryException, RecoveryException {
+        if (!(converter instanceof IdentityConverter<?>) || converter.getSubtypeConverters() != null) { return super.decodeOrderedIterable(converter, provided, constructor); }
+        
+        final int size = decodeInteger32();
+        final @Nonnull List<@Nonnull Identifier> addresses = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) { addresses.add(decodeObject(IdentifierConverter.INSTANCE, null)); }
+        
+        try {
+            IdentifierResolver.configuration.get().resolve(addresses);
+        } catch (@Nonnull ExternalException exception) {
+            Log.debugging("The $ addresses of a decoded collection could not be resolved together, which is why they are recovered individually.", exception, size);
+        }
+        
+        final @Nonnull COLLECTOR collector = constructor.evaluate(size);
+        for (@Nonnull Identifier address : addresses) {
+            @SuppressWarnings("unchecked") final @Nonnull TYPE object = (TYPE) ((IdentityConverter<?>) converter).recover(address);
+            collector.consume(object);
+        }
+        return collector.getResult();
+    }
+    
+}
@@ -41,6 +41,8 @@ import net.digitalid.database.annotations.transaction.NonCommitting;
 import net.digitalid.core.compression.Compression;
 import net.digitalid.core.conversion.exceptions.NetworkException;
 import net.digitalid.core.conversion.exceptions.NetworkExceptionBuilder;
+import net.digitalid.core.encryption.AuthenticatedRequestEncryption;
+import net.digitalid.core.encryption.AuthenticatedResponseEncryption;
 import net.digitalid.core.encryption.Encryption;
 import net.digitalid.core.encryption.RequestEncryption;
 import net.digitalid.core.identification.identifier.HostIdentifier;
@@ -382,6 +384,7 @@ public abstract class Request extends Packet {
     
     /**
      * Sends this request and returns the response.
+     * A request in the authenticated encryption mode only accepts a response in the same mode.
      */
     @NonCommitting
     @PureWithSideEffects
@@ -390,7 +393,9 @@ public abstract class Request extends Packet {
             socket.setSoTimeout(TIMEOUT.get());
             pack().storeTo(socket);
             final @Nonnull Pack pack = Pack.loadFrom(socket);
-            return pack.unpack(ResponseConverter.INSTANCE, getSymmetricKey());
+            final @Nonnull Response response = pack.unpack(ResponseConverter.INSTANCE, getSymmetricKey());
+            if (getEncryption() instanceof AuthenticatedRequestEncryption && !(response.getEncryption() instanceof AuthenticatedResponseEncryption)) { throw new IOException("The response to a request in the authenticated encryption mode was not authenticated."); }
+            return response;
 //        } catch (@Nonnull RequestException exception) {
 //            if (exception.getCode() == RequestErrorCode.KEYROTATION && this instanceof ClientRequest) {
 //                return ((ClientRequest) this).recommit(methods, iteration, verified);
@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.core.parameters;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.configuration.Configuration;
+import net.digitalid.utility.exceptions.ExternalException;
+import net.digitalid.utility.threading.NamedThreadFactory;
+import net.digitalid.utility.validation.annotations.math.Positive;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+
+import net.digitalid.database.interfaces.Database;
+
+/**
+ * A bounded executor computes tasks on a fixed number of threads, which are only started when needed and terminate when they are idle.
+ * The number of threads is read from the given configuration when the threads are started for the first time after a {@link #shutDown() shutdown}.
+ */
+@Mutable
+public class BoundedExecutor {
+    
+    /* -------------------------------------------------- Fields -------------------------------------------------- */
+    
+    private final @Nonnull String name;
+    
+    private final @Nonnull Configuration<@Positive Integer> threads;
+    
+    private @Nullable ThreadPoolExecutor executor;
+    
+    /* -------------------------------------------------- Constructors -------------------------------------------------- */
+    
+    protected BoundedExecutor(@Nonnull String name, @Nonnull Configuration<@Positive Integer> threads) {
+        this.name = name;
+        this.threads = threads;
+    }
+    
+    /**
+     * Returns a new bounded executor whose threads have the given name and whose number of threads is given by the given configuration.
+     */
+    @Impure
+    public static @Nonnull BoundedExecutor with(@Nonnull String name, @Nonnull Configuration<@Positive Integer> threads) {
+        return new BoundedExecutor(name, threads);
+    }
+    
+    /* -------------------------------------------------- Executor -------------------------------------------------- */
+    
+    /**
+     * Returns the executor that computes the tasks, which is created if necessary.
+     */
+    @Impure
+    private synchronized @Nonnull ThreadPoolExecutor getExecutor() {
+        if (executor == null) {
+            executor = new ThreadPoolExecutor(threads.get(), threads.get(), 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), NamedThreadFactory.with(name));
+            executor.allowCoreThreadTimeOut(true);
+        }
+        return executor;
+    }
+    
+    /**
+     * Stops the threads of this executor, which are started again when the next task is submitted.
+     */
+    @Impure
+    public synchronized void shutDown() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+    
+    /* -------------------------------------------------- Computation -------------------------------------------------- */
+    
+    /**
+     * Computes the given supplier on this executor.
+     */
+    @Impure
+    public <RESULT> @Nonnull CompletableFuture<RESULT> supply(@Nonnull Supplier<RESULT> supplier) {
+        return CompletableFuture.supplyAsync(supplier, getExecutor());
+    }
+    
+    /**
+     * Computes the given callable on this executor and commits the transaction of the executing thread afterwards
+     * or rolls it back if the callable failed.
+     */
+    @Impure
+    public <RESULT> @Nonnull CompletableFuture<RESULT> compute(@Nonnull Callable<RESULT> callable) {
+        return supply(() -> {
+            try {
+                final RESULT result = callable.call();
+                Database.commit();
+                return result;
+            } catch (@Nonnull Exception exception) {
+                Database.rollback();
+                throw new CompletionException(exception);
+            }
+        });
+    }
+    
+    /**
+     * Waits for the given future and rethrows the exception with which its computation failed.
+     */
+    @Impure
+    public static <RESULT> RESULT join(@Nonnull CompletableFuture<RESULT> future) throws ExternalException {
+        try {
+            return future.join();
+        } catch (@Nonnull CompletionException exception) {
+            final @Nullable Throwable cause = exception.getCause();
+            if (cause instanceof ExternalException) { throw (ExternalException) cause; }
+            if (cause instanceof RuntimeException) { throw (RuntimeException) cause; }
+            if (cause instanceof Error) { throw (Error) cause; }
+            throw exception;
+        }
+    }
+    
+}
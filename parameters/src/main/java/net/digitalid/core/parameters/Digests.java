@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.core.parameters;
+
+import java.security.MessageDigest;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.ownership.Capturable;
+import net.digitalid.utility.annotations.ownership.NonCaptured;
+import net.digitalid.utility.annotations.parameter.Unmodified;
+import net.digitalid.utility.functional.interfaces.Producer;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
+import net.digitalid.utility.validation.annotations.type.Utility;
+
+/**
+ * This class hands out the message digests of the configured {@link Parameters#HASH_FUNCTION hash function}.
+ * Every thread keeps a released digest for its next acquisition so that digests are not instantiated for each hash.
+ * A digest that is acquired while the digest of the thread is in use is produced anew, which makes nested hashing safe.
+ */
+@Utility
+public abstract class Digests {
+    
+    /* -------------------------------------------------- Slots -------------------------------------------------- */
+    
+    /**
+     * A slot stores the released digest of a thread together with the producer that produced it.
+     */
+    private static final class Slot {
+        
+        private @Nullable Producer<MessageDigest> producer;
+        
+        private @Nullable MessageDigest digest;
+        
+    }
+    
+    /**
+     * Stores the slot of each thread.
+     */
+    private static final @Nonnull ThreadLocal<@Nonnull Slot> slots = ThreadLocal.withInitial(Slot::new);
+    
+    /* -------------------------------------------------- Acquisition -------------------------------------------------- */
+    
+    /**
+     * Returns a reset digest of the configured hash function, which should be {@link #release(MessageDigest) released} after its use.
+     */
+    @Impure
+    public static @Capturable @Nonnull MessageDigest acquire() {
+        final @Nonnull Producer<MessageDigest> producer = Parameters.HASH_FUNCTION.get();
+        final @Nonnull Slot slot = slots.get();
+        final @Nullable MessageDigest digest = slot.digest;
+        slot.digest = null;
+        // A digest of a previously configured hash function is discarded.
+        return digest != null && slot.producer == producer ? digest : producer.produce();
+    }
+    
+    /**
+     * Resets the given digest and keeps it for the next acquisition on the current thread.
+     * The given digest must no longer be used by the caller.
+     */
+    @Impure
+    public static void release(@Nonnull MessageDigest digest) {
+        digest.reset();
+        final @Nonnull Slot slot = slots.get();
+        slot.producer = Parameters.HASH_FUNCTION.get();
+        slot.digest = digest;
+    }
+    
+    /* -------------------------------------------------- Hashing -------------------------------------------------- */
+    
+    /**
+     * Returns the hash of the given slice of the given bytes.
+     */
+    @Pure
+    public static @Capturable @Nonnull byte[] digest(@NonCaptured @Unmodified @Nonnull byte[] bytes, @NonNegative int offset, @NonNegative int length) {
+        final @Nonnull MessageDigest digest = acquire();
+        try {
+            digest.update(bytes, offset, length);
+            return digest.digest();
+        } finally {
+            release(digest);
+        }
+    }
+    
+    /**
+     * Returns the hash of the given bytes.
+     */
+    @Pure
+    public static @Capturable @Nonnull byte[] digest(@NonCaptured @Unmodified @Nonnull byte[] bytes) {
+        return digest(bytes, 0, bytes.length);
+    }
+    
+}
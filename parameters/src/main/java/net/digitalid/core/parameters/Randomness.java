@@ -0,0 +1,221 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.core.parameters;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.security.SecureRandomSpi;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.configuration.Configuration;
+import net.digitalid.utility.errors.SupportErrorBuilder;
+import net.digitalid.utility.validation.annotations.math.Positive;
+import net.digitalid.utility.validation.annotations.type.Utility;
+
+/**
+ * This class provides the source of randomness for all cryptographic operations.
+ * Every thread gets its own deterministic random bit generator (DRBG), which is seeded
+ * from the system's entropy source and reseeded after a configurable number of draws.
+ * For testing purposes, all threads can be switched to a single generator with a fixed seed.
+ */
+@Utility
+public abstract class Randomness {
+    
+    /* -------------------------------------------------- Configuration -------------------------------------------------- */
+    
+    /**
+     * The algorithm of the deterministic random bit generators.
+     */
+    public static final @Nonnull String ALGORITHM = "SHA1PRNG";
+    
+    /**
+     * The number of draws after which a generator is reseeded.
+     */
+    public static final @Nonnull Configuration<@Positive Integer> RESEED_INTERVAL = Configuration.with(65_536);
+    
+    /**
+     * The number of bytes with which a generator is (re)seeded.
+     */
+    public static final @Nonnull Configuration<@Positive Integer> SEED_LENGTH = Configuration.with(32);
+    
+    /* -------------------------------------------------- Entropy -------------------------------------------------- */
+    
+    /**
+     * Stores the entropy source of the platform, which is only used to seed the generators.
+     */
+    private static final @Nonnull SecureRandom entropy = new SecureRandom();
+    
+    /**
+     * Returns a new generator that has not been seeded yet.
+     */
+    @Impure
+    private static @Nonnull SecureRandom createGenerator() {
+        try {
+            return SecureRandom.getInstance(ALGORITHM);
+        } catch (@Nonnull NoSuchAlgorithmException exception) {
+            throw SupportErrorBuilder.withMessage("The random number generator '" + ALGORITHM + "' is not supported on this platform.").withCause(exception).build();
+        }
+    }
+    
+    /**
+     * Returns fresh seed material from the entropy source of the platform.
+     */
+    @Impure
+    private static @Nonnull byte[] getSeed() {
+        final @Nonnull byte[] seed = new byte[SEED_LENGTH.get()];
+        entropy.nextBytes(seed);
+        return seed;
+    }
+    
+    /* -------------------------------------------------- Generators -------------------------------------------------- */
+    
+    /**
+     * A generator counts the bytes requested from it as draws in order to be reseeded periodically.
+     * All other methods of {@link SecureRandom} that return random values go through {@link #nextBytes(byte[])}.
+     */
+    private static final class Generator extends SecureRandom {
+        
+        /**
+         * Stores the actual generator, which is null only while the superclass is being constructed.
+         */
+        private final @Nullable SecureRandom random;
+        
+        private int draws = 0;
+        
+        private int reseeds = 0;
+        
+        private Generator() {
+            super((SecureRandomSpi) null, null);
+            
+            this.random = createGenerator();
+            random.setSeed(getSeed());
+        }
+        
+        @Impure
+        @Override
+        public void nextBytes(@Nonnull byte[] bytes) {
+            assert random != null : "The generator has been constructed.";
+            
+            if (draws >= RESEED_INTERVAL.get()) {
+                // The seed supplements rather than replaces the current state of the generator.
+                random.setSeed(getSeed());
+                draws = 0;
+                reseeds++;
+            }
+            draws++;
+            random.nextBytes(bytes);
+        }
+        
+        @Impure
+        @Override
+        public void setSeed(@Nonnull byte[] seed) {
+            if (random != null) { random.setSeed(seed); }
+        }
+        
+        @Impure
+        @Override
+        public void setSeed(long seed) {
+            if (random != null) { random.setSeed(seed); }
+        }
+        
+        @Impure
+        @Override
+        public @Nonnull byte[] generateSeed(int numBytes) {
+            assert random != null : "The generator has been constructed.";
+            
+            return random.generateSeed(numBytes);
+        }
+        
+        @Pure
+        @Override
+        public @Nonnull String getAlgorithm() {
+            return ALGORITHM;
+        }
+        
+    }
+    
+    /**
+     * Stores the generator of each thread.
+     */
+    private static final @Nonnull ThreadLocal<@Nonnull Generator> generators = ThreadLocal.withInitial(Generator::new);
+    
+    /* -------------------------------------------------- Deterministic Mode -------------------------------------------------- */
+    
+    /**
+     * Stores the generator that is shared by all threads in the deterministic mode or null otherwise.
+     */
+    private static volatile @Nullable SecureRandom deterministic = null;
+    
+    /**
+     * Switches all threads to a single generator with the given seed so that the drawn values are reproducible.
+     * This mode must only be used for testing.
+     */
+    @Impure
+    public static void useDeterministicSeed(long seed) {
+        final @Nonnull SecureRandom random = createGenerator();
+        random.setSeed(seed);
+        deterministic = random;
+    }
+    
+    /**
+     * Switches all threads back to their own generators, which are seeded from the entropy source.
+     */
+    @Impure
+    public static void useEntropySeeds() {
+        deterministic = null;
+    }
+    
+    /**
+     * Returns whether the deterministic mode is active.
+     */
+    @Pure
+    public static boolean isDeterministic() {
+        return deterministic != null;
+    }
+    
+    /* -------------------------------------------------- Retrieval -------------------------------------------------- */
+    
+    /**
+     * Returns the generator of the current thread, which must not be shared with other threads.
+     */
+    @Impure
+    public static @Nonnull SecureRandom get() {
+        final @Nullable SecureRandom random = deterministic;
+        return random != null ? random : generators.get();
+    }
+    
+    /**
+     * Returns the generator of the current thread, which is seeded from the entropy source even in the deterministic mode.
+     * Background computations use this generator so that the values drawn in the deterministic mode do not depend on their scheduling.
+     */
+    @Impure
+    public static @Nonnull SecureRandom getIndependent() {
+        return generators.get();
+    }
+    
+    /**
+     * Returns how many times the generator of the current thread has been reseeded.
+     */
+    @Pure
+    static int getReseeds() {
+        return generators.get().reseeds;
+    }
+    
+}
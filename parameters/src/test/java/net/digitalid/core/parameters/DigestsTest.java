@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.core.parameters;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.functional.interfaces.Producer;
+import net.digitalid.utility.testing.UtilityTest;
+
+import org.junit.Test;
+
+public class DigestsTest extends UtilityTest {
+    
+    private static final @Nonnull byte[] BYTES = "This is a message.".getBytes(StandardCharsets.UTF_8);
+    
+    @Test
+    public void testDigest() {
+        assertThat(Digests.digest(BYTES)).isEqualTo(Parameters.HASH_FUNCTION.get().produce().digest(BYTES));
+        assertThat(Digests.digest(BYTES, 5, 2)).isEqualTo(Parameters.HASH_FUNCTION.get().produce().digest("is".getBytes(StandardCharsets.UTF_8)));
+    }
+    
+    @Test
+    public void testReuse() {
+        final @Nonnull MessageDigest first = Digests.acquire();
+        first.update(BYTES);
+        Digests.release(first);
+        final @Nonnull MessageDigest second = Digests.acquire();
+        assertThat(second).isSameAs(first);
+        assertThat(second.digest()).isEqualTo(Parameters.HASH_FUNCTION.get().produce().digest());
+        Digests.release(second);
+    }
+    
+    @Test
+    public void testNesting() {
+        final @Nonnull MessageDigest outer = Digests.acquire();
+        final @Nonnull MessageDigest inner = Digests.acquire();
+        assertThat(inner).isNotSameAs(outer);
+        Digests.release(inner);
+        Digests.release(outer);
+    }
+    
+    @Test
+    public void testReconfiguration() {
+        final @Nonnull MessageDigest digest = Digests.acquire();
+        Digests.release(digest);
+        final @Nonnull Producer<MessageDigest> producer = Parameters.HASH_FUNCTION.get();
+        try {
+            Parameters.HASH_FUNCTION.set(() -> producer.produce());
+            assertThat(Digests.acquire()).isNotSameAs(digest);
+        } finally {
+            Parameters.HASH_FUNCTION.set(producer);
+        }
+    }
+    
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.core.parameters;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.testing.UtilityTest;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class RandomnessTest extends UtilityTest {
+    
+    @Impure
+    @After
+    public void resetRandomness() {
+        Randomness.useEntropySeeds();
+    }
+    
+    @Test
+    public void testDeterministicSeed() {
+        Randomness.useDeterministicSeed(42);
+        final @Nonnull BigInteger first = new BigInteger(256, Randomness.get());
+        Randomness.useDeterministicSeed(42);
+        final @Nonnull BigInteger second = new BigInteger(256, Randomness.get());
+        assertThat(Randomness.isDeterministic()).isTrue();
+        assertThat(second).isEqualTo(first);
+    }
+    
+    @Test
+    public void testEntropySeeds() {
+        assertThat(Randomness.isDeterministic()).isFalse();
+        assertThat(new BigInteger(256, Randomness.get())).isNotEqualTo(new BigInteger(256, Randomness.get()));
+    }
+    
+    @Test
+    public void testReseeding() throws InterruptedException {
+        final int interval = Randomness.RESEED_INTERVAL.get();
+        final @Nonnull AtomicInteger reseeds = new AtomicInteger(-1);
+        try {
+            Randomness.RESEED_INTERVAL.set(4);
+            // A new thread starts with a new generator, whose draws have not been counted yet.
+            final @Nonnull Thread thread = new Thread(() -> {
+                final @Nonnull SecureRandom random = Randomness.get();
+                for (int i = 0; i < 12; i++) {
+                    if (i % 2 == 0) { random.nextBytes(new byte[8]); } else { random.nextInt(); }
+                }
+                reseeds.set(Randomness.getReseeds());
+            });
+            thread.start();
+            thread.join();
+        } finally {
+            Randomness.RESEED_INTERVAL.set(interval);
+        }
+        // The generator is reseeded before the fifth and the ninth draw.
+        assertThat(reseeds.get()).isEqualTo(2);
+    }
+    
+}
@@ -15,30 +15,65 @@
  */
 package net.digitalid.core.resolution;
 
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
+import net.digitalid.utility.annotations.method.Impure;
 import net.digitalid.utility.annotations.method.PureWithSideEffects;
-import net.digitalid.utility.collaboration.annotations.TODO;
-import net.digitalid.utility.collaboration.enumerations.Author;
+import net.digitalid.utility.collections.list.FreezableArrayList;
+import net.digitalid.utility.collections.list.FreezableList;
+import net.digitalid.utility.concurrency.map.ConcurrentHashMapBuilder;
+import net.digitalid.utility.concurrency.map.ConcurrentMap;
+import net.digitalid.utility.configuration.Configuration;
 import net.digitalid.utility.conversion.converters.Integer64Converter;
 import net.digitalid.utility.conversion.exceptions.RecoveryException;
 import net.digitalid.utility.exceptions.CaseExceptionBuilder;
 import net.digitalid.utility.exceptions.ExternalException;
 import net.digitalid.utility.generator.annotations.generators.GenerateSubclass;
+import net.digitalid.utility.immutable.ImmutableList;
 import net.digitalid.utility.initialization.annotations.Initialize;
 import net.digitalid.utility.logging.Log;
+import net.digitalid.utility.time.Time;
+import net.digitalid.utility.time.TimeBuilder;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
+import net.digitalid.utility.validation.annotations.math.Positive;
 import net.digitalid.utility.validation.annotations.type.Immutable;
 
+import net.digitalid.database.annotations.transaction.Committing;
 import net.digitalid.database.annotations.transaction.NonCommitting;
 import net.digitalid.database.conversion.SQL;
 import net.digitalid.database.conversion.WhereCondition;
 import net.digitalid.database.conversion.WhereConditionBuilder;
+import net.digitalid.database.dialect.identifier.column.SQLColumnNameBuilder;
+import net.digitalid.database.dialect.identifier.schema.SQLSchemaNameBuilder;
+import net.digitalid.database.dialect.identifier.table.SQLExplicitlyQualifiedTableBuilder;
+import net.digitalid.database.dialect.identifier.table.SQLQualifiedTable;
+import net.digitalid.database.dialect.identifier.table.SQLTableNameBuilder;
+import net.digitalid.database.dialect.statement.select.unordered.simple.SQLSimpleSelectStatement;
+import net.digitalid.database.dialect.statement.select.unordered.simple.SQLSimpleSelectStatementBuilder;
+import net.digitalid.database.dialect.statement.select.unordered.simple.columns.SQLResultColumn;
+import net.digitalid.database.dialect.statement.select.unordered.simple.columns.SQLResultColumnBuilder;
+import net.digitalid.database.dialect.statement.select.unordered.simple.sources.SQLTableSource;
+import net.digitalid.database.dialect.statement.select.unordered.simple.sources.SQLTableSourceBuilder;
 import net.digitalid.database.exceptions.DatabaseException;
+import net.digitalid.database.interfaces.Database;
+import net.digitalid.database.interfaces.SQLDecoder;
 
 import net.digitalid.core.exceptions.request.RequestErrorCode;
+import net.digitalid.core.exceptions.request.RequestException;
 import net.digitalid.core.exceptions.request.RequestExceptionBuilder;
 import net.digitalid.core.host.Host;
 import net.digitalid.core.identification.identifier.EmailIdentifier;
@@ -48,9 +83,14 @@ import net.digitalid.core.identification.identifier.IdentifierConverter;
 import net.digitalid.core.identification.identifier.InternalNonHostIdentifier;
 import net.digitalid.core.identification.identifier.MobileIdentifier;
 import net.digitalid.core.identification.identity.Category;
+import net.digitalid.core.identification.identity.CategoryConverter;
 import net.digitalid.core.identification.identity.IdentifierResolver;
 import net.digitalid.core.identification.identity.Identity;
 import net.digitalid.core.identification.identity.Type;
+import net.digitalid.core.parameters.BoundedExecutor;
+import net.digitalid.core.resolution.handlers.IdentitiesQuery;
+import net.digitalid.core.resolution.handlers.IdentitiesQueryBuilder;
+import net.digitalid.core.resolution.handlers.IdentitiesReplyConverter;
 import net.digitalid.core.resolution.handlers.IdentityQuery;
 import net.digitalid.core.resolution.handlers.IdentityQueryBuilder;
 import net.digitalid.core.resolution.handlers.IdentityReply;
@@ -62,6 +102,7 @@ import net.digitalid.core.resolution.tables.IdentityEntry;
 import net.digitalid.core.resolution.tables.IdentityEntryBuilder;
 import net.digitalid.core.resolution.tables.IdentityEntryConverter;
 import net.digitalid.core.unit.GeneralUnit;
+import net.digitalid.core.unit.key.KeyAllocator;
 
 /**
  * This class implements the {@link IdentifierResolver}.
@@ -76,7 +117,7 @@ public abstract class IdentifierResolverImplementation extends IdentifierResolve
      * Initializes the identifier resolver.
      */
     @PureWithSideEffects
-    @Initialize(target = IdentifierResolver.class, dependencies = GeneralUnit.class)
+    @Initialize(target = IdentifierResolver.class, dependencies = {GeneralUnit.class, KeyAllocator.class})
     public static void initializeIdentifierResolver() throws DatabaseException {
         SQL.createTable(IdentityEntryConverter.INSTANCE, GeneralUnit.INSTANCE);
         SQL.createTable(IdentifierEntryConverter.INSTANCE, GeneralUnit.INSTANCE);
@@ -87,6 +128,85 @@ public abstract class IdentifierResolverImplementation extends IdentifierResolve
     
     private final @Nonnull Mapper mapper = new MapperSubclass();
     
+    /* -------------------------------------------------- Warm-Up -------------------------------------------------- */
+    
+    /**
+     * Stores whether the mapper is warmed up with the identities from the database when the server starts.
+     */
+    public static final @Nonnull Configuration<Boolean> warmUp = Configuration.with(false);
+    
+    /**
+     * Stores the maximal number of identities that are neither hosts nor types and loaded during the warm-up.
+     * The number of such identities is additionally bounded by the {@link Mapper#capacity capacity} of the mapper.
+     */
+    public static final @Nonnull Configuration<@Positive Integer> warmUpLimit = Configuration.with(Integer.MAX_VALUE);
+    
+    /**
+     * Stores the number of identities that are decoded before they are added to the mapper at once.
+     */
+    public static final @Nonnull Configuration<@Positive Integer> warmUpBatchSize = Configuration.with(1_000);
+    
+    private static final @Nonnull SQLQualifiedTable identityTable = SQLExplicitlyQualifiedTableBuilder.withTable(SQLTableNameBuilder.withString(IdentityEntryConverter.INSTANCE.getTypeName()).build()).withSchema(SQLSchemaNameBuilder.withString(GeneralUnit.INSTANCE.getName()).build()).build();
+    
+    /**
+     * Streams the identity table into the mapper in batches and returns the number of identities that were added to the mapper.
+     * Host identities and types are always loaded, whereas the other identities are only loaded up to the configured limit.
+     */
+    @NonCommitting
+    @PureWithSideEffects
+    public @NonNegative int warmUp() throws DatabaseException, RecoveryException {
+        final int limit = Math.min(warmUpLimit.get(), Mapper.capacity.get());
+        
+        final @Nonnull SQLResultColumn keyColumn = SQLResultColumnBuilder.withExpression(SQLColumnNameBuilder.withString("key").build()).build();
+        final @Nonnull SQLResultColumn categoryColumn = SQLResultColumnBuilder.withExpression(SQLColumnNameBuilder.withString("category_value").build()).build();
+        final @Nonnull SQLResultColumn addressColumn = SQLResultColumnBuilder.withExpression(SQLColumnNameBuilder.withString("address_string").build()).build();
+        final @Nonnull ImmutableList<@Nonnull SQLTableSource> sources = ImmutableList.withElements(SQLTableSourceBuilder.withSource(identityTable).build());
+        final @Nonnull SQLSimpleSelectStatement selectStatement = SQLSimpleSelectStatementBuilder.withColumns(ImmutableList.withElements(keyColumn, categoryColumn, addressColumn)).withSources(sources).build();
+        final @Nonnull SQLDecoder decoder = Database.instance.get().getEncoder(selectStatement, GeneralUnit.INSTANCE).execute();
+        
+        final @Nonnull List<@Nonnull Identity> batch = new ArrayList<>(warmUpBatchSize.get());
+        int others = 0;
+        int loaded = 0;
+        while (decoder.moveToNextRow()) {
+            final long key = decoder.decodeInteger64();
+            final @Nonnull Category category = CategoryConverter.INSTANCE.recover(decoder, null);
+            final @Nonnull Identifier address = IdentifierConverter.INSTANCE.recover(decoder, null);
+            if (category != Category.HOST && !category.isType()) {
+                if (others >= limit) { continue; }
+                others++;
+            }
+            batch.add(createIdentity(category, key, address));
+            if (batch.size() >= warmUpBatchSize.get()) {
+                loaded += mapper.mapIfAbsent(batch);
+                batch.clear();
+            }
+        }
+        loaded += mapper.mapIfAbsent(batch);
+        return loaded;
+    }
+    
+    /**
+     * Warms up the mapper of the configured identifier resolver if the warm-up is activated and logs how long it took.
+     * Since the warm-up is only an optimization, its failure is logged instead of propagated.
+     */
+    @Committing
+    @PureWithSideEffects
+    public static void warmUpMapper() {
+        if (!warmUp.get()) { return; }
+        final @Nonnull IdentifierResolver resolver = IdentifierResolver.configuration.get();
+        if (!(resolver instanceof IdentifierResolverImplementation)) { return; }
+        
+        final @Nonnull Time start = TimeBuilder.build();
+        try {
+            final int loaded = ((IdentifierResolverImplementation) resolver).warmUp();
+            Database.commit();
+            Log.information("Warmed up the identity mapper with $ identities in $ ms.", loaded, TimeBuilder.build().subtract(start).getValue());
+        } catch (@Nonnull DatabaseException | RecoveryException exception) {
+            Database.rollback();
+            Log.warning("Could not warm up the identity mapper.", exception);
+        }
+    }
+    
     /* -------------------------------------------------- Key Loading -------------------------------------------------- */
     
     @Override
@@ -121,12 +241,16 @@ public abstract class IdentifierResolverImplementation extends IdentifierResolve
     
     /* -------------------------------------------------- Identfier Mapping -------------------------------------------------- */
     
+    /**
+     * The name of the sequence from which the keys of identities are allocated.
+     */
+    public static final @Nonnull String SEQUENCE = "identity";
+    
     @Override
     @NonCommitting
     @PureWithSideEffects
-    @TODO(task = "Instead of a random key, we could/should use an auto-incrementing column in the database.", date = "2017-02-26", author = Author.KASPAR_ETTER)
     public @Nonnull Identity map(@Nonnull Category category, @Nonnull Identifier address) throws DatabaseException {
-        final long key = Math.abs(ThreadLocalRandom.current().nextLong());
+        final long key = KeyAllocator.allocate(SEQUENCE);
         
         final @Nonnull IdentityEntry identityEntry = IdentityEntryBuilder.withKey(key).withCategory(category).withAddress(address).build();
         final @Nonnull IdentifierEntry identifierEntry = IdentifierEntryBuilder.withIdentifier(address).withKey(key).build();
@@ -138,12 +262,135 @@ public abstract class IdentifierResolverImplementation extends IdentifierResolve
         return identity;
     }
     
+    /* -------------------------------------------------- Executor -------------------------------------------------- */
+    
+    /**
+     * Stores the number of threads that resolve identifiers in separate transactions, which also send the batches of identifiers to different hosts in parallel.
+     */
+    public static final @Nonnull Configuration<@Positive Integer> threads = Configuration.with(4);
+    
+    private static final @Nonnull BoundedExecutor executor = BoundedExecutor.with("IdentifierResolver", threads);
+    
+    /**
+     * Stops the threads that resolve identifiers.
+     */
+    @Impure
+    public static void shutDown() {
+        executor.shutDown();
+    }
+    
+    /**
+     * Stores whether the current thread resolves identifiers on the executor.
+     */
+    private static final @Nonnull ThreadLocal<@Nonnull Boolean> resolving = ThreadLocal.withInitial(() -> false);
+    
+    /**
+     * Computes the given callable in a separate transaction on the executor, which is committed before the returned future completes.
+     * Identifiers that are resolved while the callable is computed are resolved directly so that the executor never waits for itself.
+     */
+    @Impure
+    private static <RESULT> @Nonnull CompletableFuture<RESULT> computeSeparately(@Nonnull Callable<RESULT> callable) {
+        return executor.compute(() -> {
+            resolving.set(true);
+            try {
+                return callable.call();
+            } finally {
+                resolving.set(false);
+            }
+        });
+    }
+    
+    /* -------------------------------------------------- Flights -------------------------------------------------- */
+    
+    /**
+     * Stores whether concurrent resolutions of the same identifier are coalesced.
+     */
+    public static final @Nonnull Configuration<Boolean> coalescing = Configuration.with(true);
+    
+    /**
+     * Stores the number of milliseconds after which a caller stops waiting for the resolution of an identifier and fails.
+     */
+    public static final @Nonnull Configuration<@Positive Integer> timeout = Configuration.with(10_000);
+    
+    /**
+     * Stores the resolutions that are currently in progress, which are called flights.
+     * A flight is completed and removed as soon as the transaction on the executor in which it was resolved has been committed or rolled back.
+     */
+    private final @Nonnull ConcurrentMap<@Nonnull Identifier, @Nonnull CompletableFuture<@Nonnull Identity>> flights = ConcurrentHashMapBuilder.build();
+    
+    /**
+     * Lands the given flight of the given identifier with the outcome of the given resolution.
+     */
+    @Impure
+    private void land(@Nonnull Identifier identifier, @Nonnull CompletableFuture<@Nonnull Identity> flight, @Nullable Identity identity, @Nullable Throwable throwable) {
+        flights.remove(identifier, flight);
+        if (throwable != null) { flight.completeExceptionally(throwable); }
+        else if (identity != null) { flight.complete(identity); }
+        else { flight.completeExceptionally(RequestExceptionBuilder.withCode(RequestErrorCode.IDENTITY).withMessage("The identifier '" + identifier.getString() + "' does not exist.").build()); }
+    }
+    
+    /**
+     * Waits for the given flight and returns its identity.
+     * 
+     * @throws RequestException with the code {@link RequestErrorCode#EXTERNAL} if the flight did not land in time.
+     */
+    @Impure
+    private @Nonnull Identity await(@Nonnull Identifier identifier, @Nonnull CompletableFuture<@Nonnull Identity> flight) throws ExternalException {
+        try {
+            final @Nonnull Identity identity = flight.get(timeout.get(), TimeUnit.MILLISECONDS);
+            if (identity instanceof Type) { ((Type) identity).ensureLoaded(); }
+            return identity;
+        } catch (@Nonnull ExecutionException exception) {
+            final @Nullable Throwable cause = exception.getCause();
+            if (cause instanceof ExternalException) { throw (ExternalException) cause; }
+            if (cause instanceof RuntimeException) { throw (RuntimeException) cause; }
+            if (cause instanceof Error) { throw (Error) cause; }
+            throw new CompletionException(cause);
+        } catch (@Nonnull TimeoutException exception) {
+            // The flight is left in place so that the identifier is not mapped a second time while the resolution is still in progress.
+            throw RequestExceptionBuilder.withCode(RequestErrorCode.EXTERNAL).withMessage("The resolution of the identifier '" + identifier.getString() + "' did not complete within " + timeout.get() + " ms.").build();
+        } catch (@Nonnull InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(exception);
+        }
+    }
+    
     /* -------------------------------------------------- Identifier Resolution -------------------------------------------------- */
     
+    /**
+     * Resolves the given identifier unless the same identifier is already being resolved, in which case the ongoing resolution is awaited.
+     * An identifier that is not yet mapped is resolved in a separate transaction on the executor, which is committed before the identity
+     * is returned to any caller. Consequently, no caller refers to an uncommitted key, no caller waits for the transaction of another caller,
+     * and a rollback of the calling transaction neither loses the mapping nor leaves a flight behind that never lands.
+     * <p>
+     * As a limitation, a caller whose transaction holds write locks on the identity or identifier tables should not resolve unmapped identifiers,
+     * since the separate transaction waits for these locks and the caller fails with {@link RequestErrorCode#EXTERNAL} after the {@link #timeout}.
+     * Such a caller has to resolve the identifiers before writing to these tables or to deactivate the {@link #coalescing}.
+     */
     @Override
     @NonCommitting
     @PureWithSideEffects
     public @Nonnull Identity resolve(@Nonnull Identifier identifier) throws ExternalException {
+        final @Nullable Identity mappedIdentity = mapper.getIdentity(identifier);
+        if (mappedIdentity != null || !coalescing.get() || resolving.get()) { return resolveWithoutCoalescing(identifier); }
+        
+        final @Nonnull CompletableFuture<@Nonnull Identity> flight = new CompletableFuture<>();
+        final @Nullable CompletableFuture<@Nonnull Identity> ongoingFlight = flights.putIfAbsent(identifier, flight);
+        if (ongoingFlight != null) {
+            Log.verbose("Waiting for the ongoing resolution of the identifier $.", identifier.getString());
+            return await(identifier, ongoingFlight);
+        }
+        
+        computeSeparately(() -> resolveWithoutCoalescing(identifier)).whenComplete((identity, throwable) -> land(identifier, flight, identity, throwable));
+        return await(identifier, flight);
+    }
+    
+    /**
+     * Resolves the given identifier by loading it from the database or, if it is not found, by querying and mapping it.
+     */
+    @NonCommitting
+    @PureWithSideEffects
+    private @Nonnull Identity resolveWithoutCoalescing(@Nonnull Identifier identifier) throws ExternalException {
         Log.verbose("Resolving the identifier $.", identifier.getString());
         @Nullable Identity identity = load(identifier);
         if (identity == null) {
@@ -159,10 +406,19 @@ public abstract class IdentifierResolverImplementation extends IdentifierResolve
                 } else if (hostIdentifier.equals(HostIdentifier.DIGITALID)) {
                     Log.verbose("The identifier $ is mapped as a semantic type without querying.", identifier.getString());
                     identity = map(Category.SEMANTIC_TYPE, identifier);
+                } else if (mapper.isNonexistent(identifier)) {
+                    Log.verbose("The identifier $ was recently found not to exist and is therefore not queried.", identifier.getString());
+                    throw RequestExceptionBuilder.withCode(RequestErrorCode.IDENTITY).withMessage("The identifier '" + identifier.getString() + "' does not exist.").build();
                 } else {
                     Log.verbose("Querying the identifier $.", identifier.getString());
                     final @Nonnull IdentityQuery query = IdentityQueryBuilder.withProvidedSubject(internalNonHostIdentifier).build();
-                    final @Nonnull IdentityReply reply = query.send(IdentityReplyConverter.INSTANCE);
+                    final @Nonnull IdentityReply reply;
+                    try {
+                        reply = query.send(IdentityReplyConverter.INSTANCE);
+                    } catch (@Nonnull RequestException exception) {
+                        if (exception.getCode() == RequestErrorCode.IDENTITY) { mapper.mapNonexistent(identifier); }
+                        throw exception;
+                    }
                     identity = map(reply.getCategory(), identifier);
                 }
             } else if (identifier instanceof EmailIdentifier) {
@@ -177,4 +433,134 @@ public abstract class IdentifierResolverImplementation extends IdentifierResolve
         return identity;
     }
     
+    /* -------------------------------------------------- Batch Resolution -------------------------------------------------- */
+    
+    /**
+     * Stores whether the identifiers that are resolved together are queried in batches per host.
+     */
+    public static final @Nonnull Configuration<Boolean> batching = Configuration.with(true);
+    
+    /**
+     * Stores the maximal number of identifiers that are queried with a single request,
+     * which is additionally bounded by the {@link IdentitiesQuery#MAXIMUM_IDENTIFIERS maximum} that hosts accept.
+     */
+    public static final @Nonnull Configuration<@Positive Integer> batchSize = Configuration.with(64);
+    
+    /**
+     * Queries the given batch of identifiers, which are all hosted on the same host, and maps the identifiers that exist.
+     * If the host fails to process the batch, the identifiers of the batch are queried individually instead.
+     * 
+     * @return the identities of the given identifiers that exist.
+     */
+    @NonCommitting
+    @PureWithSideEffects
+    private @Nonnull Map<@Nonnull Identifier, @Nonnull Identity> resolveBatch(@Nonnull FreezableList<@Nonnull InternalNonHostIdentifier> batch) throws ExternalException {
+        final @Nonnull String host = batch.getFirst().getHostIdentifier().getString();
+        Log.verbose("Querying $ identifiers on the host $.", batch.size(), host);
+        @Nullable FreezableList<Category> categories;
+        try {
+            // The subject only addresses the host, which executes the query on its own account so that the subject does not need to exist.
+            categories = IdentitiesQueryBuilder.withIdentifiers(batch).withProvidedSubject(batch.getFirst()).build().send(IdentitiesReplyConverter.INSTANCE).getCategories();
+        } catch (@Nonnull RequestException exception) {
+            Log.warning("The host $ could not process a batch of identifiers, which are therefore queried individually.", exception, host);
+            categories = null;
+        }
+        if (categories != null && categories.size() != batch.size()) {
+            Log.warning("The host $ replied $ categories for $ identifiers, which are therefore queried individually.", host, categories.size(), batch.size());
+            categories = null;
+        }
+        
+        final @Nonnull Map<@Nonnull Identifier, @Nonnull Identity> identities = new HashMap<>();
+        for (int j = 0; j < batch.size(); j++) {
+            final @Nonnull InternalNonHostIdentifier identifier = batch.get(j);
+            if (categories == null) {
+                try {
+                    identities.put(identifier, resolveWithoutCoalescing(identifier));
+                } catch (@Nonnull RequestException exception) {
+                    if (exception.getCode() != RequestErrorCode.IDENTITY) { throw exception; }
+                }
+            } else {
+                final @Nullable Category category = categories.get(j);
+                if (category == null) {
+                    mapper.mapNonexistent(identifier);
+                } else {
+                    @Nullable Identity identity = load(identifier);
+                    if (identity == null) { identity = map(category, identifier); }
+                    identities.put(identifier, identity);
+                }
+            }
+        }
+        return identities;
+    }
+    
+    /**
+     * Resolves the given identifiers by querying the identifiers that are neither in the database nor handled locally
+     * in batches per host and by resolving the remaining identifiers individually afterwards. As for individual resolutions,
+     * each batch is queried and mapped in a separate transaction on the executor so that the batches of different hosts
+     * are resolved in parallel. The identifiers of a batch are claimed with a flight so that concurrent resolutions wait for them.
+     * The same limitation as for {@link #resolve(Identifier) individual resolutions} applies to
+     * callers whose transaction holds write locks on the identity or identifier tables.
+     * 
+     * @throws RequestException with the code {@link RequestErrorCode#IDENTITY} if one of the given identifiers does not exist,
+     *                          after the identifiers that exist have been mapped.
+     */
+    @Override
+    @NonCommitting
+    @PureWithSideEffects
+    public @Nonnull Map<@Nonnull Identifier, @Nonnull Identity> resolve(@Nonnull Collection<? extends @Nonnull Identifier> identifiers) throws ExternalException {
+        if (!batching.get() || !coalescing.get() || resolving.get()) { return super.resolve(identifiers); }
+        
+        final @Nonnull Map<@Nonnull Identifier, @Nonnull CompletableFuture<@Nonnull Identity>> claimedFlights = new HashMap<>();
+        final @Nonnull Map<@Nonnull HostIdentifier, @Nonnull FreezableList<@Nonnull InternalNonHostIdentifier>> openBatches = new HashMap<>();
+        final @Nonnull List<@Nonnull FreezableList<@Nonnull InternalNonHostIdentifier>> batches = new ArrayList<>();
+        try {
+            for (@Nonnull Identifier identifier : identifiers) {
+                if (claimedFlights.containsKey(identifier) || !(identifier instanceof InternalNonHostIdentifier) || load(identifier) != null) { continue; }
+                final @Nonnull HostIdentifier hostIdentifier = ((InternalNonHostIdentifier) identifier).getHostIdentifier();
+                if (Host.exists(hostIdentifier) || hostIdentifier.equals(HostIdentifier.DIGITALID) || mapper.isNonexistent(identifier)) { continue; }
+                
+                final @Nonnull CompletableFuture<@Nonnull Identity> flight = new CompletableFuture<>();
+                if (flights.putIfAbsent(identifier, flight) != null) { continue; }
+                claimedFlights.put(identifier, flight);
+                
+                @Nullable FreezableList<@Nonnull InternalNonHostIdentifier> batch = openBatches.get(hostIdentifier);
+                if (batch == null || batch.size() >= Math.min(batchSize.get(), IdentitiesQuery.MAXIMUM_IDENTIFIERS)) {
+                    batch = FreezableArrayList.withNoElements();
+                    openBatches.put(hostIdentifier, batch);
+                    batches.add(batch);
+                }
+                batch.add((InternalNonHostIdentifier) identifier);
+            }
+        } catch (@Nonnull ExternalException | RuntimeException | Error exception) {
+            for (@Nonnull Map.Entry<@Nonnull Identifier, @Nonnull CompletableFuture<@Nonnull Identity>> entry : claimedFlights.entrySet()) {
+                land(entry.getKey(), entry.getValue(), null, exception);
+            }
+            throw exception;
+        }
+        
+        final @Nonnull List<@Nonnull CompletableFuture<@Nonnull Map<@Nonnull Identifier, @Nonnull Identity>>> futures = new ArrayList<>(batches.size());
+        for (@Nonnull FreezableList<@Nonnull InternalNonHostIdentifier> batch : batches) {
+            futures.add(computeSeparately(() -> resolveBatch(batch)).whenComplete((identities, throwable) -> {
+                for (@Nonnull InternalNonHostIdentifier identifier : batch) {
+                    land(identifier, claimedFlights.get(identifier), identities != null ? identities.get(identifier) : null, throwable);
+                }
+            }));
+        }
+        
+        final @Nonnull Map<@Nonnull Identifier, @Nonnull Identity> resolvedIdentities = new HashMap<>();
+        for (@Nonnull CompletableFuture<@Nonnull Map<@Nonnull Identifier, @Nonnull Identity>> future : futures) {
+            resolvedIdentities.putAll(BoundedExecutor.join(future));
+        }
+        
+        // The remaining identifiers are resolved individually, which fails for the identifiers that were found not to exist.
+        final @Nonnull Map<@Nonnull Identifier, @Nonnull Identity> identities = new LinkedHashMap<>();
+        for (@Nonnull Identifier identifier : identifiers) {
+            if (identities.containsKey(identifier)) { continue; }
+            final @Nullable Identity identity = resolvedIdentities.get(identifier);
+            if (identity instanceof Type) { ((Type) identity).ensureLoaded(); }
+            identities.put(identifier, identity != null ? identity : resolve(identifier));
+        }
+        return identities;
+    }
+    
 }
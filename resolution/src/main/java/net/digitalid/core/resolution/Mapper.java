@@ -15,6 +15,9 @@
  */
 package net.digitalid.core.resolution;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -23,33 +26,98 @@ import javax.annotation.Nullable;
 
 import net.digitalid.utility.annotations.method.Impure;
 import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.configuration.Configuration;
 import net.digitalid.utility.generator.annotations.generators.GenerateSubclass;
 import net.digitalid.utility.logging.Log;
+import net.digitalid.utility.time.Time;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
+import net.digitalid.utility.validation.annotations.math.Positive;
 import net.digitalid.utility.validation.annotations.type.Mutable;
 
 import net.digitalid.database.interfaces.Database;
 
 import net.digitalid.core.identification.identifier.Identifier;
+import net.digitalid.core.identification.identity.Category;
 import net.digitalid.core.identification.identity.Identity;
 
 /**
  * This class caches identities in {@link Map maps}.
+ * Host identities and types are pinned, whereas all other identities are evicted in least-recently-used order
+ * as soon as the {@link #capacity} is exceeded. Identifiers that do not exist are remembered for a short time.
  */
 @Mutable
 @GenerateSubclass
 public abstract class Mapper {
     
+    /* -------------------------------------------------- Configuration -------------------------------------------------- */
+    
+    /**
+     * Stores the maximal number of identities that are cached without being pinned.
+     */
+    public static final @Nonnull Configuration<@Positive Integer> capacity = Configuration.with(16_384);
+    
+    /**
+     * Stores the maximal number of identifiers that are remembered not to exist.
+     */
+    public static final @Nonnull Configuration<@Positive Integer> negativeCapacity = Configuration.with(1_024);
+    
+    /**
+     * Stores how long an identifier is remembered not to exist.
+     */
+    public static final @Nonnull Configuration<Time> negativeExpiration = Configuration.with(Time.MINUTE);
+    
     /* -------------------------------------------------- Maps -------------------------------------------------- */
     
+    /**
+     * Returns a synchronized map that evicts its least recently used entry as soon as it contains more entries than the given capacity.
+     */
+    @Pure
+    private static <K, V> @Nonnull Map<K, V> createBoundedMap(@Nonnull Configuration<@Positive Integer> capacity) {
+        return Collections.synchronizedMap(new LinkedHashMap<K, V>(16, 0.75f, true) {
+            
+            @Pure
+            @Override
+            protected boolean removeEldestEntry(@Nonnull Map.Entry<K, V> eldest) {
+                return size() > capacity.get();
+            }
+            
+        });
+    }
+    
+    /**
+     * Returns whether the given identity is pinned and thus never evicted.
+     * Host identities are needed for every request to their host and types are referenced by constants and have to stay loaded.
+     */
+    @Pure
+    private static boolean isPinned(@Nonnull Identity identity) {
+        final @Nonnull Category category = identity.getCategory();
+        return category == Category.HOST || category.isType();
+    }
+    
+    /**
+     * Maps numbers onto the pinned identities.
+     */
+    private final @Nonnull Map<@Nonnull Long, @Nonnull Identity> pinnedKeys = new ConcurrentHashMap<>();
+    
+    /**
+     * Maps identifiers onto the pinned identities.
+     */
+    private final @Nonnull Map<@Nonnull Identifier, @Nonnull Identity> pinnedIdentifiers = new ConcurrentHashMap<>();
+    
     /**
      * Maps numbers onto identities by caching the corresponding entries from the database.
      */
-    private final @Nonnull Map<@Nonnull Long, @Nonnull Identity> keys = new ConcurrentHashMap<>();
+    private final @Nonnull Map<@Nonnull Long, @Nonnull Identity> keys = createBoundedMap(capacity);
     
     /**
      * Maps identifiers onto identities by caching the corresponding entries from the database.
      */
-    private final @Nonnull Map<@Nonnull Identifier, @Nonnull Identity> identifiers = new ConcurrentHashMap<>();
+    private final @Nonnull Map<@Nonnull Identifier, @Nonnull Identity> identifiers = createBoundedMap(capacity);
+    
+    /**
+     * Maps the identifiers that do not exist onto the time when this information expires.
+     */
+    private final @Nonnull Map<@Nonnull Identifier, @Nonnull Time> nonexistent = createBoundedMap(negativeCapacity);
     
     /* -------------------------------------------------- Retrievals -------------------------------------------------- */
     
@@ -58,7 +126,8 @@ public abstract class Mapper {
      */
     @Pure
     public @Nullable Identity getIdentity(long key) {
-        return keys.get(key);
+        final @Nullable Identity identity = pinnedKeys.get(key);
+        return identity != null ? identity : keys.get(key);
     }
     
     /**
@@ -66,7 +135,27 @@ public abstract class Mapper {
      */
     @Pure
     public @Nullable Identity getIdentity(@Nonnull Identifier identifier) {
-        return identifiers.get(identifier);
+        final @Nullable Identity identity = pinnedIdentifiers.get(identifier);
+        return identity != null ? identity : identifiers.get(identifier);
+    }
+    
+    /**
+     * Returns the number of identities that are currently cached without being pinned.
+     */
+    @Pure
+    public @NonNegative int getSize() {
+        return keys.size();
+    }
+    
+    /**
+     * Returns whether the given identifier was recently found not to exist.
+     */
+    @Impure
+    public boolean isNonexistent(@Nonnull Identifier identifier) {
+        final @Nullable Time expiration = nonexistent.get(identifier);
+        if (expiration == null) { return false; }
+        if (expiration.isInPast()) { nonexistent.remove(identifier, expiration); return false; }
+        return true;
     }
     
     /* -------------------------------------------------- Modifications -------------------------------------------------- */
@@ -76,11 +165,38 @@ public abstract class Mapper {
      */
     @Impure
     public void map(@Nonnull Identity identity) {
-        keys.put(identity.getKey(), identity);
-        identifiers.put(identity.getAddress(), identity);
+        if (isPinned(identity)) {
+            pinnedKeys.put(identity.getKey(), identity);
+            pinnedIdentifiers.put(identity.getAddress(), identity);
+        } else {
+            keys.put(identity.getKey(), identity);
+            identifiers.put(identity.getAddress(), identity);
+        }
+        nonexistent.remove(identity.getAddress());
         Log.debugging("The identity of $ was mapped.", identity.getAddress().getString());
     }
     
+    /**
+     * Adds the given identities to the local maps unless an identity with the same key is already mapped and returns the number of added identities.
+     * In contrast to {@link #map(Identity)}, the identities are not logged individually, which makes this method suitable for warming up the maps.
+     */
+    @Impure
+    public @NonNegative int mapIfAbsent(@Nonnull Collection<@Nonnull Identity> identities) {
+        int count = 0;
+        for (@Nonnull Identity identity : identities) {
+            if (getIdentity(identity.getKey()) != null) { continue; }
+            if (isPinned(identity)) {
+                pinnedKeys.putIfAbsent(identity.getKey(), identity);
+                pinnedIdentifiers.putIfAbsent(identity.getAddress(), identity);
+            } else {
+                keys.putIfAbsent(identity.getKey(), identity);
+                identifiers.putIfAbsent(identity.getAddress(), identity);
+            }
+            count++;
+        }
+        return count;
+    }
+    
     /**
      * Adds the given identity to the local maps after committing the current transaction successfully.
      * If the current transaction is rolled back for whatever reason, then the identity is not mapped.
@@ -90,11 +206,22 @@ public abstract class Mapper {
         Database.instance.get().runAfterCommit(() -> map(identity));
     }
     
+    /**
+     * Remembers for the configured time that the given identifier does not exist.
+     */
+    @Impure
+    public void mapNonexistent(@Nonnull Identifier identifier) {
+        nonexistent.put(identifier, negativeExpiration.get().ahead());
+        Log.debugging("The identifier $ was mapped as nonexistent.", identifier.getString());
+    }
+    
     /**
      * Removes the given identity from the local maps.
      */
     @Impure
     public void unmap(@Nonnull Identity identity) {
+        pinnedKeys.remove(identity.getKey());
+        pinnedIdentifiers.remove(identity.getAddress());
         keys.remove(identity.getKey());
         identifiers.remove(identity.getAddress());
         Log.debugging("The identity of $ was unmapped.", identity.getAddress().getString());
@@ -105,8 +232,11 @@ public abstract class Mapper {
      */
     @Impure
     public void unmapAll() {
+        pinnedKeys.clear();
+        pinnedIdentifiers.clear();
         keys.clear();
         identifiers.clear();
+        nonexistent.clear();
     }
     
 }
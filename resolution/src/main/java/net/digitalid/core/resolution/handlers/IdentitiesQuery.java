@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.core.resolution.handlers;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.method.PureWithSideEffects;
+import net.digitalid.utility.collections.list.FreezableArrayList;
+import net.digitalid.utility.collections.list.FreezableList;
+import net.digitalid.utility.conversion.exceptions.RecoveryException;
+import net.digitalid.utility.generator.annotations.generators.GenerateBuilder;
+import net.digitalid.utility.generator.annotations.generators.GenerateConverter;
+import net.digitalid.utility.generator.annotations.generators.GenerateSubclass;
+import net.digitalid.utility.validation.annotations.elements.NonNullableElements;
+import net.digitalid.utility.validation.annotations.size.NonEmpty;
+import net.digitalid.utility.validation.annotations.type.Immutable;
+
+import net.digitalid.database.annotations.transaction.NonCommitting;
+import net.digitalid.database.exceptions.DatabaseException;
+
+import net.digitalid.core.annotations.type.Loaded;
+import net.digitalid.core.entity.NonHostEntity;
+import net.digitalid.core.exceptions.request.RequestErrorCode;
+import net.digitalid.core.exceptions.request.RequestException;
+import net.digitalid.core.exceptions.request.RequestExceptionBuilder;
+import net.digitalid.core.handler.annotations.Matching;
+import net.digitalid.core.handler.annotations.MethodHasBeenReceived;
+import net.digitalid.core.handler.method.CoreMethod;
+import net.digitalid.core.handler.method.query.ExternalQuery;
+import net.digitalid.core.identification.identifier.InternalNonHostIdentifier;
+import net.digitalid.core.identification.identity.Category;
+import net.digitalid.core.identification.identity.IdentifierResolver;
+import net.digitalid.core.identification.identity.Identity;
+import net.digitalid.core.identification.identity.SemanticType;
+import net.digitalid.core.typeset.authentications.FreezableAuthentications;
+import net.digitalid.core.typeset.authentications.ReadOnlyAuthentications;
+import net.digitalid.core.unit.annotations.OnHostRecipient;
+
+/**
+ * Queries the identities of the given identifiers, which are hosted on the same host as the subject.
+ * In contrast to the {@link IdentityQuery}, an identifier that does not exist does not fail the whole query.
+ * Since the subject might not exist either, the host executes this query on its own account instead of the account of the subject.
+ * 
+ * @see IdentitiesReply
+ */
+@Immutable
+@GenerateBuilder
+@GenerateSubclass
+@GenerateConverter
+public abstract class IdentitiesQuery extends ExternalQuery<NonHostEntity> implements CoreMethod<NonHostEntity> {
+    
+    /* -------------------------------------------------- Type -------------------------------------------------- */
+    
+    /**
+     * Stores the semantic type of this query.
+     */
+    public static final @Nonnull @Loaded SemanticType TYPE = SemanticType.map(IdentitiesQueryConverter.INSTANCE);
+    
+    /* -------------------------------------------------- Limit -------------------------------------------------- */
+    
+    /**
+     * The maximal number of identifiers that a host looks up for a single query.
+     */
+    public static final int MAXIMUM_IDENTIFIERS = 256;
+    
+    /* -------------------------------------------------- Fields -------------------------------------------------- */
+    
+    /**
+     * Returns the identifiers whose identities are queried.
+     */
+    @Pure
+    public abstract @Nonnull @NonNullableElements /* TODO: @Frozen */ @NonEmpty /* TODO: ReadOnly */ FreezableList<@Nonnull InternalNonHostIdentifier> getIdentifiers();
+    
+    /* -------------------------------------------------- Request Signature -------------------------------------------------- */
+    
+    @Pure
+    @Override
+    public @Nonnull ReadOnlyAuthentications getAuthentications() {
+        return FreezableAuthentications.NONE;
+    }
+    
+    /* -------------------------------------------------- Execution -------------------------------------------------- */
+    
+    @Override
+    @NonCommitting
+    @OnHostRecipient
+    @PureWithSideEffects
+    @MethodHasBeenReceived
+    public @Nonnull @Matching IdentitiesReply executeOnHost() throws RequestException, DatabaseException, RecoveryException {
+        if (getIdentifiers().size() > MAXIMUM_IDENTIFIERS) { throw RequestExceptionBuilder.withCode(RequestErrorCode.REQUEST).withMessage("At most " + MAXIMUM_IDENTIFIERS + " identifiers can be queried at once but " + getIdentifiers().size() + " were given.").build(); }
+        
+        final @Nonnull FreezableList<Category> categories = FreezableArrayList.withInitialCapacity(getIdentifiers().size());
+        for (final @Nonnull InternalNonHostIdentifier identifier : getIdentifiers()) {
+            if (identifier.getHostIdentifier().equals(getSubject().getHostIdentifier())) {
+                final @Nullable Identity identity = IdentifierResolver.configuration.get().load(identifier);
+                categories.add(identity != null ? identity.getCategory() : null);
+            } else { categories.add(null); }
+        }
+        return IdentitiesReplyBuilder.withEntity(getEntity()).withCategories(categories/* TODO: .freeze() */).build();
+    }
+    
+}
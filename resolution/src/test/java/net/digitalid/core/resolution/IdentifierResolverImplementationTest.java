@@ -15,9 +15,22 @@
  */
 package net.digitalid.core.resolution;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.digitalid.database.interfaces.Database;
 
 import net.digitalid.core.annotations.type.NonLoaded;
+import net.digitalid.core.identification.identifier.EmailIdentifier;
+import net.digitalid.core.identification.identity.Identity;
 import net.digitalid.core.identification.identity.SemanticType;
 import net.digitalid.core.testing.CoreTest;
 
@@ -25,6 +38,8 @@ import org.junit.Test;
 
 public class IdentifierResolverImplementationTest extends CoreTest {
 
+    private static final @Nonnull IdentifierResolverImplementation resolver = new IdentifierResolverImplementationSubclass();
+
     @Test
     public void testMapping() {
         final @Nonnull @NonLoaded SemanticType mapping1 = SemanticType.map("type@test.digitalid.net");
@@ -32,4 +47,66 @@ public class IdentifierResolverImplementationTest extends CoreTest {
         assertThat(mapping1.getKey()).isEqualTo(mapping2.getKey());
     }
 
+    @Test
+    public void testConcurrentResolutionsOfTheSameIdentifier() throws Exception {
+        final @Nonnull EmailIdentifier identifier = EmailIdentifier.with("email:concurrent@example.com");
+        final @Nonnull ExecutorService threads = Executors.newFixedThreadPool(8);
+        try {
+            final @Nonnull List<@Nonnull Future<Long>> keys = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                keys.add(threads.submit(() -> {
+                    final long key = resolver.resolve(identifier).getKey();
+                    Database.commit();
+                    return key;
+                }));
+            }
+            final long key = keys.get(0).get(10, TimeUnit.SECONDS);
+            for (@Nonnull Future<Long> future : keys) {
+                assertThat(future.get(10, TimeUnit.SECONDS)).isEqualTo(key);
+            }
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testResolutionSurvivesRollback() throws Exception {
+        final @Nonnull EmailIdentifier identifier = EmailIdentifier.with("email:rollback@example.com");
+        final long key = resolver.resolve(identifier).getKey();
+        Database.rollback();
+
+        final @Nullable Identity identity = resolver.load(identifier);
+        assertThat(identity).isNotNull();
+        assertThat(identity.getKey()).isEqualTo(key);
+        assertThat(resolver.resolve(identifier).getKey()).isEqualTo(key);
+        Database.commit();
+    }
+
+    @Test
+    public void testResolutionDoesNotWaitForTheTransactionOfAnotherCaller() throws Exception {
+        final @Nonnull EmailIdentifier identifier = EmailIdentifier.with("email:uncommitted@example.com");
+        final @Nonnull CountDownLatch resolved = new CountDownLatch(1);
+        final @Nonnull CountDownLatch release = new CountDownLatch(1);
+        final @Nonnull ExecutorService thread = Executors.newSingleThreadExecutor();
+        try {
+            final @Nonnull Future<Long> otherKey = thread.submit(() -> {
+                final long key = resolver.resolve(identifier).getKey();
+                resolved.countDown();
+                // The transaction of this caller stays open until the other caller has resolved the same identifier.
+                release.await();
+                Database.rollback();
+                return key;
+            });
+            assertThat(resolved.await(10, TimeUnit.SECONDS)).isTrue();
+
+            final long key = resolver.resolve(identifier).getKey();
+            Database.commit();
+            release.countDown();
+            assertThat(otherKey.get(10, TimeUnit.SECONDS)).isEqualTo(key);
+        } finally {
+            release.countDown();
+            thread.shutdownNow();
+        }
+    }
+
 }
@@ -37,6 +37,7 @@ import net.digitalid.database.interfaces.Database;
 
 import net.digitalid.core.host.Host;
 import net.digitalid.core.host.HostBuilder;
+import net.digitalid.core.host.key.KeyPairPool;
 import net.digitalid.core.identification.identifier.HostIdentifier;
 import net.digitalid.core.service.Service;
 
@@ -59,6 +60,7 @@ abstract class Options {
         Console.options.add(new ShowVersion());
         Console.options.add(new ShowHosts());
         Console.options.add(new CreateHost());
+        Console.options.add(new ShowKeyPairPool());
         Console.options.add(new ExportHost());
         Console.options.add(new ImportHost());
         Console.options.add(new ShowServices());
@@ -186,6 +188,27 @@ abstract class Options {
         
     }
     
+    /**
+     * This option shows the state of the key pair pool.
+     */
+    private static final class ShowKeyPairPool extends Option {
+        
+        ShowKeyPairPool() { super("Show the key pair pool."); }
+        
+        @Override
+        @Committing
+        public void execute() {
+            if (KeyPairPool.activation.get()) {
+                Console.writeLine("Key pairs in stock: " + KeyPairPool.getDepth() + " (target: " + KeyPairPool.target.get() + ")");
+                Console.writeLine("Key pairs generated: " + KeyPairPool.getNumberOfGeneratedKeyPairs() + " (" + String.format("%.1f", KeyPairPool.getRefillRate()) + " per hour)");
+                Console.writeLine("Key pairs handed out: " + KeyPairPool.getNumberOfHandedOutKeyPairs() + " (missed: " + KeyPairPool.getNumberOfMissedKeyPairs() + ")");
+            } else {
+                Console.writeLine("The key pair pool is not activated.");
+            }
+        }
+        
+    }
+    
     /**
      * This option exports a host.
      */
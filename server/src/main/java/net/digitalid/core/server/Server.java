@@ -36,10 +36,19 @@ import net.digitalid.utility.validation.annotations.type.Utility;
 import net.digitalid.database.annotations.transaction.Committing;
 import net.digitalid.database.interfaces.Database;
 
+import net.digitalid.core.authorization.CredentialExponentPool;
+import net.digitalid.core.cache.AttributesRetrieval;
 import net.digitalid.core.cache.CacheModule;
+import net.digitalid.core.cache.CachePurger;
+import net.digitalid.core.group.PowerPool;
 import net.digitalid.core.host.HostBuilder;
+import net.digitalid.core.host.key.KeyPairPool;
 import net.digitalid.core.identification.identifier.HostIdentifier;
 import net.digitalid.core.packet.Request;
+import net.digitalid.core.resolution.IdentifierResolverImplementation;
+import net.digitalid.core.signature.credentials.CredentialsVerification;
+import net.digitalid.core.signature.host.HostSignatureBatcher;
+import net.digitalid.core.unit.key.KeyAllocator;
 
 /**
  * The server runs the configured hosts.
@@ -117,6 +126,15 @@ public abstract class Server {
         if (listener != null) {
             listener.shutDown();
         }
+        HostSignatureBatcher.shutDown();
+        KeyPairPool.shutDown();
+        CredentialExponentPool.shutDown();
+        PowerPool.shutDown();
+        CachePurger.shutDown();
+        IdentifierResolverImplementation.shutDown();
+        AttributesRetrieval.shutDown();
+        CredentialsVerification.shutDown();
+        KeyAllocator.shutDown();
 //        Client.stop();
     }
     
@@ -172,6 +190,10 @@ public abstract class Server {
 //        }
             
             loadServices();
+            IdentifierResolverImplementation.warmUpMapper();
+            KeyPairPool.start();
+            CredentialExponentPool.start();
+            CachePurger.start();
             Server.start();
             Console.writeLine("The server has been started and is now listening on port $.", Request.PORT.get());
             
@@ -0,0 +1,257 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.core.server;
+
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.configuration.Configuration;
+import net.digitalid.utility.time.Time;
+import net.digitalid.utility.time.TimeBuilder;
+import net.digitalid.utility.tuples.Pair;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
+import net.digitalid.utility.validation.annotations.math.Positive;
+import net.digitalid.utility.validation.annotations.type.Utility;
+
+import net.digitalid.core.cache.attributes.AttributesQuery;
+import net.digitalid.core.compression.Compression;
+import net.digitalid.core.conversion.XDF;
+import net.digitalid.core.handler.method.Method;
+import net.digitalid.core.identification.identifier.HostIdentifier;
+import net.digitalid.core.identification.identifier.HostIdentifierConverter;
+import net.digitalid.core.identification.identifier.InternalIdentifier;
+import net.digitalid.core.identification.identity.SemanticType;
+import net.digitalid.core.pack.Pack;
+import net.digitalid.core.pack.PackConverter;
+import net.digitalid.core.parameters.Digests;
+import net.digitalid.core.resolution.handlers.IdentityQuery;
+import net.digitalid.core.signature.Signature;
+import net.digitalid.core.signature.credentials.CredentialsSignature;
+
+/**
+ * This class caches the signed replies to public queries so that hot lookups skip their execution and the host signature.
+ * A reply is cached under the recipient, the subject and the content of the query and is served until it is older than its
+ * {@link #getValidity(Method) validity} or the cached replies of its subject are {@link #invalidate(InternalIdentifier) invalidated}.
+ * The {@link Worker} invalidates the cached replies of a subject whenever an action is executed for this subject.
+ * Since a query can be executed before and its reply cached after an invalidation, every invalidation increments the
+ * {@link #getGeneration(InternalIdentifier) generation} of the subject and a reply is only cached if the generation is unchanged.
+ * 
+ * @see Worker
+ */
+@Utility
+public abstract class SignedReplyCache {
+    
+    /* -------------------------------------------------- Configuration -------------------------------------------------- */
+    
+    /**
+     * Stores whether the caching of signed replies is activated.
+     */
+    public static final @Nonnull Configuration<Boolean> activation = Configuration.with(true);
+    
+    /**
+     * Stores the maximal number of cached replies.
+     */
+    public static final @Nonnull Configuration<@Positive Integer> capacity = Configuration.with(1_024);
+    
+    /**
+     * Stores the duration for which a signed reply is served from the cache.
+     */
+    public static final @Nonnull Configuration<Time> lifetime = Configuration.with(Time.HALF_HOUR);
+    
+    /**
+     * Stores the maximal number of subjects whose generation is tracked.
+     */
+    public static final @Nonnull Configuration<@Positive Integer> subjects = Configuration.with(16_384);
+    
+    /* -------------------------------------------------- Cacheability -------------------------------------------------- */
+    
+    /**
+     * Returns whether the reply to the given method is the same for every requester and can thus be cached.
+     * This is the case for identity queries and for attribute queries that are not signed with credentials.
+     * Batched identity queries are not cached, since their replies concern other identities than their subject,
+     * whose invalidation would therefore not remove them.
+     */
+    @Pure
+    public static boolean isCacheable(@Nonnull Method<?> method) {
+        if (!activation.get()) { return false; }
+        if (method instanceof IdentityQuery) { return true; }
+        if (method instanceof AttributesQuery) { return !(method.getSignature() instanceof CredentialsSignature<?>); }
+        return false;
+    }
+    
+    /**
+     * Returns the duration for which the cached reply to the given method is served after it has been signed.
+     * Since the requester caches the attribute values of a reply from the time of its signature, the reply to an attribute query
+     * is served at most for the shortest caching period of its types so that no requester receives an expired attribute value.
+     */
+    @Pure
+    public static @Nonnull Time getValidity(@Nonnull Method<?> method) {
+        @Nonnull Time validity = lifetime.get();
+        if (method instanceof AttributesQuery) {
+            for (@Nonnull SemanticType type : ((AttributesQuery) method).getAttributeTypes()) {
+                if (type.getCachingPeriod().isLessThan(validity)) { validity = type.getCachingPeriod(); }
+            }
+        }
+        return validity;
+    }
+    
+    /* -------------------------------------------------- Cache -------------------------------------------------- */
+    
+    /**
+     * Maps the subject and the hash of the recipient and the query to the signed reply and the time until which it is served.
+     */
+    private static final @Nonnull Map<@Nonnull Pair<@Nonnull InternalIdentifier, @Nonnull BigInteger>, @Nonnull Pair<@Nonnull Signature<Compression<Pack>>, @Nonnull Time>> signedReplies = Collections.synchronizedMap(new LinkedHashMap<Pair<InternalIdentifier, BigInteger>, Pair<Signature<Compression<Pack>>, Time>>(16, 0.75f, true) {
+        
+        @Pure
+        @Override
+        protected boolean removeEldestEntry(@Nonnull Map.Entry<Pair<InternalIdentifier, BigInteger>, Pair<Signature<Compression<Pack>>, Time>> eldest) {
+            return size() > capacity.get();
+        }
+        
+    });
+    
+    /**
+     * Returns the key under which the reply to the given signed method for the given recipient is cached.
+     */
+    @Pure
+    private static @Nonnull Pair<@Nonnull InternalIdentifier, @Nonnull BigInteger> getKey(@Nonnull HostIdentifier recipient, @Nonnull Signature<Compression<Pack>> signedMethod) {
+        final @Nonnull MessageDigest messageDigest = Digests.acquire();
+        try {
+            messageDigest.update(XDF.convert(HostIdentifierConverter.INSTANCE, recipient));
+            messageDigest.update(XDF.convert(PackConverter.INSTANCE, signedMethod.getObject().getObject()));
+            return Pair.of(signedMethod.getSubject(), new BigInteger(1, messageDigest.digest()));
+        } finally {
+            Digests.release(messageDigest);
+        }
+    }
+    
+    /**
+     * Returns the number of cached replies.
+     */
+    @Pure
+    public static @NonNegative int getSize() {
+        return signedReplies.size();
+    }
+    
+    /* -------------------------------------------------- Generations -------------------------------------------------- */
+    
+    /**
+     * Stores the last generation that was assigned, which makes the generations unique across all subjects.
+     */
+    private static final @Nonnull AtomicLong counter = new AtomicLong();
+    
+    /**
+     * Stores the generation of the subjects that are not tracked, which is raised whenever a tracked subject is evicted.
+     */
+    private static long floor = 0;
+    
+    /**
+     * Maps the recently invalidated subjects to their generation.
+     */
+    private static final @Nonnull Map<@Nonnull InternalIdentifier, @Nonnull Long> generations = Collections.synchronizedMap(new LinkedHashMap<InternalIdentifier, Long>(16, 0.75f, true) {
+        
+        @Impure
+        @Override
+        protected boolean removeEldestEntry(@Nonnull Map.Entry<InternalIdentifier, Long> eldest) {
+            if (size() > subjects.get()) {
+                // The generation of the evicted subject must not be reached again, which is why the generation of untracked subjects is raised.
+                floor = Math.max(floor, eldest.getValue());
+                return true;
+            } else {
+                return false;
+            }
+        }
+        
+    });
+    
+    /**
+     * Returns the current generation of the given subject, which has to be recorded before a query about the subject is executed.
+     */
+    @Pure
+    public static long getGeneration(@Nonnull InternalIdentifier subject) {
+        synchronized (generations) {
+            final @Nullable Long generation = generations.get(subject);
+            return generation != null ? generation : floor;
+        }
+    }
+    
+    /* -------------------------------------------------- Retrieval -------------------------------------------------- */
+    
+    /**
+     * Returns the cached reply to the given signed method for the given recipient or null if no recent reply is cached.
+     */
+    @Impure
+    public static @Nullable Signature<Compression<Pack>> get(@Nonnull HostIdentifier recipient, @Nonnull Signature<Compression<Pack>> signedMethod) {
+        final @Nonnull Pair<@Nonnull InternalIdentifier, @Nonnull BigInteger> key = getKey(recipient, signedMethod);
+        final @Nullable Pair<@Nonnull Signature<Compression<Pack>>, @Nonnull Time> entry = signedReplies.get(key);
+        if (entry == null) { return null; }
+        if (entry.get1().isLessThan(TimeBuilder.build())) {
+            signedReplies.remove(key, entry);
+            return null;
+        }
+        return entry.get0();
+    }
+    
+    /**
+     * Caches the given signed reply to the given signed method with the given content for the given recipient during the validity of the method
+     * unless the cached replies of its subject have been invalidated since the given generation was recorded.
+     */
+    @Impure
+    public static void put(@Nonnull HostIdentifier recipient, @Nonnull Signature<Compression<Pack>> signedMethod, @Nonnull Method<?> method, long generation, @Nonnull Signature<Compression<Pack>> signedReply) {
+        final @Nonnull Pair<@Nonnull InternalIdentifier, @Nonnull BigInteger> key = getKey(recipient, signedMethod);
+        final @Nonnull Time expiration = signedReply.getTime().add(getValidity(method));
+        synchronized (generations) {
+            if (getGeneration(signedMethod.getSubject()) == generation) { signedReplies.put(key, Pair.of(signedReply, expiration)); }
+        }
+    }
+    
+    /* -------------------------------------------------- Invalidation -------------------------------------------------- */
+    
+    /**
+     * Removes the cached replies about the given subject, which has to be called whenever its identity or attributes change.
+     */
+    @Impure
+    public static void invalidate(@Nonnull InternalIdentifier subject) {
+        synchronized (generations) {
+            generations.put(subject, counter.incrementAndGet());
+            synchronized (signedReplies) {
+                signedReplies.keySet().removeIf(key -> key.get0().equals(subject));
+            }
+        }
+    }
+    
+    /**
+     * Removes all cached replies.
+     */
+    @Impure
+    public static void clear() {
+        synchronized (generations) {
+            generations.clear();
+            floor = counter.incrementAndGet();
+            signedReplies.clear();
+        }
+    }
+    
+}
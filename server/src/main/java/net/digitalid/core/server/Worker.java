@@ -37,6 +37,8 @@ import net.digitalid.database.exceptions.DatabaseException;
 import net.digitalid.database.interfaces.Database;
 
 import net.digitalid.core.account.OpenAccount;
+import net.digitalid.core.agent.Agent;
+import net.digitalid.core.agent.AgentRetriever;
 import net.digitalid.core.compression.Compression;
 import net.digitalid.core.compression.CompressionBuilder;
 import net.digitalid.core.compression.CompressionConverterBuilder;
@@ -44,12 +46,15 @@ import net.digitalid.core.conversion.exceptions.NetworkException;
 import net.digitalid.core.encryption.Encryption;
 import net.digitalid.core.encryption.EncryptionBuilder;
 import net.digitalid.core.encryption.RequestEncryption;
-import net.digitalid.core.encryption.ResponseEncryptionBuilder;
+import net.digitalid.core.encryption.ResponseEncryption;
+import net.digitalid.core.entity.NonHostEntity;
 import net.digitalid.core.exceptions.request.RequestErrorCode;
 import net.digitalid.core.exceptions.request.RequestException;
 import net.digitalid.core.exceptions.request.RequestExceptionBuilder;
+import net.digitalid.core.handler.method.InternalMethod;
 import net.digitalid.core.handler.method.Method;
 import net.digitalid.core.handler.method.MethodIndex;
+import net.digitalid.core.handler.method.action.Action;
 import net.digitalid.core.handler.reply.Reply;
 import net.digitalid.core.handler.reply.instances.EmptyReplyBuilder;
 import net.digitalid.core.handler.reply.instances.RequestExceptionReplyBuilder;
@@ -64,9 +69,13 @@ import net.digitalid.core.packet.Request;
 import net.digitalid.core.packet.RequestConverter;
 import net.digitalid.core.packet.Response;
 import net.digitalid.core.packet.ResponseBuilder;
+import net.digitalid.core.resolution.handlers.IdentitiesQuery;
 import net.digitalid.core.signature.Signature;
 import net.digitalid.core.signature.SignatureBuilder;
-import net.digitalid.core.signature.host.HostSignatureCreator;
+import net.digitalid.core.signature.client.ClientSignature;
+import net.digitalid.core.signature.exceptions.SignatureException;
+import net.digitalid.core.signature.host.HostSignatureBatcher;
+import net.digitalid.core.signature.session.SessionSignature;
 
 /**
  * A worker processes incoming requests asynchronously.
@@ -104,6 +113,10 @@ public abstract class Worker implements Runnable {
             @Nullable Method<?> method = null;
             @Nullable Reply<?> reply = null;
             
+            @Nullable Signature<Compression<Pack>> cachedReply = null;
+            boolean cacheable = false;
+            long generation = 0;
+            
             try {
                 try {
                     final @Nonnull Pack pack = Pack.loadFrom(getSocket());
@@ -115,17 +128,41 @@ public abstract class Worker implements Runnable {
                     final @Nonnull Host host = Host.of(recipient);
                     
                     signedMethod = encryptedMethod.getObject();
+                    if (signedMethod instanceof SessionSignature<?>) {
+                        // Session signatures are verified before the method is executed since this only requires a message authentication code.
+                        try {
+                            ((SessionSignature<?>) signedMethod).verifySignature(recipient);
+                        } catch (@Nonnull SignatureException exception) {
+                            throw RequestExceptionBuilder.withCode(RequestErrorCode.SIGNATURE).withMessage("The session of the request is invalid or has expired.").withCause(exception).build();
+                        }
+                    }
                     final @Nonnull SemanticType type = signedMethod.getObject().getObject().getType();
                     Log.debugging("Executing the method $ on host $.", type.getAddress(), recipient);
                     
                     final @Nonnull InternalIdentifier subject;
-                    if (type.equals(OpenAccount.TYPE)) { subject = recipient; } else { subject = signedMethod.getSubject(); }
+                    // The subjects of these methods do not exist (yet), which is why they are executed on the account of the host.
+                    if (type.equals(OpenAccount.TYPE) || type.equals(IdentitiesQuery.TYPE)) { subject = recipient; } else { subject = signedMethod.getSubject(); }
                     final @Nonnull Account account = Account.with(host, subject.resolve());
+                    if (signedMethod instanceof SessionSignature<?> && account instanceof NonHostEntity) {
+                        // A session is revoked as soon as the agent to which it was issued has been removed.
+                        final @Nullable Agent agent = AgentRetriever.retrieve((NonHostEntity) account, ((SessionSignature<?>) signedMethod).getCommitment());
+                        if (agent == null || agent.removed().get()) { throw RequestExceptionBuilder.withCode(RequestErrorCode.SIGNATURE).withMessage("The session has been revoked because its agent has been removed.").build(); }
+                    }
                     
                     method = MethodIndex.get(signedMethod, account);
-                    reply = method.executeOnHost();
+                    if (method instanceof InternalMethod && ((InternalMethod) method).requiresClientSignature() && !(signedMethod instanceof ClientSignature<?>)) { throw RequestExceptionBuilder.withCode(RequestErrorCode.SIGNATURE).withMessage("The method " + type.getAddress() + " has to be signed by a client.").build(); }
+                    cacheable = SignedReplyCache.isCacheable(method);
+                    if (cacheable) {
+                        // The generation is recorded before the execution so that a reply to a state that was invalidated in the meantime is not cached.
+                        generation = SignedReplyCache.getGeneration(signedMethod.getSubject());
+                        cachedReply = SignedReplyCache.get(recipient, signedMethod);
+                    }
+                    if (cachedReply == null) { reply = method.executeOnHost(); }
                     
                     Database.commit();
+                    
+                    // The cached replies are invalidated only after the commit so that no concurrent query caches the previous state again.
+                    if (method instanceof Action) { SignedReplyCache.invalidate(subject); }
                 } catch (@Nonnull InternalException exception) {
                     throw RequestExceptionBuilder.withCode(RequestErrorCode.INTERNAL).withMessage("An internal problem occurred.").withCause(exception).build();
                 } catch (@Nonnull ExternalException exception) {
@@ -133,26 +170,33 @@ public abstract class Worker implements Runnable {
                 }
             } catch (@Nonnull RequestException exception) {
                 Database.rollback();
+                cacheable = false;
                 Log.warning("A request error occurred:", exception);
                 reply = RequestExceptionReplyBuilder.withRequestException(exception.isDecoded() ? RequestExceptionBuilder.withCode(RequestErrorCode.REQUEST).withMessage("Another server responded with a request error.").withCause(exception).build() : exception).build();
             }
             
-            if (reply == null) { reply = EmptyReplyBuilder.build(); }
-            final @Nonnull Compression<Pack> compressedReply = CompressionBuilder.withObject(reply.pack()).build();
-            
-            // The reply.pack() statement maps the semantic type of the reply converter, which results in a concurrent update if the client unpacks the response with the same database. The following commit prevents this. However, it is a suboptimal fix for this problem.
-            try { Database.commit(); } catch (@Nonnull DatabaseException exception) { Database.rollback(); }
-            
             final @Nonnull Signature<Compression<Pack>> signedReply;
-            if (encryptedMethod != null && signedMethod != null) {
-                signedReply = HostSignatureCreator.sign(compressedReply, CompressionConverterBuilder.withObjectConverter(PackConverter.INSTANCE).build()).about(signedMethod.getSubject()).as(encryptedMethod.getRecipient());
+            if (cachedReply != null) {
+                signedReply = cachedReply;
             } else {
-                signedReply = SignatureBuilder.withObjectConverter(CompressionConverterBuilder.withObjectConverter(PackConverter.INSTANCE).build()).withObject(compressedReply).withSubject(HostIdentifier.DIGITALID).build();
+                if (reply == null) { reply = EmptyReplyBuilder.build(); }
+                final @Nonnull Compression<Pack> compressedReply = CompressionBuilder.withObject(reply.pack()).build();
+                
+                // The reply.pack() statement maps the semantic type of the reply converter, which results in a concurrent update if the client unpacks the response with the same database. The following commit prevents this. However, it is a suboptimal fix for this problem.
+                try { Database.commit(); } catch (@Nonnull DatabaseException exception) { Database.rollback(); }
+                
+                if (encryptedMethod != null && signedMethod != null) {
+                    signedReply = HostSignatureBatcher.sign(compressedReply, CompressionConverterBuilder.withObjectConverter(PackConverter.INSTANCE).build(), signedMethod.getSubject(), encryptedMethod.getRecipient());
+                    if (cacheable && method != null && encryptedMethod.getRecipient() != null) { SignedReplyCache.put(encryptedMethod.getRecipient(), signedMethod, method, generation, signedReply); }
+                } else {
+                    signedReply = SignatureBuilder.withObjectConverter(CompressionConverterBuilder.withObjectConverter(PackConverter.INSTANCE).build()).withObject(compressedReply).withSubject(HostIdentifier.DIGITALID).build();
+                }
             }
             
             final @Nonnull Encryption<Signature<Compression<Pack>>> encryptedReply;
             if (encryptedMethod instanceof RequestEncryption) {
-                encryptedReply = ResponseEncryptionBuilder.withObject(signedReply).withSymmetricKey(((RequestEncryption) encryptedMethod).getSymmetricKey()).build();
+                final @Nonnull RequestEncryption<?> requestEncryption = (RequestEncryption<?>) encryptedMethod;
+                encryptedReply = ResponseEncryption.with(signedReply, requestEncryption);
             } else {
                 encryptedReply = EncryptionBuilder.withObject(signedReply).build();
             }
@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.core.authorization;
+
+import java.io.IOException;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.exceptions.ExternalException;
+
+import net.digitalid.database.interfaces.Database;
+
+import net.digitalid.core.account.OpenAccount;
+import net.digitalid.core.asymmetrickey.KeyPair;
+import net.digitalid.core.asymmetrickey.PrivateKeyRetriever;
+import net.digitalid.core.asymmetrickey.PublicKeyRetriever;
+import net.digitalid.core.client.Client;
+import net.digitalid.core.client.ClientBuilder;
+import net.digitalid.core.client.role.NativeRole;
+import net.digitalid.core.client.session.SessionIndex;
+import net.digitalid.core.credential.utility.SaltedAgentPermissions;
+import net.digitalid.core.host.HostBuilder;
+import net.digitalid.core.identification.identifier.HostIdentifier;
+import net.digitalid.core.identification.identifier.InternalNonHostIdentifier;
+import net.digitalid.core.identification.identity.Category;
+import net.digitalid.core.permissions.ReadOnlyAgentPermissions;
+import net.digitalid.core.server.Server;
+import net.digitalid.core.signature.session.SessionAuthority;
+import net.digitalid.core.testing.CoreTest;
+import net.digitalid.core.testing.providers.TestPrivateKeyRetrieverBuilder;
+import net.digitalid.core.testing.providers.TestPublicKeyRetrieverBuilder;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests the issuance of credentials, which requires the commitment of the client even if sessions are activated.
+ */
+public class CredentialInternalQueryTest extends CoreTest {
+    
+    /* -------------------------------------------------- Setup -------------------------------------------------- */
+    
+    private static @Nonnull HostIdentifier hostIdentifier;
+    
+    @BeforeClass
+    public static void startServer() throws ExternalException, IOException {
+        final @Nonnull KeyPair keyPair = KeyPair.withRandomValues();
+        PublicKeyRetriever.configuration.set(TestPublicKeyRetrieverBuilder.withKeyPair(keyPair).build());
+        PrivateKeyRetriever.configuration.set(TestPrivateKeyRetrieverBuilder.withKeyPair(keyPair).build());
+        
+        Server.start();
+        hostIdentifier = HostIdentifier.with("credential.digitalid.net");
+        HostBuilder.withIdentifier(hostIdentifier).build();
+        
+        SessionAuthority.activation.set(true);
+        SessionIndex.activation.set(true);
+    }
+    
+    @AfterClass
+    public static void stopServer() {
+        SessionAuthority.activation.set(false);
+        SessionIndex.activation.set(false);
+        SessionIndex.clear();
+        Server.stop();
+    }
+    
+    /* -------------------------------------------------- Tests -------------------------------------------------- */
+    
+    @Test
+    public void testCredentialIssuanceWithSessions() throws ExternalException {
+        final @Nonnull Client client = ClientBuilder.withIdentifier("credential.client.digitalid.net").withDisplayName("Credential Client").withPreferredPermissions(ReadOnlyAgentPermissions.GENERAL_WRITE).build();
+        final @Nonnull InternalNonHostIdentifier identifier = InternalNonHostIdentifier.with("person@credential.digitalid.net");
+        final @Nonnull NativeRole role = OpenAccount.of(Category.NATURAL_PERSON, identifier, client);
+        Database.commit();
+        
+        // The session is established with a separate query, after which the credential query has to be signed by the client nevertheless.
+        assertThat(SessionIndex.getSession(role, identifier, role.getAgent().commitment().get())).isNotNull();
+        
+        final @Nonnull CredentialInternalQuery query = CredentialInternalQueryBuilder.withPermissions(SaltedAgentPermissions.with(ReadOnlyAgentPermissions.GENERAL_READ)).withProvidedEntity(role).build();
+        final @Nonnull CredentialReply reply = query.send(CredentialReplyConverter.INSTANCE);
+        assertThat(reply.getPublicKey()).isEqualTo(PublicKeyRetriever.retrieve(hostIdentifier, reply.getIssuance()));
+    }
+    
+}
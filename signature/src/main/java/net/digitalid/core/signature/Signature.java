@@ -15,9 +15,7 @@
  */
 package net.digitalid.core.signature;
 
-import java.io.ByteArrayOutputStream;
 import java.math.BigInteger;
-import java.security.MessageDigest;
 
 import javax.annotation.Nonnull;
 
@@ -39,20 +37,22 @@ import net.digitalid.utility.validation.annotations.type.Mutable;
 
 import net.digitalid.core.conversion.encoders.MemoryEncoder;
 import net.digitalid.core.conversion.exceptions.MemoryException;
+import net.digitalid.core.conversion.streams.output.HashingOutputStream;
 import net.digitalid.core.identification.identifier.InternalIdentifier;
 import net.digitalid.core.identification.identifier.InternalIdentifierConverter;
-import net.digitalid.core.parameters.Parameters;
 import net.digitalid.core.signature.client.ClientSignature;
 import net.digitalid.core.signature.exceptions.ExpiredSignatureException;
 import net.digitalid.core.signature.exceptions.ExpiredSignatureExceptionBuilder;
 import net.digitalid.core.signature.exceptions.InvalidSignatureException;
 import net.digitalid.core.signature.host.HostSignature;
+import net.digitalid.core.signature.session.SessionSignature;
 
 /**
  * This class signs the wrapped object for encoding.
  * 
  * @see HostSignature
  * @see ClientSignature
+ * @see SessionSignature
  * TODO: CredentialsSignature
  */
 @Mutable
@@ -112,17 +112,15 @@ public abstract class Signature<@Unspecifiable OBJECT> extends RootClass {
      */
     @Pure
     public static <OBJECT> @Nonnull BigInteger getContentHash(@Nonnull Time time, @Nonnull InternalIdentifier subject, @Nonnull Converter<OBJECT, Void> objectConverter, @Nonnull OBJECT object) {
-        final @Nonnull MessageDigest messageDigest = Parameters.HASH_FUNCTION.get().produce();
-            final @Nonnull ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            try (@Nonnull MemoryEncoder encoder = MemoryEncoder.of(outputStream)) {
-                encoder.startHashing(messageDigest);
-                encoder.encodeObject(TimeConverter.INSTANCE, time);
-                encoder.encodeObject(InternalIdentifierConverter.INSTANCE, subject);
-                encoder.encodeObject(objectConverter, object);
-                return new BigInteger(1, encoder.stopHashing());
-            } catch (@Nonnull MemoryException exception) {
-                throw UncheckedExceptionBuilder.withCause(exception).build();
-            }
+        final @Nonnull HashingOutputStream outputStream = new HashingOutputStream();
+        try (@Nonnull MemoryEncoder encoder = MemoryEncoder.of(outputStream)) {
+            encoder.encodeObject(TimeConverter.INSTANCE, time);
+            encoder.encodeObject(InternalIdentifierConverter.INSTANCE, subject);
+            encoder.encodeObject(objectConverter, object);
+        } catch (@Nonnull MemoryException exception) {
+            throw UncheckedExceptionBuilder.withCause(exception).build();
+        }
+        return new BigInteger(1, outputStream.digest());
     }
     
     /* -------------------------------------------------- Expiration -------------------------------------------------- */
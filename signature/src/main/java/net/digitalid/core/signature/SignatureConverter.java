@@ -48,7 +48,9 @@ import net.digitalid.utility.validation.annotations.type.Immutable;
 import net.digitalid.core.identification.identifier.InternalIdentifier;
 import net.digitalid.core.identification.identifier.InternalIdentifierConverter;
 import net.digitalid.core.signature.client.ClientSignatureConverterBuilder;
+import net.digitalid.core.signature.host.BatchedHostSignatureConverterBuilder;
 import net.digitalid.core.signature.host.HostSignatureConverterBuilder;
+import net.digitalid.core.signature.session.SessionSignatureConverterBuilder;
 
 /**
  * This class converts and recovers a {@link Signature signature}.
@@ -99,7 +101,8 @@ public abstract class SignatureConverter<@Unspecifiable OBJECT> implements Gener
     @Pure
     @Override
     public @Nonnull @NonNullableElements @NonEmpty ImmutableList<Converter<? extends Signature<OBJECT>, Void>> getSubtypeConverters() {
-        return ImmutableList.withElements(HostSignatureConverterBuilder.withObjectConverter(getObjectConverter()).build(), ClientSignatureConverterBuilder.withObjectConverter(getObjectConverter()).build());
+        // New subtype converters have to be appended so that the indexes of the existing subtypes remain the same.
+        return ImmutableList.withElements(HostSignatureConverterBuilder.withObjectConverter(getObjectConverter()).build(), ClientSignatureConverterBuilder.withObjectConverter(getObjectConverter()).build(), SessionSignatureConverterBuilder.withObjectConverter(getObjectConverter()).build(), BatchedHostSignatureConverterBuilder.withObjectConverter(getObjectConverter()).build());
     }
     
     /* -------------------------------------------------- Convert -------------------------------------------------- */
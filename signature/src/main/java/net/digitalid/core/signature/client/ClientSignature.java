@@ -16,7 +16,6 @@
 package net.digitalid.core.signature.client;
 
 import java.math.BigInteger;
-import java.security.MessageDigest;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -31,7 +30,7 @@ import net.digitalid.utility.validation.annotations.type.Mutable;
 import net.digitalid.core.commitment.Commitment;
 import net.digitalid.core.group.Element;
 import net.digitalid.core.group.Exponent;
-import net.digitalid.core.parameters.Parameters;
+import net.digitalid.core.parameters.Digests;
 import net.digitalid.core.signature.Signature;
 import net.digitalid.core.signature.exceptions.ExpiredSignatureException;
 import net.digitalid.core.signature.exceptions.InvalidSignatureException;
@@ -87,9 +86,7 @@ public abstract class ClientSignature<@Unspecifiable OBJECT> extends Signature<O
      */
     @Pure
     public static @Nonnull BigInteger getHash(@Nonnull Element value) {
-        final @Nonnull MessageDigest messageDigest = Parameters.HASH_FUNCTION.get().produce();
-        messageDigest.update(value.getValue().toByteArray());
-        return new BigInteger(1, messageDigest.digest());
+        return new BigInteger(1, Digests.digest(value.getValue().toByteArray()));
     }
     
     /* -------------------------------------------------- Verification -------------------------------------------------- */
@@ -29,6 +29,7 @@ import net.digitalid.utility.validation.annotations.type.Utility;
 import net.digitalid.core.commitment.SecretCommitment;
 import net.digitalid.core.group.Exponent;
 import net.digitalid.core.group.ExponentBuilder;
+import net.digitalid.core.group.PowerPool;
 import net.digitalid.core.identification.identifier.InternalIdentifier;
 import net.digitalid.core.parameters.Parameters;
 
@@ -96,8 +97,10 @@ public abstract class ClientSignatureCreator {
             final @Nonnull Time time = TimeBuilder.build();
             final @Nonnull BigInteger hash = ClientSignature.getContentHash(time, subject, objectConverter, object);
 
-            final @Nonnull Exponent r = commitment.getPublicKey().getCompositeGroup().getRandomExponent(Parameters.RANDOM_EXPONENT.get());
-            final @Nonnull BigInteger t = ClientSignature.getHash(commitment.getPublicKey().getAu().pow(r));
+            // The random exponent and its power only depend on the public key and are thus pre-computed in the background.
+            final @Nonnull PowerPool.Powers powers = PowerPool.take(Parameters.RANDOM_EXPONENT.get(), commitment.getPublicKey().getAu());
+            final @Nonnull Exponent r = powers.getExponent();
+            final @Nonnull BigInteger t = ClientSignature.getHash(powers.getPower(0));
 
             final @Nonnull Exponent h = ExponentBuilder.withValue(t.xor(hash)).build();
             final @Nonnull Exponent s = r.subtract(commitment.getSecret().multiply(h));
@@ -16,11 +16,13 @@
 package net.digitalid.core.signature.credentials;
 
 import java.math.BigInteger;
+import java.util.concurrent.CompletableFuture;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 import net.digitalid.utility.annotations.generics.Unspecifiable;
+import net.digitalid.utility.annotations.method.Impure;
 import net.digitalid.utility.annotations.method.Pure;
 import net.digitalid.utility.collections.list.FreezableArrayList;
 import net.digitalid.utility.collections.list.FreezableList;
@@ -121,105 +123,72 @@ public abstract class CredentialsSignature<@Unspecifiable OBJECT> extends Signat
             v = ExponentBuilder.withValue(new BigInteger(XDF.hash(RestrictionsConverter.INSTANCE, getRestrictions()))).build();
         }
         
-        // credentials
+        // The sizes of all values are checked before any exponentiation is started so that invalid signatures are rejected early.
         final @Nonnull ReadOnlyList<@Nonnull PublicClientCredential> publicClientCredentials = getCredentials();
-        final @Nonnull FreezableArrayList<@Nonnull HostCredential> hostCredentials = FreezableArrayList.withInitialCapacity(publicClientCredentials.size());
         for (@Nonnull PublicClientCredential publicClientCredential : publicClientCredentials) {
-            final @Nonnull HostCredential hostCredential = HostCredentialBuilder.withExposedExponent(publicClientCredential.getExposedExponent()).withI(publicClientCredential.getI()).build();
-            hostCredentials.add(hostCredential);
-        }
-        final @Nonnull FreezableList<VerifiableEncryptionVerificationParameters> verifiableEncryptionVerificationParametersList = FreezableArrayList.withInitialCapacity(publicClientCredentials.size());
-        for (int i = 0; i < publicClientCredentials.size(); i++) {
-            final @Nonnull PublicKey publicKey = hostCredentials.get(i).getExposedExponent().getPublicKey();
-            final @Nonnull Exponent o = hostCredentials.get(i).getO();
-            final @Nonnull PublicClientCredential publicClientCredential = publicClientCredentials.get(i);
-            // final @Nonnull Element c = publicKey.getCompositeGroup().getElement(publicClientCredential.getC());
-            // TODO: check with Kaspar if this c is in the correct group.
-            final @Nonnull Element c = publicClientCredential.getC();
-            
-            final @Nonnull Exponent se = publicClientCredential.getSe();
-            if (se.getBitLength() > Parameters.RANDOM_CREDENTIAL_EXPONENT.get()) {
+            if (publicClientCredential.getSe().getBitLength() > Parameters.RANDOM_CREDENTIAL_EXPONENT.get()) {
                 // TODO: set message: "The credentials signature is invalid: The value se is too big."
                 throw InvalidSignatureExceptionBuilder.withSignature(this).build();
             }
-            final @Nonnull Exponent sb = publicClientCredential.getSb();
-            if (sb.getBitLength() > Parameters.RANDOM_BLINDING_EXPONENT.get() + 1) {
+            if (publicClientCredential.getSb().getBitLength() > Parameters.RANDOM_BLINDING_EXPONENT.get() + 1) {
                 // TODO: "The credentials signature is invalid: The value sb is too big."
                 throw InvalidSignatureExceptionBuilder.withSignature(this).build();
             }
-            
-            @Nonnull Element hiddenElement = c.pow(se).multiply(publicKey.getAb().pow(sb)).multiply(publicKey.getAu().pow(getSU()));
-            @Nonnull Element shownElement = publicKey.getCompositeGroup().getElement(BigInteger.ONE);
-            
-            @Nullable Exponent si = null;
             if (publicClientCredential.getI() == null) {
-                si = publicClientCredential.getSi();
+                final @Nullable Exponent si = publicClientCredential.getSi();
                 assert si != null : "If I is null, SI must not be null.";
                 if (si.getBitLength() > Parameters.RANDOM_EXPONENT.get()) {
                     // TODO: "The credentials signature is invalid: The value si is too big."
                     throw InvalidSignatureExceptionBuilder.withSignature(this).build();
                 }
-                hiddenElement = hiddenElement.multiply(publicKey.getAi().pow(si));
-            } else {
-                shownElement = publicKey.getAi().pow(publicClientCredential.getI());
-            }
-            
-            if (v == null) {
-                assert sv != null : "The value sv cannot be null if v is null (see code above).";
-                hiddenElement = hiddenElement.multiply(publicKey.getAv().pow(sv));
-            } else {
-                shownElement = shownElement.multiply(publicKey.getAv().pow(v));
-            }
-            
-            shownElement = shownElement.inverse().multiply(publicKey.getAo().pow(o));
-            
-            final @Nonnull VerifiableEncryptionVerificationParametersBuilder.InnerVerifiableEncryptionVerificationParametersBuilder verifiableEncryptionParametersBuilder = VerifiableEncryptionVerificationParametersBuilder.withVerificationElement(hiddenElement.multiply(shownElement.pow(getT())));
-            
-            if (publicClientCredential.getVerifiableEncryption() != null && si != null) {
-                final @Nonnull VerifiableEncryption verifiableEncryption = publicClientCredential.getVerifiableEncryption();
-                @Nonnull final VerifiableEncryptionMessage wis = verifiableEncryption.getEncryptionForSerial();
-                final @Nonnull Exponent swi = verifiableEncryption.getSolutionForSerial();
-                if (swi.getBitLength() > Parameters.RANDOM_BLINDING_EXPONENT.get()) {
-                    // TODO: "The credentials signature is invalid: The value swi is too big."
-                    throw InvalidSignatureExceptionBuilder.withSignature(this).build();
-                }
-                final @Nonnull VerifiableEncryptionMessage wbs = verifiableEncryption.getEncryptionForBlindingValue();
-                final @Nonnull Exponent swb = verifiableEncryption.getSolutionForBlindingValue();
-                if (swb.getBitLength() > Parameters.RANDOM_BLINDING_EXPONENT.get()) {
-                    // TODO: "The credentials signature is invalid: The value swb is too big.");
-                    throw InvalidSignatureExceptionBuilder.withSignature(this).build();
+                final @Nullable VerifiableEncryption verifiableEncryption = publicClientCredential.getVerifiableEncryption();
+                if (verifiableEncryption != null) {
+                    if (verifiableEncryption.getSolutionForSerial().getBitLength() > Parameters.RANDOM_BLINDING_EXPONENT.get()) {
+                        // TODO: "The credentials signature is invalid: The value swi is too big."
+                        throw InvalidSignatureExceptionBuilder.withSignature(this).build();
+                    }
+                    if (verifiableEncryption.getSolutionForBlindingValue().getBitLength() > Parameters.RANDOM_BLINDING_EXPONENT.get()) {
+                        // TODO: "The credentials signature is invalid: The value swb is too big.");
+                        throw InvalidSignatureExceptionBuilder.withSignature(this).build();
+                    }
                 }
-                
-                final @Nonnull Element wis1 = publicKey.getY().pow(swi).multiply(publicKey.getZPlus1().pow(si)).multiply(publicKey.getSquareGroup().getElement(wis.getElement0().getValue()).pow(getT()));
-                final @Nonnull Element wis2 = publicKey.getG().pow(swi).multiply(publicKey.getSquareGroup().getElement(wis.getElement1().getValue()).pow(getT()));
-                
-                final @Nonnull Element wbs1 = publicKey.getY().pow(swb).multiply(publicKey.getZPlus1().pow(sb)).multiply(publicKey.getSquareGroup().getElement(wbs.getElement0().getValue()).pow(getT()));
-                final @Nonnull Element wbs2 = publicKey.getG().pow(swb).multiply(publicKey.getSquareGroup().getElement(wbs.getElement1().getValue())).pow(getT());
-                
-                verifiableEncryptionParametersBuilder.withVerificationForBlindingValue(VerifiableEncryptionElementPairBuilder.withElement0(wbs1).withElement1(wbs2).build()).withVerificationForSerial(VerifiableEncryptionElementPairBuilder.withElement0(wis1).withElement1(wis2).build());
             }
-            
-            verifiableEncryptionVerificationParametersList.add(verifiableEncryptionParametersBuilder.build());
         }
         
         @Nonnull BigInteger tf = BigInteger.ZERO;
-        if (getFPrime() != null) {
-            final @Nonnull PublicKey publicKey;
-            try {
-                publicKey = PublicKeyRetriever.retrieve(getSubject().getHostIdentifier(), getTime());
-                
-            } catch (@Nonnull ExternalException exception) {
-                throw RecoveryExceptionBuilder.withMessage(Strings.format("Could not retrieve the public key of $.", getSubject().getHostIdentifier())).withCause(exception).build();
+        final @Nonnull BigInteger hashOfVerificationParameters;
+        // The exponentiations of all credentials are started at once and computed in parallel while the remaining values are determined.
+        final @Nonnull FreezableList<@Nonnull CredentialVerification> credentialVerifications = FreezableArrayList.withInitialCapacity(publicClientCredentials.size());
+        try {
+            for (@Nonnull PublicClientCredential publicClientCredential : publicClientCredentials) {
+                credentialVerifications.add(new CredentialVerification(publicClientCredential, v, sv));
             }
-            assert publicKey != null : "If credentials are to be shortened, the public key of the receiving host is retrieved in the constructor.";
-            final @Nonnull Exponent sb = getSBPrime();
             
-            @Nonnull Element element = publicKey.getAu().pow(getSU()).multiply(publicKey.getAb().pow(sb));
-            if (sv != null) element = element.multiply(publicKey.getAv().pow(sv));
-            final @Nonnull Element tfBeforeHash = publicKey.getCompositeGroup().getElement(getFPrime().getValue()).pow(getT()).multiply(element);
-            tf = new BigInteger(XDF.hash(ElementConverter.INSTANCE, tfBeforeHash));
+            if (getFPrime() != null) {
+                final @Nonnull PublicKey publicKey;
+                try {
+                    publicKey = PublicKeyRetriever.retrieve(getSubject().getHostIdentifier(), getTime());
+                    
+                } catch (@Nonnull ExternalException exception) {
+                    throw RecoveryExceptionBuilder.withMessage(Strings.format("Could not retrieve the public key of $.", getSubject().getHostIdentifier())).withCause(exception).build();
+                }
+                assert publicKey != null : "If credentials are to be shortened, the public key of the receiving host is retrieved in the constructor.";
+                final @Nonnull Exponent sb = getSBPrime();
+                
+                @Nonnull Element element = publicKey.getAu().pow(getSU()).multiply(publicKey.getAb().pow(sb));
+                if (sv != null) element = element.multiply(publicKey.getAv().pow(sv));
+                final @Nonnull Element tfBeforeHash = publicKey.getCompositeGroup().getElement(getFPrime().getValue()).pow(getT()).multiply(element);
+                tf = new BigInteger(XDF.hash(ElementConverter.INSTANCE, tfBeforeHash));
+            }
+            final @Nonnull FreezableList<VerifiableEncryptionVerificationParameters> verifiableEncryptionVerificationParametersList = FreezableArrayList.withInitialCapacity(publicClientCredentials.size());
+            for (@Nonnull CredentialVerification credentialVerification : credentialVerifications) {
+                verifiableEncryptionVerificationParametersList.add(credentialVerification.getParameters());
+            }
+            hashOfVerificationParameters = new BigInteger(1, XDF.hash(ReadOnlyListConverter.INSTANCE, verifiableEncryptionVerificationParametersList.freeze()));
+        } finally {
+            // The remaining computations are no longer needed if the verification failed.
+            for (@Nonnull CredentialVerification credentialVerification : credentialVerifications) { credentialVerification.cancel(); }
         }
-        final @Nonnull BigInteger hashOfVerificationParameters = new BigInteger(1, XDF.hash(ReadOnlyListConverter.INSTANCE, verifiableEncryptionVerificationParametersList.freeze()));
         
         if (!getT().getValue().equals(hash.xor(hashOfVerificationParameters).xor(tf))) {
             // The credentials signature is invalid: The value t is not correct.
@@ -242,4 +211,98 @@ public abstract class CredentialsSignature<@Unspecifiable OBJECT> extends Signat
 //        setVerified();
     }
     
+    /* -------------------------------------------------- Credential Verification -------------------------------------------------- */
+    
+    /**
+     * A credential verification computes the independent exponentiations for the verification parameters of a single credential
+     * with the {@link CredentialsVerification} so that they run in parallel to the exponentiations of the other credentials.
+     */
+    private final class CredentialVerification {
+        
+        private final @Nonnull CompletableFuture<@Nonnull Element> hiddenElement;
+        
+        private final @Nonnull CompletableFuture<@Nonnull Element> shownElement;
+        
+        private final @Nullable CompletableFuture<@Nonnull Element> wis1;
+        
+        private final @Nullable CompletableFuture<@Nonnull Element> wis2;
+        
+        private final @Nullable CompletableFuture<@Nonnull Element> wbs1;
+        
+        private final @Nullable CompletableFuture<@Nonnull Element> wbs2;
+        
+        private CredentialVerification(@Nonnull PublicClientCredential publicClientCredential, @Nullable Exponent v, @Nullable Exponent sv) {
+            final @Nonnull HostCredential hostCredential = HostCredentialBuilder.withExposedExponent(publicClientCredential.getExposedExponent()).withI(publicClientCredential.getI()).build();
+            final @Nonnull PublicKey publicKey = hostCredential.getExposedExponent().getPublicKey();
+            final @Nonnull Exponent o = hostCredential.getO();
+            // TODO: check with Kaspar if this c is in the correct group.
+            final @Nonnull Element c = publicClientCredential.getC();
+            final @Nonnull Exponent se = publicClientCredential.getSe();
+            final @Nonnull Exponent sb = publicClientCredential.getSb();
+            final @Nullable Exponent si = publicClientCredential.getI() == null ? publicClientCredential.getSi() : null;
+            
+            this.hiddenElement = CredentialsVerification.compute(() -> {
+                @Nonnull Element hiddenElement = c.pow(se).multiply(publicKey.getAb().pow(sb)).multiply(publicKey.getAu().pow(getSU()));
+                if (si != null) { hiddenElement = hiddenElement.multiply(publicKey.getAi().pow(si)); }
+                if (v == null) {
+                    assert sv != null : "The value sv cannot be null if v is null (see code above).";
+                    hiddenElement = hiddenElement.multiply(publicKey.getAv().pow(sv));
+                }
+                return hiddenElement;
+            });
+            
+            this.shownElement = CredentialsVerification.compute(() -> {
+                @Nonnull Element shownElement = publicKey.getCompositeGroup().getElement(BigInteger.ONE);
+                final @Nullable Exponent i = publicClientCredential.getI();
+                if (i != null) { shownElement = publicKey.getAi().pow(i); }
+                if (v != null) { shownElement = shownElement.multiply(publicKey.getAv().pow(v)); }
+                return shownElement.inverse().multiply(publicKey.getAo().pow(o)).pow(getT());
+            });
+            
+            final @Nullable VerifiableEncryption verifiableEncryption = publicClientCredential.getVerifiableEncryption();
+            if (verifiableEncryption != null && si != null) {
+                final @Nonnull VerifiableEncryptionMessage wis = verifiableEncryption.getEncryptionForSerial();
+                final @Nonnull Exponent swi = verifiableEncryption.getSolutionForSerial();
+                final @Nonnull VerifiableEncryptionMessage wbs = verifiableEncryption.getEncryptionForBlindingValue();
+                final @Nonnull Exponent swb = verifiableEncryption.getSolutionForBlindingValue();
+                
+                this.wis1 = CredentialsVerification.compute(() -> publicKey.getY().pow(swi).multiply(publicKey.getZPlus1().pow(si)).multiply(publicKey.getSquareGroup().getElement(wis.getElement0().getValue()).pow(getT())));
+                this.wis2 = CredentialsVerification.compute(() -> publicKey.getG().pow(swi).multiply(publicKey.getSquareGroup().getElement(wis.getElement1().getValue()).pow(getT())));
+                this.wbs1 = CredentialsVerification.compute(() -> publicKey.getY().pow(swb).multiply(publicKey.getZPlus1().pow(sb)).multiply(publicKey.getSquareGroup().getElement(wbs.getElement0().getValue()).pow(getT())));
+                this.wbs2 = CredentialsVerification.compute(() -> publicKey.getG().pow(swb).multiply(publicKey.getSquareGroup().getElement(wbs.getElement1().getValue())).pow(getT()));
+            } else {
+                this.wis1 = null;
+                this.wis2 = null;
+                this.wbs1 = null;
+                this.wbs2 = null;
+            }
+        }
+        
+        /**
+         * Waits for the exponentiations of this credential and returns its verification parameters.
+         */
+        @Impure
+        private @Nonnull VerifiableEncryptionVerificationParameters getParameters() {
+            final @Nonnull VerifiableEncryptionVerificationParametersBuilder.InnerVerifiableEncryptionVerificationParametersBuilder verifiableEncryptionParametersBuilder = VerifiableEncryptionVerificationParametersBuilder.withVerificationElement(CredentialsVerification.join(hiddenElement).multiply(CredentialsVerification.join(shownElement)));
+            if (wis1 != null && wis2 != null && wbs1 != null && wbs2 != null) {
+                verifiableEncryptionParametersBuilder.withVerificationForBlindingValue(VerifiableEncryptionElementPairBuilder.withElement0(CredentialsVerification.join(wbs1)).withElement1(CredentialsVerification.join(wbs2)).build()).withVerificationForSerial(VerifiableEncryptionElementPairBuilder.withElement0(CredentialsVerification.join(wis1)).withElement1(CredentialsVerification.join(wis2)).build());
+            }
+            return verifiableEncryptionParametersBuilder.build();
+        }
+        
+        /**
+         * Cancels the exponentiations of this credential that have not yet started.
+         */
+        @Impure
+        private void cancel() {
+            hiddenElement.cancel(false);
+            shownElement.cancel(false);
+            if (wis1 != null) { wis1.cancel(false); }
+            if (wis2 != null) { wis2.cancel(false); }
+            if (wbs1 != null) { wbs1.cancel(false); }
+            if (wbs2 != null) { wbs2.cancel(false); }
+        }
+        
+    }
+    
 }
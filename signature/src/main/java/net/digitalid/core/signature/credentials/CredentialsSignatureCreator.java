@@ -39,8 +39,10 @@ import net.digitalid.core.group.Element;
 import net.digitalid.core.group.ElementConverter;
 import net.digitalid.core.group.Exponent;
 import net.digitalid.core.group.ExponentBuilder;
+import net.digitalid.core.group.PowerPool;
 import net.digitalid.core.identification.identifier.InternalIdentifier;
 import net.digitalid.core.parameters.Parameters;
+import net.digitalid.core.parameters.Randomness;
 import net.digitalid.core.restrictions.Restrictions;
 import net.digitalid.core.signature.attribute.CertifiedAttributeValue;
 
@@ -139,11 +141,11 @@ public abstract class CredentialsSignatureCreator {
         }
     
         /**
-         * Returns the verifiable encryption of the given value m with the random value r.
+         * Returns the verifiable encryption of the given value m with the given powers of y and g to the random value r.
          */
         @Pure
-        private @Nonnull VerifiableEncryptionMessage getVerifiableEncryption(@Nonnull PublicKey publicKey, @Nonnull Exponent m, @Nonnull Exponent r) {
-            return VerifiableEncryptionMessageBuilder.withElement0(publicKey.getY().pow(r).multiply(publicKey.getZPlus1().pow(m))).withElement1(publicKey.getG().pow(r)).build();
+        private @Nonnull VerifiableEncryptionMessage getVerifiableEncryption(@Nonnull PublicKey publicKey, @Nonnull Exponent m, @Nonnull PowerPool.Powers r) {
+            return VerifiableEncryptionMessageBuilder.withElement0(r.getPower(0).multiply(publicKey.getZPlus1().pow(m))).withElement1(r.getPower(1)).build();
         }
     
         @Pure
@@ -156,13 +158,31 @@ public abstract class CredentialsSignatureCreator {
             final @Nonnull Exponent u = mainCredential.getU();
             final @Nonnull Exponent v = mainCredential.getV();
     
-            final @Nonnull SecureRandom random = new SecureRandom();
-            final @Nonnull Exponent ru = ExponentBuilder.withValue(new BigInteger(Parameters.RANDOM_EXPONENT.get(), random)).build();
+            final int size = credentials.length;
+    
+            // The random exponents ru and rv are shared by all credentials (and the shortened credential if requested).
+            // Their powers only depend on the public keys and are thus pre-computed in the background.
+            final @Nonnull Element[] aus = new Element[b_prime != null ? size + 1 : size];
+            final @Nonnull Element[] avs = new Element[aus.length];
+            for (int i = 0; i < size; i++) {
+                final @Nonnull PublicKey publicKey = credentials[i].getExposedExponent().getPublicKey();
+                aus[i] = publicKey.getAu();
+                avs[i] = publicKey.getAv();
+            }
+            if (b_prime != null) {
+                Require.that(publicKeyOfReceivingHost != null).orThrow("If credentials are to be shortened, the public key of the receiving host is retrieved in the constructor.");
+                aus[size] = publicKeyOfReceivingHost.getAu();
+                avs[size] = publicKeyOfReceivingHost.getAv();
+            }
+    
+            final @Nonnull SecureRandom random = Randomness.get();
+            final @Nonnull PowerPool.Powers rus = PowerPool.take(Parameters.RANDOM_EXPONENT.get(), aus);
+            final @Nonnull Exponent ru = rus.getExponent();
             final @Nullable Restrictions restrictions = mainCredential.getRestrictions();
             // TODO: check with Kaspar if it is correct to use the issuer of the exposed exponent
-            final @Nullable Exponent rv = restrictions != null && (mainCredential.getExposedExponent().getIssuer().getAddress().equals(subject) || mainCredential.isRoleBased()) ? null : ExponentBuilder.withValue(new BigInteger(Parameters.RANDOM_EXPONENT.get(), random)).build();
+            final @Nullable PowerPool.Powers rvs = restrictions != null && (mainCredential.getExposedExponent().getIssuer().getAddress().equals(subject) || mainCredential.isRoleBased()) ? null : PowerPool.take(Parameters.RANDOM_EXPONENT.get(), avs);
+            final @Nullable Exponent rv = rvs != null ? rvs.getExponent() : null;
     
-            final int size = credentials.length;
             final @Nonnull ClientCredential[] randomizedCredentials = new ClientCredential[size];
     
             final @Nonnull Exponent[] res = new Exponent[size];
@@ -185,24 +205,29 @@ public abstract class CredentialsSignatureCreator {
                 @Nonnull Element element = publicKey.getCompositeGroup().getElement(BigInteger.ONE);
 
                 res[i] = ExponentBuilder.withValue(new BigInteger(Parameters.RANDOM_CREDENTIAL_EXPONENT.get(), random)).build();
-                rbs[i] = ExponentBuilder.withValue(new BigInteger(Parameters.RANDOM_BLINDING_EXPONENT.get(), random)).build();
+                final @Nonnull PowerPool.Powers rbPowers = PowerPool.take(Parameters.RANDOM_BLINDING_EXPONENT.get(), publicKey.getAb());
+                rbs[i] = rbPowers.getExponent();
 
                 if (!randomizedCredentials[i].isOneTime()) {
-                    ris[i] = ExponentBuilder.withValue(new BigInteger(Parameters.RANDOM_EXPONENT.get(), random)).build();
-                    element = element.multiply(publicKey.getAi().pow(ris[i]));
+                    final @Nonnull PowerPool.Powers riPowers = PowerPool.take(Parameters.RANDOM_EXPONENT.get(), publicKey.getAi());
+                    ris[i] = riPowers.getExponent();
+                    element = element.multiply(riPowers.getPower(0));
                 }
 
-                if (rv != null) element = element.multiply(publicKey.getAv().pow(rv));
+                if (rvs != null) element = element.multiply(rvs.getPower(i));
 
-                final @Nonnull Element ao = randomizedCredentials[i].getC().pow(res[i]).multiply(publicKey.getAb().pow(rbs[i])).multiply(publicKey.getAu().pow(ru)).multiply(element);
+                // The base c is randomized for every signature, which is why its power has to be computed online.
+                final @Nonnull Element ao = randomizedCredentials[i].getC().pow(res[i]).multiply(rbPowers.getPower(0)).multiply(rus.getPower(i)).multiply(element);
                 final @Nonnull VerifiableEncryptionParametersBuilder.InnerVerifiableEncryptionParametersBuilder verifiableEncryptionParametersBuilder = VerifiableEncryptionParametersBuilder.withAo(ao);
 
                 if (lodged && !randomizedCredentials[i].isOneTime()) {
-                    rwis[i] = ExponentBuilder.withValue(new BigInteger(Parameters.RANDOM_BLINDING_EXPONENT.get() - Parameters.HASH_SIZE.get(), random)).build();
-                    rwbs[i] = ExponentBuilder.withValue(new BigInteger(Parameters.RANDOM_BLINDING_EXPONENT.get() - Parameters.HASH_SIZE.get(), random)).build();
+                    final @Nonnull PowerPool.Powers rwiPowers = PowerPool.take(Parameters.RANDOM_BLINDING_EXPONENT.get() - Parameters.HASH_SIZE.get(), publicKey.getY(), publicKey.getG());
+                    final @Nonnull PowerPool.Powers rwbPowers = PowerPool.take(Parameters.RANDOM_BLINDING_EXPONENT.get() - Parameters.HASH_SIZE.get(), publicKey.getY(), publicKey.getG());
+                    rwis[i] = rwiPowers.getExponent();
+                    rwbs[i] = rwbPowers.getExponent();
 
-                    wis.add(getVerifiableEncryption(publicKey, randomizedCredentials[i].getI(), rwis[i]));
-                    wbs.add(getVerifiableEncryption(publicKey, randomizedCredentials[i].getB(), rwbs[i]));
+                    wis.add(getVerifiableEncryption(publicKey, randomizedCredentials[i].getI(), rwiPowers));
+                    wbs.add(getVerifiableEncryption(publicKey, randomizedCredentials[i].getB(), rwbPowers));
 
                     rrwis[i] = ExponentBuilder.withValue(new BigInteger(Parameters.RANDOM_BLINDING_EXPONENT.get(), random)).build();
                     rrwbs[i] = ExponentBuilder.withValue(new BigInteger(Parameters.RANDOM_BLINDING_EXPONENT.get(), random)).build();
@@ -217,11 +242,12 @@ public abstract class CredentialsSignatureCreator {
             @Nullable Element f_prime = null;
             @Nullable Exponent rb = null;
             if (b_prime != null) {
-                Require.that(publicKeyOfReceivingHost != null).orThrow("If credentials are to be shortened, the public key of the receiving host is retrieved in the constructor.");
-                rb = ExponentBuilder.withValue(new BigInteger(Parameters.RANDOM_BLINDING_EXPONENT.get(), random)).build();
+                assert publicKeyOfReceivingHost != null : "If credentials are to be shortened, the public key of the receiving host is not null (see the code above).";
+                final @Nonnull PowerPool.Powers rbPowers = PowerPool.take(Parameters.RANDOM_BLINDING_EXPONENT.get(), publicKeyOfReceivingHost.getAb());
+                rb = rbPowers.getExponent();
         
-                f_prime = publicKeyOfReceivingHost.getAu().pow(ru).multiply(publicKeyOfReceivingHost.getAb().pow(rb));
-                if (rv != null) f_prime = f_prime.multiply(publicKeyOfReceivingHost.getAv().pow(rv));
+                f_prime = rus.getPower(size).multiply(rbPowers.getPower(0));
+                if (rvs != null) f_prime = f_prime.multiply(rvs.getPower(size));
                 tf = new BigInteger(1, XDF.hash(ElementConverter.INSTANCE, f_prime));
         
                 f_prime = publicKeyOfReceivingHost.getAu().pow(u).multiply(publicKeyOfReceivingHost.getAb().pow(b_prime));
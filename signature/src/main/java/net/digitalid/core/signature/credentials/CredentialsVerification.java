@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.core.signature.credentials;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.configuration.Configuration;
+import net.digitalid.utility.exceptions.ExternalException;
+import net.digitalid.utility.exceptions.UncheckedExceptionBuilder;
+import net.digitalid.utility.validation.annotations.math.Positive;
+import net.digitalid.utility.validation.annotations.type.Utility;
+
+import net.digitalid.core.parameters.BoundedExecutor;
+
+/**
+ * The credentials verification executes the independent exponentiations of a credentials signature on a bounded executor.
+ * The tasks never wait for other tasks, which is why the executor cannot deadlock regardless of its number of threads.
+ * 
+ * @see CredentialsSignature#verifySignature()
+ */
+@Utility
+public abstract class CredentialsVerification {
+    
+    /* -------------------------------------------------- Configuration -------------------------------------------------- */
+    
+    /**
+     * Stores whether the exponentiations of credentials signatures are computed in parallel.
+     */
+    public static final @Nonnull Configuration<Boolean> activation = Configuration.with(true);
+    
+    /**
+     * Stores the number of threads that compute the exponentiations.
+     */
+    public static final @Nonnull Configuration<@Positive Integer> threads = Configuration.with(Runtime.getRuntime().availableProcessors());
+    
+    /* -------------------------------------------------- Executor -------------------------------------------------- */
+    
+    private static final @Nonnull BoundedExecutor executor = BoundedExecutor.with("CredentialsVerification", threads);
+    
+    /**
+     * Stops the threads that compute the exponentiations.
+     */
+    @Impure
+    public static void shutDown() {
+        executor.shutDown();
+    }
+    
+    /* -------------------------------------------------- Computation -------------------------------------------------- */
+    
+    /**
+     * Computes the given supplier on the executor or directly on the current thread if the parallel verification is not activated.
+     */
+    @Impure
+    public static <RESULT> @Nonnull CompletableFuture<RESULT> compute(@Nonnull Supplier<RESULT> supplier) {
+        if (activation.get()) { return executor.supply(supplier); }
+        else { return CompletableFuture.completedFuture(supplier.get()); }
+    }
+    
+    /**
+     * Waits for the given future and rethrows the exception with which its computation failed.
+     */
+    @Impure
+    public static <RESULT> RESULT join(@Nonnull CompletableFuture<RESULT> future) {
+        try {
+            return BoundedExecutor.join(future);
+        } catch (@Nonnull ExternalException exception) {
+            throw UncheckedExceptionBuilder.withCause(exception).build();
+        }
+    }
+    
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.core.signature.host;
+
+import java.math.BigInteger;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.generics.Unspecifiable;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.collections.list.ReadOnlyList;
+import net.digitalid.utility.generator.annotations.generators.GenerateBuilder;
+import net.digitalid.utility.generator.annotations.generators.GenerateSubclass;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
+import net.digitalid.utility.validation.annotations.size.NonEmpty;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+
+import net.digitalid.core.asymmetrickey.PublicKey;
+import net.digitalid.core.signature.exceptions.ExpiredSignatureException;
+import net.digitalid.core.signature.exceptions.InvalidSignatureException;
+import net.digitalid.core.signature.exceptions.InvalidSignatureExceptionBuilder;
+
+/**
+ * This class signs the wrapped object as a host by signing the root of a Merkle tree that contains the content hash of this signature.
+ * Batched host signatures have their own converter so that the encoding of ordinary host signatures remains unchanged.
+ * 
+ * @see HostSignatureBatcher
+ * @see BatchedHostSignatureConverter
+ */
+@Mutable
+@GenerateBuilder
+@GenerateSubclass
+public abstract class BatchedHostSignature<@Unspecifiable OBJECT> extends HostSignature<OBJECT> {
+    
+    /* -------------------------------------------------- Merkle Path -------------------------------------------------- */
+    
+    /**
+     * Returns the sibling nodes from the leaf of this signature up to the root of the Merkle tree whose root is signed.
+     */
+    @Pure
+    public abstract @Nonnull @NonEmpty ReadOnlyList<@Nonnull BigInteger> getMerklePath();
+    
+    /**
+     * Returns the index of the leaf of this signature in the Merkle tree whose root is signed.
+     */
+    @Pure
+    public abstract @NonNegative long getMerkleIndex();
+    
+    /* -------------------------------------------------- Verification -------------------------------------------------- */
+    
+    /**
+     * Verifies the correctness of the batched host signature by using the given public key.
+     */
+    @Pure
+    @Override
+    public void verifySignature(@Nonnull PublicKey publicKey) throws InvalidSignatureException, ExpiredSignatureException {
+        final @Nonnull BigInteger computedHash = publicKey.getCompositeGroup().getElement(getSignatureValue()).pow(publicKey.getE()).getValue();
+        if (!computedHash.equals(MerkleTree.getRoot(getHostSignatureContentHash(), getMerkleIndex(), getMerklePath()))) {
+            throw InvalidSignatureExceptionBuilder.withSignature(this).build();
+        }
+    }
+    
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.core.signature.host;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.collections.list.FreezableArrayList;
+import net.digitalid.utility.collections.list.FreezableList;
+import net.digitalid.utility.collections.list.ReadOnlyList;
+import net.digitalid.utility.configuration.Configuration;
+import net.digitalid.utility.conversion.interfaces.Converter;
+import net.digitalid.utility.exceptions.UncheckedExceptionBuilder;
+import net.digitalid.utility.logging.Log;
+import net.digitalid.utility.threading.NamedThreadFactory;
+import net.digitalid.utility.time.Time;
+import net.digitalid.utility.time.TimeBuilder;
+import net.digitalid.utility.tuples.Pair;
+import net.digitalid.utility.validation.annotations.math.Positive;
+import net.digitalid.utility.validation.annotations.type.Utility;
+
+import net.digitalid.core.asymmetrickey.PrivateKey;
+import net.digitalid.core.asymmetrickey.PrivateKeyRetriever;
+import net.digitalid.core.exceptions.request.RequestErrorCode;
+import net.digitalid.core.exceptions.request.RequestException;
+import net.digitalid.core.exceptions.request.RequestExceptionBuilder;
+import net.digitalid.core.identification.identifier.InternalIdentifier;
+
+/**
+ * The host signature batcher collects the objects that a host signs within a short window and signs the root of a
+ * {@link MerkleTree Merkle tree} over their content hashes once. Each resulting {@link BatchedHostSignature batched host signature}
+ * contains the signed root and the Merkle path of its content hash. A batch is signed as soon as its window elapsed or it reached its {@link #size},
+ * and the window is capped at {@link #MAXIMAL_WINDOW} milliseconds so that the latency of the signing stays bounded.
+ * Since batched host signatures are encoded as a separate subtype of signatures, a host should only activate the batching
+ * once the clients that it serves can decode them.
+ * 
+ * @see BatchedHostSignatureConverter
+ */
+@Utility
+public abstract class HostSignatureBatcher {
+    
+    /* -------------------------------------------------- Configuration -------------------------------------------------- */
+    
+    /**
+     * Stores whether the host signatures are created in batches.
+     */
+    public static final @Nonnull Configuration<Boolean> activation = Configuration.with(false);
+    
+    /**
+     * Stores the number of milliseconds during which the objects to be signed are collected.
+     */
+    public static final @Nonnull Configuration<@Positive Integer> window = Configuration.with(5);
+    
+    /**
+     * The maximal number of milliseconds during which the objects to be signed are collected.
+     */
+    public static final int MAXIMAL_WINDOW = 100;
+    
+    /**
+     * Stores the number of objects after which a batch is signed without waiting for the end of its window.
+     */
+    public static final @Nonnull Configuration<@Positive Integer> size = Configuration.with(64);
+    
+    /**
+     * Stores the number of milliseconds that a caller waits for the signature of its batch.
+     */
+    public static final @Nonnull Configuration<@Positive Integer> timeout = Configuration.with(10_000);
+    
+    /* -------------------------------------------------- Requests -------------------------------------------------- */
+    
+    /**
+     * A request stores an object that is to be signed until the host signature of its batch is available.
+     */
+    private static final class Request<OBJECT> {
+        
+        private final @Nonnull OBJECT object;
+        
+        private final @Nonnull Converter<OBJECT, Void> objectConverter;
+        
+        private final @Nonnull InternalIdentifier subject;
+        
+        private final @Nonnull Time time = TimeBuilder.build();
+        
+        private final @Nonnull BigInteger hash;
+        
+        private final @Nonnull CompletableFuture<@Nonnull HostSignature<OBJECT>> future = new CompletableFuture<>();
+        
+        private Request(@Nonnull OBJECT object, @Nonnull Converter<OBJECT, Void> objectConverter, @Nonnull InternalIdentifier subject) {
+            this.object = object;
+            this.objectConverter = objectConverter;
+            this.subject = subject;
+            this.hash = HostSignature.getContentHash(time, subject, objectConverter, object);
+        }
+        
+        @Impure
+        private void complete(@Nonnull InternalIdentifier signer, @Nonnull BigInteger value) {
+            future.complete(HostSignatureBuilder.withObjectConverter(objectConverter).withObject(object).withSubject(subject).withSigner(signer).withSignatureValue(value).withTime(time).build());
+        }
+        
+        @Impure
+        private void complete(@Nonnull InternalIdentifier signer, @Nonnull BigInteger value, @Nonnull ReadOnlyList<@Nonnull BigInteger> merklePath, long merkleIndex) {
+            future.complete(BatchedHostSignatureBuilder.withObjectConverter(objectConverter).withObject(object).withSubject(subject).withSigner(signer).withSignatureValue(value).withMerklePath(merklePath).withMerkleIndex(merkleIndex).withTime(time).build());
+        }
+        
+    }
+    
+    /* -------------------------------------------------- Batches -------------------------------------------------- */
+    
+    /**
+     * Stores the batch of each signer that is still open for further requests.
+     */
+    private static final @Nonnull Map<@Nonnull InternalIdentifier, @Nonnull List<@Nonnull Request<?>>> batches = new HashMap<>();
+    
+    private static @Nullable ScheduledExecutorService scheduler;
+    
+    /**
+     * Returns the scheduler that signs the batches whose window elapsed.
+     */
+    @Impure
+    private static synchronized @Nonnull ScheduledExecutorService getScheduler() {
+        if (scheduler == null) { scheduler = Executors.newSingleThreadScheduledExecutor(NamedThreadFactory.with("HostSignatureBatcher")); }
+        return scheduler;
+    }
+    
+    /**
+     * Stops the scheduler after signing the batches whose window has not yet elapsed.
+     */
+    @Impure
+    public static synchronized void shutDown() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            scheduler = null;
+        }
+    }
+    
+    /**
+     * Closes the given batch of the given signer if it is still open.
+     * 
+     * @return whether the batch was still open and thus has to be signed by the caller.
+     */
+    @Impure
+    private static synchronized boolean close(@Nonnull InternalIdentifier signer, @Nonnull List<@Nonnull Request<?>> batch) {
+        return batches.remove(signer, batch);
+    }
+    
+    /**
+     * Signs the root of the Merkle tree over the given batch and completes all its requests.
+     */
+    @Impure
+    private static void sign(@Nonnull InternalIdentifier signer, @Nonnull List<@Nonnull Request<?>> batch) {
+        try {
+            final @Nonnull PrivateKey privateKey = PrivateKeyRetriever.retrieve(signer.getHostIdentifier(), TimeBuilder.build());
+            if (batch.size() == 1) {
+                // A single object is signed directly, which results in an ordinary host signature.
+                final @Nonnull Request<?> request = batch.get(0);
+                request.complete(signer, privateKey.powD(request.hash).getValue());
+            } else {
+                final @Nonnull FreezableList<@Nonnull BigInteger> hashes = FreezableArrayList.withInitialCapacity(batch.size());
+                for (final @Nonnull Request<?> request : batch) { hashes.add(request.hash); }
+                final @Nonnull Pair<@Nonnull BigInteger, @Nonnull ReadOnlyList<@Nonnull ReadOnlyList<@Nonnull BigInteger>>> tree = MerkleTree.build(hashes.freeze());
+                final @Nonnull BigInteger value = privateKey.powD(tree.get0()).getValue();
+                Log.debugging("$ signed the Merkle root $ of $ objects.", signer, tree.get0(), batch.size());
+                for (int i = 0; i < batch.size(); i++) { batch.get(i).complete(signer, value, tree.get1().get(i), i); }
+            }
+        } catch (@Nonnull RequestException | RuntimeException exception) {
+            for (final @Nonnull Request<?> request : batch) { request.future.completeExceptionally(exception); }
+        }
+    }
+    
+    /* -------------------------------------------------- Signing -------------------------------------------------- */
+    
+    /**
+     * Signs the given object about the given subject as the given signer and waits until its batch has been signed.
+     * If the batching is not activated, the object is signed directly with the {@link HostSignatureCreator}.
+     */
+    @Impure
+    public static <OBJECT> @Nonnull HostSignature<OBJECT> sign(@Nonnull OBJECT object, @Nonnull Converter<OBJECT, Void> objectConverter, @Nonnull InternalIdentifier subject, @Nonnull InternalIdentifier signer) {
+        if (!activation.get()) { return HostSignatureCreator.sign(object, objectConverter).about(subject).as(signer); }
+        
+        final @Nonnull Request<OBJECT> request = new Request<>(object, objectConverter, subject);
+        @Nullable List<@Nonnull Request<?>> fullBatch = null;
+        synchronized (HostSignatureBatcher.class) {
+            @Nullable List<@Nonnull Request<?>> batch = batches.get(signer);
+            if (batch == null) {
+                final @Nonnull List<@Nonnull Request<?>> newBatch = new ArrayList<>();
+                batches.put(signer, newBatch);
+                getScheduler().schedule(() -> { if (close(signer, newBatch)) { sign(signer, newBatch); } }, Math.min(window.get(), MAXIMAL_WINDOW), TimeUnit.MILLISECONDS);
+                batch = newBatch;
+            }
+            batch.add(request);
+            if (batch.size() >= size.get() && close(signer, batch)) { fullBatch = batch; }
+        }
+        if (fullBatch != null) { sign(signer, fullBatch); }
+        
+        try {
+            return request.future.get(timeout.get(), TimeUnit.MILLISECONDS);
+        } catch (@Nonnull TimeoutException exception) {
+            throw UncheckedExceptionBuilder.withCause(RequestExceptionBuilder.withCode(RequestErrorCode.INTERNAL).withMessage("The batch of " + signer.getString() + " was not signed within " + timeout.get() + " ms.").withCause(exception).build()).build();
+        } catch (@Nonnull InterruptedException | ExecutionException exception) {
+            throw UncheckedExceptionBuilder.withCause(exception).build();
+        }
+    }
+    
+    /**
+     * Returns whether the given host signature signs the root of a Merkle tree instead of its own content hash.
+     */
+    @Pure
+    public static boolean isBatched(@Nonnull HostSignature<?> hostSignature) {
+        return hostSignature instanceof BatchedHostSignature;
+    }
+    
+}
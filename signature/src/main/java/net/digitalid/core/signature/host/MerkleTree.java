@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.core.signature.host;
+
+import java.math.BigInteger;
+import java.security.MessageDigest;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.collections.list.FreezableArrayList;
+import net.digitalid.utility.collections.list.FreezableList;
+import net.digitalid.utility.collections.list.ReadOnlyList;
+import net.digitalid.utility.contracts.Require;
+import net.digitalid.utility.tuples.Pair;
+import net.digitalid.utility.validation.annotations.math.NonNegative;
+import net.digitalid.utility.validation.annotations.size.NonEmpty;
+import net.digitalid.utility.validation.annotations.type.Utility;
+
+import net.digitalid.core.parameters.Digests;
+import net.digitalid.core.parameters.Parameters;
+
+/**
+ * This class computes the Merkle trees with which a host signs several content hashes at once.
+ * Leaves and inner nodes are hashed with different prefixes so that the root of a tree can never
+ * be mistaken for the content hash of a signature, and a node without a sibling on its level is paired with itself.
+ * 
+ * @see HostSignatureBatcher
+ */
+@Utility
+public abstract class MerkleTree {
+    
+    /* -------------------------------------------------- Nodes -------------------------------------------------- */
+    
+    /**
+     * Returns the hash of the given prefix followed by the given values, which are each encoded with the length of the hash function.
+     */
+    @Pure
+    private static @Nonnull BigInteger hash(byte prefix, @Nonnull BigInteger... values) {
+        final int length = (Parameters.HASH_SIZE.get() + 7) / 8;
+        final @Nonnull MessageDigest messageDigest = Digests.acquire();
+        try {
+            messageDigest.update(prefix);
+            for (final @Nonnull BigInteger value : values) {
+                final @Nonnull byte[] bytes = value.toByteArray();
+                final @Nonnull byte[] padded = new byte[Math.max(length, bytes.length)];
+                System.arraycopy(bytes, 0, padded, padded.length - bytes.length, bytes.length);
+                messageDigest.update(padded);
+            }
+            return new BigInteger(1, messageDigest.digest());
+        } finally {
+            Digests.release(messageDigest);
+        }
+    }
+    
+    /**
+     * Returns the leaf of the given content hash.
+     */
+    @Pure
+    public static @Nonnull BigInteger getLeaf(@Nonnull BigInteger contentHash) {
+        return hash((byte) 0, contentHash);
+    }
+    
+    /**
+     * Returns the parent of the given left and right node.
+     */
+    @Pure
+    public static @Nonnull BigInteger getParent(@Nonnull BigInteger left, @Nonnull BigInteger right) {
+        return hash((byte) 1, left, right);
+    }
+    
+    /* -------------------------------------------------- Root -------------------------------------------------- */
+    
+    /**
+     * Returns the root that results from combining the leaf of the given content hash at the given index with the nodes of the given path.
+     * The bits of the index determine from the bottom up whether the next node of the path is the left or the right sibling.
+     */
+    @Pure
+    public static @Nonnull BigInteger getRoot(@Nonnull BigInteger contentHash, @NonNegative long index, @Nonnull ReadOnlyList<@Nonnull BigInteger> path) {
+        @Nonnull BigInteger node = getLeaf(contentHash);
+        for (final @Nonnull BigInteger sibling : path) {
+            node = (index & 1) == 0 ? getParent(node, sibling) : getParent(sibling, node);
+            index >>>= 1;
+        }
+        return node;
+    }
+    
+    /* -------------------------------------------------- Construction -------------------------------------------------- */
+    
+    /**
+     * Returns the root of the Merkle tree over the given content hashes and the path of every content hash in the same order.
+     */
+    @Pure
+    public static @Nonnull Pair<@Nonnull BigInteger, @Nonnull ReadOnlyList<@Nonnull ReadOnlyList<@Nonnull BigInteger>>> build(@Nonnull @NonEmpty ReadOnlyList<@Nonnull BigInteger> contentHashes) {
+        Require.that(!contentHashes.isEmpty()).orThrow("The content hashes may not be empty.");
+        
+        final int size = contentHashes.size();
+        final @Nonnull FreezableList<@Nonnull FreezableList<@Nonnull BigInteger>> paths = FreezableArrayList.withInitialCapacity(size);
+        @Nonnull FreezableList<@Nonnull BigInteger> level = FreezableArrayList.withInitialCapacity(size);
+        for (final @Nonnull BigInteger contentHash : contentHashes) {
+            paths.add(FreezableArrayList.withNoElements());
+            level.add(getLeaf(contentHash));
+        }
+        
+        // The leaves below the current level are grouped into subtrees of the given width.
+        for (int width = 1; level.size() > 1; width *= 2) {
+            final @Nonnull FreezableList<@Nonnull BigInteger> parents = FreezableArrayList.withInitialCapacity((level.size() + 1) / 2);
+            for (int i = 0; i < level.size(); i += 2) {
+                final @Nonnull BigInteger left = level.get(i);
+                final @Nonnull BigInteger right = i + 1 < level.size() ? level.get(i + 1) : left;
+                for (int leaf = i * width; leaf < Math.min((i + 1) * width, size); leaf++) { paths.get(leaf).add(right); }
+                for (int leaf = (i + 1) * width; leaf < Math.min((i + 2) * width, size); leaf++) { paths.get(leaf).add(left); }
+                parents.add(getParent(left, right));
+            }
+            level = parents;
+        }
+        
+        final @Nonnull FreezableList<@Nonnull ReadOnlyList<@Nonnull BigInteger>> result = FreezableArrayList.withInitialCapacity(size);
+        for (final @Nonnull FreezableList<@Nonnull BigInteger> path : paths) { result.add(path.freeze()); }
+        return Pair.of(level.get(0), result.freeze());
+    }
+    
+}
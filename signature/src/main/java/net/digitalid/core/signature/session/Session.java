@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.core.signature.session;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.generator.annotations.generators.GenerateBuilder;
+import net.digitalid.utility.generator.annotations.generators.GenerateConverter;
+import net.digitalid.utility.generator.annotations.generators.GenerateSubclass;
+import net.digitalid.utility.rootclass.RootClass;
+import net.digitalid.utility.time.Time;
+import net.digitalid.utility.validation.annotations.type.Immutable;
+
+/**
+ * A session combines a session token with the session key that the host derived from it.
+ * Sessions are only transmitted in replies that are encrypted with the symmetric key of the request.
+ * 
+ * @see SessionSignatureCreator
+ */
+@Immutable
+@GenerateBuilder
+@GenerateSubclass
+@GenerateConverter
+public abstract class Session extends RootClass {
+    
+    /* -------------------------------------------------- Fields -------------------------------------------------- */
+    
+    /**
+     * Returns the token of this session.
+     */
+    @Pure
+    public abstract @Nonnull SessionToken getToken();
+    
+    /**
+     * Returns the key with which requests in this session are authenticated.
+     */
+    @Pure
+    public abstract @Nonnull byte[] getKey();
+    
+    /* -------------------------------------------------- Validity -------------------------------------------------- */
+    
+    /**
+     * Returns whether this session can still be used for the given duration.
+     */
+    @Pure
+    public boolean isValidFor(@Nonnull Time duration) {
+        return getToken().getExpiration().isGreaterThan(duration.ahead());
+    }
+    
+}
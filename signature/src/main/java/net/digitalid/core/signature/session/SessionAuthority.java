@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.core.signature.session;
+
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.configuration.Configuration;
+import net.digitalid.utility.errors.SupportErrorBuilder;
+import net.digitalid.utility.time.Time;
+import net.digitalid.utility.validation.annotations.type.Utility;
+
+import net.digitalid.core.commitment.Commitment;
+import net.digitalid.core.conversion.XDF;
+import net.digitalid.core.identification.identifier.HostIdentifier;
+import net.digitalid.core.identification.identifier.InternalIdentifier;
+import net.digitalid.core.parameters.Randomness;
+
+/**
+ * The session authority issues session tokens on hosts and derives their session keys.
+ * The session key of a token is the message authentication code of the token under a secret of the host,
+ * which is generated randomly for every process. All sessions are thus invalidated when the server restarts.
+ */
+@Utility
+public abstract class SessionAuthority {
+    
+    /* -------------------------------------------------- Configuration -------------------------------------------------- */
+    
+    /**
+     * Stores whether hosts issue and accept session tokens.
+     */
+    public static final @Nonnull Configuration<Boolean> activation = Configuration.with(false);
+    
+    /**
+     * Stores the duration for which an issued session token is valid.
+     */
+    public static final @Nonnull Configuration<Time> lifetime = Configuration.with(Time.HALF_HOUR);
+    
+    /* -------------------------------------------------- Message Authentication -------------------------------------------------- */
+    
+    /**
+     * The algorithm with which session keys are derived and requests are authenticated.
+     */
+    public static final @Nonnull String ALGORITHM = "HmacSHA256";
+    
+    /**
+     * Returns the message authentication code of the given message under the given key.
+     */
+    @Pure
+    public static @Nonnull byte[] authenticate(@Nonnull byte[] key, @Nonnull byte[] message) {
+        try {
+            final @Nonnull Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(new SecretKeySpec(key, ALGORITHM));
+            return mac.doFinal(message);
+        } catch (@Nonnull GeneralSecurityException exception) {
+            throw SupportErrorBuilder.withMessage("The message authentication code '" + ALGORITHM + "' is not supported on this platform.").withCause(exception).build();
+        }
+    }
+    
+    /**
+     * Returns the message authentication code of the given content hash under the given key.
+     */
+    @Pure
+    public static @Nonnull BigInteger authenticate(@Nonnull byte[] key, @Nonnull BigInteger contentHash) {
+        return new BigInteger(1, authenticate(key, contentHash.toByteArray()));
+    }
+    
+    /* -------------------------------------------------- Secret -------------------------------------------------- */
+    
+    private static @Nullable byte[] secret;
+    
+    /**
+     * Returns the secret of this host, which is generated on first use.
+     */
+    @Impure
+    private static synchronized @Nonnull byte[] getSecret() {
+        if (secret == null) {
+            secret = new byte[32];
+            Randomness.get().nextBytes(secret);
+        }
+        return secret;
+    }
+    
+    /**
+     * Replaces the secret of this host so that all previously issued sessions are invalidated.
+     */
+    @Impure
+    public static synchronized void rotateSecret() {
+        secret = null;
+    }
+    
+    /* -------------------------------------------------- Issuance -------------------------------------------------- */
+    
+    /**
+     * Derives the session key of the given token.
+     */
+    @Impure
+    public static @Nonnull byte[] deriveKey(@Nonnull SessionToken token) {
+        return authenticate(getSecret(), XDF.convert(SessionTokenConverter.INSTANCE, token));
+    }
+    
+    /**
+     * Issues a new session for the given subject at the given host to the client with the given commitment.
+     */
+    @Impure
+    public static @Nonnull Session issue(@Nonnull HostIdentifier host, @Nonnull InternalIdentifier subject, @Nonnull Commitment commitment) {
+        final @Nonnull SessionToken token = SessionTokenBuilder.withHost(host).withSubject(subject).withCommitment(commitment).withExpiration(lifetime.get().ahead()).build();
+        return SessionBuilder.withToken(token).withKey(deriveKey(token)).build();
+    }
+    
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.core.signature.session;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.concurrency.map.ConcurrentHashMapBuilder;
+import net.digitalid.utility.concurrency.map.ConcurrentMap;
+import net.digitalid.utility.time.Time;
+import net.digitalid.utility.tuples.Pair;
+import net.digitalid.utility.validation.annotations.type.Utility;
+
+import net.digitalid.core.commitment.Commitment;
+import net.digitalid.core.identification.identifier.InternalIdentifier;
+
+/**
+ * The session cache stores the sessions that hosts issued to this client.
+ * A session is removed as soon as a host rejects it, which happens for example when the host restarted.
+ */
+@Utility
+public abstract class SessionCache {
+    
+    /**
+     * Stores the sessions by the subject and the commitment to which they were issued.
+     */
+    private static final @Nonnull ConcurrentMap<@Nonnull Pair<@Nonnull InternalIdentifier, @Nonnull Commitment>, @Nonnull Session> sessions = ConcurrentHashMapBuilder.build();
+    
+    /**
+     * Returns the session for the given subject and commitment or null if there is no session that remains valid for the given duration.
+     */
+    @Pure
+    public static @Nullable Session get(@Nonnull InternalIdentifier subject, @Nonnull Commitment commitment, @Nonnull Time duration) {
+        final @Nullable Session session = sessions.get(Pair.of(subject, commitment));
+        return session != null && session.isValidFor(duration) ? session : null;
+    }
+    
+    /**
+     * Stores the given session under the subject and commitment of its token.
+     */
+    @Impure
+    public static void store(@Nonnull Session session) {
+        sessions.put(Pair.of(session.getToken().getSubject(), session.getToken().getCommitment()), session);
+    }
+    
+    /**
+     * Removes the session with the given token, for example because the host no longer accepts it.
+     */
+    @Impure
+    public static void invalidate(@Nonnull SessionToken token) {
+        final @Nonnull Pair<@Nonnull InternalIdentifier, @Nonnull Commitment> key = Pair.of(token.getSubject(), token.getCommitment());
+        final @Nullable Session session = sessions.get(key);
+        if (session != null && session.getToken().equals(token)) { sessions.remove(key, session); }
+    }
+    
+    /**
+     * Removes all sessions.
+     */
+    @Impure
+    public static void clear() {
+        sessions.clear();
+    }
+    
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.core.signature.session;
+
+import java.math.BigInteger;
+import java.security.MessageDigest;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.digitalid.utility.annotations.generics.Unspecifiable;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.generator.annotations.generators.GenerateBuilder;
+import net.digitalid.utility.generator.annotations.generators.GenerateSubclass;
+import net.digitalid.utility.validation.annotations.generation.Derive;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+
+import net.digitalid.core.commitment.Commitment;
+import net.digitalid.core.identification.identifier.HostIdentifier;
+import net.digitalid.core.signature.Signature;
+import net.digitalid.core.signature.exceptions.ExpiredSignatureException;
+import net.digitalid.core.signature.exceptions.ExpiredSignatureExceptionBuilder;
+import net.digitalid.core.signature.exceptions.InvalidSignatureException;
+import net.digitalid.core.signature.exceptions.InvalidSignatureExceptionBuilder;
+
+/**
+ * This class authenticates the wrapped object with the key of a session that a host issued to a client.
+ * In contrast to a client signature, the verification only requires a symmetric message authentication code.
+ */
+@Mutable
+@GenerateBuilder
+@GenerateSubclass
+public abstract class SessionSignature<@Unspecifiable OBJECT> extends Signature<OBJECT> {
+    
+    /* -------------------------------------------------- Token -------------------------------------------------- */
+    
+    /**
+     * Returns the session token of this session signature.
+     */
+    @Pure
+    public abstract @Nonnull SessionToken getToken();
+    
+    /**
+     * Returns the commitment of the client to which the session was issued.
+     */
+    @Pure
+    public @Nonnull Commitment getCommitment() {
+        return getToken().getCommitment();
+    }
+    
+    /**
+     * Returns the message authentication code of the content hash under the session key.
+     */
+    @Pure
+    public abstract @Nonnull BigInteger getMac();
+    
+    /* -------------------------------------------------- Hashing -------------------------------------------------- */
+    
+    /**
+     * Calculates the hash of the session signature content.
+     */
+    @Pure
+    protected @Nullable BigInteger deriveSessionSignatureContentHash() {
+        return Signature.getContentHash(getTime(), getSubject(), getObjectConverter(), getObject());
+    }
+    
+    /**
+     * The session signature content hash, which is set if the session signature is recovered.
+     */
+    @Pure
+    @Derive("deriveSessionSignatureContentHash()")
+    protected abstract @Nonnull BigInteger getSessionSignatureContentHash();
+    
+    /* -------------------------------------------------- Verification -------------------------------------------------- */
+    
+    /**
+     * Verifies the session signature by recomputing the session key from the token and the code of the content hash.
+     * This only succeeds on the host that issued the token, as long as sessions are activated and the token has not expired.
+     * Since all hosts of a server share the secret of the session authority, the token also has to be issued by the host of the subject.
+     */
+    @Pure
+    @Override
+    public void verifySignature() throws InvalidSignatureException, ExpiredSignatureException {
+        checkExpiration();
+        
+        final @Nonnull SessionToken token = getToken();
+        if (token.isExpired()) { throw ExpiredSignatureExceptionBuilder.withSignature(this).build(); }
+        if (!SessionAuthority.activation.get() || !token.getSubject().equals(getSubject()) || !token.getHost().equals(getSubject().getHostIdentifier())) { throw InvalidSignatureExceptionBuilder.withSignature(this).build(); }
+        
+        final @Nonnull BigInteger mac = SessionAuthority.authenticate(SessionAuthority.deriveKey(token), getSessionSignatureContentHash());
+        // The codes are compared in constant time in order not to leak how many leading bytes are correct.
+        if (!MessageDigest.isEqual(mac.toByteArray(), getMac().toByteArray())) {
+            throw InvalidSignatureExceptionBuilder.withSignature(this).build();
+        }
+    }
+    
+    /**
+     * Verifies the session signature like {@link #verifySignature()} and checks that the token was issued by the given recipient.
+     */
+    @Pure
+    public void verifySignature(@Nonnull HostIdentifier recipient) throws InvalidSignatureException, ExpiredSignatureException {
+        if (!getToken().getHost().equals(recipient)) { throw InvalidSignatureExceptionBuilder.withSignature(this).build(); }
+        verifySignature();
+    }
+    
+}
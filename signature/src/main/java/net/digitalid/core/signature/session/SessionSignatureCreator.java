@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.core.signature.session;
+
+import java.math.BigInteger;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.conversion.interfaces.Converter;
+import net.digitalid.utility.time.Time;
+import net.digitalid.utility.time.TimeBuilder;
+import net.digitalid.utility.validation.annotations.type.Utility;
+
+import net.digitalid.core.identification.identifier.InternalIdentifier;
+import net.digitalid.core.signature.Signature;
+
+/**
+ * Creates a session signature by authenticating an object of generic type OBJECT.
+ */
+@Utility
+public abstract class SessionSignatureCreator {
+    
+    public interface SubjectSessionSignatureCreator<OBJECT> {
+        
+        /**
+         * Addresses the signature to a certain subject.
+         */
+        @Impure
+        public @Nonnull SessionSignatureCreator.SessionSessionSignatureCreator<OBJECT> about(@Nonnull InternalIdentifier subject);
+        
+    }
+    
+    public interface SessionSessionSignatureCreator<OBJECT> {
+        
+        /**
+         * Authenticates the object with the key of the given session.
+         */
+        @Pure
+        public @Nonnull SessionSignature<OBJECT> with(@Nonnull Session session);
+        
+    }
+    
+    /**
+     * Inner class for the session signature creator which structures the parameters required for signing.
+     */
+    public static class InnerSessionSignatureCreator<OBJECT> implements SubjectSessionSignatureCreator<OBJECT>, SessionSessionSignatureCreator<OBJECT> {
+        
+        private final @Nonnull OBJECT object;
+        
+        private final @Nonnull Converter<OBJECT, Void> objectConverter;
+        
+        /**
+         * Creates a new InnerSessionSignatureCreator.
+         */
+        private InnerSessionSignatureCreator(@Nonnull OBJECT object, @Nonnull Converter<OBJECT, Void> objectConverter) {
+            this.object = object;
+            this.objectConverter = objectConverter;
+        }
+        
+        private @Nonnull InternalIdentifier subject;
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Impure
+        @Override
+        public @Nonnull SessionSignatureCreator.InnerSessionSignatureCreator<OBJECT> about(@Nonnull InternalIdentifier subject) {
+            this.subject = subject;
+            return this;
+        }
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Pure
+        @Override
+        public @Nonnull SessionSignature<OBJECT> with(@Nonnull Session session) {
+            final @Nonnull Time time = TimeBuilder.build();
+            final @Nonnull BigInteger hash = Signature.getContentHash(time, subject, objectConverter, object);
+            final @Nonnull BigInteger mac = SessionAuthority.authenticate(session.getKey(), hash);
+            return SessionSignatureBuilder.withObjectConverter(objectConverter).withObject(object).withSubject(subject).withToken(session.getToken()).withMac(mac).withTime(time).build();
+        }
+        
+    }
+    
+    /**
+     * Initializes the authentication of a given object with a session signature.
+     */
+    @Pure
+    public static <OBJECT> @Nonnull SubjectSessionSignatureCreator<OBJECT> sign(@Nonnull OBJECT object, @Nonnull Converter<OBJECT, Void> objectConverter) {
+        return new InnerSessionSignatureCreator<>(object, objectConverter);
+    }
+    
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.core.signature.session;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.generator.annotations.generators.GenerateBuilder;
+import net.digitalid.utility.generator.annotations.generators.GenerateConverter;
+import net.digitalid.utility.generator.annotations.generators.GenerateSubclass;
+import net.digitalid.utility.rootclass.RootClass;
+import net.digitalid.utility.time.Time;
+import net.digitalid.utility.validation.annotations.type.Immutable;
+
+import net.digitalid.core.commitment.Commitment;
+import net.digitalid.core.identification.identifier.HostIdentifier;
+import net.digitalid.core.identification.identifier.InternalIdentifier;
+
+/**
+ * A session token is issued by a host after the successful verification of a client signature.
+ * The token binds the session to the commitment of the client and thereby to its agent.
+ * The host does not store the token, since the session key can be derived from it again.
+ * 
+ * @see SessionAuthority
+ */
+@Immutable
+@GenerateBuilder
+@GenerateSubclass
+@GenerateConverter
+public abstract class SessionToken extends RootClass {
+    
+    /* -------------------------------------------------- Fields -------------------------------------------------- */
+    
+    /**
+     * Returns the host that issued this session token.
+     */
+    @Pure
+    public abstract @Nonnull HostIdentifier getHost();
+    
+    /**
+     * Returns the subject for which this session token was issued.
+     */
+    @Pure
+    public abstract @Nonnull InternalIdentifier getSubject();
+    
+    /**
+     * Returns the commitment of the client to which this session token was issued.
+     */
+    @Pure
+    public abstract @Nonnull Commitment getCommitment();
+    
+    /**
+     * Returns the time after which this session token is no longer accepted.
+     */
+    @Pure
+    public abstract @Nonnull Time getExpiration();
+    
+    /* -------------------------------------------------- Expiration -------------------------------------------------- */
+    
+    /**
+     * Returns whether this session token has expired.
+     */
+    @Pure
+    public boolean isExpired() {
+        return getExpiration().isInPast();
+    }
+    
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.core.signature.credentials;
+
+import java.util.concurrent.CompletableFuture;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.testing.UtilityTest;
+
+import org.junit.Test;
+
+public class CredentialsVerificationTest extends UtilityTest {
+    
+    @Test
+    public void shouldComputeInParallel() {
+        final @Nonnull CompletableFuture<@Nonnull String> future = CredentialsVerification.compute(() -> Thread.currentThread().getName());
+        assertThat(CredentialsVerification.join(future)).isNotEqualTo(Thread.currentThread().getName());
+    }
+    
+    @Test
+    public void shouldComputeSequentially() {
+        try {
+            CredentialsVerification.activation.set(false);
+            final @Nonnull CompletableFuture<@Nonnull String> future = CredentialsVerification.compute(() -> Thread.currentThread().getName());
+            assertThat(future.isDone()).isTrue();
+            assertThat(CredentialsVerification.join(future)).isEqualTo(Thread.currentThread().getName());
+        } finally {
+            CredentialsVerification.activation.set(true);
+        }
+    }
+    
+    @Test
+    public void shouldRethrowFailure() {
+        final @Nonnull CompletableFuture<@Nonnull String> future = CredentialsVerification.compute(() -> { throw new IllegalStateException("failure"); });
+        assertThatThrownBy(() -> CredentialsVerification.join(future)).isInstanceOf(IllegalStateException.class).hasMessage("failure");
+    }
+    
+}
@@ -15,15 +15,26 @@
  */
 package net.digitalid.core.signature.host;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.math.BigInteger;
 
 import javax.annotation.Nonnull;
 
+import net.digitalid.utility.collections.list.FreezableArrayList;
+import net.digitalid.utility.conversion.converters.IntegerConverter;
 import net.digitalid.utility.conversion.converters.StringConverter;
 import net.digitalid.utility.conversion.exceptions.RecoveryException;
+import net.digitalid.utility.time.Time;
+import net.digitalid.utility.time.TimeBuilder;
+import net.digitalid.utility.time.TimeConverter;
 
 import net.digitalid.core.conversion.XDF;
 import net.digitalid.core.identification.identifier.InternalIdentifier;
+import net.digitalid.core.identification.identifier.InternalIdentifierConverter;
+import net.digitalid.core.signature.Signature;
+import net.digitalid.core.signature.SignatureConverterBuilder;
 import net.digitalid.core.testing.CoreTest;
 
 import org.junit.Test;
@@ -45,4 +56,41 @@ public class HostSignatureConverterTest extends CoreTest {
         assertThat(recoveredObject.getObject()).isEqualTo(message);
     }
     
+    @Test
+    public void shouldEncodeDirectSignaturesAsBefore() throws IOException {
+        final @Nonnull String message = "This is an authentic message.";
+        final @Nonnull InternalIdentifier subject = InternalIdentifier.with("bob@digitalid.net");
+        final @Nonnull InternalIdentifier signer = InternalIdentifier.with("alice@digitalid.net");
+        final @Nonnull Time time = TimeBuilder.build();
+        
+        final @Nonnull HostSignature<@Nonnull String> hostSignature = HostSignatureBuilder.withObjectConverter(StringConverter.INSTANCE).withObject(message).withSubject(subject).withSigner(signer).withSignatureValue(BigInteger.TEN).withTime(time).build();
+        
+        final @Nonnull ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        new DataOutputStream(expected).writeInt(0);
+        expected.write(XDF.convert(TimeConverter.INSTANCE, time));
+        expected.write(XDF.convert(InternalIdentifierConverter.INSTANCE, subject));
+        expected.write(XDF.convert(InternalIdentifierConverter.INSTANCE, signer));
+        expected.write(XDF.convert(StringConverter.INSTANCE, message));
+        expected.write(XDF.convert(IntegerConverter.INSTANCE, BigInteger.TEN));
+        
+        assertThat(XDF.convert(SignatureConverterBuilder.withObjectConverter(StringConverter.INSTANCE).build(), hostSignature)).isEqualTo(expected.toByteArray());
+    }
+    
+    @Test
+    public void shouldConvertBatchedSignaturesAsSeparateSubtype() throws RecoveryException {
+        final @Nonnull String message = "This is an authentic message.";
+        final @Nonnull InternalIdentifier subject = InternalIdentifier.with("bob@digitalid.net");
+        final @Nonnull InternalIdentifier signer = InternalIdentifier.with("alice@digitalid.net");
+        
+        final @Nonnull BatchedHostSignature<@Nonnull String> batchedHostSignature = BatchedHostSignatureBuilder.withObjectConverter(StringConverter.INSTANCE).withObject(message).withSubject(subject).withSigner(signer).withSignatureValue(BigInteger.ONE).withMerklePath(FreezableArrayList.withElements(BigInteger.ONE, BigInteger.TEN)).withMerkleIndex(2).build();
+        
+        final @Nonnull byte[] bytes = XDF.convert(SignatureConverterBuilder.withObjectConverter(StringConverter.INSTANCE).build(), batchedHostSignature);
+        assertThat(bytes[3]).isEqualTo((byte) 3);
+        
+        final @Nonnull Signature<String> recoveredObject = XDF.recover(SignatureConverterBuilder.withObjectConverter(StringConverter.INSTANCE).build(), null, bytes);
+        assertThat(recoveredObject).isInstanceOf(BatchedHostSignature.class);
+        assertThat(((BatchedHostSignature<String>) recoveredObject).getMerklePath()).containsExactly(BigInteger.ONE, BigInteger.TEN);
+        assertThat(((BatchedHostSignature<String>) recoveredObject).getMerkleIndex()).isEqualTo(2);
+    }
+    
 }
@@ -0,0 +1,53 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.core.signature.host;
+
+import java.math.BigInteger;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.collections.list.FreezableArrayList;
+import net.digitalid.utility.collections.list.FreezableList;
+import net.digitalid.utility.collections.list.ReadOnlyList;
+import net.digitalid.utility.tuples.Pair;
+
+import net.digitalid.core.testing.CoreTest;
+
+import org.junit.Test;
+
+public class MerkleTreeTest extends CoreTest {
+    
+    @Test
+    public void shouldRecomputeRootFromEachPath() {
+        for (int size = 1; size <= 9; size++) {
+            final @Nonnull FreezableList<@Nonnull BigInteger> hashes = FreezableArrayList.withInitialCapacity(size);
+            for (int i = 0; i < size; i++) { hashes.add(BigInteger.valueOf(1000 + i)); }
+            final @Nonnull Pair<@Nonnull BigInteger, @Nonnull ReadOnlyList<@Nonnull ReadOnlyList<@Nonnull BigInteger>>> tree = MerkleTree.build(hashes.freeze());
+            for (int i = 0; i < size; i++) {
+                assertThat(MerkleTree.getRoot(hashes.get(i), i, tree.get1().get(i))).isEqualTo(tree.get0());
+            }
+        }
+    }
+    
+    @Test
+    public void shouldRejectWrongIndex() {
+        final @Nonnull FreezableList<@Nonnull BigInteger> hashes = FreezableArrayList.withElement(BigInteger.ONE);
+        hashes.add(BigInteger.TEN);
+        final @Nonnull Pair<@Nonnull BigInteger, @Nonnull ReadOnlyList<@Nonnull ReadOnlyList<@Nonnull BigInteger>>> tree = MerkleTree.build(hashes.freeze());
+        assertThat(MerkleTree.getRoot(hashes.get(0), 1, tree.get1().get(0))).isNotEqualTo(tree.get0());
+    }
+    
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.core.signature.session;
+
+import java.math.BigInteger;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.utility.conversion.converters.StringConverter;
+import net.digitalid.utility.time.Time;
+import net.digitalid.utility.time.TimeBuilder;
+
+import net.digitalid.core.asymmetrickey.PublicKey;
+import net.digitalid.core.asymmetrickey.PublicKeyRetriever;
+import net.digitalid.core.commitment.SecretCommitment;
+import net.digitalid.core.commitment.SecretCommitmentBuilder;
+import net.digitalid.core.conversion.XDF;
+import net.digitalid.core.group.ExponentBuilder;
+import net.digitalid.core.identification.identifier.HostIdentifier;
+import net.digitalid.core.identification.identifier.InternalIdentifier;
+import net.digitalid.core.identification.identity.HostIdentity;
+import net.digitalid.core.signature.exceptions.InvalidSignatureException;
+import net.digitalid.core.testing.CoreTest;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SessionSignatureCreatorTest extends CoreTest {
+    
+    private static final @Nonnull String MESSAGE = "This is a secret message";
+    
+    private static final @Nonnull HostIdentifier HOST = HostIdentifier.with("digitalid.net");
+    
+    private static final @Nonnull InternalIdentifier SUBJECT = InternalIdentifier.with("bob@digitalid.net");
+    
+    private static final @Nonnull HostIdentifier OTHER_HOST = HostIdentifier.with("other.digitalid.net");
+    
+    private @Nonnull Session issueSession() throws Exception {
+        return issueSession(HOST);
+    }
+    
+    private @Nonnull Session issueSession(@Nonnull HostIdentifier issuer) throws Exception {
+        final @Nonnull Time time = TimeBuilder.buildWithValue(1472810684033L);
+        final @Nonnull HostIdentity hostIdentity = HOST.resolve();
+        final @Nonnull PublicKey publicKey = PublicKeyRetriever.retrieve(hostIdentity, time);
+        final @Nonnull SecretCommitment commitment = SecretCommitmentBuilder.withHost(hostIdentity).withTime(time).withPublicKey(publicKey).withSecret(ExponentBuilder.withValue(BigInteger.TEN).build()).build();
+        return SessionAuthority.issue(issuer, SUBJECT, commitment);
+    }
+    
+    @Before
+    public void activateSessions() {
+        SessionAuthority.activation.set(true);
+    }
+    
+    @After
+    public void deactivateSessions() {
+        SessionAuthority.activation.set(false);
+    }
+    
+    @Test
+    public void shouldSignAndVerifyAfterConversion() throws Exception {
+        final @Nonnull SessionSignature<String> signedMessage = SessionSignatureCreator.sign(MESSAGE, StringConverter.INSTANCE).about(SUBJECT).with(issueSession());
+        signedMessage.verifySignature();
+        
+        final @Nonnull byte[] bytes = XDF.convert(SessionSignatureConverterBuilder.withObjectConverter(StringConverter.INSTANCE).build(), signedMessage);
+        final @Nonnull SessionSignature<String> recoveredSignature = XDF.recover(SessionSignatureConverterBuilder.withObjectConverter(StringConverter.INSTANCE).build(), null, bytes);
+        assertThat(recoveredSignature.getObject()).isEqualTo(MESSAGE);
+        recoveredSignature.verifySignature();
+    }
+    
+    @Test(expected = InvalidSignatureException.class)
+    public void shouldRejectModifiedObject() throws Exception {
+        final @Nonnull SessionSignature<String> signedMessage = SessionSignatureCreator.sign(MESSAGE, StringConverter.INSTANCE).about(SUBJECT).with(issueSession());
+        SessionSignatureBuilder.withObjectConverter(StringConverter.INSTANCE).withObject(MESSAGE + "!").withSubject(SUBJECT).withToken(signedMessage.getToken()).withMac(signedMessage.getMac()).withTime(signedMessage.getTime()).build().verifySignature();
+    }
+    
+    @Test(expected = InvalidSignatureException.class)
+    public void shouldRejectSessionAfterRotation() throws Exception {
+        final @Nonnull SessionSignature<String> signedMessage = SessionSignatureCreator.sign(MESSAGE, StringConverter.INSTANCE).about(SUBJECT).with(issueSession());
+        SessionAuthority.rotateSecret();
+        signedMessage.verifySignature();
+    }
+    
+    @Test
+    public void shouldVerifyWithIssuingRecipient() throws Exception {
+        SessionSignatureCreator.sign(MESSAGE, StringConverter.INSTANCE).about(SUBJECT).with(issueSession()).verifySignature(HOST);
+    }
+    
+    @Test(expected = InvalidSignatureException.class)
+    public void shouldRejectSessionOfOtherHost() throws Exception {
+        SessionSignatureCreator.sign(MESSAGE, StringConverter.INSTANCE).about(SUBJECT).with(issueSession(OTHER_HOST)).verifySignature();
+    }
+    
+    @Test(expected = InvalidSignatureException.class)
+    public void shouldRejectOtherRecipient() throws Exception {
+        SessionSignatureCreator.sign(MESSAGE, StringConverter.INSTANCE).about(SUBJECT).with(issueSession()).verifySignature(OTHER_HOST);
+    }
+    
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.core.symmetrickey;
+
+import java.security.spec.AlgorithmParameterSpec;
+
+import javax.annotation.Nonnull;
+import javax.crypto.spec.GCMParameterSpec;
+
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.validation.annotations.type.Immutable;
+
+/**
+ * This class enumerates the modes in which a {@link SymmetricKey symmetric key} encrypts and decrypts data.
+ * The mode is not encoded but determined by the type of the encryption.
+ */
+@Immutable
+public enum EncryptionMode {
+    
+    /* -------------------------------------------------- Modes -------------------------------------------------- */
+    
+    /**
+     * The cipher block chaining mode, which does not authenticate the encrypted data.
+     */
+    CBC("AES/CBC/PKCS5Padding"),
+    
+    /**
+     * The Galois/counter mode, which authenticates the encrypted data with a tag of {@link #TAG_LENGTH} bits.
+     */
+    GCM("AES/GCM/NoPadding");
+    
+    /* -------------------------------------------------- Transformation -------------------------------------------------- */
+    
+    private final @Nonnull String transformation;
+    
+    /**
+     * Returns the transformation with which the cipher of this encryption mode is requested.
+     */
+    @Pure
+    public @Nonnull String getTransformation() {
+        return transformation;
+    }
+    
+    /* -------------------------------------------------- Parameters -------------------------------------------------- */
+    
+    /**
+     * Stores the length of the authentication tag in bits.
+     */
+    public static final int TAG_LENGTH = 128;
+    
+    /**
+     * Returns the parameters with which the cipher of this encryption mode is initialized.
+     */
+    @Pure
+    public @Nonnull AlgorithmParameterSpec getParameters(@Nonnull InitializationVector initializationVector) {
+        return this == GCM ? new GCMParameterSpec(TAG_LENGTH, initializationVector.getBytes()) : initializationVector;
+    }
+    
+    /* -------------------------------------------------- Constructor -------------------------------------------------- */
+    
+    private EncryptionMode(@Nonnull String transformation) {
+        this.transformation = transformation;
+    }
+    
+}
@@ -15,8 +15,6 @@
  */
 package net.digitalid.core.symmetrickey;
 
-import java.security.SecureRandom;
-
 import javax.annotation.Nonnull;
 import javax.crypto.spec.IvParameterSpec;
 
@@ -30,6 +28,8 @@ import net.digitalid.utility.validation.annotations.generation.Default;
 import net.digitalid.utility.validation.annotations.size.Size;
 import net.digitalid.utility.validation.annotations.type.Immutable;
 
+import net.digitalid.core.parameters.Randomness;
+
 /**
  * The random initialization vector ensures that the cipher-texts of the same content are different.
  */
@@ -47,7 +47,7 @@ public abstract class InitializationVector extends IvParameterSpec implements Ro
     @Pure
     public static @Capturable @Nonnull @Size(16) byte[] getRandomBytes() {
         final @Nonnull byte[] bytes = new byte[16];
-        new SecureRandom().nextBytes(bytes);
+        Randomness.get().nextBytes(bytes);
         return bytes;
     }
     
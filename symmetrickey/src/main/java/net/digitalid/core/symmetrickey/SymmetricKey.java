@@ -24,7 +24,6 @@ import java.security.Key;
 import java.security.NoSuchAlgorithmException;
 import java.security.Permission;
 import java.security.PermissionCollection;
-import java.security.SecureRandom;
 import java.util.Map;
 
 import javax.annotation.Nonnull;
@@ -58,6 +57,7 @@ import net.digitalid.utility.validation.annotations.size.NonEmpty;
 import net.digitalid.utility.validation.annotations.type.Immutable;
 
 import net.digitalid.core.parameters.Parameters;
+import net.digitalid.core.parameters.Randomness;
 
 /**
  * Symmetric keys are used to encrypt and decrypt byte arrays with the Advanced Encryption Standard (AES).
@@ -134,7 +134,7 @@ public abstract class SymmetricKey extends RootClass {
      */
     @Pure
     public static @Nonnull BigInteger getRandomValue() {
-        return new BigInteger(Parameters.SYMMETRIC_KEY.get(), new SecureRandom());
+        return new BigInteger(Parameters.SYMMETRIC_KEY.get(), Randomness.get());
     }
     
     /**
@@ -174,23 +174,36 @@ public abstract class SymmetricKey extends RootClass {
     /**
      * Stores the mode of the encryption cipher.
      */
-    public static final @Nonnull String MODE = "AES/CBC/PKCS5Padding";
+    public static final @Nonnull String MODE = EncryptionMode.CBC.getTransformation();
     
     /**
-     * Initializes and returns the cipher of this symmetric key.
+     * Initializes and returns the cipher of this symmetric key in the given encryption mode.
+     * In the {@link EncryptionMode#GCM Galois/counter mode}, the same initialization vector
+     * may never be used twice with the same key, which is why it has to be random for each message.
      * 
      * @param cipherMode the cipher mode like Cipher.ENCRYPT_MODE or Cipher.DECRYPT_MODE.
      */
     @Pure
-    public @Nonnull Cipher getCipher(@Nonnull InitializationVector initializationVector, int cipherMode) {
+    public @Nonnull Cipher getCipher(@Nonnull InitializationVector initializationVector, int cipherMode, @Nonnull EncryptionMode encryptionMode) {
         try {
-            final @Nonnull Cipher cipher = Cipher.getInstance(MODE);
-            cipher.init(cipherMode, getKey(), initializationVector);
+            final @Nonnull Cipher cipher = Cipher.getInstance(encryptionMode.getTransformation());
+            cipher.init(cipherMode, getKey(), encryptionMode.getParameters(initializationVector));
             return cipher;
         } catch (@Nonnull NoSuchAlgorithmException | NoSuchPaddingException | InvalidKeyException | InvalidAlgorithmParameterException  exception) {
             throw SupportErrorBuilder.withMessage("Could not initialize the cipher.").withCause(exception).build();
         }
     }
+    
+    /**
+     * Initializes and returns the cipher of this symmetric key in the {@link EncryptionMode#CBC cipher block chaining mode}.
+     * 
+     * @param cipherMode the cipher mode like Cipher.ENCRYPT_MODE or Cipher.DECRYPT_MODE.
+     */
+    @Pure
+    public @Nonnull Cipher getCipher(@Nonnull InitializationVector initializationVector, int cipherMode) {
+        return getCipher(initializationVector, cipherMode, EncryptionMode.CBC);
+    }
+    
     /**
      * Encrypts the indicated section in the given byte array with this symmetric key and the given initialization vector.
      * 
@@ -18,7 +18,7 @@ package net.digitalid.core.testing.providers;
 import java.sql.SQLException;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -73,11 +73,13 @@ public class TestIdentifierResolver extends IdentifierResolver {
     
     /* -------------------------------------------------- Identifier Mapping -------------------------------------------------- */
     
+    private static final @Nonnull AtomicLong nextKey = new AtomicLong(1);
+    
     @Override
     @NonCommitting
     @PureWithSideEffects
     public @Nonnull Identity map(@Nonnull Category category, @Nonnull Identifier address) throws DatabaseException {
-        final long key = Math.abs(ThreadLocalRandom.current().nextLong());
+        final long key = nextKey.getAndIncrement();
         final @Nonnull Identity identity = createIdentity(category, key, address);
         identifiers.put(address, identity);
         keys.put(key, identity);
@@ -0,0 +1,348 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.core.unit.key;
+
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.digitalid.utility.annotations.method.Impure;
+import net.digitalid.utility.annotations.method.Pure;
+import net.digitalid.utility.annotations.method.PureWithSideEffects;
+import net.digitalid.utility.collections.list.FreezableList;
+import net.digitalid.utility.configuration.Configuration;
+import net.digitalid.utility.conversion.converters.Integer64Converter;
+import net.digitalid.utility.conversion.converters.StringConverter;
+import net.digitalid.utility.conversion.exceptions.RecoveryException;
+import net.digitalid.utility.exceptions.UncheckedExceptionBuilder;
+import net.digitalid.utility.initialization.annotations.Initialize;
+import net.digitalid.utility.logging.Log;
+import net.digitalid.utility.threading.NamedThreadFactory;
+import net.digitalid.utility.validation.annotations.math.Positive;
+import net.digitalid.utility.validation.annotations.type.Mutable;
+
+import net.digitalid.database.annotations.transaction.Committing;
+import net.digitalid.database.annotations.transaction.NonCommitting;
+import net.digitalid.database.conversion.SQL;
+import net.digitalid.database.conversion.WhereCondition;
+import net.digitalid.database.conversion.WhereConditionBuilder;
+import net.digitalid.database.exceptions.DatabaseException;
+import net.digitalid.database.exceptions.DatabaseExceptionBuilder;
+import net.digitalid.database.interfaces.Database;
+
+import net.digitalid.core.unit.GeneralUnit;
+
+/**
+ * The key allocator hands out sequential keys from blocks that are claimed in the database,
+ * which keeps the inserts into the tables of the general unit local and allows several processes to share the same database.
+ * A block is claimed by inserting a {@link KeyBlockEntry} in a short transaction on a dedicated thread, which is committed immediately
+ * so that the transaction that needs a new key never fails because another process claimed the same block concurrently.
+ * Once claimed, the keys of a block are shared with all threads of this process. Keys that were allocated in a rolled back transaction are never reused.
+ * <p>
+ * Keys that were allocated randomly before remain valid, since they are spread over the whole positive range of longs,
+ * whereas the sequential keys start at {@link #FIRST_KEY} and are therefore practically never taken already.
+ */
+@Mutable
+public class KeyAllocator {
+    
+    /* -------------------------------------------------- Configuration -------------------------------------------------- */
+    
+    /**
+     * Stores a dummy configuration in order to have an initialization target for table creation.
+     */
+    public static final @Nonnull Configuration<Boolean> configuration = Configuration.with(Boolean.TRUE);
+    
+    /**
+     * The first key of every sequence, which is not zero because zero is used to encode null.
+     */
+    public static final long FIRST_KEY = 1;
+    
+    /**
+     * The number of keys in a block, which must not change as the blocks of all processes have to be aligned.
+     */
+    public static final @Positive int BLOCK_SIZE = 1_024;
+    
+    /**
+     * The maximal number of candidates that are tried in a row when claiming a block.
+     */
+    public static final @Positive int MAXIMAL_ATTEMPTS = 100;
+    
+    /**
+     * Stores the number of milliseconds that an allocation waits for the claim of a new block.
+     */
+    public static final @Nonnull Configuration<@Positive Integer> timeout = Configuration.with(10_000);
+    
+    /* -------------------------------------------------- Creation -------------------------------------------------- */
+    
+    /**
+     * Creates the database table.
+     */
+    @Committing
+    @PureWithSideEffects
+    @Initialize(target = KeyAllocator.class, dependencies = GeneralUnit.class)
+    public static void createTable() throws DatabaseException {
+        SQL.createTable(KeyBlockEntryConverter.INSTANCE, GeneralUnit.INSTANCE);
+    }
+    
+    /* -------------------------------------------------- Claimer -------------------------------------------------- */
+    
+    private static @Nullable ThreadPoolExecutor claimer;
+    
+    /**
+     * Returns the executor whose single thread claims the blocks in its own transactions, which terminates when it is idle.
+     */
+    @Impure
+    private static synchronized @Nonnull ThreadPoolExecutor getClaimer() {
+        if (claimer == null) {
+            claimer = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), NamedThreadFactory.with("KeyAllocator"));
+            claimer.allowCoreThreadTimeOut(true);
+        }
+        return claimer;
+    }
+    
+    /**
+     * Stops the thread that claims the blocks.
+     */
+    @Impure
+    public static synchronized void shutDown() {
+        if (claimer != null) {
+            claimer.shutdownNow();
+            claimer = null;
+        }
+    }
+    
+    /* -------------------------------------------------- Blocks -------------------------------------------------- */
+    
+    /**
+     * A block stores the range of keys that can still be handed out.
+     */
+    private static final class Block {
+        
+        private long next;
+        
+        private final long end;
+        
+        private Block(long start) {
+            this.next = start;
+            this.end = start + BLOCK_SIZE;
+        }
+        
+        @Pure
+        private boolean isExhausted() {
+            return next >= end;
+        }
+        
+    }
+    
+    /**
+     * Stores a random number that identifies the blocks claimed by this allocator.
+     */
+    private final long owner;
+    
+    /**
+     * Stores the current block of each sequence from which all threads allocate keys.
+     */
+    private final @Nonnull Map<@Nonnull String, @Nonnull Block> blocks = new HashMap<>();
+    
+    /**
+     * Stores the start of the next block that is tried to be claimed for each sequence.
+     */
+    private final @Nonnull Map<@Nonnull String, @Nonnull Long> candidates = new HashMap<>();
+    
+    /**
+     * Serializes the claiming of blocks so that the threads which run out of keys at the same time claim only one block.
+     */
+    private final @Nonnull Object claiming = new Object();
+    
+    /**
+     * Creates a key allocator whose blocks are identified by the given owner.
+     * The owner shows whether a claim landed despite a failure, which is why allocators that share the same database need different owners.
+     */
+    KeyAllocator(long owner) {
+        this.owner = owner;
+    }
+    
+    /**
+     * Stores the key allocator of this process.
+     */
+    private static final @Nonnull KeyAllocator instance = new KeyAllocator(ThreadLocalRandom.current().nextLong());
+    
+    /* -------------------------------------------------- Claiming -------------------------------------------------- */
+    
+    /**
+     * Returns the entry of the block with the given start in the given sequence or null if the block has not been claimed.
+     */
+    @NonCommitting
+    @PureWithSideEffects
+    private static @Nullable KeyBlockEntry selectEntry(@Nonnull String sequence, long start) throws DatabaseException {
+        final @Nonnull WhereCondition<Long> whereCondition = WhereConditionBuilder.withConverter(Integer64Converter.INSTANCE).withObject(start).withPrefix("start").build();
+        try {
+            final @Nonnull FreezableList<KeyBlockEntry> entries = SQL.selectAll(KeyBlockEntryConverter.INSTANCE, null, GeneralUnit.INSTANCE, whereCondition);
+            for (@Nonnull KeyBlockEntry entry : entries) {
+                if (entry.getSequence().equals(sequence)) { return entry; }
+            }
+            return null;
+        } catch (@Nonnull RecoveryException exception) {
+            throw UncheckedExceptionBuilder.withCause(exception).build();
+        }
+    }
+    
+    /**
+     * Returns the start of the block that follows the last block of the given sequence that has been claimed by any allocator.
+     */
+    @NonCommitting
+    @PureWithSideEffects
+    private static long selectNextStart(@Nonnull String sequence) throws DatabaseException {
+        long nextStart = FIRST_KEY;
+        final @Nonnull WhereCondition<String> whereCondition = WhereConditionBuilder.withConverter(StringConverter.INSTANCE).withObject(sequence).withPrefix("sequence").build();
+        try {
+            final @Nonnull FreezableList<KeyBlockEntry> entries = SQL.selectAll(KeyBlockEntryConverter.INSTANCE, null, GeneralUnit.INSTANCE, whereCondition);
+            for (@Nonnull KeyBlockEntry entry : entries) {
+                if (entry.getStart() >= nextStart) { nextStart = entry.getStart() + BLOCK_SIZE; }
+            }
+        } catch (@Nonnull RecoveryException exception) {
+            throw UncheckedExceptionBuilder.withCause(exception).build();
+        }
+        return nextStart;
+    }
+    
+    /**
+     * Returns the start of the next block that is tried to be claimed for the given sequence.
+     * Without a candidate, the next block follows the last block that has been claimed by any allocator.
+     */
+    @NonCommitting
+    @PureWithSideEffects
+    private synchronized long nextCandidate(@Nonnull String sequence) throws DatabaseException {
+        @Nullable Long candidate = candidates.get(sequence);
+        if (candidate == null) { candidate = selectNextStart(sequence); }
+        candidates.put(sequence, candidate + BLOCK_SIZE);
+        return candidate;
+    }
+    
+    /**
+     * Forgets the candidate of the given sequence so that the next candidate is read from the database.
+     */
+    @Impure
+    private synchronized void forgetCandidate(@Nonnull String sequence) {
+        candidates.remove(sequence);
+    }
+    
+    /**
+     * Claims a new block for the given sequence and commits the claim.
+     * If the insertion fails, the owner of the block shows whether the claim landed nonetheless or whether another allocator was faster,
+     * in which case the allocator continues after the last block that has been claimed in the meantime.
+     * (This method is only to be called on the thread of the claimer, whose transaction is not shared with any caller.)
+     */
+    @Committing
+    @PureWithSideEffects
+    private @Nonnull Block claim(@Nonnull String sequence) throws DatabaseException {
+        for (int attempt = 1; true; attempt++) {
+            final @Nonnull KeyBlockEntry entry = KeyBlockEntryBuilder.withSequence(sequence).withStart(nextCandidate(sequence)).withOwner(owner).build();
+            try {
+                SQL.insertOrAbort(KeyBlockEntryConverter.INSTANCE, entry, GeneralUnit.INSTANCE);
+                Database.commit();
+                Log.debugging("Claimed the block of keys starting at $ for the sequence $.", entry.getStart(), sequence);
+                return new Block(entry.getStart());
+            } catch (@Nonnull DatabaseException exception) {
+                Database.rollback();
+                final @Nullable KeyBlockEntry claimedEntry = selectEntry(sequence, entry.getStart());
+                Database.commit();
+                if (claimedEntry == null) { throw exception; }
+                if (claimedEntry.getOwner() == owner) {
+                    Log.debugging("Claimed the block of keys starting at $ for the sequence $ although the insertion reported a failure.", entry.getStart(), sequence);
+                    return new Block(entry.getStart());
+                }
+                if (attempt >= MAXIMAL_ATTEMPTS) { throw exception; }
+                Log.debugging("The block of keys starting at $ for the sequence $ was claimed concurrently by another allocator.", entry.getStart(), sequence);
+                forgetCandidate(sequence);
+            }
+        }
+    }
+    
+    /* -------------------------------------------------- Allocation -------------------------------------------------- */
+    
+    /**
+     * Returns the next key of the given sequence from the current block or null if the current block is exhausted.
+     */
+    @Impure
+    private synchronized @Nullable Long allocateFromBlock(@Nonnull String sequence) {
+        final @Nullable Block block = blocks.get(sequence);
+        return block != null && !block.isExhausted() ? block.next++ : null;
+    }
+    
+    /**
+     * Makes the given block the current block of the given sequence and returns its first key.
+     */
+    @Impure
+    private synchronized long allocateFromNewBlock(@Nonnull String sequence, @Nonnull Block block) {
+        blocks.put(sequence, block);
+        return block.next++;
+    }
+    
+    /**
+     * Allocates a new key of the given sequence with this allocator.
+     * 
+     * @see #allocate(java.lang.String)
+     */
+    @NonCommitting
+    @PureWithSideEffects
+    long allocateKey(@Nonnull String sequence) throws DatabaseException {
+        final @Nullable Long key = allocateFromBlock(sequence);
+        if (key != null) { return key; }
+        
+        synchronized (claiming) {
+            final @Nullable Long concurrentKey = allocateFromBlock(sequence);
+            if (concurrentKey != null) { return concurrentKey; }
+            
+            try {
+                return allocateFromNewBlock(sequence, getClaimer().submit(() -> claim(sequence)).get(timeout.get(), TimeUnit.MILLISECONDS));
+            } catch (@Nonnull TimeoutException exception) {
+                // The claim continues in the background and its block is skipped if it lands after all.
+                throw DatabaseExceptionBuilder.withCause(new SQLException("The claim of a new block for the sequence '" + sequence + "' did not complete within " + timeout.get() + " ms, which can happen if the current transaction locks the key blocks.", exception)).build();
+            } catch (@Nonnull ExecutionException exception) {
+                final @Nullable Throwable cause = exception.getCause();
+                if (cause instanceof DatabaseException) { throw (DatabaseException) cause; }
+                if (cause instanceof RuntimeException) { throw (RuntimeException) cause; }
+                if (cause instanceof Error) { throw (Error) cause; }
+                throw UncheckedExceptionBuilder.withCause(exception).build();
+            } catch (@Nonnull InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                throw UncheckedExceptionBuilder.withCause(exception).build();
+            }
+        }
+    }
+    
+    /**
+     * Allocates a new key of the given sequence, which is unique among all processes that share the same database.
+     * The allocation never fails the current transaction because of a concurrent claim and does not depend on its outcome.
+     * The keys of a sequence increase mostly but not strictly monotonically.
+     */
+    @NonCommitting
+    @PureWithSideEffects
+    public static long allocate(@Nonnull String sequence) throws DatabaseException {
+        return instance.allocateKey(sequence);
+    }
+    
+}
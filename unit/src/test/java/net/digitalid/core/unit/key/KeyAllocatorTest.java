@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2017 Synacts GmbH, Switzerland (info@synacts.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.digitalid.core.unit.key;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.annotation.Nonnull;
+
+import net.digitalid.database.interfaces.Database;
+import net.digitalid.database.testing.DatabaseTest;
+
+import org.junit.Test;
+
+public class KeyAllocatorTest extends DatabaseTest {
+    
+    @Test
+    public void testSequentialKeys() throws Exception {
+        final long first = KeyAllocator.allocate("sequential");
+        for (int i = 1; i < 10; i++) {
+            assertThat(KeyAllocator.allocate("sequential")).isEqualTo(first + i);
+        }
+        Database.commit();
+    }
+    
+    @Test
+    public void testAllocationSurvivesRollback() throws Exception {
+        final long first = KeyAllocator.allocate("rollback");
+        Database.rollback();
+        final long second = KeyAllocator.allocate("rollback");
+        Database.commit();
+        assertThat(second).isGreaterThan(first);
+        
+        final @Nonnull KeyAllocator allocator = new KeyAllocator(1);
+        final long third = allocator.allocateKey("rollback");
+        Database.commit();
+        assertThat(third).isGreaterThanOrEqualTo(first + KeyAllocator.BLOCK_SIZE);
+    }
+    
+    @Test
+    public void testAllocatorsSharingTheSameDatabase() throws Exception {
+        final @Nonnull KeyAllocator allocator1 = new KeyAllocator(1);
+        final @Nonnull KeyAllocator allocator2 = new KeyAllocator(2);
+        final @Nonnull Set<Long> keys = new HashSet<>();
+        for (int i = 0; i < 3 * KeyAllocator.BLOCK_SIZE; i++) {
+            assertThat(keys.add(allocator1.allocateKey("shared"))).isTrue();
+            assertThat(keys.add(allocator2.allocateKey("shared"))).isTrue();
+        }
+        Database.commit();
+    }
+    
+}